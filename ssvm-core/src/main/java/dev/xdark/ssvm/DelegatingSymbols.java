@@ -137,6 +137,11 @@ public InstanceClass java_lang_OutOfMemoryError() {
 		return symbols.java_lang_OutOfMemoryError();
 	}
 
+	@Override
+	public InstanceClass java_lang_StackOverflowError() {
+		return symbols.java_lang_StackOverflowError();
+	}
+
 	@Override
 	public InstanceClass java_lang_NegativeArraySizeException() {
 		return symbols.java_lang_NegativeArraySizeException();
@@ -119,6 +119,8 @@
 import dev.xdark.ssvm.execution.rewrite.array.CharArrayProcessor;
 import dev.xdark.ssvm.execution.rewrite.array.DoubleArrayProcessor;
 import dev.xdark.ssvm.execution.rewrite.method.DynamicCallProcessor;
+import dev.xdark.ssvm.execution.rewrite.method.LambdaProcessor;
+import dev.xdark.ssvm.execution.rewrite.method.StringConcatProcessor;
 import dev.xdark.ssvm.execution.rewrite.array.FloatArrayProcessor;
 import dev.xdark.ssvm.execution.rewrite.field.GetFieldByteProcessor;
 import dev.xdark.ssvm.execution.rewrite.field.GetFieldCharProcessor;
@@ -203,6 +205,8 @@
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETFIELD_INT;
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETFIELD_LONG;
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETFIELD_REFERENCE;
+import static dev.xdark.ssvm.asm.VMOpcodes.VM_LAMBDA;
+import static dev.xdark.ssvm.asm.VMOpcodes.VM_STRING_CONCAT;
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETFIELD_SHORT;
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETSTATIC_BOOLEAN;
 import static dev.xdark.ssvm.asm.VMOpcodes.VM_GETSTATIC_BYTE;
@@ -487,6 +491,7 @@ static void jvmtiPrepare(VirtualMachine vm) {
 			map.put("java/lang/invoke/MemberName", klass -> {
 				List<FieldNode> fields = klass.getNode().fields;
 				fields.add(InjectedClassLayout.java_lang_invoke_MemberName_vmindex.newNode());
+				fields.add(InjectedClassLayout.java_lang_invoke_MemberName_vmlink.newNode());
 				for (int i = 0; i < fields.size(); i++) {
 					FieldNode fn = fields.get(i);
 					if ("method".equals(fn.name) && "Ljava/lang/invoke/ResolvedMethodName;".equals(fn.desc)) {
@@ -548,7 +553,7 @@ static void postInitialization(VirtualMachine vm) {
 			}
 		};
 		env.setClassLink(link);
-		try (CloseableLock lock = data.lock()) {
+		try (CloseableLock lock = data.lock(vm.getSafepoint())) {
 			// Instead of copying code, we will just fire ClassLink
 			// for all classes for this JVMTI environment.
 			data.list().forEach(link::invoke);
@@ -805,6 +810,8 @@ static void setInstructions(VirtualMachine vm) {
 
 		// VM opcodes
 		vmi.setProcessor(VM_DYNAMIC_CALL, new DynamicCallProcessor());
+		vmi.setProcessor(VM_LAMBDA, new LambdaProcessor());
+		vmi.setProcessor(VM_STRING_CONCAT, new StringConcatProcessor());
 		vmi.setProcessor(VM_NEW, new VMNewProcessor());
 		vmi.setProcessor(VM_BOOLEAN_NEW_ARRAY, new BooleanArrayProcessor());
 		vmi.setProcessor(VM_CHAR_NEW_ARRAY, new CharArrayProcessor());
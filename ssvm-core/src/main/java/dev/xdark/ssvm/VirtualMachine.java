@@ -41,9 +41,10 @@
 import dev.xdark.ssvm.symbol.Primitives;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.synchronizer.ObjectSynchronizer;
-import dev.xdark.ssvm.synchronizer.java.LockObjectSynchronizer;
+import dev.xdark.ssvm.synchronizer.monitor.MonitorObjectSynchronizer;
 import dev.xdark.ssvm.thread.JavaThread;
 import dev.xdark.ssvm.thread.OSThread;
+import dev.xdark.ssvm.thread.Safepoint;
 import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.thread.ThreadStorage;
 import dev.xdark.ssvm.thread.virtual.VirtualThreadManager;
@@ -70,6 +71,7 @@ public class VirtualMachine implements VMEventCollection {
 	private final ObjectSynchronizer objectSynchronizer;
 	private final MemoryManager memoryManager;
 	private final ClassDefiner classDefiner;
+	private final Safepoint safepoint = new Safepoint();
 	private final ThreadManager threadManager;
 	private final FileManager fileManager;
 	private final NativeLibraryManager nativeLibraryManager;
@@ -155,7 +157,7 @@ protected MemoryAllocator createMemoryAllocator() {
 	}
 
 	protected ObjectSynchronizer createObjectSynchronizer() {
-		return new LockObjectSynchronizer();
+		return new MonitorObjectSynchronizer();
 	}
 
 	protected MemoryManager createMemoryManager() {
@@ -362,6 +364,23 @@ public ThreadManager getThreadManager() {
 		return threadManager;
 	}
 
+	/**
+	 * @return Safepoint.
+	 */
+	public Safepoint getSafepoint() {
+		return safepoint;
+	}
+
+	/**
+	 * Stops all running threads and runs an operation.
+	 * Threads are resumed once the operation completes.
+	 *
+	 * @param operation Operation to run.
+	 */
+	public void runAtSafepoint(Runnable operation) {
+		safepoint.execute(operation);
+	}
+
 	/**
 	 * @return File manager.
 	 */
@@ -533,6 +552,19 @@ public int getJvmVersion() {
 		return Integer.parseInt(classFileVersionProperty) - 44;
 	}
 
+	/**
+	 * Whether implicit exceptions that are repeatedly thrown
+	 * from the same instruction should be replaced with
+	 * preallocated instances without message and stack trace.
+	 * See {@code -XX:+OmitStackTraceInFastThrow} in HotSpot.
+	 * Disabled by default.
+	 *
+	 * @return {@code true} if fast throw is enabled.
+	 */
+	public boolean isOmitStackTraceInFastThrow() {
+		return false;
+	}
+
 	private void init() {
 		ThreadManager threadManager = this.threadManager;
 		try {
@@ -549,7 +581,7 @@ private void init() {
 			internalLink("java/lang/Object");
 			// After we link both, we need to fix all classes who have no mirrors
 			// No classes from system class loader are loaded at this point
-			try (CloseableLock lock = data.lock()) {
+			try (CloseableLock lock = data.lock(safepoint)) {
 				long offset = jlc.getField(
 					InjectedClassLayout.java_lang_Class_id.name(),
 					"I"
@@ -0,0 +1,34 @@
+package dev.xdark.ssvm.asm;
+
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.value.InstanceValue;
+import lombok.Getter;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+/**
+ * VM wrapped instruction for {@link InvokeDynamicInsnNode}
+ * linked through {@code LambdaMetafactory#metafactory}.
+ *
+ * @author xDark
+ */
+@Getter
+public final class LinkedLambdaNode extends DelegatingInsnNode<InvokeDynamicInsnNode> {
+
+	private final InstanceClass lambdaClass;
+	private final JavaField[] captures;
+	private final InstanceValue instance;
+
+	/**
+	 * @param delegate    Backing instruction.
+	 * @param lambdaClass VM synthesized lambda class.
+	 * @param captures    Fields that hold captured arguments.
+	 * @param instance    Shared lambda instance, if nothing is captured.
+	 */
+	public LinkedLambdaNode(InvokeDynamicInsnNode delegate, InstanceClass lambdaClass, JavaField[] captures, InstanceValue instance) {
+		super(delegate, VMOpcodes.VM_LAMBDA);
+		this.lambdaClass = lambdaClass;
+		this.captures = captures;
+		this.instance = instance;
+	}
+}
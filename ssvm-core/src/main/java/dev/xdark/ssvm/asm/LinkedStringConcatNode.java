@@ -0,0 +1,30 @@
+package dev.xdark.ssvm.asm;
+
+import lombok.Getter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+/**
+ * VM wrapped instruction for {@link InvokeDynamicInsnNode}
+ * linked through {@code StringConcatFactory}.
+ *
+ * @author xDark
+ */
+@Getter
+public final class LinkedStringConcatNode extends DelegatingInsnNode<InvokeDynamicInsnNode> {
+
+	private final Type[] descriptorArgs;
+	private final String[] literals;
+
+	/**
+	 * @param delegate Backing instruction.
+	 * @param literals Constant parts of the recipe, {@code literals[i]}
+	 *                 precedes argument {@code i}, the last one follows
+	 *                 all arguments.
+	 */
+	public LinkedStringConcatNode(InvokeDynamicInsnNode delegate, String[] literals) {
+		super(delegate, VMOpcodes.VM_STRING_CONCAT);
+		descriptorArgs = Type.getArgumentTypes(delegate.desc);
+		this.literals = literals;
+	}
+}
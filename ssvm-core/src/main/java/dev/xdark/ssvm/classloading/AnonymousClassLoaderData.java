@@ -1,6 +1,7 @@
 package dev.xdark.ssvm.classloading;
 
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.Safepoint;
 import dev.xdark.ssvm.util.CloseableLock;
 
 import java.util.Collection;
@@ -39,6 +40,11 @@ public CloseableLock lock() {
 		return anonymous.lock();
 	}
 
+	@Override
+	public CloseableLock lock(Safepoint safepoint) {
+		return anonymous.lock(safepoint);
+	}
+
 	@Override
 	public Collection<InstanceClass> list() {
 		return anonymous.list();
@@ -0,0 +1,73 @@
+package dev.xdark.ssvm.classloading;
+
+import dev.xdark.ssvm.util.ClassUtil;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Boot class finder that pulls class bytes
+ * from a memory-mapped {@link ClassArchive}.
+ * Classes are parsed on every lookup.
+ * <p>
+ * Can be combined with other finders via {@link CompositeBootClassFinder}
+ * to fall back to the regular lookup for classes missing in the archive.
+ *
+ * @author xDark
+ */
+public final class ArchivedBootClassFinder implements BootClassFinder {
+
+	private final String javaVersion;
+	private final Map<String, Entry> entries;
+	private final ByteBuffer classData;
+
+	ArchivedBootClassFinder(String javaVersion, Map<String, Entry> entries, ByteBuffer classData) {
+		this.javaVersion = javaVersion;
+		this.entries = entries;
+		this.classData = classData;
+	}
+
+	@Override
+	public ParsedClassData findBootClass(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			return null;
+		}
+		byte[] b = new byte[entry.length];
+		// Do not touch position of the shared buffer
+		ByteBuffer buffer = classData.duplicate();
+		buffer.position(entry.offset);
+		buffer.get(b);
+		ClassReader cr = new ClassReader(b);
+		ClassNode node = ClassUtil.readNode(cr);
+		return new ParsedClassData(cr, node);
+	}
+
+	/**
+	 * @return Java version of the VM that dumped the archive.
+	 */
+	public String getJavaVersion() {
+		return javaVersion;
+	}
+
+	/**
+	 * @return Names of all archived classes.
+	 */
+	public Set<String> getClassNames() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	static final class Entry {
+		final int offset;
+		final int length;
+
+		Entry(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+}
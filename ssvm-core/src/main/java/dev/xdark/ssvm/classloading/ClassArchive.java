@@ -0,0 +1,185 @@
+package dev.xdark.ssvm.classloading;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.util.CloseableLock;
+import lombok.experimental.UtilityClass;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archive of boot class files.
+ * <p>
+ * Unlike CDS archive in HotSpot, only raw class bytes
+ * are stored: archived classes are still parsed, linked and
+ * rewritten when they are loaded. The archive only saves
+ * the lookup through the host class loader resources.
+ * {@code jdk/internal/misc/CDS} keeps reporting that
+ * sharing is disabled.
+ * <p>
+ * Layout of the archive:
+ * <pre>
+ * u4   magic
+ * u2   version
+ * utf  java.version of the VM that dumped the archive
+ * u4   class count
+ * {
+ *   utf name
+ *   u4  class bytes offset, relative to the data section
+ *   u4  class bytes length
+ * } [class count]
+ * u1[] data section
+ * </pre>
+ *
+ * @author xDark
+ */
+@UtilityClass
+public class ClassArchive {
+
+	private final int MAGIC = 0x53535641; // SSVA
+	private final int VERSION = 1;
+
+	/**
+	 * Dumps all classes loaded by the boot loader.
+	 * Classes are written in the order they were defined,
+	 * so that the superclasses always come first.
+	 *
+	 * @param vm   VM to dump classes from.
+	 * @param path Archive path.
+	 * @return Names of the classes that could not be archived.
+	 * @throws IOException If any I/O error occurs.
+	 */
+	public List<String> dump(VirtualMachine vm, Path path) throws IOException {
+		vm.assertInitialized();
+		ClassLoaderData data = vm.getClassLoaders().getClassLoaderData(vm.getMemoryManager().nullValue());
+		List<InstanceClass> classes;
+		try (CloseableLock lock = data.lock(vm.getSafepoint())) {
+			classes = new ArrayList<>(data.list());
+		}
+		classes.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+		List<byte[]> bytes = new ArrayList<>(classes.size());
+		List<String> skipped = new ArrayList<>();
+		for (int i = 0; i < classes.size(); i++) {
+			InstanceClass klass = classes.get(i);
+			byte[] b = classBytes(klass.getClassReader());
+			if (b == null) {
+				skipped.add(klass.getInternalName());
+				classes.remove(i--);
+				continue;
+			}
+			bytes.add(b);
+		}
+		try (OutputStream os = Files.newOutputStream(path);
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			String javaVersion = vm.getProperties().get("java.version");
+			out.writeUTF(javaVersion == null ? "" : javaVersion);
+			out.writeInt(classes.size());
+			int offset = 0;
+			for (int i = 0; i < classes.size(); i++) {
+				InstanceClass klass = classes.get(i);
+				int length = bytes.get(i).length;
+				out.writeUTF(klass.getInternalName());
+				out.writeInt(offset);
+				out.writeInt(length);
+				offset += length;
+			}
+			for (byte[] b : bytes) {
+				out.write(b);
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Maps an archive into memory.
+	 *
+	 * @param path Archive path.
+	 * @return Boot class finder backed by the archive.
+	 * @throws IOException If any I/O error occurs or the archive is malformed.
+	 */
+	public ArchivedBootClassFinder open(Path path) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a class archive: " + path);
+			}
+			int version = buffer.getShort() & 0xffff;
+			if (version != VERSION) {
+				throw new IOException("Unsupported class archive version: " + version);
+			}
+			String javaVersion = readUtf(buffer);
+			int count = buffer.getInt();
+			Map<String, ArchivedBootClassFinder.Entry> entries = new HashMap<>(count + (count >> 1));
+			for (int i = 0; i < count; i++) {
+				String name = readUtf(buffer);
+				int offset = buffer.getInt();
+				int length = buffer.getInt();
+				entries.put(name, new ArchivedBootClassFinder.Entry(offset, length));
+			}
+			ByteBuffer classData = buffer.slice();
+			for (ArchivedBootClassFinder.Entry entry : entries.values()) {
+				if (entry.offset < 0 || entry.length < 0 || entry.offset + entry.length > classData.limit()) {
+					throw new IOException("Corrupted class archive: " + path);
+				}
+			}
+			return new ArchivedBootClassFinder(javaVersion, entries, classData);
+		} catch (RuntimeException ex) {
+			throw new IOException("Corrupted class archive: " + path, ex);
+		}
+	}
+
+	private byte[] classBytes(ClassReader reader) {
+		byte[] b = reader.b;
+		if (b.length >= 4 && (b[0] & 0xff) == 0xCA && (b[1] & 0xff) == 0xFE && (b[2] & 0xff) == 0xBA && (b[3] & 0xff) == 0xBE) {
+			return b;
+		}
+		// Class bytes are a slice of some bigger array,
+		// bounds are unknown, so the class is written again.
+		// Constant pool is copied as is
+		try {
+			ClassWriter writer = new ClassWriter(reader, 0);
+			reader.accept(writer, 0);
+			return writer.toByteArray();
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private String readUtf(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xffff;
+		char[] chars = new char[length];
+		int count = 0;
+		int end = buffer.position() + length;
+		while (buffer.position() < end) {
+			int c = buffer.get() & 0xff;
+			if (c < 0x80) {
+				chars[count++] = (char) c;
+			} else if ((c >> 5) == 0x6) {
+				chars[count++] = (char) (((c & 0x1f) << 6) | (buffer.get() & 0x3f));
+			} else {
+				chars[count++] = (char) (((c & 0x0f) << 12) | ((buffer.get() & 0x3f) << 6) | (buffer.get() & 0x3f));
+			}
+		}
+		return new String(chars, 0, count);
+	}
+}
@@ -1,6 +1,7 @@
 package dev.xdark.ssvm.classloading;
 
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.Safepoint;
 import dev.xdark.ssvm.util.CloseableLock;
 
 import java.util.Collection;
@@ -34,6 +35,22 @@ public interface ClassLoaderData {
 	 */
 	CloseableLock lock();
 
+	/**
+	 * Acquires the lock, waiting for it in a safe region,
+	 * as the owner may be defining a class and stopped at the safepoint.
+	 *
+	 * @param safepoint Safepoint to wait in.
+	 * @return Acquired lock.
+	 */
+	default CloseableLock lock(Safepoint safepoint) {
+		int holds = safepoint.enterSafeRegion();
+		try {
+			return lock();
+		} finally {
+			safepoint.exitSafeRegion(holds);
+		}
+	}
+
 	/**
 	 * Returns a collection of all classes.
 	 * The returned collection is unmodifiable and not thread-safe,
@@ -1,65 +1,60 @@
 package dev.xdark.ssvm.classloading;
 
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.Safepoint;
 import dev.xdark.ssvm.util.CloseableLock;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Simple class storage.
+ * <p>
+ * Lookups and registrations do not take the lock,
+ * it is only used to serialize class definition.
  *
  * @author xDark
  */
 public final class SimpleClassLoaderData implements ClassLoaderData {
 
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
-	private final Map<String, InstanceClass> table = new HashMap<>();
+	private final Lock lock = new ReentrantLock();
+	private final Map<String, InstanceClass> table = new ConcurrentHashMap<>();
 	private final Collection<InstanceClass> classesView = Collections.unmodifiableCollection(table.values());
 	private final CloseableLock unlocker;
 
 	public SimpleClassLoaderData() {
-		// This HAS to be a write lock, because
-		// locks cannot be upgraded.
-		Lock lock = this.lock.writeLock();
+		Lock lock = this.lock;
 		unlocker = lock::unlock;
 	}
 
 	@Override
 	public InstanceClass getClass(String name) {
-		Lock lock = this.lock.readLock();
-		lock.lock();
-		try {
-			return table.get(name);
-		} finally {
-			lock.unlock();
-		}
+		return table.get(name);
 	}
 
 	@Override
 	public boolean linkClass(InstanceClass jc) {
-		Lock lock = this.lock.writeLock();
-		lock.lock();
-		try {
-			String name = jc.getInternalName();
-			return table.putIfAbsent(name, jc) == null;
-		} finally {
-			lock.unlock();
-		}
+		String name = jc.getInternalName();
+		return table.putIfAbsent(name, jc) == null;
 	}
 
 	@Override
 	public CloseableLock lock() {
-		Lock lock = this.lock.writeLock();
+		Lock lock = this.lock;
 		lock.lock();
 		return unlocker;
 	}
 
+	@Override
+	public CloseableLock lock(Safepoint safepoint) {
+		safepoint.lock(lock);
+		return unlocker;
+	}
+
 	@Override
 	public Collection<InstanceClass> list() {
 		return classesView;
@@ -13,8 +13,9 @@
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Simple class loaders storage.
@@ -23,11 +24,11 @@
  */
 public class SimpleClassLoaders implements ClassLoaders {
 
-	private final Set<InstanceValue> classLoaders = new HashSet<>();
+	private final Set<InstanceValue> classLoaders = ConcurrentHashMap.newKeySet();
 	private final Set<InstanceValue> classLoadersView = Collections.unmodifiableSet(classLoaders);
 	private final MetadataStorage<ClassLoaderData> classLoaderMap = new SimpleMetadataStorage<>();
 	private final VirtualMachine vm;
-	private ClassLoaderData bootClassLoaderData;
+	private final AtomicReference<ClassLoaderData> bootClassLoaderData = new AtomicReference<>();
 	private long anonymousClassLoaderOffset = -1L;
 
 	public SimpleClassLoaders(VirtualMachine vm) {
@@ -35,12 +36,13 @@ public SimpleClassLoaders(VirtualMachine vm) {
 	}
 
 	@Override
-	public synchronized ClassLoaderData createClassLoaderData(ObjectValue classLoader) {
+	public ClassLoaderData createClassLoaderData(ObjectValue classLoader) {
 		if (classLoader.isNull()) {
-			if (bootClassLoaderData != null) {
+			ClassLoaderData data = createClassLoaderData();
+			if (!bootClassLoaderData.compareAndSet(null, data)) {
 				throw new IllegalStateException("Class loader data for boot loader is already set");
 			}
-			return bootClassLoaderData = createClassLoaderData();
+			return data;
 		} else {
 			VMOperations ops = vm.getOperations();
 			InstanceValue instance = (InstanceValue) classLoader;
@@ -75,7 +77,7 @@ public ClassLoaderData getClassLoaderData(JavaClass klass) {
 	@Override
 	public ClassLoaderData getClassLoaderData(ObjectValue classLoader) {
 		if (classLoader.isNull()) {
-			return bootClassLoaderData;
+			return bootClassLoaderData.get();
 		}
 		return classLoaderMap.lookup(vm.getOperations().getInt(classLoader, InjectedClassLayout.java_lang_ClassLoader_oop.name()));
 	}
@@ -4,6 +4,8 @@
 import dev.xdark.ssvm.api.VMInterface;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.thread.Safepoint;
+import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.util.AsmUtil;
 import dev.xdark.ssvm.value.InstanceValue;
 import lombok.experimental.UtilityClass;
@@ -31,6 +33,13 @@ public void execute(ExecutionContext<?> ctx) {
 		MethodNode mn = jm.getNode();
 		InsnList instructions = mn.instructions;
 		List<InstructionInterceptor> interceptors = vmi.getInstructionInterceptors();
+		Safepoint safepoint = ctx.getVM().getSafepoint();
+		ThreadManager threadManager = ctx.getVM().getThreadManager();
+		safepoint.poll();
+		InstanceValue pending = threadManager.pollAsyncException();
+		if (pending != null) {
+			throw new VMException(pending);
+		}
 		int iter = 0;
 		exec:
 		while (true) {
@@ -42,6 +51,11 @@ public void execute(ExecutionContext<?> ctx) {
 				int pos = ctx.getInsnPosition();
 				ctx.setInsnPosition(pos + 1);
 				AbstractInsnNode insn = instructions.get(pos);
+				if (!AsmUtil.isValid(insn)) {
+					// Another thread rewrote the instruction
+					// after we read it, fetch the replacement.
+					insn = AsmUtil.getInstruction(instructions, pos);
+				}
 				if (insn instanceof LineNumberNode) {
 					ctx.setLineNumber(((LineNumberNode) insn).line);
 				}
@@ -57,6 +71,16 @@ public void execute(ExecutionContext<?> ctx) {
 				if (processor.execute(insn, ctx) == Result.ABORT) {
 					break;
 				}
+				if (ctx.getInsnPosition() <= pos) {
+					// Backward branch
+					safepoint.poll();
+					InstanceValue asyncException = threadManager.pollAsyncException();
+					if (asyncException != null) {
+						// Thrown by the branch instruction
+						ctx.setInsnPosition(pos + 1);
+						throw new VMException(asyncException);
+					}
+				}
 			} catch (VMException ex) {
 				handleExceptionCaught(ctx, ex);
 			}
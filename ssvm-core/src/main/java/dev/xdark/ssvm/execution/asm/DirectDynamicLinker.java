@@ -0,0 +1,240 @@
+package dev.xdark.ssvm.execution.asm;
+
+import dev.xdark.ssvm.asm.LinkedLambdaNode;
+import dev.xdark.ssvm.asm.LinkedStringConcatNode;
+import dev.xdark.ssvm.asm.Modifier;
+import dev.xdark.ssvm.classloading.ClassDefinitionOption;
+import dev.xdark.ssvm.execution.ExecutionContext;
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.InstanceValue;
+import lombok.experimental.UtilityClass;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Links well-known bootstrap methods without
+ * going through {@code MethodHandleNatives#linkCallSite}.
+ *
+ * @author xDark
+ */
+@UtilityClass
+class DirectDynamicLinker {
+
+	private final String LAMBDA_METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+	private final String METAFACTORY_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;";
+	private final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+	private final char TAG_ARG = '\u0001';
+	private final char TAG_CONST = '\u0002';
+	private final AtomicInteger lambdaCounter = new AtomicInteger();
+
+	/**
+	 * @param insn Instruction to link.
+	 * @param ctx  Execution context.
+	 * @return Linked instruction or {@code null},
+	 * if the bootstrap method is not recognized.
+	 */
+	AbstractInsnNode link(InvokeDynamicInsnNode insn, ExecutionContext<?> ctx) {
+		Handle bsm = insn.bsm;
+		if (bsm.getTag() != H_INVOKESTATIC) {
+			return null;
+		}
+		String owner = bsm.getOwner();
+		String name = bsm.getName();
+		if (LAMBDA_METAFACTORY.equals(owner)) {
+			if ("metafactory".equals(name) && METAFACTORY_DESC.equals(bsm.getDesc())) {
+				return linkLambda(insn, ctx);
+			}
+		} else if (STRING_CONCAT_FACTORY.equals(owner)) {
+			Object[] bsmArgs = insn.bsmArgs;
+			if ("makeConcatWithConstants".equals(name) && bsmArgs.length != 0 && bsmArgs[0] instanceof String) {
+				return linkStringConcat(insn, (String) bsmArgs[0], bsmArgs);
+			}
+			if ("makeConcat".equals(name)) {
+				return linkStringConcat(insn, null, bsmArgs);
+			}
+		}
+		return null;
+	}
+
+	private AbstractInsnNode linkStringConcat(InvokeDynamicInsnNode insn, String recipe, Object[] bsmArgs) {
+		int argCount = Type.getArgumentTypes(insn.desc).length;
+		String[] literals;
+		if (recipe == null) {
+			literals = new String[argCount + 1];
+			Arrays.fill(literals, "");
+		} else {
+			List<String> parts = new ArrayList<>(argCount + 1);
+			StringBuilder builder = new StringBuilder();
+			int constant = 1;
+			for (int i = 0, j = recipe.length(); i < j; i++) {
+				char c = recipe.charAt(i);
+				if (c == TAG_ARG) {
+					parts.add(builder.toString());
+					builder.setLength(0);
+				} else if (c == TAG_CONST) {
+					if (constant == bsmArgs.length) {
+						return null;
+					}
+					Object value = bsmArgs[constant++];
+					if (!(value instanceof String || value instanceof Number)) {
+						return null;
+					}
+					builder.append(value);
+				} else {
+					builder.append(c);
+				}
+			}
+			parts.add(builder.toString());
+			if (parts.size() != argCount + 1) {
+				return null;
+			}
+			literals = parts.toArray(new String[0]);
+		}
+		return new LinkedStringConcatNode(insn, literals);
+	}
+
+	private AbstractInsnNode linkLambda(InvokeDynamicInsnNode insn, ExecutionContext<?> ctx) {
+		Object[] bsmArgs = insn.bsmArgs;
+		if (!(bsmArgs[0] instanceof Type) || !(bsmArgs[1] instanceof Handle) || !(bsmArgs[2] instanceof Type)) {
+			return null;
+		}
+		Type samType = (Type) bsmArgs[0];
+		Handle impl = (Handle) bsmArgs[1];
+		Type instantiatedType = (Type) bsmArgs[2];
+		Type lambdaInterface = Type.getReturnType(insn.desc);
+		Type[] captured = Type.getArgumentTypes(insn.desc);
+		Type[] implArgs = Type.getArgumentTypes(impl.getDesc());
+		Type implOwner = Type.getObjectType(impl.getOwner());
+		Type[] implParams;
+		Type implReturn;
+		int opcode;
+		switch (impl.getTag()) {
+			case H_INVOKESTATIC:
+				implParams = implArgs;
+				implReturn = Type.getReturnType(impl.getDesc());
+				opcode = INVOKESTATIC;
+				break;
+			case H_INVOKEVIRTUAL:
+			case H_INVOKEINTERFACE:
+			case H_INVOKESPECIAL:
+				implParams = new Type[implArgs.length + 1];
+				implParams[0] = implOwner;
+				System.arraycopy(implArgs, 0, implParams, 1, implArgs.length);
+				implReturn = Type.getReturnType(impl.getDesc());
+				opcode = impl.getTag() == H_INVOKEVIRTUAL ? INVOKEVIRTUAL : impl.getTag() == H_INVOKEINTERFACE ? INVOKEINTERFACE : INVOKESPECIAL;
+				break;
+			case H_NEWINVOKESPECIAL:
+				implParams = implArgs;
+				implReturn = implOwner;
+				opcode = INVOKESPECIAL;
+				break;
+			default:
+				return null;
+		}
+		Type[] samParams = samType.getArgumentTypes();
+		Type[] instantiatedParams = instantiatedType.getArgumentTypes();
+		Type samReturn = samType.getReturnType();
+		if (lambdaInterface.getSort() != Type.OBJECT
+			|| captured.length + samParams.length != implParams.length
+			|| instantiatedParams.length != samParams.length
+			|| samReturn.getSort() != Type.VOID && implReturn.getSort() == Type.VOID) {
+			return null;
+		}
+		InstanceClass caller = ctx.getOwner();
+		if (Modifier.isHiddenMember(caller.getNode().access)) {
+			// Hidden callers cannot be referenced by name from
+			// the generated class, let the metafactory handle them
+			return null;
+		}
+		String className = caller.getInternalName() + "$$Lambda$" + lambdaCounter.incrementAndGet();
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, className, null, "java/lang/Object", new String[]{lambdaInterface.getInternalName()});
+		for (int i = 0; i < captured.length; i++) {
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "arg$" + (i + 1), captured[i].getDescriptor(), null, null).visitEnd();
+		}
+		MethodVisitor init = cw.visitMethod(ACC_PRIVATE, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(ALOAD, 0);
+		init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		init.visitInsn(RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+		String samDesc = samType.getDescriptor();
+		GeneratorAdapter ga = new GeneratorAdapter(cw.visitMethod(ACC_PUBLIC, insn.name, samDesc, null, null), ACC_PUBLIC, insn.name, samDesc);
+		ga.visitCode();
+		if (impl.getTag() == H_NEWINVOKESPECIAL) {
+			ga.newInstance(implOwner);
+			ga.dup();
+		}
+		Type lambdaType = Type.getObjectType(className);
+		for (int i = 0; i < captured.length; i++) {
+			ga.loadThis();
+			ga.getField(lambdaType, "arg$" + (i + 1), captured[i]);
+			convert(ga, captured[i], implParams[i]);
+		}
+		for (int i = 0; i < samParams.length; i++) {
+			ga.loadArg(i);
+			convert(ga, samParams[i], instantiatedParams[i]);
+			convert(ga, instantiatedParams[i], implParams[captured.length + i]);
+		}
+		ga.visitMethodInsn(opcode, impl.getOwner(), impl.getName(), impl.getDesc(), impl.isInterface());
+		if (samReturn.getSort() == Type.VOID) {
+			if (implReturn.getSize() == 2) {
+				ga.pop2();
+			} else if (implReturn.getSort() != Type.VOID) {
+				ga.pop();
+			}
+		} else {
+			convert(ga, implReturn, samReturn);
+		}
+		ga.returnValue();
+		ga.endMethod();
+		cw.visitEnd();
+		byte[] bytes = cw.toByteArray();
+
+		VMOperations ops = ctx.getOperations();
+		InstanceClass lambdaClass = ops.defineClass(caller.getClassLoader(), className, bytes, 0, bytes.length, ctx.getMemoryManager().nullValue(), "__Lambda", ClassDefinitionOption.ANONYMOUS);
+		lambdaClass.getNode().access |= Modifier.ACC_VM_HIDDEN;
+		ops.initialize(lambdaClass);
+		JavaField[] captures = new JavaField[captured.length];
+		for (int i = 0; i < captured.length; i++) {
+			captures[i] = lambdaClass.getField("arg$" + (i + 1), captured[i].getDescriptor());
+		}
+		// Non-capturing lambdas are shared, same as in HotSpot
+		InstanceValue instance = captured.length == 0 ? ops.allocateInstance(lambdaClass) : null;
+		return new LinkedLambdaNode(insn, lambdaClass, captures, instance);
+	}
+
+	private void convert(GeneratorAdapter ga, Type from, Type to) {
+		if (from.equals(to)) {
+			return;
+		}
+		boolean fromPrimitive = from.getSort() < Type.ARRAY;
+		boolean toPrimitive = to.getSort() < Type.ARRAY;
+		if (fromPrimitive) {
+			if (toPrimitive) {
+				ga.cast(from, to);
+			} else {
+				ga.valueOf(from);
+			}
+		} else if (toPrimitive) {
+			ga.unbox(to);
+		} else if (!"java/lang/Object".equals(to.getInternalName())) {
+			ga.checkCast(to);
+		}
+	}
+}
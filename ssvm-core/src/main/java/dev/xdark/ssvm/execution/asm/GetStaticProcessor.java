@@ -37,7 +37,7 @@ public Result execute(FieldInsnNode insn, ExecutionContext<?> ctx) {
 					opcode = VM_GETSTATIC_BOOLEAN + (sort - 1);
 				}
 				InsnList list = ctx.getMethod().getNode().instructions;
-				list.set(insn, new VMFieldInsnNode(insn, opcode, field));
+				AsmUtil.replace(list, insn, new VMFieldInsnNode(insn, opcode, field));
 				ops.initialize(field.getOwner());
 			}
 		}
@@ -4,7 +4,9 @@
 import dev.xdark.ssvm.execution.ExecutionContext;
 import dev.xdark.ssvm.execution.InstructionProcessor;
 import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.util.AsmUtil;
 import dev.xdark.ssvm.value.InstanceValue;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 
@@ -17,10 +19,16 @@ public final class InvokeDynamicLinkerProcessor implements InstructionProcessor<
 
 	@Override
 	public Result execute(InvokeDynamicInsnNode insn, ExecutionContext<?> ctx) {
-		InstanceValue linked = ctx.getOperations().linkCall(insn, ctx.getOwner());
+		// Lambdas and string concatenation are linked directly,
+		// so that their call sites do not interpret LambdaForms
+		AbstractInsnNode direct = DirectDynamicLinker.link(insn, ctx);
+		if (direct == null) {
+			InstanceValue linked = ctx.getOperations().linkCall(insn, ctx.getOwner());
+			direct = new LinkedDynamicCallNode(insn, linked);
+		}
 		// Rewrite instruction
 		InsnList list = ctx.getMethod().getNode().instructions;
-		list.set(insn, new LinkedDynamicCallNode(insn, linked));
+		AsmUtil.replace(list, insn, direct);
 		// Move insn position backwards so that VM visits
 		// us yet again.
 		ctx.setInsnPosition(ctx.getInsnPosition() - 1);
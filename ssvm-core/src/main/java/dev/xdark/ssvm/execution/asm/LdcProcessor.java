@@ -26,26 +26,26 @@ public Result execute(LdcInsnNode insn, ExecutionContext<?> ctx) {
 			InsnList list = ctx.getMethod().getNode().instructions;
 			Object cst = insn.cst;
 			if (cst instanceof ObjectValue) {
-				list.set(insn, new ConstantReferenceInsnNode(insn, (ObjectValue) cst));
+				AsmUtil.replace(list, insn, new ConstantReferenceInsnNode(insn, (ObjectValue) cst));
 			} else if (cst instanceof Long) {
-				list.set(insn, new ConstantLongInsnNode(insn, (long) cst));
+				AsmUtil.replace(list, insn, new ConstantLongInsnNode(insn, (long) cst));
 			} else if (cst instanceof Double) {
-				list.set(insn, new ConstantDoubleInsnNode(insn, (double) cst));
+				AsmUtil.replace(list, insn, new ConstantDoubleInsnNode(insn, (double) cst));
 			} else if (cst instanceof Integer || cst instanceof Short || cst instanceof Byte) {
-				list.set(insn, new ConstantIntInsnNode(insn, (int) (Number) cst));
+				AsmUtil.replace(list, insn, new ConstantIntInsnNode(insn, (int) (Number) cst));
 			} else if (cst instanceof Float) {
-				list.set(insn, new ConstantFloatInsnNode(insn, (float) cst));
+				AsmUtil.replace(list, insn, new ConstantFloatInsnNode(insn, (float) cst));
 			} else if (cst instanceof Character) {
-				list.set(insn, new ConstantIntInsnNode(insn, (char) cst));
+				AsmUtil.replace(list, insn, new ConstantIntInsnNode(insn, (char) cst));
 			} else if (cst instanceof String) {
-				list.set(insn, new ConstantReferenceInsnNode(insn, ctx.getVM().getStringPool().intern((String) cst)));
+				AsmUtil.replace(list, insn, new ConstantReferenceInsnNode(insn, ctx.getVM().getStringPool().intern((String) cst)));
 			} else if (cst instanceof ConstantDynamic) {
 				ConstantDynamic dynamic = (ConstantDynamic) cst;
-				list.set(insn, new ConstantDynamicInsnNode(insn,
+				AsmUtil.replace(list, insn, new ConstantDynamicInsnNode(insn,
 						ctx.getOperations().linkDynamic(dynamic, ctx.getOwner()), dynamic));
 			} else {
 				ObjectValue ref = ctx.getOperations().referenceValue(cst);
-				list.set(insn, new ConstantReferenceInsnNode(insn, ref));
+				AsmUtil.replace(list, insn, new ConstantReferenceInsnNode(insn, ref));
 			}
 			ctx.setInsnPosition(ctx.getInsnPosition() - 1);
 		}
@@ -4,6 +4,7 @@
 import dev.xdark.ssvm.asm.VMOpcodes;
 import dev.xdark.ssvm.execution.ExecutionContext;
 import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.util.AsmUtil;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodInsnNode;
 
@@ -17,7 +18,7 @@ public final class SpecialCallProcessor extends CallProcessor {
 	@Override
 	public Result execute(MethodInsnNode insn, ExecutionContext<?> ctx) {
 		InsnList list = ctx.getMethod().getNode().instructions;
-		list.set(insn, new VMCallInsnNode(insn, VMOpcodes.VM_INVOKESPECIAL));
+		AsmUtil.replace(list, insn, new VMCallInsnNode(insn, VMOpcodes.VM_INVOKESPECIAL));
 		ctx.setInsnPosition(ctx.getInsnPosition() - 1);
 		return Result.CONTINUE;
 	}
@@ -19,7 +19,7 @@ public final class StaticCallProcessor extends CallProcessor {
 	public Result execute(MethodInsnNode insn, ExecutionContext<?> ctx) {
 		if (AsmUtil.isValid(insn)) {
 			InsnList list = ctx.getMethod().getNode().instructions;
-			list.set(insn, new VMCallInsnNode(insn, VMOpcodes.VM_INVOKESTATIC));
+			AsmUtil.replace(list, insn, new VMCallInsnNode(insn, VMOpcodes.VM_INVOKESTATIC));
 		}
 		ctx.setInsnPosition(ctx.getInsnPosition() - 1);
 		return Result.CONTINUE;
@@ -0,0 +1,66 @@
+package dev.xdark.ssvm.execution.rewrite.method;
+
+import dev.xdark.ssvm.asm.LinkedLambdaNode;
+import dev.xdark.ssvm.execution.ExecutionContext;
+import dev.xdark.ssvm.execution.InstructionProcessor;
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.execution.Stack;
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.value.InstanceValue;
+
+import static org.objectweb.asm.Type.*;
+
+/**
+ * Processor for invokedynamic instructions
+ * linked to VM synthesized lambda classes.
+ *
+ * @author xDark
+ */
+public final class LambdaProcessor implements InstructionProcessor<LinkedLambdaNode> {
+
+	@Override
+	public Result execute(LinkedLambdaNode insn, ExecutionContext<?> ctx) {
+		Stack stack = ctx.getStack();
+		InstanceValue instance = insn.getInstance();
+		if (instance != null) {
+			stack.pushReference(instance);
+			return Result.CONTINUE;
+		}
+		instance = ctx.getOperations().allocateInstance(insn.getLambdaClass());
+		MemoryData data = instance.getData();
+		JavaField[] captures = insn.getCaptures();
+		for (int i = captures.length - 1; i >= 0; i--) {
+			JavaField field = captures[i];
+			long offset = field.getOffset();
+			switch (field.getType().getSort()) {
+				case BOOLEAN:
+				case BYTE:
+					data.writeByte(offset, stack.popByte());
+					break;
+				case CHAR:
+					data.writeChar(offset, stack.popChar());
+					break;
+				case SHORT:
+					data.writeShort(offset, stack.popShort());
+					break;
+				case INT:
+					data.writeInt(offset, stack.popInt());
+					break;
+				case FLOAT:
+					data.writeInt(offset, Float.floatToRawIntBits(stack.popFloat()));
+					break;
+				case LONG:
+					data.writeLong(offset, stack.popLong());
+					break;
+				case DOUBLE:
+					data.writeLong(offset, Double.doubleToRawLongBits(stack.popDouble()));
+					break;
+				default:
+					ctx.getMemoryManager().writeValue(instance, offset, stack.popReference());
+			}
+		}
+		stack.pushReference(instance);
+		return Result.CONTINUE;
+	}
+}
@@ -0,0 +1,93 @@
+package dev.xdark.ssvm.execution.rewrite.method;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.asm.LinkedStringConcatNode;
+import dev.xdark.ssvm.execution.ExecutionContext;
+import dev.xdark.ssvm.execution.InstructionProcessor;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.execution.Stack;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.ObjectValue;
+import org.objectweb.asm.Type;
+
+import static org.objectweb.asm.Type.*;
+
+/**
+ * Processor for invokedynamic instructions
+ * linked to native string concatenation.
+ *
+ * @author xDark
+ */
+public final class StringConcatProcessor implements InstructionProcessor<LinkedStringConcatNode> {
+
+	@Override
+	public Result execute(LinkedStringConcatNode insn, ExecutionContext<?> ctx) {
+		Stack stack = ctx.getStack();
+		Type[] args = insn.getDescriptorArgs();
+		// Pop everything first, toString() of the arguments
+		// must be called left to right, as javac does
+		Object[] values = new Object[args.length];
+		for (int i = args.length - 1; i >= 0; i--) {
+			Object value;
+			switch (args[i].getSort()) {
+				case BOOLEAN:
+					value = String.valueOf(stack.popInt() != 0);
+					break;
+				case CHAR:
+					value = String.valueOf(stack.popChar());
+					break;
+				case BYTE:
+				case SHORT:
+				case INT:
+					value = String.valueOf(stack.popInt());
+					break;
+				case FLOAT:
+					value = String.valueOf(stack.popFloat());
+					break;
+				case LONG:
+					value = String.valueOf(stack.popLong());
+					break;
+				case DOUBLE:
+					value = String.valueOf(stack.popDouble());
+					break;
+				default:
+					value = stack.popReference();
+			}
+			values[i] = value;
+		}
+		String[] literals = insn.getLiterals();
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			builder.append(literals[i]);
+			if (value instanceof ObjectValue) {
+				builder.append(stringValueOf(ctx, (ObjectValue) value));
+			} else {
+				builder.append((String) value);
+			}
+		}
+		builder.append(literals[values.length]);
+		stack.pushReference(ctx.getOperations().newUtf8(builder.toString()));
+		return Result.CONTINUE;
+	}
+
+	private static String stringValueOf(ExecutionContext<?> ctx, ObjectValue value) {
+		if (value.isNull()) {
+			return "null";
+		}
+		VirtualMachine vm = ctx.getVM();
+		VMOperations ops = ctx.getOperations();
+		if (value.getJavaClass() != vm.getSymbols().java_lang_String()) {
+			JavaMethod toString = vm.getRuntimeResolver().resolveVirtualMethod(value, "toString", "()Ljava/lang/String;");
+			Locals locals = vm.getThreadStorage().newLocals(toString);
+			locals.setReference(0, value);
+			value = ops.invokeReference(toString, locals);
+			if (value.isNull()) {
+				return "null";
+			}
+		}
+		return ops.readUtf8(value);
+	}
+}
@@ -1,6 +1,7 @@
 package dev.xdark.ssvm.filesystem;
 
 import dev.xdark.ssvm.io.Handle;
+import dev.xdark.ssvm.io.HandleTable;
 import dev.xdark.ssvm.util.IOUtil;
 
 import java.io.*;
@@ -9,9 +10,9 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.zip.ZipEntry;
 
 /**
@@ -22,9 +23,10 @@
  */
 public class HostFileManager implements FileManager {
 
-	protected final Map<Handle, InputStream> inputs = new HashMap<>();
-	protected final Map<Handle, OutputStream> outputs = new HashMap<>();
-	protected final Map<Handle, ZipFile> zipFiles = new HashMap<>();
+	// Placeholder for descriptors that are not bound to a stream yet
+	private static final Object RESERVED = new Object();
+	// Input and output streams, zip files
+	protected final HandleTable<Object> handles = new HandleTable<>();
 
 	protected final InputStream stdin;
 	protected final OutputStream stdout;
@@ -45,22 +47,50 @@ public HostFileManager() {
 		this(System.in, System.out, System.err);
 	}
 
+	/**
+	 * @return Snapshot of open input streams.
+	 * @deprecated Descriptors are stored in {@link #handles}.
+	 */
+	@Deprecated
+	protected Map<Handle, InputStream> inputs() {
+		return snapshot(InputStream.class);
+	}
+
+	/**
+	 * @return Snapshot of open output streams.
+	 * @deprecated Descriptors are stored in {@link #handles}.
+	 */
+	@Deprecated
+	protected Map<Handle, OutputStream> outputs() {
+		return snapshot(OutputStream.class);
+	}
+
+	/**
+	 * @return Snapshot of open zip files.
+	 * @deprecated Descriptors are stored in {@link #handles}.
+	 */
+	@Deprecated
+	protected Map<Handle, ZipFile> zipFiles() {
+		return snapshot(ZipFile.class);
+	}
+
 	@Override
-	public synchronized InputStream getFdIn(long handle) {
-		return inputs.get(Handle.threadLocal(handle));
+	public InputStream getFdIn(long handle) {
+		Object value = handles.get(handle);
+		return value instanceof InputStream ? (InputStream) value : null;
 	}
 
 	@Override
-	public synchronized OutputStream getFdOut(long handle) {
-		return outputs.get(Handle.threadLocal(handle));
+	public OutputStream getFdOut(long handle) {
+		Object value = handles.get(handle);
+		return value instanceof OutputStream ? (OutputStream) value : null;
 	}
 
 	@Override
-	public synchronized long getRealHandle(long handle) {
-		Handle h = Handle.threadLocal(handle);
+	public long getRealHandle(long handle) {
 		try {
 			FileDescriptor fd = null;
-			InputStream in = inputs.get(h);
+			InputStream in = getFdIn(handle);
 			if (in != null) {
 				if (in instanceof FileInputStream) {
 					fd = ((FileInputStream) in).getFD();
@@ -69,7 +99,7 @@ public synchronized long getRealHandle(long handle) {
 				}
 			}
 			if (fd == null) {
-				OutputStream out = outputs.get(h);
+				OutputStream out = getFdOut(handle);
 				if (out != null) {
 					if (out instanceof FileOutputStream) {
 						fd = ((FileOutputStream) out).getFD();
@@ -89,49 +119,29 @@ public synchronized long getRealHandle(long handle) {
 	}
 
 	@Override
-	public synchronized boolean close(long handle) throws IOException {
-		Handle h = Handle.threadLocal(handle);
-		InputStream in = inputs.remove(h);
-		if (in != null) {
-			in.close();
-			return true;
-		}
-		OutputStream out = outputs.remove(h);
-		if (out != null) {
-			out.close();
-			return true;
-		}
-		ZipFile zip = zipFiles.remove(h);
-		if (zip != null) {
-			zip.close();
+	public boolean close(long handle) throws IOException {
+		Object value = handles.remove(handle);
+		if (value instanceof Closeable) {
+			((Closeable) value).close();
 			return true;
 		}
 		return false;
 	}
 
 	@Override
-	public synchronized long newFD() {
-		return newFD0(-1L);
+	public long newFD() {
+		return handles.register(RESERVED);
 	}
 
 	@Override
-	public synchronized long newFD(int stream) {
+	public long newFD(int stream) {
 		switch (stream) {
-			case 0: {
-				long fd = newFD();
-				inputs.put(Handle.of(fd), stdin);
-				return fd;
-			}
-			case 1: {
-				long fd = newFD();
-				outputs.put(Handle.of(fd), stdout);
-				return fd;
-			}
-			case 2: {
-				long fd = newFD();
-				outputs.put(Handle.of(fd), stderr);
-				return fd;
-			}
+			case 0:
+				return handles.register(stdin);
+			case 1:
+				return handles.register(stdout);
+			case 2:
+				return handles.register(stderr);
 			default:
 				throw new IllegalStateException("Unsupported stream: " + stream);
 		}
@@ -148,30 +158,17 @@ public String canonicalize(String path) throws IOException {
 	}
 
 	@Override
-	public synchronized long open(String path, int mode) throws IOException {
+	public long open(String path, int mode) throws IOException {
 		switch (mode) {
 			case READ: {
-				long fd = newFD();
 				InputStream in = new BufferedInputStream(new FileInputStream(path));
 				in.mark(Integer.MAX_VALUE);
-				Handle h = Handle.of(fd);
-				inputs.put(h, in);
-				return fd;
-			}
-			case WRITE: {
-				long fd = newFD();
-				FileOutputStream out = new FileOutputStream(path);
-				Handle h = Handle.of(fd);
-				outputs.put(h, out);
-				return fd;
-			}
-			case APPEND: {
-				long fd = newFD();
-				FileOutputStream out = new FileOutputStream(path, true);
-				Handle h = Handle.of(fd);
-				outputs.put(h, out);
-				return fd;
+				return handles.register(in);
 			}
+			case WRITE:
+				return handles.register(new FileOutputStream(path));
+			case APPEND:
+				return handles.register(new FileOutputStream(path, true));
 			default:
 				throw new IOException("Unknown mode: " + mode);
 		}
@@ -250,29 +247,47 @@ public String[] list(String path) {
 	}
 
 	@Override
-	public synchronized long openZipFile(String path, int mode) throws IOException {
-		// Only use 32 bits for zip handles,
-		// see SimpleZipFile
-		int fd = (int) newFD0(0xffffffff);
-		ZipFile zf = new SimpleZipFile(fd, new java.util.zip.ZipFile(new File(path), mode));
-		zipFiles.put(Handle.of(fd), zf);
+	public long openZipFile(String path, int mode) throws IOException {
+		// Handles are 32 bit, which leaves
+		// upper bits for entries, see BasicZipFile
+		HandleTable<Object> handles = this.handles;
+		int fd = handles.register(RESERVED);
+		ZipFile zf = null;
+		if ((mode & java.util.zip.ZipFile.OPEN_DELETE) == 0) {
+			try {
+				zf = MappedZipFile.open(fd, Paths.get(path));
+			} catch (IOException ignored) {
+				// Let JDK implementation report the error,
+				// or deal with the archive if it cannot be mapped
+			}
+		}
+		if (zf == null) {
+			try {
+				zf = new SimpleZipFile(fd, new java.util.zip.ZipFile(new File(path), mode));
+			} catch (IOException | RuntimeException ex) {
+				handles.remove(fd);
+				throw ex;
+			}
+		}
+		handles.set(fd, zf);
 		return fd;
 	}
 
 	@Override
-	public synchronized ZipFile getZipFile(long handle) {
-		return zipFiles.get(Handle.threadLocal((int) handle));
+	public ZipFile getZipFile(long handle) {
+		Object value = handles.get((int) handle);
+		return value instanceof ZipFile ? (ZipFile) value : null;
 	}
 
 	@Override
-	public synchronized ZipEntry getZipEntry(long handle) {
-		ZipFile zf = zipFiles.get(Handle.threadLocal((int) handle));
+	public ZipEntry getZipEntry(long handle) {
+		ZipFile zf = getZipFile(handle);
 		return zf == null ? null : zf.getEntry(handle);
 	}
 
 	@Override
-	public synchronized boolean freeZipEntry(long handle) {
-		ZipFile zf = zipFiles.get(Handle.threadLocal((int) handle));
+	public boolean freeZipEntry(long handle) {
+		ZipFile zf = getZipFile(handle);
 		return zf != null && zf.freeHandle(handle);
 	}
 
@@ -293,17 +308,13 @@ public OutputStream getStreamOut(int stream) {
 		}
 	}
 
-	private long newFD0(long mask) {
-		ThreadLocalRandom rng = ThreadLocalRandom.current();
-		Map<Handle, InputStream> inputs = this.inputs;
-		Map<Handle, OutputStream> outputs = this.outputs;
-		Map<Handle, ZipFile> zipFiles = this.zipFiles;
-		long raw;
-		Handle h = Handle.threadLocal();
-		do {
-			raw = rng.nextLong() & mask;
-			h.set(raw);
-		} while (raw == 0L || inputs.containsKey(h) || outputs.containsKey(h) || zipFiles.containsKey(h));
-		return raw;
+	private <T> Map<Handle, T> snapshot(Class<T> type) {
+		Map<Handle, T> map = new HashMap<>();
+		handles.forEach((value, handle) -> {
+			if (type.isInstance(value)) {
+				map.put(Handle.of(handle), type.cast(value));
+			}
+		});
+		return Collections.unmodifiableMap(map);
 	}
 }
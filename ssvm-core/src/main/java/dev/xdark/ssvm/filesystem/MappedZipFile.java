@@ -0,0 +1,622 @@
+package dev.xdark.ssvm.filesystem;
+
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+import dev.xdark.ssvm.util.UnsafeUtil;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * ZIP file implementation that maps the whole
+ * archive into memory and parses the central directory once.
+ * <p>
+ * Entry lookups go through an open-addressing index
+ * over raw name bytes, stored entries are copied straight
+ * from the mapping into the VM memory.
+ * Entry handles are derived from entry positions,
+ * so they do not need to be tracked.
+ * <p>
+ * The mapping is released on {@link #close()}, so that
+ * the file is not kept locked until the GC runs.
+ * Readers are counted without locking, the mapping is released
+ * by the last reader that leaves after the file was closed.
+ * Reads that start after closing fail.
+ *
+ * @author xDark
+ */
+public final class MappedZipFile implements ZipFile {
+
+	private static final int LOCSIG = 0x04034b50;
+	private static final int CENSIG = 0x02014b50;
+	private static final int ENDSIG = 0x06054b50;
+	private static final int ZIP64_ENDSIG = 0x06064b50;
+	private static final int ZIP64_LOCSIG = 0x07064b50;
+	private static final int LOCHDR = 30;
+	private static final int CENHDR = 46;
+	private static final int ENDHDR = 22;
+	private static final int ZIP64_LOCHDR = 20;
+	private static final int ZIP64_EXTID = 0x0001;
+	private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+	private static final int CLOSED = Integer.MIN_VALUE;
+
+	private final int rawHandle;
+	private final ByteBuffer buffer;
+	private final long base;
+	private final int[] positions;
+	private final int[] table;
+	private final AtomicReferenceArray<ZipEntry> entries;
+	private final AtomicReferenceArray<EntryData> entryData;
+	private final AtomicReferenceArray<SoftReference<byte[]>> inflated;
+	// Reader count, CLOSED bit is set once the file is closed
+	private final AtomicInteger state = new AtomicInteger();
+
+	private MappedZipFile(int rawHandle, ByteBuffer buffer, long base, int[] positions) {
+		this.rawHandle = rawHandle;
+		this.buffer = buffer;
+		this.base = base;
+		this.positions = positions;
+		int count = positions.length;
+		entries = new AtomicReferenceArray<>(count);
+		entryData = new AtomicReferenceArray<>(count);
+		inflated = new AtomicReferenceArray<>(count);
+		int capacity = Integer.highestOneBit(Math.max(4, count) * 2 - 1) << 1;
+		int[] table = new int[capacity];
+		int mask = capacity - 1;
+		outer:
+		for (int i = 0; i < count; i++) {
+			int cen = positions[i];
+			int nameLength = u16(buffer, cen + 28);
+			int slot = hash(buffer, cen + CENHDR, nameLength) & mask;
+			int existing;
+			while ((existing = table[slot]) != 0) {
+				int other = positions[existing - 1];
+				if (nameEquals(buffer, other, cen + CENHDR, nameLength)) {
+					// Duplicate entry, first one wins
+					continue outer;
+				}
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = i + 1;
+		}
+		this.table = table;
+	}
+
+	/**
+	 * Maps ZIP file into memory.
+	 *
+	 * @param rawHandle Raw zip handle.
+	 * @param path      Path to the zip file.
+	 * @return mapped zip file.
+	 * @throws IOException If file cannot be mapped or is not a valid ZIP file.
+	 */
+	public static MappedZipFile open(int rawHandle, Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("ZIP file is too large to be mapped: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return parse(rawHandle, buffer);
+		} catch (IndexOutOfBoundsException | IllegalArgumentException ex) {
+			throw new IOException("Malformed ZIP file: " + path, ex);
+		}
+	}
+
+	@Override
+	public boolean startsWithLOC() {
+		if (!acquire()) {
+			return false;
+		}
+		try {
+			return buffer.limit() >= 4 && buffer.getInt(0) == LOCSIG;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public ZipEntry getEntry(int index) {
+		if (index < 0 || index >= positions.length || !acquire()) {
+			return null;
+		}
+		try {
+			return entry(index);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public ZipEntry getEntry(String name) {
+		if (!acquire()) {
+			return null;
+		}
+		try {
+			int index = indexOf(name);
+			return index < 0 ? null : entry(index);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public byte[] readEntry(ZipEntry entry) throws IOException {
+		ensureOpen();
+		try {
+			int index = indexOf(entry);
+			if (index < 0) {
+				return null;
+			}
+			EntryData data = entryData(index);
+			if (data.stored) {
+				ByteBuffer slice = slice(data, 0L, data.size);
+				byte[] content = new byte[slice.remaining()];
+				slice.get(content);
+				return content;
+			}
+			return inflate(index, data);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public int read(ZipEntry entry, long pos, MemoryData dst, long dstOffset, int len) throws IOException {
+		ensureOpen();
+		try {
+			int index = indexOf(entry);
+			if (index < 0) {
+				return -1;
+			}
+			EntryData data = entryData(index);
+			if (data.stored) {
+				long size = data.size;
+				if (pos >= size) {
+					return -1;
+				}
+				long avail = size - pos;
+				if (len > avail) {
+					len = (int) avail;
+				}
+				if (len <= 0) {
+					return 0;
+				}
+				dst.write(dstOffset, slice(data, pos, len));
+				return len;
+			}
+			byte[] content = inflate(index, data);
+			if (pos >= content.length) {
+				return -1;
+			}
+			int start = (int) pos;
+			int avail = content.length - start;
+			if (len > avail) {
+				len = avail;
+			}
+			if (len <= 0) {
+				return 0;
+			}
+			dst.write(dstOffset, content, start, len);
+			return len;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public int getTotal() {
+		return positions.length;
+	}
+
+	@Override
+	public Stream<ZipEntry> stream() {
+		return IntStream.range(0, positions.length).mapToObj(this::getEntry);
+	}
+
+	@Override
+	public long makeHandle(ZipEntry entry) {
+		if (!acquire()) {
+			return 0L;
+		}
+		int index;
+		try {
+			index = indexOf(entry);
+		} finally {
+			release();
+		}
+		if (index < 0) {
+			return 0L;
+		}
+		return (long) (index + 1) << 32L | rawHandle & 0xffffffffL;
+	}
+
+	@Override
+	public ZipEntry getEntry(long handle) {
+		return getEntry((int) (handle >>> 32) - 1);
+	}
+
+	@Override
+	public boolean freeHandle(long handle) {
+		int index = (int) (handle >>> 32) - 1;
+		return index >= 0 && index < positions.length;
+	}
+
+	@Override
+	public void close() {
+		AtomicInteger state = this.state;
+		int readers;
+		do {
+			readers = state.get();
+			if (readers < 0) {
+				return;
+			}
+		} while (!state.compareAndSet(readers, readers | CLOSED));
+		for (int i = 0, j = inflated.length(); i < j; i++) {
+			inflated.set(i, null);
+		}
+		if (readers == 0) {
+			unmap();
+		}
+	}
+
+	private boolean acquire() {
+		AtomicInteger state = this.state;
+		int readers;
+		do {
+			readers = state.get();
+			if (readers < 0) {
+				return false;
+			}
+		} while (!state.compareAndSet(readers, readers + 1));
+		return true;
+	}
+
+	private void release() {
+		if (state.decrementAndGet() == CLOSED) {
+			// Last reader left the closed file
+			unmap();
+		}
+	}
+
+	private void unmap() {
+		// If the host does not allow that,
+		// mapping will be released by the GC
+		UnsafeUtil.unmap(buffer);
+	}
+
+	/**
+	 * Registers a reader, the caller must {@link #release()} it.
+	 *
+	 * @throws ZipException If the file is closed.
+	 */
+	private void ensureOpen() throws ZipException {
+		if (!acquire()) {
+			throw new ZipException("ZIP file closed");
+		}
+	}
+
+	private ZipEntry entry(int index) {
+		ZipEntry entry = entries.get(index);
+		if (entry == null) {
+			entry = newEntry(index);
+			if (!entries.compareAndSet(index, null, entry)) {
+				entry = entries.get(index);
+			}
+		}
+		return entry;
+	}
+
+	private int indexOf(ZipEntry entry) {
+		return indexOf(entry.getName());
+	}
+
+	private int indexOf(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = this.buffer;
+		int[] positions = this.positions;
+		int[] table = this.table;
+		int mask = table.length - 1;
+		int slot = hash(bytes) & mask;
+		int index;
+		while ((index = table[slot]) != 0) {
+			int cen = positions[index - 1];
+			if (nameEquals(buffer, cen, bytes)) {
+				return index - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private ByteBuffer slice(EntryData data, long pos, long len) {
+		long start = data.offset + pos;
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit((int) (start + len));
+		slice.position((int) start);
+		return slice;
+	}
+
+	private byte[] inflate(int index, EntryData data) throws IOException {
+		SoftReference<byte[]> ref = inflated.get(index);
+		byte[] content;
+		if (ref != null && (content = ref.get()) != null) {
+			return content;
+		}
+		long size = data.size;
+		long csize = data.compressedSize;
+		if (size > Integer.MAX_VALUE - 8 || csize > Integer.MAX_VALUE - 8) {
+			throw new IOException("Entry too large");
+		}
+		// Extra dummy byte is required by the nowrap inflater
+		byte[] input = new byte[(int) csize + 1];
+		slice(data, 0L, csize).get(input, 0, (int) csize);
+		content = new byte[(int) size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(input);
+			int off = 0;
+			while (off < content.length && !inflater.finished()) {
+				int n = inflater.inflate(content, off, content.length - off);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				off += n;
+			}
+			if (off != content.length) {
+				throw new IOException("Invalid entry size: expected " + content.length + ", got " + off);
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException(ex.getMessage(), ex);
+		} finally {
+			inflater.end();
+		}
+		inflated.set(index, new SoftReference<>(content));
+		return content;
+	}
+
+	private EntryData entryData(int index) throws IOException {
+		EntryData data = entryData.get(index);
+		if (data == null) {
+			// Its okay if this gets computed multiple times
+			data = computeEntryData(index);
+			entryData.set(index, data);
+		}
+		return data;
+	}
+
+	private EntryData computeEntryData(int index) throws IOException {
+		ByteBuffer buffer = this.buffer;
+		int cen = positions[index];
+		long csize = u32(buffer, cen + 20);
+		long size = u32(buffer, cen + 24);
+		long locOffset = u32(buffer, cen + 42);
+		if (csize == ZIP64_MAGICVAL || size == ZIP64_MAGICVAL || locOffset == ZIP64_MAGICVAL) {
+			int nameLength = u16(buffer, cen + 28);
+			int extraLength = u16(buffer, cen + 30);
+			int pos = cen + CENHDR + nameLength;
+			int end = pos + extraLength;
+			while (pos + 4 <= end) {
+				int id = u16(buffer, pos);
+				int length = u16(buffer, pos + 2);
+				pos += 4;
+				if (id == ZIP64_EXTID) {
+					int off = pos;
+					if (size == ZIP64_MAGICVAL) {
+						size = buffer.getLong(off);
+						off += 8;
+					}
+					if (csize == ZIP64_MAGICVAL) {
+						csize = buffer.getLong(off);
+						off += 8;
+					}
+					if (locOffset == ZIP64_MAGICVAL) {
+						locOffset = buffer.getLong(off);
+					}
+					break;
+				}
+				pos += length;
+			}
+		}
+		long loc = base + locOffset;
+		if (loc < 0L || loc + LOCHDR > buffer.limit() || buffer.getInt((int) loc) != LOCSIG) {
+			throw new ZipException("Invalid LOC header");
+		}
+		long dataOffset = loc + LOCHDR + u16(buffer, (int) loc + 26) + u16(buffer, (int) loc + 28);
+		boolean stored = u16(buffer, cen + 10) == ZipEntry.STORED;
+		if (stored) {
+			csize = size;
+		}
+		if (dataOffset + csize > buffer.limit()) {
+			throw new ZipException("Entry data out of bounds");
+		}
+		return new EntryData(dataOffset, csize, size, stored);
+	}
+
+	private ZipEntry newEntry(int index) {
+		ByteBuffer buffer = this.buffer;
+		int cen = positions[index];
+		int nameLength = u16(buffer, cen + 28);
+		int extraLength = u16(buffer, cen + 30);
+		int commentLength = u16(buffer, cen + 32);
+		ZipEntry entry = new ZipEntry(string(buffer, cen + CENHDR, nameLength));
+		int method = u16(buffer, cen + 10);
+		if (method == ZipEntry.STORED || method == ZipEntry.DEFLATED) {
+			entry.setMethod(method);
+		}
+		entry.setTime(dosToJavaTime(u32(buffer, cen + 12)));
+		entry.setCrc(u32(buffer, cen + 16));
+		try {
+			EntryData data = entryData(index);
+			entry.setSize(data.size);
+			entry.setCompressedSize(data.compressedSize);
+		} catch (IOException ignored) {
+			// Reading the entry will fail later
+		}
+		if (extraLength != 0) {
+			byte[] extra = new byte[extraLength];
+			ByteBuffer slice = buffer.duplicate();
+			slice.position(cen + CENHDR + nameLength);
+			slice.get(extra);
+			try {
+				entry.setExtra(extra);
+			} catch (IllegalArgumentException ignored) {
+				// Malformed extra data is not fatal
+			}
+		}
+		if (commentLength != 0) {
+			entry.setComment(string(buffer, cen + CENHDR + nameLength + extraLength, commentLength));
+		}
+		return entry;
+	}
+
+	private static MappedZipFile parse(int rawHandle, ByteBuffer buffer) throws IOException {
+		int limit = buffer.limit();
+		int end = -1;
+		for (int pos = limit - ENDHDR, min = Math.max(0, pos - 0xFFFF); pos >= min; pos--) {
+			if (buffer.getInt(pos) == ENDSIG && pos + ENDHDR + u16(buffer, pos + 20) == limit) {
+				end = pos;
+				break;
+			}
+		}
+		if (end == -1) {
+			throw new IOException("END header not found");
+		}
+		long total = u16(buffer, end + 10);
+		long cenSize = u32(buffer, end + 12);
+		long cenOffset = u32(buffer, end + 16);
+		long cenPosition = end - cenSize;
+		int locator = end - ZIP64_LOCHDR;
+		if (locator >= 0 && buffer.getInt(locator) == ZIP64_LOCSIG) {
+			long zip64End = buffer.getLong(locator + 8);
+			if (zip64End >= 0L && zip64End + 56 <= locator && buffer.getInt((int) zip64End) == ZIP64_ENDSIG) {
+				total = buffer.getLong((int) zip64End + 32);
+				cenSize = buffer.getLong((int) zip64End + 40);
+				cenOffset = buffer.getLong((int) zip64End + 48);
+				cenPosition = zip64End - cenSize;
+			}
+		}
+		// Archive may have some data prepended
+		long base = cenPosition - cenOffset;
+		if (cenPosition < 0L || base < 0L || total > Integer.MAX_VALUE || total * CENHDR > cenSize) {
+			throw new IOException("Invalid END header");
+		}
+		int[] positions = new int[(int) total];
+		int pos = (int) cenPosition;
+		int cenEnd = (int) (cenPosition + cenSize);
+		for (int i = 0; i < positions.length; i++) {
+			if (pos + CENHDR > cenEnd || buffer.getInt(pos) != CENSIG) {
+				throw new IOException("Invalid CEN header");
+			}
+			positions[i] = pos;
+			pos += CENHDR + u16(buffer, pos + 28) + u16(buffer, pos + 30) + u16(buffer, pos + 32);
+		}
+		return new MappedZipFile(rawHandle, buffer, base, positions);
+	}
+
+	private static long dosToJavaTime(long dtime) {
+		LocalDateTime time = LocalDateTime.of((int) (((dtime >> 25) & 0x7f) + 1980), 1, 1, 0, 0, 0)
+			.plusMonths(((dtime >> 21) & 0x0f) - 1)
+			.plusDays(((dtime >> 16) & 0x1f) - 1)
+			.plusHours((dtime >> 11) & 0x1f)
+			.plusMinutes((dtime >> 5) & 0x3f)
+			.plusSeconds((dtime << 1) & 0x3e);
+		return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static int hash(ByteBuffer buffer, int offset, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + buffer.get(offset + i);
+		}
+		return mix(h);
+	}
+
+	private static int hash(byte[] bytes) {
+		int h = 0;
+		for (byte b : bytes) {
+			h = 31 * h + b;
+		}
+		return mix(h);
+	}
+
+	private static int mix(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean nameEquals(ByteBuffer buffer, int cen, int nameOffset, int nameLength) {
+		if (u16(buffer, cen + 28) != nameLength) {
+			return false;
+		}
+		int offset = cen + CENHDR;
+		for (int i = 0; i < nameLength; i++) {
+			if (buffer.get(offset + i) != buffer.get(nameOffset + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean nameEquals(ByteBuffer buffer, int cen, byte[] name) {
+		int nameLength = name.length;
+		if (u16(buffer, cen + 28) != nameLength) {
+			return false;
+		}
+		int offset = cen + CENHDR;
+		for (int i = 0; i < nameLength; i++) {
+			if (buffer.get(offset + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String string(ByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset);
+		slice.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int u16(ByteBuffer buffer, int offset) {
+		return buffer.getShort(offset) & 0xffff;
+	}
+
+	private static long u32(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset) & 0xffffffffL;
+	}
+
+	private static final class EntryData {
+		final long offset;
+		final long compressedSize;
+		final long size;
+		final boolean stored;
+
+		EntryData(long offset, long compressedSize, long size, boolean stored) {
+			this.offset = offset;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.stored = stored;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package dev.xdark.ssvm.filesystem;
 
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.stream.Stream;
@@ -40,6 +42,35 @@ public interface ZipFile extends Closeable {
 	 */
 	byte[] readEntry(ZipEntry entry) throws IOException;
 
+	/**
+	 * Reads entry content into VM memory.
+	 *
+	 * @param entry     Entry to read bytes from.
+	 * @param pos       Position in the entry.
+	 * @param dst       Destination memory.
+	 * @param dstOffset Destination memory offset.
+	 * @param len       Maximum amount of bytes to read.
+	 * @return amount of bytes read or {@code -1},
+	 * if the end of the entry was reached.
+	 * @throws IOException If any I/O error occurs.
+	 */
+	default int read(ZipEntry entry, long pos, MemoryData dst, long dstOffset, int len) throws IOException {
+		byte[] content = readEntry(entry);
+		if (content == null || pos >= content.length) {
+			return -1;
+		}
+		int start = (int) pos;
+		int avail = content.length - start;
+		if (len > avail) {
+			len = avail;
+		}
+		if (len <= 0) {
+			return 0;
+		}
+		dst.write(dstOffset, content, start, len);
+		return len;
+	}
+
 	/**
 	 * @return total amount of entries.
 	 */
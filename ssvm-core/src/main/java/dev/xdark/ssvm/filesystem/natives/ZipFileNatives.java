@@ -197,29 +197,11 @@ public void init(VirtualMachine vm, FileManager fileManager) {
 				ArrayValue bytes = locals.loadReference(6);
 				int off = locals.loadInt(7);
 				int len = locals.loadInt(8);
-				byte[] read;
+				int bytesStart = vm.getMemoryManager().arrayBaseOffset(byte.class);
 				try {
-					read = zipFile.readEntry(entry);
+					ctx.setResult(zipFile.read(entry, pos, bytes.getMemory().getData(), bytesStart + off, len));
 				} catch (IOException ex) {
 					vm.getOperations().throwException(vm.getSymbols().java_util_zip_ZipException(), ex.getMessage());
-					return Result.ABORT;
-				}
-				int start = (int) pos;
-				if (start >= read.length) {
-					ctx.setResult(-1);
-				} else {
-					int avail = read.length - start;
-					if (len > avail) {
-						len = avail;
-					}
-					if (len <= 0) {
-						ctx.setResult(0);
-					} else {
-						int bytesStart = vm.getMemoryManager().arrayBaseOffset(byte.class);
-						bytes.getMemory().getData()
-							.write(bytesStart + off, read, start, len);
-						ctx.setResult(len);
-					}
 				}
 				return Result.ABORT;
 			});
@@ -18,6 +18,7 @@ public class InjectedClassLayout {
 	public final InjectedField java_lang_ClassLoader_oop = field(ACC_PRIVATE, "oop", "I");
 	public final InjectedField java_io_FileDescriptor_handle = field(ACC_PRIVATE, "handle", "J");
 	public final InjectedField java_lang_invoke_MemberName_vmindex = field(ACC_PRIVATE, "vmindex", "I");
+	public final InjectedField java_lang_invoke_MemberName_vmlink = field(ACC_PRIVATE, "vmlink", "I");
 	public final InjectedField java_lang_invoke_MemberName_method = field(ACC_PRIVATE, "method", "Ljava/lang/invoke/ResolvedMethodName;");
 	public final InjectedField java_lang_invoke_ResolvedMethodName_vmtarget = field(ACC_PRIVATE, "vmtarget", "Ljava/lang/Object;");
 	public final InjectedField java_lang_invoke_ResolvedMethodName_vmholder = field(ACC_PRIVATE, "vmholder", "Ljava/lang/Object;");
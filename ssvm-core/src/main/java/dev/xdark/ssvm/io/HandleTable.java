@@ -0,0 +1,132 @@
+package dev.xdark.ssvm.io;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Table of dense integer handles.
+ * <p>
+ * Lookups are lock-free, only registration and removal
+ * take the lock. Handles of removed values are reused,
+ * handle {@code 0} is never used.
+ *
+ * @author xDark
+ */
+public final class HandleTable<V> {
+	private final Lock lock = new ReentrantLock();
+	private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<>(16);
+	private int[] freeHandles = new int[16];
+	private int freeCount;
+	private int nextHandle = 1;
+
+	/**
+	 * @param value Value to register.
+	 * @return New handle.
+	 */
+	public int register(V value) {
+		Lock lock = this.lock;
+		lock.lock();
+		try {
+			int handle;
+			if (freeCount != 0) {
+				handle = freeHandles[--freeCount];
+			} else {
+				handle = nextHandle++;
+			}
+			AtomicReferenceArray<V> values = this.values;
+			int length = values.length();
+			if (handle >= length) {
+				AtomicReferenceArray<V> copy = new AtomicReferenceArray<>(length + (length >> 1));
+				for (int i = 0; i < length; i++) {
+					copy.lazySet(i, values.get(i));
+				}
+				this.values = values = copy;
+			}
+			values.set(handle, value);
+			return handle;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces value of a registered handle.
+	 *
+	 * @param handle Handle to replace value for.
+	 * @param value  New value.
+	 */
+	public void set(int handle, V value) {
+		Lock lock = this.lock;
+		lock.lock();
+		try {
+			AtomicReferenceArray<V> values = this.values;
+			if (handle <= 0 || handle >= values.length() || values.get(handle) == null) {
+				throw new IllegalStateException("Handle is not registered: " + handle);
+			}
+			values.set(handle, value);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param handle Handle to get value for.
+	 * @return Value or {@code null}, if handle is not registered.
+	 */
+	public V get(long handle) {
+		AtomicReferenceArray<V> values = this.values;
+		if (handle <= 0L || handle >= values.length()) {
+			return null;
+		}
+		return values.get((int) handle);
+	}
+
+	/**
+	 * Visits registered values.
+	 * Values registered or removed concurrently
+	 * may or may not be visited.
+	 *
+	 * @param consumer Value and handle consumer.
+	 */
+	public void forEach(ObjIntConsumer<? super V> consumer) {
+		AtomicReferenceArray<V> values = this.values;
+		for (int i = 1, j = values.length(); i < j; i++) {
+			V value = values.get(i);
+			if (value != null) {
+				consumer.accept(value, i);
+			}
+		}
+	}
+
+	/**
+	 * @param handle Handle to remove.
+	 * @return Removed value or {@code null}, if handle is not registered.
+	 */
+	public V remove(long handle) {
+		Lock lock = this.lock;
+		lock.lock();
+		try {
+			AtomicReferenceArray<V> values = this.values;
+			if (handle <= 0L || handle >= values.length()) {
+				return null;
+			}
+			int h = (int) handle;
+			V value = values.getAndSet(h, null);
+			if (value != null) {
+				int[] freeHandles = this.freeHandles;
+				int freeCount = this.freeCount;
+				if (freeCount == freeHandles.length) {
+					this.freeHandles = freeHandles = Arrays.copyOf(freeHandles, freeCount << 1);
+				}
+				freeHandles[freeCount] = h;
+				this.freeCount = freeCount + 1;
+			}
+			return value;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
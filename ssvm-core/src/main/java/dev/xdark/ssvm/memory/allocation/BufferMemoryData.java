@@ -118,6 +118,11 @@ public void writeShortVolatile(long offset, short value) {
 		volatileAccess().putShort(checkIndex(offset, 2), value);
 	}
 
+	@Override
+	public boolean compareAndSwapInt(long offset, int expected, int value) {
+		return volatileAccess().compareAndSwapInt(checkIndex(offset, 4), expected, value);
+	}
+
 	@Override
 	public void writeByteVolatile(long offset, byte value) {
 		volatileAccess().putByte(checkIndex(offset, 1), value);
@@ -152,13 +157,12 @@ public void write(long srcOffset, MemoryData dst, long dstOffset, long bytes) {
 			int $srcOffset = validate(srcOffset);
 			copyOrder(((ByteBuffer) dstBuf.slice().position(validate(dstOffset)))).put((ByteBuffer) buffer.slice().position($srcOffset).limit($srcOffset + validate(bytes)));
 		} else {
-			int start = validate(dstOffset);
-			int $bytes = validate(bytes);
-			int $offset = validate(srcOffset);
-			ByteBuffer buffer = this.buffer;
-			while ($bytes-- != 0) {
-				dst.writeByte(start++, buffer.get($offset++));
-			}
+			// Destination may be a view of this buffer,
+			// read the region out first
+			int $srcOffset = validate(srcOffset);
+			byte[] copy = new byte[validate(bytes)];
+			((ByteBuffer) buffer.slice().position($srcOffset)).get(copy);
+			dst.write(dstOffset, copy, 0, copy.length);
 		}
 	}
 
@@ -139,6 +139,19 @@ public interface MemoryData {
 	 */
 	void writeByteVolatile(long offset, byte value);
 
+	/**
+	 * Atomically sets int at the specific offset
+	 * if the current value is equal to the expected value.
+	 * The value is accessed with the same byte order
+	 * as volatile methods.
+	 *
+	 * @param offset   Data offset.
+	 * @param expected Expected value.
+	 * @param value    New value.
+	 * @return {@code true} if successful.
+	 */
+	boolean compareAndSwapInt(long offset, int expected, int value);
+
 	/**
 	 * Fills data region.
 	 *
@@ -150,6 +163,8 @@ public interface MemoryData {
 
 	/**
 	 * Copies this data region.
+	 * Overlapping regions are copied as if
+	 * the source was first copied to a temporary buffer.
 	 *
 	 * @param srcOffset Source offset.
 	 * @param dst       Destination data.
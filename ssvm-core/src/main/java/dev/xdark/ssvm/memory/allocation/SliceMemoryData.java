@@ -125,6 +125,11 @@ public void writeShortVolatile(long offset, short value) {
 		backing.writeShortVolatile(offset(offset), value);
 	}
 
+	@Override
+	public boolean compareAndSwapInt(long offset, int expected, int value) {
+		return backing.compareAndSwapInt(offset(offset), expected, value);
+	}
+
 	@Override
 	public void writeByteVolatile(long offset, byte value) {
 		backing.writeByteVolatile(offset(offset), value);
@@ -31,6 +31,55 @@ public interface MemoryManager extends ReferenceMap {
 	 */
 	Mutex getMutex(ObjectValue reference);
 
+	/**
+	 * Attempts to lock an object without inflating
+	 * its lock to a mutex.
+	 *
+	 * @param reference Reference to lock.
+	 * @return {@code true} if object was locked.
+	 */
+	boolean tryLightweightLock(ObjectValue reference);
+
+	/**
+	 * Attempts to unlock an object that was locked
+	 * with {@link #tryLightweightLock(ObjectValue)}.
+	 *
+	 * @param reference Reference to unlock.
+	 * @return {@code true} if object was unlocked,
+	 * {@code false} if lock was inflated or is not held by the current thread.
+	 */
+	boolean tryLightweightUnlock(ObjectValue reference);
+
+	/**
+	 * Checks whether current thread holds the lock of an object.
+	 * Unlike {@link #getMutex(ObjectValue)}, never inflates the lock.
+	 *
+	 * @param reference Object reference.
+	 * @return {@code true} if current thread holds the lock.
+	 */
+	boolean holdsLock(ObjectValue reference);
+
+	/**
+	 * Checks whether the mutex is still attached to the object.
+	 * The result is only stable if the mutex is
+	 * held by the current thread.
+	 *
+	 * @param reference Object reference.
+	 * @param mutex     Mutex previously returned by {@link #getMutex(ObjectValue)}.
+	 * @return {@code true} if mutex is attached to the object.
+	 */
+	boolean isMutexAttached(ObjectValue reference, Mutex mutex);
+
+	/**
+	 * Detaches the mutex from the object and releases it,
+	 * if it is no longer in use.
+	 *
+	 * @param reference Object reference.
+	 * @param mutex     Mutex previously returned by {@link #getMutex(ObjectValue)}.
+	 * @see dev.xdark.ssvm.synchronizer.ObjectSynchronizer#tryDeflate(Mutex)
+	 */
+	void tryDeflate(ObjectValue reference, Mutex mutex);
+
 	/**
 	 * Allocates new object.
 	 * Throws VM exception if allocation fails.
@@ -10,6 +10,7 @@
 import dev.xdark.ssvm.mirror.type.ArrayClass;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.mirror.type.JavaClass;
+import dev.xdark.ssvm.synchronizer.LockWord;
 import dev.xdark.ssvm.synchronizer.Mutex;
 import dev.xdark.ssvm.synchronizer.ObjectSynchronizer;
 import dev.xdark.ssvm.threadlocal.ThreadLocalStorage;
@@ -24,8 +25,8 @@
 import dev.xdark.ssvm.value.SimpleJavaValue;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simple and dumb implementation of a memory manager.
@@ -34,7 +35,8 @@
  */
 public class SimpleMemoryManager implements MemoryManager {
 
-	private final Map<MemoryAddress, ObjectValue> objects = new HashMap<>();
+	private static final long LOCK_WORD_OFFSET = 4L;
+	private final Map<MemoryAddress, ObjectValue> objects = new ConcurrentHashMap<>();
 	private final VirtualMachine vm;
 	private final NullValue nullValue;
 	private final int objectHeaderSize;
@@ -65,15 +67,99 @@ public Mutex getMutex(ObjectValue reference) {
 		Assertions.check(!reference.isNull(), "null reference");
 		MemoryData data = reference.getMemory().getData();
 		ObjectSynchronizer synchronizer = vm.getObjectSynchronizer();
-		Mutex mutex;
-		int id = data.readInt(4L);
-		if (id == -1) {
-			mutex = synchronizer.acquire();
-			data.writeInt(4L, mutex.id());
-		} else {
-			mutex = synchronizer.get(id);
+		while (true) {
+			int word = data.readIntVolatile(LOCK_WORD_OFFSET);
+			if (LockWord.isInflated(word)) {
+				Mutex mutex = synchronizer.get(LockWord.mutexId(word));
+				if (mutex != null) {
+					return mutex;
+				}
+				// Mutex was deflated and released concurrently
+				continue;
+			}
+			Mutex mutex;
+			if (word == LockWord.NEUTRAL) {
+				mutex = synchronizer.acquire();
+			} else {
+				mutex = synchronizer.inflate(LockWord.owner(word), LockWord.recursions(word));
+			}
+			if (data.compareAndSwapInt(LOCK_WORD_OFFSET, word, LockWord.inflated(mutex.id()))) {
+				return mutex;
+			}
+			// Thin lock was changed by the owner or
+			// another thread inflated it first, retry
+			synchronizer.free(mutex);
 		}
-		return mutex;
+	}
+
+	@Override
+	public boolean tryLightweightLock(ObjectValue reference) {
+		Assertions.check(!reference.isNull(), "null reference");
+		MemoryData data = reference.getMemory().getData();
+		int word = data.readIntVolatile(LOCK_WORD_OFFSET);
+		int self = LockWord.currentOwner();
+		if (word == LockWord.NEUTRAL) {
+			return data.compareAndSwapInt(LOCK_WORD_OFFSET, word, LockWord.thin(self, 1));
+		}
+		if (LockWord.isThin(word) && LockWord.owner(word) == self) {
+			int recursions = LockWord.recursions(word);
+			if (recursions == LockWord.MAX_RECURSIONS) {
+				return false;
+			}
+			return data.compareAndSwapInt(LOCK_WORD_OFFSET, word, LockWord.thin(self, recursions + 1));
+		}
+		return false;
+	}
+
+	@Override
+	public boolean tryLightweightUnlock(ObjectValue reference) {
+		Assertions.check(!reference.isNull(), "null reference");
+		MemoryData data = reference.getMemory().getData();
+		int word = data.readIntVolatile(LOCK_WORD_OFFSET);
+		if (!LockWord.isThin(word) || LockWord.owner(word) != LockWord.currentOwner()) {
+			return false;
+		}
+		int recursions = LockWord.recursions(word);
+		int newWord = recursions == 1 ? LockWord.NEUTRAL : LockWord.thin(LockWord.owner(word), recursions - 1);
+		return data.compareAndSwapInt(LOCK_WORD_OFFSET, word, newWord);
+	}
+
+	@Override
+	public boolean holdsLock(ObjectValue reference) {
+		Assertions.check(!reference.isNull(), "null reference");
+		int word = reference.getMemory().getData().readIntVolatile(LOCK_WORD_OFFSET);
+		if (word == LockWord.NEUTRAL) {
+			return false;
+		}
+		if (LockWord.isThin(word)) {
+			return LockWord.owner(word) == LockWord.currentOwner();
+		}
+		// Mutex held by current thread cannot be deflated,
+		// otherwise the id may already belong to another object
+		Mutex mutex = vm.getObjectSynchronizer().get(LockWord.mutexId(word));
+		return mutex != null && mutex.isHeldByCurrentThread() && isMutexAttached(reference, mutex);
+	}
+
+	@Override
+	public boolean isMutexAttached(ObjectValue reference, Mutex mutex) {
+		Assertions.check(!reference.isNull(), "null reference");
+		// Ids of deflated mutexes may be reused, so the
+		// lock word alone is not enough
+		return !mutex.isDeflated() && reference.getMemory().getData().readIntVolatile(LOCK_WORD_OFFSET) == LockWord.inflated(mutex.id());
+	}
+
+	@Override
+	public void tryDeflate(ObjectValue reference, Mutex mutex) {
+		Assertions.check(!reference.isNull(), "null reference");
+		ObjectSynchronizer synchronizer = vm.getObjectSynchronizer();
+		if (!synchronizer.tryDeflate(mutex)) {
+			return;
+		}
+		// Nobody else can change inflated lock word
+		MemoryData data = reference.getMemory().getData();
+		boolean detached = data.compareAndSwapInt(LOCK_WORD_OFFSET, LockWord.inflated(mutex.id()), LockWord.NEUTRAL);
+		Assertions.check(detached, "lock word changed");
+		synchronizer.free(mutex);
 	}
 
 	@Override
@@ -244,7 +330,7 @@ private MemoryBlock touch(MemoryBlock block) {
 		if (block == null) {
 			return null; // out of memory
 		}
-		block.getData().writeInt(4L, -1);
+		block.getData().writeIntVolatile(LOCK_WORD_OFFSET, LockWord.NEUTRAL);
 		return block;
 	}
 
@@ -1,57 +1,87 @@
 package dev.xdark.ssvm.memory.management;
 
 import dev.xdark.ssvm.VirtualMachine;
-import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Basic string pool implementation.
+ * <p>
+ * Strings are keyed by their contents, VM strings
+ * are never converted to host strings.
+ * Lookups do not take any locks.
+ * Pooled strings are held strongly, same as
+ * the memory manager holds every object.
  *
  * @author xDark
  */
 public class SimpleStringPool implements StringPool {
 
-	private final Map<String, InstanceValue> pool = new HashMap<>();
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<StringKey, InstanceValue> pool = new ConcurrentHashMap<>();
 	private final VirtualMachine vm;
-	private final Function<? super String, ? extends InstanceValue> pooler;
+	private final StringLayout layout;
 
 	public SimpleStringPool(VirtualMachine vm) {
 		this.vm = vm;
-		pooler = s -> vm.getOperations().newUtf8(s);
+		layout = new StringLayout(vm.getSymbols());
 	}
 
 	@Override
 	public InstanceValue intern(String value) {
-		Lock lock = this.lock.writeLock();
-		lock.lock();
-		try {
-			return pool.computeIfAbsent(value, pooler);
-		} finally {
-			lock.unlock();
+		StringKey key = StringKey.of(value);
+		InstanceValue existing = pool.get(key);
+		if (existing != null) {
+			return existing;
 		}
+		return insert(key, vm.getOperations().newUtf8(value));
 	}
 
 	@Override
 	public InstanceValue intern(InstanceValue value) {
-		return (InstanceValue) intern(vm.getOperations().readUtf8(value));
+		StringKey key = keyOf(value);
+		InstanceValue existing = pool.get(key);
+		if (existing != null) {
+			return existing;
+		}
+		return insert(key, value);
 	}
 
 	@Override
 	public InstanceValue getIfPresent(String str) {
-		Lock lock = this.lock.readLock();
-		lock.lock();
-		try {
-			return pool.get(str);
-		} finally {
-			lock.unlock();
+		return pool.get(StringKey.of(str));
+	}
+
+	private InstanceValue insert(StringKey key, InstanceValue value) {
+		// Another thread may pool the string first
+		InstanceValue existing = pool.putIfAbsent(key, value);
+		return existing == null ? value : existing;
+	}
+
+	private StringKey keyOf(InstanceValue value) {
+		MemoryManager memoryManager = vm.getMemoryManager();
+		StringLayout layout = this.layout;
+		JavaField valueField = layout.valueField();
+		ArrayValue array = (ArrayValue) memoryManager.readReference(value, valueField.getOffset());
+		MemoryData data = array.getMemory().getData();
+		long baseOffset = memoryManager.arrayBaseOffset(array);
+		int length = array.getLength();
+		if (layout.isCharBacked()) {
+			char[] chars = new char[length];
+			data.read(baseOffset, chars, 0, length);
+			return StringKey.utf16(chars);
+		}
+		if (layout.isUtf16(value)) {
+			char[] chars = new char[length >> 1];
+			data.read(baseOffset, chars, 0, chars.length);
+			return StringKey.utf16(chars);
 		}
+		byte[] bytes = new byte[length];
+		data.read(baseOffset, bytes, 0, length);
+		return StringKey.latin1(bytes);
 	}
 }
@@ -0,0 +1,114 @@
+package dev.xdark.ssvm.memory.management;
+
+import java.util.Arrays;
+
+/**
+ * String pool key.
+ * Compares string contents, regardless of
+ * whether they come from the host or the VM.
+ *
+ * @author xDark
+ */
+final class StringKey {
+	private final Object value;
+	private final int hash;
+
+	private StringKey(Object value, int hash) {
+		this.value = value;
+		this.hash = hash;
+	}
+
+	/**
+	 * @param value Host string.
+	 * @return New key.
+	 */
+	static StringKey of(String value) {
+		return new StringKey(value, value.hashCode());
+	}
+
+	/**
+	 * @param value LATIN1 string contents.
+	 * @return New key.
+	 */
+	static StringKey latin1(byte[] value) {
+		int hash = 0;
+		for (byte b : value) {
+			hash = 31 * hash + (b & 0xFF);
+		}
+		return new StringKey(value, hash);
+	}
+
+	/**
+	 * @param value UTF16 string contents.
+	 * @return New key.
+	 */
+	static StringKey utf16(char[] value) {
+		int hash = 0;
+		for (char c : value) {
+			hash = 31 * hash + c;
+		}
+		return new StringKey(value, hash);
+	}
+
+	private int length() {
+		Object value = this.value;
+		if (value instanceof String) {
+			return ((String) value).length();
+		}
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+		return ((char[]) value).length;
+	}
+
+	private char charAt(int index) {
+		Object value = this.value;
+		if (value instanceof String) {
+			return ((String) value).charAt(index);
+		}
+		if (value instanceof byte[]) {
+			return (char) (((byte[]) value)[index] & 0xFF);
+		}
+		return ((char[]) value)[index];
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof StringKey)) {
+			return false;
+		}
+		StringKey other = (StringKey) o;
+		if (hash != other.hash) {
+			return false;
+		}
+		Object a = value;
+		Object b = other.value;
+		if (a instanceof String && b instanceof String) {
+			return a.equals(b);
+		}
+		if (a instanceof byte[] && b instanceof byte[]) {
+			return Arrays.equals((byte[]) a, (byte[]) b);
+		}
+		if (a instanceof char[] && b instanceof char[]) {
+			return Arrays.equals((char[]) a, (char[]) b);
+		}
+		int length = length();
+		if (length != other.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (charAt(i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
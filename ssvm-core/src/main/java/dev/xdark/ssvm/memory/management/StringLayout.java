@@ -0,0 +1,79 @@
+package dev.xdark.ssvm.memory.management;
+
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.mirror.member.area.ClassArea;
+import dev.xdark.ssvm.symbol.Symbols;
+import dev.xdark.ssvm.value.InstanceValue;
+
+/**
+ * Layout of {@code java.lang.String}.
+ * Fields are resolved on the first access,
+ * as the class is not loaded when the layout is created.
+ *
+ * @author xDark
+ */
+public final class StringLayout {
+	/**
+	 * Coder of the strings that are not LATIN1.
+	 */
+	public static final byte CODER_UTF16 = 1;
+	private final Symbols symbols;
+	private JavaField valueField;
+	private long coderOffset = -1L;
+
+	/**
+	 * @param symbols VM symbols.
+	 */
+	public StringLayout(Symbols symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * @return {@code value} field, either {@code byte[]}
+	 * or {@code char[]}, depending on JDK version.
+	 */
+	public JavaField valueField() {
+		JavaField valueField = this.valueField;
+		if (valueField == null) {
+			ClassArea<JavaField> area = symbols.java_lang_String().virtualFieldArea();
+			valueField = area.get("value", "[B");
+			if (valueField == null) {
+				valueField = area.get("value", "[C");
+			}
+			this.valueField = valueField;
+		}
+		return valueField;
+	}
+
+	/**
+	 * @return {@code true} if strings are backed by {@code char[]},
+	 * {@code false} otherwise.
+	 */
+	public boolean isCharBacked() {
+		return "[C".equals(valueField().getDesc());
+	}
+
+	/**
+	 * Only valid for strings backed by {@code byte[]}.
+	 *
+	 * @return {@code coder} field offset.
+	 */
+	public long coderOffset() {
+		long coderOffset = this.coderOffset;
+		if (coderOffset == -1L) {
+			coderOffset = symbols.java_lang_String().virtualFieldArea().get("coder", "B").getOffset();
+			this.coderOffset = coderOffset;
+		}
+		return coderOffset;
+	}
+
+	/**
+	 * Only valid for strings backed by {@code byte[]}.
+	 *
+	 * @param value String instance.
+	 * @return {@code true} if string contents are UTF16.
+	 */
+	public boolean isUtf16(InstanceValue value) {
+		return value.getData().readByte(coderOffset()) == CODER_UTF16;
+	}
+}
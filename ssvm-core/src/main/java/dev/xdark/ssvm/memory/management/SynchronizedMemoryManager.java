@@ -49,6 +49,31 @@ public Mutex getMutex(ObjectValue reference) {
 		}
 	}
 
+	@Override
+	public boolean tryLightweightLock(ObjectValue reference) {
+		return memoryManager.tryLightweightLock(reference);
+	}
+
+	@Override
+	public boolean tryLightweightUnlock(ObjectValue reference) {
+		return memoryManager.tryLightweightUnlock(reference);
+	}
+
+	@Override
+	public boolean isMutexAttached(ObjectValue reference, Mutex mutex) {
+		return memoryManager.isMutexAttached(reference, mutex);
+	}
+
+	@Override
+	public boolean holdsLock(ObjectValue reference) {
+		return memoryManager.holdsLock(reference);
+	}
+
+	@Override
+	public void tryDeflate(ObjectValue reference, Mutex mutex) {
+		memoryManager.tryDeflate(reference, mutex);
+	}
+
 	@Override
 	public ObjectValue getReference(long address) {
 		synchronized (mutex) {
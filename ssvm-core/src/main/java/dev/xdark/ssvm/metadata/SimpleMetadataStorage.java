@@ -2,38 +2,54 @@
 
 import dev.xdark.ssvm.util.CloseableLock;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Simple metadata storage.
+ * <p>
+ * Lookups are lock-free: values are kept in an array
+ * that is republished through a volatile write after
+ * every registration. Only writers take the lock.
+ * Registration never polls the safepoint, so the lock
+ * is acquired without entering a safe region; holders of
+ * {@link #lock()} must not run VM code either.
  *
  * @author xDark
  */
 public class SimpleMetadataStorage<V> implements MetadataStorage<V> {
 
-	private final List<V> values = new ArrayList<>();
-	private final List<V> view = Collections.unmodifiableList(values);
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private static final Object[] EMPTY = new Object[0];
+	private final Lock lock = new ReentrantLock();
+	private final List<V> view = new View();
 	private final CloseableLock unlocker;
+	private volatile Object[] values = EMPTY;
+	private volatile int size;
 
 	public SimpleMetadataStorage() {
-		Lock lock = this.lock.writeLock();
+		Lock lock = this.lock;
 		unlocker = lock::unlock;
 	}
 
 	@Override
 	public int register(V value) {
-		Lock lock = this.lock.writeLock();
+		Lock lock = this.lock;
 		lock.lock();
 		try {
-			List<V> values = this.values;
-			int id = values.size();
-			values.add(value);
+			Object[] values = this.values;
+			int id = size;
+			if (id == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, id + (id >> 1)));
+			}
+			values[id] = value;
+			// Publish the value before the size,
+			// so that the view never observes null slots.
+			this.values = values;
+			size = id + 1;
 			return afterRegistration(value, id);
 		} finally {
 			lock.unlock();
@@ -41,26 +57,18 @@ public int register(V value) {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public V lookup(int id) {
-		if (id < 0) {
+		Object[] values = this.values;
+		if (id < 0 || id >= values.length) {
 			return null;
 		}
-		Lock lock = this.lock.readLock();
-		lock.lock();
-		try {
-			List<V> values = this.values;
-			if (id >= values.size()) {
-				return null;
-			}
-			return values.get(id);
-		} finally {
-			lock.unlock();
-		}
+		return (V) values[id];
 	}
 
 	@Override
 	public CloseableLock lock() {
-		Lock lock = this.lock.writeLock();
+		Lock lock = this.lock;
 		lock.lock();
 		return unlocker;
 	}
@@ -73,4 +81,22 @@ public List<V> list() {
 	protected int afterRegistration(V value, int id) {
 		return id;
 	}
+
+	private final class View extends AbstractList<V> implements RandomAccess {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V get(int index) {
+			int size = SimpleMetadataStorage.this.size;
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return (V) values[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
 }
@@ -124,4 +124,14 @@ default String getSignature() {
 	 * @return a list of try/catch blocks.
 	 */
 	List<VMTryCatchBlock> getTryCatchBlocks();
+
+	/**
+	 * Returns VM data linked to this method,
+	 * creating it on first access.
+	 * Data lives as long as the method does.
+	 *
+	 * @param key Data key.
+	 * @return linked data.
+	 */
+	<V> V getLinkage(LinkageKey<V> key);
 }
@@ -0,0 +1,39 @@
+package dev.xdark.ssvm.mirror.member;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Key of the VM data linked to a method.
+ * Keys are expected to be long-lived constants.
+ *
+ * @author xDark
+ * @see JavaMethod#getLinkage(LinkageKey)
+ */
+public final class LinkageKey<V> {
+	private static final AtomicInteger INDEX = new AtomicInteger();
+	private final int index = INDEX.getAndIncrement();
+	private final Function<? super JavaMethod, ? extends V> factory;
+
+	/**
+	 * @param factory Data factory.
+	 */
+	public LinkageKey(Function<? super JavaMethod, ? extends V> factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * @return Slot index of the data.
+	 */
+	int index() {
+		return index;
+	}
+
+	/**
+	 * @param method Method to create data for.
+	 * @return New data.
+	 */
+	V create(JavaMethod method) {
+		return factory.apply(method);
+	}
+}
@@ -12,9 +12,11 @@
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TryCatchBlockNode;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
@@ -27,6 +29,7 @@
  */
 public final class SimpleJavaMethod implements JavaMethod {
 
+	private static final Object[] NO_LINKAGE = new Object[0];
 	private final TypeSafeMap metadata = new TypeSafeMap();
 	private final BitSet extraModifiers = new BitSet();
 	private final InstanceClass owner;
@@ -46,6 +49,7 @@ public final class SimpleJavaMethod implements JavaMethod {
 	private Boolean isConstructor;
 	private List<VMTryCatchBlock> tryCatchBlocks;
 	private MemberIdentifier identifier;
+	private volatile Object[] linkage = NO_LINKAGE;
 	private MemberInfo<JavaMethod> linkerInfo; // Delayed allocation until linker is capable of linking polymorphic methods.
 
 	/**
@@ -59,6 +63,12 @@ public SimpleJavaMethod(InstanceClass owner, MethodNode node, String desc, int s
 		this.node = node;
 		this.desc = desc;
 		this.slot = slot;
+		InsnList instructions = node.instructions;
+		if (instructions.size() != 0) {
+			// Build instruction cache eagerly, interpreter threads
+			// must not race on its lazy creation.
+			instructions.get(0);
+		}
 	}
 
 	@Override
@@ -225,6 +235,22 @@ public List<VMTryCatchBlock> getTryCatchBlocks() {
 		return tryCatchBlocks;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <V> V getLinkage(LinkageKey<V> key) {
+		int index = key.index();
+		Object[] linkage = this.linkage;
+		if (index < linkage.length) {
+			Object value = linkage[index];
+			if (value != null) {
+				return (V) value;
+			}
+		}
+		// Data is created outside the lock, as it may run VM code.
+		// First published value wins.
+		return (V) publishLinkage(index, key.create(this));
+	}
+
 	@Override
 	public TypeSafeMap getMetadata() {
 		return metadata;
@@ -351,4 +377,20 @@ public boolean isPolymorphic() {
 			}
 		};
 	}
+
+	private synchronized Object publishLinkage(int index, Object value) {
+		Object[] linkage = this.linkage;
+		if (index < linkage.length) {
+			Object existing = linkage[index];
+			if (existing != null) {
+				return existing;
+			}
+			linkage = linkage.clone();
+		} else {
+			linkage = Arrays.copyOf(linkage, index + 1);
+		}
+		linkage[index] = value;
+		this.linkage = linkage;
+		return value;
+	}
 }
@@ -11,4 +11,14 @@ public interface ArrayClass extends JavaClass {
 	 * @return Array dimensions.
 	 */
 	int getDimensions();
+
+	/**
+	 * @return Log2 of the element size.
+	 */
+	int getElementShift();
+
+	/**
+	 * @return Offset of the first element.
+	 */
+	int getBaseOffset();
 }
@@ -1,5 +1,7 @@
 package dev.xdark.ssvm.mirror.type;
 
+import dev.xdark.ssvm.thread.Safepoint;
+
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,6 +28,17 @@ public void lock() {
 		lock.lock();
 	}
 
+	/**
+	 * Acquires the lock, the owner may
+	 * be running class initializer.
+	 *
+	 * @param safepoint Safepoint to wait in.
+	 * @see Safepoint#lock(Lock)
+	 */
+	public void lock(Safepoint safepoint) {
+		safepoint.lock(lock);
+	}
+
 	public void unlock() {
 		lock.unlock();
 	}
@@ -25,6 +25,8 @@ public final class SimpleArrayClass implements ArrayClass {
 	private int id = -1;
 	private ArrayClass arrayClass;
 	private Type type;
+	private int elementShift = -1;
+	private int baseOffset = -1;
 
 	/**
 	 * @param vm            VM instance.
@@ -95,6 +97,26 @@ public int getDimensions() {
 		return dimensions;
 	}
 
+	@Override
+	public int getElementShift() {
+		int elementShift = this.elementShift;
+		if (elementShift == -1) {
+			elementShift = Long.numberOfTrailingZeros(vm.getMemoryManager().sizeOfType(componentType));
+			this.elementShift = elementShift;
+		}
+		return elementShift;
+	}
+
+	@Override
+	public int getBaseOffset() {
+		int baseOffset = this.baseOffset;
+		if (baseOffset == -1) {
+			baseOffset = vm.getMemoryManager().arrayBaseOffset(componentType);
+			this.baseOffset = baseOffset;
+		}
+		return baseOffset;
+	}
+
 	@Override
 	public ArrayClass newArrayClass() {
 		int dimensions = this.dimensions;
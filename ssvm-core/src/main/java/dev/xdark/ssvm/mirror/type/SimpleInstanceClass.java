@@ -393,7 +393,7 @@ public ClassFile getRawClassFile() {
 	@Override
 	public boolean shouldBeInitialized() {
 		InitializationState state = this.state;
-		state.lock();
+		state.lock(vm.getSafepoint());
 		boolean pending = state.is(State.PENDING);
 		state.unlock();
 		return pending;
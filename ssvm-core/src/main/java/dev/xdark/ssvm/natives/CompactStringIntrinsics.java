@@ -0,0 +1,409 @@
+package dev.xdark.ssvm.natives;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.api.MethodInvoker;
+import dev.xdark.ssvm.api.VMInterface;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+import dev.xdark.ssvm.memory.management.MemoryManager;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.ArrayValue;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Intrinsics for {@code java/lang/StringLatin1}
+ * and {@code java/lang/StringUTF16}.
+ * <p>
+ * Array contents are read with {@link MemoryData} directly,
+ * without copying them into host arrays.
+ * UTF16 strings are stored in the VM byte order,
+ * so chars are read and written as is.
+ * Invokers pass the control back to the interpreter
+ * if the arguments are out of bounds, so that
+ * the exception is thrown by the JDK code.
+ *
+ * @author xDark
+ */
+@UtilityClass
+class CompactStringIntrinsics {
+
+	/**
+	 * Installs intrinsics for JDK 9+.
+	 *
+	 * @param vm VM instance.
+	 */
+	void latin1(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = (InstanceClass) vm.findBootstrapClass("java/lang/StringLatin1");
+		if (jc == null) {
+			return;
+		}
+		vmi.setInvoker(jc, "hashCode", "([B)I", ctx -> {
+			ArrayValue value = vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0));
+			MemoryData data = value.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int hc = 0;
+			for (long end = offset + value.getLength(); offset < end; offset++) {
+				hc = 31 * hc + (data.readByte(offset) & 0xFF);
+			}
+			ctx.setResult(hc);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "equals", "([B[B)Z", ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue value = ops.checkNotNull(locals.loadReference(0));
+			ArrayValue other = ops.checkNotNull(locals.loadReference(1));
+			ctx.setResult(regionEquals(vm.getMemoryManager(), value, other) ? 1 : 0);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "compareTo", "([B[B)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue value = ops.checkNotNull(locals.loadReference(0));
+			ArrayValue other = ops.checkNotNull(locals.loadReference(1));
+			MemoryData v1 = value.getMemory().getData();
+			MemoryData v2 = other.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int len1 = value.getLength();
+			int len2 = other.getLength();
+			int k = mismatch(v1, v2, offset, Math.min(len1, len2));
+			ctx.setResult(k < 0 ? len1 - len2 : (v1.readByte(offset + k) & 0xFF) - (v2.readByte(offset + k) & 0xFF));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "indexOf", "([BII)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			MemoryData data = value.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int ch = locals.loadInt(1);
+			int fromIndex = Math.max(locals.loadInt(2), 0);
+			int result = -1;
+			if (ch >>> 8 == 0) {
+				byte c = (byte) ch;
+				for (int i = fromIndex, length = value.getLength(); i < length; i++) {
+					if (data.readByte(offset + i) == c) {
+						result = i;
+						break;
+					}
+				}
+			}
+			ctx.setResult(result);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "lastIndexOf", "([BII)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			MemoryData data = value.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int ch = locals.loadInt(1);
+			int result = -1;
+			if (ch >>> 8 == 0) {
+				byte c = (byte) ch;
+				for (int i = Math.min(locals.loadInt(2), value.getLength() - 1); i >= 0; i--) {
+					if (data.readByte(offset + i) == c) {
+						result = i;
+						break;
+					}
+				}
+			}
+			ctx.setResult(result);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "indexOf", "([BI[BII)I", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue $value = ops.checkNotNull(locals.loadReference(0));
+			int valueCount = locals.loadInt(1);
+			ArrayValue $str = ops.checkNotNull(locals.loadReference(2));
+			int strCount = locals.loadInt(3);
+			int fromIndex = locals.loadInt(4);
+			if (strCount <= 0 || strCount > $str.getLength() || valueCount > $value.getLength() || fromIndex < 0) {
+				return Result.CONTINUE;
+			}
+			long offset = vm.getMemoryManager().arrayBaseOffset($value);
+			ctx.setResult(indexOf($value.getMemory().getData(), valueCount, $str.getMemory().getData(), strCount, offset, fromIndex));
+			return Result.ABORT;
+		}));
+		MethodInvoker inflate = MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue src = ops.checkNotNull(locals.loadReference(0));
+			int srcOff = locals.loadInt(1);
+			ArrayValue dst = ops.checkNotNull(locals.loadReference(2));
+			int dstOff = locals.loadInt(3);
+			int len = locals.loadInt(4);
+			// Destination is either char[] or UTF16 byte[]
+			int dstLength = dst.getJavaClass().getComponentType() == vm.getPrimitives().charPrimitive() ? dst.getLength() : dst.getLength() >> 1;
+			if (!checkRange(srcOff, len, src.getLength()) || !checkRange(dstOff, len, dstLength)) {
+				return Result.CONTINUE;
+			}
+			MemoryManager memoryManager = vm.getMemoryManager();
+			byte[] bytes = new byte[len];
+			src.getMemory().getData().read(memoryManager.arrayBaseOffset(src) + srcOff, bytes, 0, len);
+			char[] chars = new char[len];
+			for (int i = 0; i < len; i++) {
+				chars[i] = (char) (bytes[i] & 0xFF);
+			}
+			dst.getMemory().getData().write(memoryManager.arrayBaseOffset(dst) + dstOff * 2L, chars, 0, len);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "inflate", "([BI[CII)V", inflate);
+		vmi.setInvoker(jc, "inflate", "([BI[BII)V", inflate);
+	}
+
+	/**
+	 * Installs intrinsics for JDK 9+.
+	 *
+	 * @param vm VM instance.
+	 */
+	void utf16(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = (InstanceClass) vm.findBootstrapClass("java/lang/StringUTF16");
+		if (jc == null) {
+			return;
+		}
+		vmi.setInvoker(jc, "getChar", "([BI)C", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			int index = locals.loadInt(1);
+			if (!checkIndex(index, value.getLength() >> 1)) {
+				return Result.CONTINUE;
+			}
+			ctx.setResult(value.getMemory().getData().readChar(vm.getMemoryManager().arrayBaseOffset(value) + index * 2L));
+			return Result.ABORT;
+		}));
+		vmi.setInvoker(jc, "putChar", "([BII)V", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			int index = locals.loadInt(1);
+			if (!checkIndex(index, value.getLength() >> 1)) {
+				return Result.CONTINUE;
+			}
+			value.getMemory().getData().writeChar(vm.getMemoryManager().arrayBaseOffset(value) + index * 2L, (char) locals.loadInt(2));
+			return Result.ABORT;
+		}));
+		vmi.setInvoker(jc, "hashCode", "([B)I", ctx -> {
+			ArrayValue value = vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0));
+			MemoryData data = value.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int hc = 0;
+			for (long end = offset + (value.getLength() >> 1) * 2L; offset < end; offset += 2L) {
+				hc = 31 * hc + data.readChar(offset);
+			}
+			ctx.setResult(hc);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "compareTo", "([B[B)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue value = ops.checkNotNull(locals.loadReference(0));
+			ArrayValue other = ops.checkNotNull(locals.loadReference(1));
+			MemoryData v1 = value.getMemory().getData();
+			MemoryData v2 = other.getMemory().getData();
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			int len1 = value.getLength() >> 1;
+			int len2 = other.getLength() >> 1;
+			int result = len1 - len2;
+			// Find the differing byte, then compare the whole char
+			int k = mismatch(v1, v2, offset, Math.min(len1, len2) << 1);
+			if (k >= 0) {
+				long charOffset = offset + (k & ~1);
+				result = v1.readChar(charOffset) - v2.readChar(charOffset);
+			}
+			ctx.setResult(result);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "indexOf", "([BII)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			ctx.setResult(indexOf(value.getMemory().getData(), offset, value.getLength() >> 1, locals.loadInt(1), locals.loadInt(2)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "lastIndexOf", "([BII)I", ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue value = vm.getOperations().checkNotNull(locals.loadReference(0));
+			long offset = vm.getMemoryManager().arrayBaseOffset(value);
+			ctx.setResult(lastIndexOf(value.getMemory().getData(), offset, value.getLength() >> 1, locals.loadInt(1), locals.loadInt(2)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "toBytes", "([CII)[B", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue value = ops.checkNotNull(locals.loadReference(0));
+			int off = locals.loadInt(1);
+			int len = locals.loadInt(2);
+			if (!checkRange(off, len, value.getLength()) || len > Integer.MAX_VALUE >> 1) {
+				return Result.CONTINUE;
+			}
+			MemoryManager memoryManager = vm.getMemoryManager();
+			ArrayValue result = ops.allocateByteArray(len << 1);
+			value.getMemory().getData().write(memoryManager.arrayBaseOffset(value) + off * 2L, result.getMemory().getData(), memoryManager.arrayBaseOffset(result), len * 2L);
+			ctx.setResult(result);
+			return Result.ABORT;
+		}));
+		vmi.setInvoker(jc, "getChars", "([BII[CI)V", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue value = ops.checkNotNull(locals.loadReference(0));
+			int srcBegin = locals.loadInt(1);
+			int srcEnd = locals.loadInt(2);
+			ArrayValue dst = ops.checkNotNull(locals.loadReference(3));
+			int dstBegin = locals.loadInt(4);
+			int len = srcEnd - srcBegin;
+			if (!checkRange(srcBegin, len, value.getLength() >> 1) || !checkRange(dstBegin, len, dst.getLength())) {
+				return Result.CONTINUE;
+			}
+			MemoryManager memoryManager = vm.getMemoryManager();
+			value.getMemory().getData().write(memoryManager.arrayBaseOffset(value) + srcBegin * 2L, dst.getMemory().getData(), memoryManager.arrayBaseOffset(dst) + dstBegin * 2L, len * 2L);
+			return Result.ABORT;
+		}));
+	}
+
+	/**
+	 * Installs {@code compress} intrinsics.
+	 * Newer JDKs changed the meaning of the result,
+	 * so these are only valid up to JDK 17.
+	 *
+	 * @param vm VM instance.
+	 */
+	void compress(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = (InstanceClass) vm.findBootstrapClass("java/lang/StringUTF16");
+		if (jc == null) {
+			return;
+		}
+		MethodInvoker compress = MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue src = ops.checkNotNull(locals.loadReference(0));
+			int srcOff = locals.loadInt(1);
+			ArrayValue dst = ops.checkNotNull(locals.loadReference(2));
+			int dstOff = locals.loadInt(3);
+			int len = locals.loadInt(4);
+			// Source is either char[] or UTF16 byte[]
+			int srcLength = src.getJavaClass().getComponentType() == vm.getPrimitives().charPrimitive() ? src.getLength() : src.getLength() >> 1;
+			if (!checkRange(srcOff, len, srcLength) || !checkRange(dstOff, len, dst.getLength())) {
+				return Result.CONTINUE;
+			}
+			MemoryManager memoryManager = vm.getMemoryManager();
+			char[] chars = new char[len];
+			src.getMemory().getData().read(memoryManager.arrayBaseOffset(src) + srcOff * 2L, chars, 0, len);
+			byte[] bytes = new byte[len];
+			for (int i = 0; i < len; i++) {
+				char c = chars[i];
+				if (c > 0xFF) {
+					ctx.setResult(0);
+					return Result.ABORT;
+				}
+				bytes[i] = (byte) c;
+			}
+			dst.getMemory().getData().write(memoryManager.arrayBaseOffset(dst) + dstOff, bytes, 0, len);
+			ctx.setResult(len);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "compress", "([CI[BII)I", compress);
+		vmi.setInvoker(jc, "compress", "([BI[BII)I", compress);
+	}
+
+	private boolean regionEquals(MemoryManager memoryManager, ArrayValue a, ArrayValue b) {
+		int length = a.getLength();
+		if (length != b.getLength()) {
+			return false;
+		}
+		return mismatch(a.getMemory().getData(), b.getMemory().getData(), memoryManager.arrayBaseOffset(a), length) < 0;
+	}
+
+	private int mismatch(MemoryData v1, MemoryData v2, long offset, int length) {
+		int i = 0;
+		for (; length - i >= 8; i += 8) {
+			if (v1.readLong(offset + i) != v2.readLong(offset + i)) {
+				break;
+			}
+		}
+		for (; i < length; i++) {
+			if (v1.readByte(offset + i) != v2.readByte(offset + i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean checkIndex(int index, int length) {
+		return index >= 0 && index < length;
+	}
+
+	private boolean checkRange(int offset, int count, int length) {
+		return offset >= 0 && count >= 0 && offset <= length - count;
+	}
+
+	private int indexOf(MemoryData value, int valueCount, MemoryData str, int strCount, long offset, int fromIndex) {
+		byte first = str.readByte(offset);
+		int max = valueCount - strCount;
+		for (int i = fromIndex; i <= max; i++) {
+			if (value.readByte(offset + i) != first) {
+				while (++i <= max && value.readByte(offset + i) != first) {
+					;
+				}
+			}
+			if (i <= max) {
+				int j = i + 1;
+				int end = j + strCount - 1;
+				for (int k = 1; j < end && value.readByte(offset + j) == str.readByte(offset + k); j++, k++) {
+					;
+				}
+				if (j == end) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int indexOf(MemoryData value, long offset, int length, int ch, int fromIndex) {
+		int max = length;
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		} else if (fromIndex >= max) {
+			return -1;
+		}
+		if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			for (int i = fromIndex; i < max; i++) {
+				if (value.readChar(offset + i * 2L) == ch) {
+					return i;
+				}
+			}
+		} else if (Character.isValidCodePoint(ch)) {
+			char hi = Character.highSurrogate(ch);
+			char lo = Character.lowSurrogate(ch);
+			for (int i = fromIndex; i < max - 1; i++) {
+				if (value.readChar(offset + i * 2L) == hi && value.readChar(offset + i * 2L + 2L) == lo) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int lastIndexOf(MemoryData value, long offset, int length, int ch, int fromIndex) {
+		if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			for (int i = Math.min(fromIndex, length - 1); i >= 0; i--) {
+				if (value.readChar(offset + i * 2L) == ch) {
+					return i;
+				}
+			}
+		} else if (Character.isValidCodePoint(ch)) {
+			char hi = Character.highSurrogate(ch);
+			char lo = Character.lowSurrogate(ch);
+			for (int i = Math.min(fromIndex, length - 2); i >= 0; i--) {
+				if (value.readChar(offset + i * 2L) == hi && value.readChar(offset + i * 2L + 2L) == lo) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+}
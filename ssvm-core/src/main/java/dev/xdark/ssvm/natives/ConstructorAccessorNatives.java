@@ -7,6 +7,7 @@
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.mirror.type.JavaClass;
+import dev.xdark.ssvm.operation.FieldHandle;
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
@@ -33,35 +34,39 @@ public void init(VirtualMachine vm) {
 				throw new IllegalStateException("Unable to locate NativeConstructorAccessorImpl class");
 			}
 		}
+		VMOperations ops = vm.getOperations();
+		InstanceClass constructor = vm.getSymbols().java_lang_reflect_Constructor();
+		FieldHandle slot = ops.getFieldHandle(constructor, "slot", "I");
+		FieldHandle clazz = ops.getFieldHandle(constructor, "clazz", "Ljava/lang/Class;");
 		vmi.setInvoker(accessor, "newInstance0", "(Ljava/lang/reflect/Constructor;[Ljava/lang/Object;)Ljava/lang/Object;", ctx -> {
 			Locals locals = ctx.getLocals();
 			InstanceValue c = locals.loadReference(0);
-			VMOperations ops = vm.getOperations();
-			int slot = ops.getInt(c, "slot");
-			JavaClass declaringClass = vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(c, "clazz", "Ljava/lang/Class;")));
+			JavaClass declaringClass = vm.getClassStorage().lookup(ops.checkNotNull(clazz.getReference(c)));
 			if (!(declaringClass instanceof InstanceClass)) {
 				ops.throwException(vm.getSymbols().java_lang_InstantiationError());
 				return Result.ABORT;
 			}
-			JavaMethod mn = ((InstanceClass) declaringClass).getMethodBySlot(slot);
-			if (mn == null || !"<init>".equals(mn.getName())) {
+			JavaMethod target = ((InstanceClass) declaringClass).getMethodBySlot(slot.getInt(c));
+			if (target == null || !"<init>".equals(target.getName())) {
 				ops.throwException(vm.getSymbols().java_lang_IllegalArgumentException());
 				return Result.ABORT;
 			}
+			ReflectionPlan plan = target.getLinkage(ReflectionPlan.PLAN);
 			ObjectValue values = locals.loadReference(1);
-			JavaClass[] types = mn.getArgumentTypes();
+			int argumentCount = plan.getArgumentCount();
 			ArrayValue passedArgs = null;
 			if (!values.isNull()) {
 				passedArgs = (ArrayValue) values;
-				ops.checkEquals(passedArgs.getLength(), types.length);
+				ops.checkEquals(passedArgs.getLength(), argumentCount);
 			} else {
-				ops.checkEquals(types.length, 0);
+				ops.checkEquals(argumentCount, 0);
 			}
-			InstanceValue instance = vm.getMemoryManager().newInstance((InstanceClass) declaringClass);
+			JavaMethod mn = plan.getMethod();
+			InstanceValue instance = vm.getMemoryManager().newInstance(mn.getOwner());
 			Locals args = vm.getThreadStorage().newLocals(mn);
 			args.setReference(0, instance);
 			if (passedArgs != null) {
-				Util.copyReflectionArguments(vm, types, passedArgs, args, 1);
+				plan.copyArguments(ops, passedArgs, args, 1);
 			}
 			ops.invokeVoid(mn, args);
 			ctx.setResult(instance);
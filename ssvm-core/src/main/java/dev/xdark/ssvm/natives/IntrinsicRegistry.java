@@ -0,0 +1,56 @@
+package dev.xdark.ssvm.natives;
+
+import dev.xdark.ssvm.VirtualMachine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Intrinsic sets keyed by the range
+ * of JDK versions they are valid for.
+ *
+ * @author xDark
+ */
+final class IntrinsicRegistry {
+	static final int ANY_VERSION = Integer.MAX_VALUE;
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * @param minVersion Minimum JDK version, inclusive.
+	 * @param maxVersion Maximum JDK version, inclusive.
+	 * @param installer  Intrinsic set installer.
+	 * @return This registry.
+	 */
+	IntrinsicRegistry register(int minVersion, int maxVersion, Consumer<VirtualMachine> installer) {
+		entries.add(new Entry(minVersion, maxVersion, installer));
+		return this;
+	}
+
+	/**
+	 * Installs all intrinsic sets
+	 * that match VM's JDK version.
+	 *
+	 * @param vm VM instance.
+	 */
+	void install(VirtualMachine vm) {
+		int version = vm.getJvmVersion();
+		for (Entry entry : entries) {
+			if (version >= entry.minVersion && version <= entry.maxVersion) {
+				entry.installer.accept(vm);
+			}
+		}
+	}
+
+	private static final class Entry {
+		final int minVersion;
+		final int maxVersion;
+		final Consumer<VirtualMachine> installer;
+
+		Entry(int minVersion, int maxVersion, Consumer<VirtualMachine> installer) {
+			this.minVersion = minVersion;
+			this.maxVersion = maxVersion;
+			this.installer = installer;
+		}
+	}
+}
@@ -13,6 +13,7 @@
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.member.area.ClassArea;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.mirror.type.JavaClass;
 import dev.xdark.ssvm.mirror.type.PrimitiveClass;
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.thread.ThreadStorage;
@@ -22,6 +23,8 @@
 import dev.xdark.ssvm.value.sink.IntValueSink;
 import lombok.experimental.UtilityClass;
 
+import static dev.xdark.ssvm.natives.IntrinsicRegistry.ANY_VERSION;
+
 /**
  * VM intrinsics.
  *
@@ -34,13 +37,21 @@ public class IntrinsicsNatives {
 	 * @param vm VM instance.
 	 */
 	public void init(VirtualMachine vm) {
-		mathIntrinsics(vm);
-		objectIntrinsics(vm);
-		stringIntrinsics(vm);
-		characterIntrinsics(vm);
-		intIntrinsics(vm);
-		longIntrinsics(vm);
-		arrayIntrinsics(vm);
+		new IntrinsicRegistry()
+			.register(8, ANY_VERSION, IntrinsicsNatives::mathIntrinsics)
+			.register(8, ANY_VERSION, IntrinsicsNatives::objectIntrinsics)
+			.register(8, 8, IntrinsicsNatives::stringIntrinsics)
+			.register(9, ANY_VERSION, IntrinsicsNatives::compactStringIntrinsics)
+			.register(9, ANY_VERSION, CompactStringIntrinsics::latin1)
+			.register(9, ANY_VERSION, CompactStringIntrinsics::utf16)
+			.register(9, 17, CompactStringIntrinsics::compress)
+			.register(8, ANY_VERSION, IntrinsicsNatives::characterIntrinsics)
+			.register(8, ANY_VERSION, IntrinsicsNatives::intIntrinsics)
+			.register(8, ANY_VERSION, IntrinsicsNatives::longIntrinsics)
+			.register(8, ANY_VERSION, IntrinsicsNatives::arrayIntrinsics)
+			.register(9, ANY_VERSION, IntrinsicsNatives::arrayMismatchIntrinsics)
+			.register(8, ANY_VERSION, IntrinsicsNatives::hashMapIntrinsics)
+			.install(vm);
 	}
 
 	private void mathIntrinsics(VirtualMachine vm) {
@@ -106,6 +117,58 @@ private void mathIntrinsics(VirtualMachine vm) {
 			ctx.setResult(Math.abs(locals.loadDouble(0)));
 			return Result.ABORT;
 		});
+		vmi.setInvoker(jc, "sqrt", "(D)D", ctx -> {
+			ctx.setResult(Math.sqrt(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		// Use StrictMath, results must not depend
+		// on whether the method was intrinsified
+		vmi.setInvoker(jc, "cbrt", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.cbrt(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "pow", "(DD)D", ctx -> {
+			Locals locals = ctx.getLocals();
+			ctx.setResult(StrictMath.pow(locals.loadDouble(0), locals.loadDouble(2)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "exp", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.exp(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "log", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.log(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "log10", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.log10(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "sin", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.sin(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "cos", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.cos(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "tan", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.tan(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "atan2", "(DD)D", ctx -> {
+			Locals locals = ctx.getLocals();
+			ctx.setResult(StrictMath.atan2(locals.loadDouble(0), locals.loadDouble(2)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "floor", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.floor(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
+		vmi.setInvoker(jc, "ceil", "(D)D", ctx -> {
+			ctx.setResult(StrictMath.ceil(ctx.getLocals().loadDouble(0)));
+			return Result.ABORT;
+		});
 	}
 
 	private static void objectIntrinsics(VirtualMachine vm) {
@@ -118,201 +181,200 @@ private static void objectIntrinsics(VirtualMachine vm) {
 		});
 	}
 
-	private static void stringIntrinsics(VirtualMachine vm) {
+	private static void compactStringIntrinsics(VirtualMachine vm) {
 		VMInterface vmi = vm.getInterface();
 		InstanceClass jc = vm.getSymbols().java_lang_String();
 		ClassArea<JavaField> area = jc.virtualFieldArea();
-		if (vm.getJvmVersion() > 8) {
-			// TODO: intrinsics for indexOf/lastIndexOf/etc operations for JDK 9+
-			JavaField coderValue = area.get("coder", "B");
-			JavaField bytesValue = area.get("value", "[B");
-			if (bytesValue != null) {
-				MemoryManager memoryManager = vm.getMemoryManager();
-				long valueOffset = bytesValue.getOffset();
-				vmi.setInvoker(jc, "length", "()I", ctx -> {
-					ObjectValue _this = ctx.getLocals().loadReference(0);
-					byte coder = _this.getData().readByte(coderValue.getOffset());
-					ArrayValue bytes = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-					ctx.setResult(bytes.getLength() >> coder);
-					return Result.ABORT;
-				});
-				long hashOffset = area.get("hash", "I").getOffset();
-				vmi.setInvoker(jc, "hashCode", "()I", ctx -> {
-					InstanceValue _this = ctx.getLocals().loadReference(0);
-					MemoryData data = _this.getData();
-					int hc = data.readInt(hashOffset);
-					if (hc == 0) {
-						ArrayValue value = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-						for (int i = 0, j = value.getLength(); i < j; i++) {
-							hc = 31 * hc + value.getByte(i);
+		// StringLatin1/StringUTF16 are covered by CompactStringIntrinsics
+		JavaField coderValue = area.get("coder", "B");
+		JavaField bytesValue = area.get("value", "[B");
+		if (bytesValue != null) {
+			MemoryManager memoryManager = vm.getMemoryManager();
+			long valueOffset = bytesValue.getOffset();
+			vmi.setInvoker(jc, "length", "()I", ctx -> {
+				ObjectValue _this = ctx.getLocals().loadReference(0);
+				byte coder = _this.getData().readByte(coderValue.getOffset());
+				ArrayValue bytes = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+				ctx.setResult(bytes.getLength() >> coder);
+				return Result.ABORT;
+			});
+			long hashOffset = area.get("hash", "I").getOffset();
+			vmi.setInvoker(jc, "hashCode", "()I", ctx -> {
+				InstanceValue _this = ctx.getLocals().loadReference(0);
+				MemoryData data = _this.getData();
+				int hc = data.readInt(hashOffset);
+				if (hc == 0) {
+					VMOperations ops = vm.getOperations();
+					ArrayValue value = ops.checkNotNull(memoryManager.readReference(_this, valueOffset));
+					if (data.readByte(coderValue.getOffset()) == 0) {
+						for (byte b : ops.toJavaBytes(value)) {
+							hc = 31 * hc + (b & 0xFF);
 						}
-						data.writeInt(hashOffset, hc);
-					}
-					ctx.setResult(hc);
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "equals", "(Ljava/lang/Object;)Z", ctx -> {
-					ret:
-					{
-						Locals locals = ctx.getLocals();
-						ObjectValue other = locals.loadReference(1);
-						if (other.isNull() || other.getJavaClass() != jc) {
-							ctx.setResult(0);
-						} else {
-							InstanceValue _this = locals.loadReference(0);
-							ArrayValue bytes = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-							ArrayValue bytes2 = vm.getOperations().checkNotNull(memoryManager.readReference(other, valueOffset));
-							int len = bytes.getLength();
-							if (len != bytes2.getLength()) {
-								ctx.setResult(0);
-							} else {
-								while (len-- != 0) {
-									if (bytes.getByte(len) != bytes2.getByte(len)) {
-										ctx.setResult(0);
-										break ret;
-									}
-								}
-								ctx.setResult(1);
-							}
+					} else {
+						char[] chars = new char[value.getLength() >> 1];
+						value.getMemory().getData().read(memoryManager.arrayBaseOffset(value), chars, 0, chars.length);
+						for (char c : chars) {
+							hc = 31 * hc + c;
 						}
 					}
-					return Result.ABORT;
-				});
-			}
-		} else {
-			JavaField charValue = area.get("value", "[C");
-			if (charValue != null) {
-				MemoryManager memoryManager = vm.getMemoryManager();
-				long valueOffset = charValue.getOffset();
-				vmi.setInvoker(jc, "length", "()I", ctx -> {
-					ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(ctx.getLocals().loadReference(0), valueOffset));
-					ctx.setResult(chars.getLength());
-					return Result.ABORT;
-				});
-				long hashOffset = area.get("hash", "I").getOffset();
-				vmi.setInvoker(jc, "hashCode", "()I", ctx -> {
-					InstanceValue _this = ctx.getLocals().loadReference(0);
-					MemoryData data = _this.getData();
-					int hc = data.readInt(hashOffset);
-					if (hc == 0) {
-						ArrayValue value = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-						for (int i = 0, j = value.getLength(); i < j; i++) {
-							hc = 31 * hc + value.getChar(i);
-						}
-						data.writeInt(hashOffset, hc);
+					data.writeInt(hashOffset, hc);
+				}
+				ctx.setResult(hc);
+				return Result.ABORT;
+			});
+			long coderOffset = coderValue.getOffset();
+			vmi.setInvoker(jc, "equals", "(Ljava/lang/Object;)Z", ctx -> {
+				Locals locals = ctx.getLocals();
+				ObjectValue other = locals.loadReference(1);
+				InstanceValue _this = locals.loadReference(0);
+				if (other.isNull() || other.getJavaClass() != jc || _this.getData().readByte(coderOffset) != other.getData().readByte(coderOffset)) {
+					ctx.setResult(0);
+				} else {
+					ArrayValue bytes = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+					ArrayValue bytes2 = vm.getOperations().checkNotNull(memoryManager.readReference(other, valueOffset));
+					ctx.setResult(primitiveArraysEqual(memoryManager, bytes, bytes2));
+				}
+				return Result.ABORT;
+			});
+		}
+	}
+
+	private static void stringIntrinsics(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = vm.getSymbols().java_lang_String();
+		ClassArea<JavaField> area = jc.virtualFieldArea();
+		JavaField charValue = area.get("value", "[C");
+		if (charValue != null) {
+			MemoryManager memoryManager = vm.getMemoryManager();
+			long valueOffset = charValue.getOffset();
+			vmi.setInvoker(jc, "length", "()I", ctx -> {
+				ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(ctx.getLocals().loadReference(0), valueOffset));
+				ctx.setResult(chars.getLength());
+				return Result.ABORT;
+			});
+			long hashOffset = area.get("hash", "I").getOffset();
+			vmi.setInvoker(jc, "hashCode", "()I", ctx -> {
+				InstanceValue _this = ctx.getLocals().loadReference(0);
+				MemoryData data = _this.getData();
+				int hc = data.readInt(hashOffset);
+				if (hc == 0) {
+					ArrayValue value = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+					for (int i = 0, j = value.getLength(); i < j; i++) {
+						hc = 31 * hc + value.getChar(i);
 					}
-					ctx.setResult(hc);
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "lastIndexOf", "(II)I", ctx -> {
-					Locals locals = ctx.getLocals();
-					InstanceValue _this = locals.loadReference(0);
-					ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-					int ch = locals.loadInt(1);
-					int fromIndex = locals.loadInt(2);
-					ctx.setResult(lastIndexOf(chars, ch, fromIndex));
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "indexOf", "([CII[CIII)I", ctx -> {
-					Locals locals = ctx.getLocals();
-					ArrayValue source = locals.loadReference(0);
-					int sourceOffset = locals.loadInt(1);
-					int sourceCount = locals.loadInt(2);
-					ArrayValue target = locals.loadReference(3);
-					int targetOffset = locals.loadInt(4);
-					int targetCount = locals.loadInt(5);
-					int fromIndex = locals.loadInt(6);
-					ctx.setResult(indexOf(source, sourceOffset, sourceCount, target, targetOffset, targetCount, fromIndex));
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "indexOf", "(II)I", ctx -> {
-					Locals locals = ctx.getLocals();
-					InstanceValue _this = locals.loadReference(0);
-					ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-					int ch = locals.loadInt(1);
-					int fromIndex = locals.loadInt(2);
-					ctx.setResult(indexOf(chars, ch, fromIndex));
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "indexOf", "(I)I", ctx -> {
+					data.writeInt(hashOffset, hc);
+				}
+				ctx.setResult(hc);
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "lastIndexOf", "(II)I", ctx -> {
+				Locals locals = ctx.getLocals();
+				InstanceValue _this = locals.loadReference(0);
+				ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+				int ch = locals.loadInt(1);
+				int fromIndex = locals.loadInt(2);
+				ctx.setResult(lastIndexOf(chars, ch, fromIndex));
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "indexOf", "([CII[CIII)I", ctx -> {
+				Locals locals = ctx.getLocals();
+				ArrayValue source = locals.loadReference(0);
+				int sourceOffset = locals.loadInt(1);
+				int sourceCount = locals.loadInt(2);
+				ArrayValue target = locals.loadReference(3);
+				int targetOffset = locals.loadInt(4);
+				int targetCount = locals.loadInt(5);
+				int fromIndex = locals.loadInt(6);
+				ctx.setResult(indexOf(source, sourceOffset, sourceCount, target, targetOffset, targetCount, fromIndex));
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "indexOf", "(II)I", ctx -> {
+				Locals locals = ctx.getLocals();
+				InstanceValue _this = locals.loadReference(0);
+				ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+				int ch = locals.loadInt(1);
+				int fromIndex = locals.loadInt(2);
+				ctx.setResult(indexOf(chars, ch, fromIndex));
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "indexOf", "(I)I", ctx -> {
+				Locals locals = ctx.getLocals();
+				InstanceValue _this = locals.loadReference(0);
+				ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+				int ch = locals.loadInt(1);
+				ctx.setResult(indexOf(chars, ch, 0));
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "equals", "(Ljava/lang/Object;)Z", ctx -> {
+				ret:
+				{
 					Locals locals = ctx.getLocals();
-					InstanceValue _this = locals.loadReference(0);
-					ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-					int ch = locals.loadInt(1);
-					ctx.setResult(indexOf(chars, ch, 0));
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "equals", "(Ljava/lang/Object;)Z", ctx -> {
-					ret:
-					{
-						Locals locals = ctx.getLocals();
-						ObjectValue other = locals.loadReference(1);
-						if (other.isNull() || other.getJavaClass() != jc) {
+					ObjectValue other = locals.loadReference(1);
+					if (other.isNull() || other.getJavaClass() != jc) {
+						ctx.setResult(0);
+					} else {
+						InstanceValue _this = locals.loadReference(0);
+						ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
+						ArrayValue chars2 = vm.getOperations().checkNotNull(memoryManager.readReference(other, valueOffset));
+						int len = chars.getLength();
+						if (len != chars2.getLength()) {
 							ctx.setResult(0);
 						} else {
-							InstanceValue _this = locals.loadReference(0);
-							ArrayValue chars = vm.getOperations().checkNotNull(memoryManager.readReference(_this, valueOffset));
-							ArrayValue chars2 = vm.getOperations().checkNotNull(memoryManager.readReference(other, valueOffset));
-							int len = chars.getLength();
-							if (len != chars2.getLength()) {
-								ctx.setResult(0);
-							} else {
-								while (len-- != 0) {
-									if (chars.getChar(len) != chars2.getChar(len)) {
-										ctx.setResult(0);
-										break ret;
-									}
+							while (len-- != 0) {
+								if (chars.getChar(len) != chars2.getChar(len)) {
+									ctx.setResult(0);
+									break ret;
 								}
-								ctx.setResult(1);
 							}
+							ctx.setResult(1);
 						}
 					}
-					return Result.ABORT;
-				});
-				vmi.setInvoker(jc, "startsWith", "(Ljava/lang/String;I)Z", ctx -> {
-					Locals locals = ctx.getLocals();
+				}
+				return Result.ABORT;
+			});
+			vmi.setInvoker(jc, "startsWith", "(Ljava/lang/String;I)Z", ctx -> {
+				Locals locals = ctx.getLocals();
+				VMOperations ops = vm.getOperations();
+				ArrayValue prefix = (ArrayValue) memoryManager.readReference(ops.<InstanceValue>checkNotNull(locals.loadReference(1)), valueOffset);
+				ArrayValue _this = (ArrayValue) memoryManager.readReference(locals.<InstanceValue>loadReference(0), valueOffset);
+				int toOffset = locals.loadInt(2);
+				ctx.setResult(startsWith(_this, prefix, toOffset) ? 1 : 0);
+				return Result.ABORT;
+			});
+			PrimitiveClass charPrimitive = vm.getPrimitives().charPrimitive();
+			vmi.setInvoker(jc, "replace", "(CC)Ljava/lang/String;", ctx -> {
+				Locals locals = ctx.getLocals();
+				char oldChar = (char) locals.loadInt(1);
+				char newChar = (char) locals.loadInt(2);
+				InstanceValue _this = locals.loadReference(0);
+				if (oldChar == newChar) {
+					ctx.setResult(_this);
+				} else {
 					VMOperations ops = vm.getOperations();
-					ArrayValue prefix = (ArrayValue) memoryManager.readReference(ops.<InstanceValue>checkNotNull(locals.loadReference(1)), valueOffset);
-					ArrayValue _this = (ArrayValue) memoryManager.readReference(locals.<InstanceValue>loadReference(0), valueOffset);
-					int toOffset = locals.loadInt(2);
-					ctx.setResult(startsWith(_this, prefix, toOffset) ? 1 : 0);
-					return Result.ABORT;
-				});
-				PrimitiveClass charPrimitive = vm.getPrimitives().charPrimitive();
-				vmi.setInvoker(jc, "replace", "(CC)Ljava/lang/String;", ctx -> {
-					Locals locals = ctx.getLocals();
-					char oldChar = (char) locals.loadInt(1);
-					char newChar = (char) locals.loadInt(2);
-					InstanceValue _this = locals.loadReference(0);
-					if (oldChar == newChar) {
-						ctx.setResult(_this);
-					} else {
-						VMOperations ops = vm.getOperations();
-						ArrayValue value = (ArrayValue) memoryManager.readReference(_this, valueOffset);
-						int len = value.getLength();
-						int i = -1;
-						while (++i < len) {
-							if (value.getChar(i) == oldChar) {
-								break;
-							}
+					ArrayValue value = (ArrayValue) memoryManager.readReference(_this, valueOffset);
+					int len = value.getLength();
+					int i = -1;
+					while (++i < len) {
+						if (value.getChar(i) == oldChar) {
+							break;
 						}
-						if (i < len) {
-							ArrayValue buf = ops.allocateArray(charPrimitive, len);
-							for (int j = 0; j < i; j++) {
-								buf.setChar(j, value.getChar(j));
-							}
-							while (i < len) {
-								char c = value.getChar(i);
-								buf.setChar(i++, (c == oldChar) ? newChar : c);
-							}
-							ctx.setResult(ops.newUtf8FromChars(buf));
-						} else {
-							ctx.setResult(_this);
+					}
+					if (i < len) {
+						ArrayValue buf = ops.allocateArray(charPrimitive, len);
+						for (int j = 0; j < i; j++) {
+							buf.setChar(j, value.getChar(j));
+						}
+						while (i < len) {
+							char c = value.getChar(i);
+							buf.setChar(i++, (c == oldChar) ? newChar : c);
 						}
+						ctx.setResult(ops.newUtf8FromChars(buf));
+					} else {
+						ctx.setResult(_this);
 					}
-					return Result.ABORT;
-				});
-			}
+				}
+				return Result.ABORT;
+			});
 		}
 	}
 
@@ -521,6 +583,33 @@ private void intIntrinsics(VirtualMachine vm) {
 			ctx.setResult(vm.getOperations().newUtf8(Integer.toString(value, radix)));
 			return Result.ABORT;
 		});
+		// Malformed input is left to the JDK code,
+		// so that the exception message matches
+		vmi.setInvoker(jc, "parseInt", "(Ljava/lang/String;)I", MethodInvoker.interpreted(ctx -> {
+			String value = readNumber(vm, ctx.getLocals().loadReference(0));
+			if (value == null) {
+				return Result.CONTINUE;
+			}
+			try {
+				ctx.setResult(Integer.parseInt(value));
+			} catch (NumberFormatException ignored) {
+				return Result.CONTINUE;
+			}
+			return Result.ABORT;
+		}));
+		vmi.setInvoker(jc, "parseInt", "(Ljava/lang/String;I)I", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			String value = readNumber(vm, locals.loadReference(0));
+			if (value == null) {
+				return Result.CONTINUE;
+			}
+			try {
+				ctx.setResult(Integer.parseInt(value, locals.loadInt(1)));
+			} catch (NumberFormatException ignored) {
+				return Result.CONTINUE;
+			}
+			return Result.ABORT;
+		}));
 	}
 
 	private void longIntrinsics(VirtualMachine vm) {
@@ -554,6 +643,65 @@ private void longIntrinsics(VirtualMachine vm) {
 			ctx.setResult(Long.reverseBytes(ctx.getLocals().loadLong(0)));
 			return Result.ABORT;
 		});
+		vmi.setInvoker(jc, "parseLong", "(Ljava/lang/String;)J", MethodInvoker.interpreted(ctx -> {
+			String value = readNumber(vm, ctx.getLocals().loadReference(0));
+			if (value == null) {
+				return Result.CONTINUE;
+			}
+			try {
+				ctx.setResult(Long.parseLong(value));
+			} catch (NumberFormatException ignored) {
+				return Result.CONTINUE;
+			}
+			return Result.ABORT;
+		}));
+		vmi.setInvoker(jc, "parseLong", "(Ljava/lang/String;I)J", MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			String value = readNumber(vm, locals.loadReference(0));
+			if (value == null) {
+				return Result.CONTINUE;
+			}
+			try {
+				ctx.setResult(Long.parseLong(value, locals.loadInt(1)));
+			} catch (NumberFormatException ignored) {
+				return Result.CONTINUE;
+			}
+			return Result.ABORT;
+		}));
+	}
+
+	private String readNumber(VirtualMachine vm, ObjectValue value) {
+		if (value.isNull()) {
+			return null;
+		}
+		String str = vm.getOperations().readUtf8(value);
+		// Host Character.digit may accept digits that the
+		// guest JDK does not know about, only ASCII is handled here
+		for (int i = 0, j = str.length(); i < j; i++) {
+			char c = str.charAt(i);
+			if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '+')) {
+				return null;
+			}
+		}
+		return str;
+	}
+
+	private void hashMapIntrinsics(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = (InstanceClass) vm.findBootstrapClass("java/util/HashMap");
+		vmi.setInvoker(jc, "hash", "(Ljava/lang/Object;)I", ctx -> {
+			ObjectValue key = ctx.getLocals().loadReference(0);
+			if (key.isNull()) {
+				ctx.setResult(0);
+			} else {
+				JavaMethod method = vm.getRuntimeResolver().resolveVirtualMethod(key, "hashCode", "()I");
+				Locals locals = vm.getThreadStorage().newLocals(method);
+				locals.setReference(0, key);
+				int h = vm.getOperations().invoke(method, locals, new IntValueSink()).getValue();
+				ctx.setResult(h ^ (h >>> 16));
+			}
+			return Result.ABORT;
+		});
 	}
 
 	private void arrayIntrinsics(VirtualMachine vm) {
@@ -838,6 +986,89 @@ private void arrayIntrinsics(VirtualMachine vm) {
 			ctx.setResult(instanceArraysEqual(vm, $a, $a2));
 			return Result.ABORT;
 		});
+		// Invalid lengths and ranges are left to the JDK code
+		MethodInvoker copyOf = MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue original = vm.getOperations().checkNotNull(locals.loadReference(0));
+			int newLength = locals.loadInt(1);
+			if (newLength < 0) {
+				return Result.CONTINUE;
+			}
+			ctx.setResult(copyRange(vm, original, 0, newLength));
+			return Result.ABORT;
+		});
+		MethodInvoker copyOfRange = MethodInvoker.interpreted(ctx -> {
+			Locals locals = ctx.getLocals();
+			ArrayValue original = vm.getOperations().checkNotNull(locals.loadReference(0));
+			int from = locals.loadInt(1);
+			int to = locals.loadInt(2);
+			if (from < 0 || from > to || from > original.getLength()) {
+				return Result.CONTINUE;
+			}
+			ctx.setResult(copyRange(vm, original, from, to));
+			return Result.ABORT;
+		});
+		for (String type : new String[]{"J", "D", "I", "F", "C", "S", "B", "Z", "Ljava/lang/Object;"}) {
+			String arrayType = '[' + type;
+			vmi.setInvoker(jc, "copyOf", '(' + arrayType + "I)" + arrayType, copyOf);
+			vmi.setInvoker(jc, "copyOfRange", '(' + arrayType + "II)" + arrayType, copyOfRange);
+		}
+	}
+
+	private void arrayMismatchIntrinsics(VirtualMachine vm) {
+		VMInterface vmi = vm.getInterface();
+		InstanceClass jc = (InstanceClass) vm.findBootstrapClass("java/util/Arrays");
+		MethodInvoker mismatch = ctx -> {
+			Locals locals = ctx.getLocals();
+			VMOperations ops = vm.getOperations();
+			ArrayValue a = ops.checkNotNull(locals.loadReference(0));
+			ArrayValue b = ops.checkNotNull(locals.loadReference(1));
+			ctx.setResult(mismatch(vm.getMemoryManager(), a, b));
+			return Result.ABORT;
+		};
+		// Floating point arrays compare NaNs by value,
+		// they cannot be compared bitwise
+		for (String type : new String[]{"J", "I", "C", "S", "B", "Z"}) {
+			String arrayType = '[' + type;
+			vmi.setInvoker(jc, "mismatch", '(' + arrayType + arrayType + ")I", mismatch);
+		}
+	}
+
+	private ArrayValue copyRange(VirtualMachine vm, ArrayValue original, int from, int to) {
+		MemoryManager memoryManager = vm.getMemoryManager();
+		JavaClass component = original.getJavaClass().getComponentType();
+		int newLength = to - from;
+		ArrayValue copy = vm.getOperations().allocateArray(component, newLength);
+		int copied = Math.min(original.getLength() - from, newLength);
+		if (copied != 0) {
+			long scale = memoryManager.sizeOfType(component);
+			int base = memoryManager.arrayBaseOffset(component);
+			original.getMemory().getData().write(base + from * scale, copy.getMemory().getData(), base, copied * scale);
+		}
+		return copy;
+	}
+
+	private int mismatch(MemoryManager memoryManager, ArrayValue a, ArrayValue b) {
+		int length = Math.min(a.getLength(), b.getLength());
+		if (a == b) {
+			return -1;
+		}
+		JavaClass component = a.getJavaClass().getComponentType();
+		long scale = memoryManager.sizeOfType(component);
+		int base = memoryManager.arrayBaseOffset(component);
+		MemoryData v1 = a.getMemory().getData();
+		MemoryData v2 = b.getMemory().getData();
+		long offset = base;
+		long end = base + length * scale;
+		while (end - offset >= 8 && v1.readLong(offset) == v2.readLong(offset)) {
+			offset += 8;
+		}
+		for (; offset < end; offset++) {
+			if (v1.readByte(offset) != v2.readByte(offset)) {
+				return (int) ((offset - base) / scale);
+			}
+		}
+		return a.getLength() == b.getLength() ? -1 : length;
 	}
 
 	private int primitiveArraysEqual(MemoryManager memoryManager, ObjectValue $a, ObjectValue $b) {
@@ -13,6 +13,7 @@
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.mirror.type.JavaClass;
+import dev.xdark.ssvm.operation.FieldHandle;
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.value.InstanceValue;
@@ -39,13 +40,14 @@ public void init(VirtualMachine vm) {
 		VMInterface vmi = vm.getInterface();
 		Symbols symbols = vm.getSymbols();
 		InstanceClass natives = symbols.java_lang_invoke_MethodHandleNatives();
+		Fields fields = new Fields(vm);
 		vmi.setInvoker(natives, "registerNatives", "()V", MethodInvoker.noop());
 		byte[] speculativeResolve = new byte[]{-1};
 		MethodInvoker resolve = ctx -> {
 			VMOperations ops = vm.getOperations();
 			Locals locals = ctx.getLocals();
 			InstanceValue memberName = ops.checkNotNull(locals.loadReference(0));
-			resolveMemberName(vm, speculativeResolve[0], locals, memberName);
+			resolveMemberName(vm, fields, speculativeResolve[0], locals, memberName);
 			ctx.setResult(memberName);
 			return Result.ABORT;
 		};
@@ -70,11 +72,11 @@ public void init(VirtualMachine vm) {
 			InstanceValue obj = ops.checkNotNull(locals.loadReference(1));
 			InstanceClass objClass = obj.getJavaClass();
 			if (objClass == symbols.java_lang_reflect_Method()) {
-				initMemberNameMethod(vm, memberName, obj);
+				initMemberNameMethod(vm, fields, memberName, obj);
 			} else if (objClass == symbols.java_lang_reflect_Field()) {
-				initMemberNameField(vm, memberName, obj);
+				initMemberNameField(vm, fields, memberName, obj);
 			} else if (objClass == symbols.java_lang_reflect_Constructor()) {
-				initMemberNameConstructor(vm, memberName, obj);
+				initMemberNameConstructor(vm, fields, memberName, obj);
 			} else {
 				ops.throwException(symbols.java_lang_InternalError(), "Unsupported class: " + objClass.getName());
 			}
@@ -82,17 +84,17 @@ public void init(VirtualMachine vm) {
 		});
 		vmi.setInvoker(natives, "objectFieldOffset", "(Ljava/lang/invoke/MemberName;)J", ctx -> {
 			InstanceValue _this = vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0));
-			ctx.setResult((long) vm.getOperations().getInt(_this, VM_INDEX));
+			ctx.setResult((long) fields.vmindex.getInt(_this));
 			return Result.ABORT;
 		});
 		vmi.setInvoker(natives, "staticFieldBase", "(Ljava/lang/invoke/MemberName;)Ljava/lang/Object;", ctx -> {
 			InstanceValue _this = vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0));
-			ctx.setResult(vm.getOperations().getReference(_this, "clazz", "Ljava/lang/Class;"));
+			ctx.setResult(fields.clazz.getReference(_this));
 			return Result.ABORT;
 		});
 		vmi.setInvoker(natives, "staticFieldOffset", "(Ljava/lang/invoke/MemberName;)J", ctx -> {
 			InstanceValue _this = vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0));
-			ctx.setResult((long) vm.getOperations().getInt(_this, VM_INDEX));
+			ctx.setResult((long) fields.vmindex.getInt(_this));
 			return Result.ABORT;
 		});
 		vmi.setInvoker(natives, "getMembers", "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/String;ILjava/lang/Class;I[Ljava/lang/invoke/MemberName;)I", ctx -> {
@@ -103,7 +105,7 @@ public void init(VirtualMachine vm) {
 		MethodInvoker setCallSiteTarget = ctx -> {
 			Locals locals = ctx.getLocals();
 			InstanceValue _this = vm.getOperations().checkNotNull(locals.loadReference(0));
-			vm.getOperations().putReference(_this, "target", "Ljava/lang/invoke/MethodHandle;", locals.loadReference(1));
+			fields.target.putReference(_this, locals.loadReference(1));
 			return Result.ABORT;
 		};
 		vmi.setInvoker(natives, "setCallSiteTargetNormal", "(Ljava/lang/invoke/CallSite;Ljava/lang/invoke/MethodHandle;)V", setCallSiteTarget);
@@ -114,8 +116,8 @@ public void init(VirtualMachine vm) {
 			Locals locals = ctx.getLocals();
 			VMOperations ops = vm.getOperations();
 			InstanceValue _this = locals.loadReference(0);
-			InstanceValue form = ops.checkNotNull(ops.getReference(_this, "form", "Ljava/lang/invoke/LambdaForm;"));
-			InstanceValue vmentry = ops.checkNotNull(ops.getReference(form, "vmentry", "Ljava/lang/invoke/MemberName;"));
+			InstanceValue form = ops.checkNotNull(fields.form.getReference(_this));
+			InstanceValue vmentry = ops.checkNotNull(fields.vmentry.getReference(form));
 			JavaMethod vmtarget = ops.readVMTargetFromMemberName(vmentry);
 			String name = vmtarget.getName();
 			if ("<init>".equals(name)) {
@@ -137,19 +139,10 @@ public void init(VirtualMachine vm) {
 				table.setReference(1, mt);
 				_this = (InstanceValue) ops.invokeReference(asType, table);
 				// Re-read method target
-				form = ops.checkNotNull(ops.getReference(_this, "form", "Ljava/lang/invoke/LambdaForm;"));
-				vmentry = ops.checkNotNull(ops.getReference(form, "vmentry", "Ljava/lang/invoke/MemberName;"));
-				vmtarget = ops.readVMTargetFromMemberName(vmentry);
-				name = vmtarget.getName();
-			}
-
-			if ((vmtarget.getModifiers() & ACC_STATIC) == 0) {
-				int flags = ops.getInt(vmentry, "flags");
-				int refKind = (flags >> MN_REFERENCE_KIND_SHIFT) & MN_REFERENCE_KIND_MASK;
-				if (refKind != REF_invokeSpecial && refKind != REF_newInvokeSpecial) {
-					vmtarget = vm.getRuntimeResolver().resolveVirtualMethod(_this, name, vmtarget.getDesc());
-				}
+				form = ops.checkNotNull(fields.form.getReference(_this));
+				vmentry = ops.checkNotNull(fields.vmentry.getReference(form));
 			}
+			vmtarget = ops.resolveVMTargetFromMemberName(vmentry, _this);
 			Locals table = vm.getThreadStorage().newLocals(vmtarget);
 			table.copyFrom(locals, 0, 0, locals.maxSlots());
 			table.setReference(0, _this);
@@ -163,19 +156,10 @@ public void init(VirtualMachine vm) {
 		MethodInvoker linkToXX = ctx -> {
 			Locals locals = ctx.getLocals();
 			VMOperations ops = vm.getOperations();
-			InstanceValue memberName = locals.loadReference(locals.maxSlots() - 1);
-			InstanceValue resolved = (InstanceValue) ops.getReference(memberName, "method", symbols.java_lang_invoke_ResolvedMethodName().getDescriptor());
-			InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(memberName, "clazz", "Ljava/lang/Class;")));
-			JavaMethod vmtarget = clazz.getMethodBySlot(ops.getInt(ops.getReference(resolved, InjectedClassLayout.java_lang_invoke_ResolvedMethodName_vmtarget.name(), InjectedClassLayout.java_lang_invoke_ResolvedMethodName_vmtarget.descriptor()), "value"));
-
+			InstanceValue memberName = ops.checkNotNull(locals.loadReference(locals.maxSlots() - 1));
+			JavaMethod vmtarget = ops.readVMTargetFromMemberName(memberName);
 			if ((vmtarget.getModifiers() & ACC_STATIC) == 0) {
-				int flags = ops.getInt(memberName, "flags");
-				int refKind = (flags >> MN_REFERENCE_KIND_SHIFT) & MN_REFERENCE_KIND_MASK;
-				if (refKind != REF_invokeSpecial) {
-					ObjectValue instance = locals.loadReference(0);
-					ops.checkNotNull(instance);
-					vmtarget = vm.getRuntimeResolver().resolveVirtualMethod(instance, vmtarget.getName(), vmtarget.getDesc());
-				}
+				vmtarget = ops.resolveVMTargetFromMemberName(memberName, locals.loadReference(0));
 			}
 			Locals newLocals = vm.getThreadStorage().newLocals(vmtarget.getMaxLocals());
 			newLocals.copyFrom(locals, 0, 0, locals.maxSlots() - 1);
@@ -199,13 +183,13 @@ public void init(VirtualMachine vm) {
 		});
 	}
 
-	private void resolveMemberName(VirtualMachine vm, byte speculativeResolveModeIndex, Locals locals, InstanceValue memberName) {
+	private void resolveMemberName(VirtualMachine vm, Fields fields, byte speculativeResolveModeIndex, Locals locals, InstanceValue memberName) {
 		VMOperations ops = vm.getOperations();
-		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(memberName, "clazz", "Ljava/lang/Class;")));
+		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(fields.clazz.getReference(memberName)));
 		ops.initialize(clazz);
-		String name = ops.readUtf8(ops.getReference(memberName, "name", "Ljava/lang/String;"));
-		ObjectValue mt = ops.getReference(memberName, "type", "Ljava/lang/Object;");
-		int flags = ops.getInt(memberName, "flags");
+		String name = ops.readUtf8(fields.name.getReference(memberName));
+		ObjectValue mt = fields.type.getReference(memberName);
+		int flags = fields.flags.getInt(memberName);
 		int refKind = (flags >> MN_REFERENCE_KIND_SHIFT) & MN_REFERENCE_KIND_MASK;
 		boolean speculativeResolve0 = speculativeResolveModeIndex >= 0 && locals.loadInt(speculativeResolveModeIndex) != 0;
 		switch (flags & ALL_KINDS) {
@@ -223,17 +207,17 @@ private void resolveMemberName(VirtualMachine vm, byte speculativeResolveModeInd
 		}
 	}
 
-	private void initMemberNameMethod(VirtualMachine vm, InstanceValue memberName, InstanceValue obj) {
+	private void initMemberNameMethod(VirtualMachine vm, Fields fields, InstanceValue memberName, InstanceValue obj) {
 		VMOperations ops = vm.getOperations();
 		// Copy over clazz, name, type & invoke expand
-		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(obj, "clazz", "Ljava/lang/Class;")));
-		int slot = ops.getInt(obj, "slot");
+		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(fields.methodClazz.getReference(obj)));
+		int slot = fields.methodSlot.getInt(obj);
 		JavaMethod method = clazz.getMethodBySlot(slot);
 
-		ops.putReference(memberName, "clazz", "Ljava/lang/Class;", clazz.getOop());
-		ops.putReference(memberName, "name", "Ljava/lang/String;", vm.getStringPool().intern(method.getName()));
+		fields.clazz.putReference(memberName, clazz.getOop());
+		fields.name.putReference(memberName, vm.getStringPool().intern(method.getName()));
 		InstanceValue mt = ops.methodType(clazz, method.getType());
-		ops.putReference(memberName, "type", "Ljava/lang/Object;", mt);
+		fields.type.putReference(memberName, mt);
 		int refKind;
 		if ((method.getModifiers() & ACC_STATIC) == 0) {
 			refKind = REF_invokeVirtual;
@@ -243,30 +227,30 @@ private void initMemberNameMethod(VirtualMachine vm, InstanceValue memberName, I
 		ops.initMethodMember(refKind, memberName, method, IS_METHOD);
 	}
 
-	private void initMemberNameConstructor(VirtualMachine vm, InstanceValue memberName, InstanceValue obj) {
+	private void initMemberNameConstructor(VirtualMachine vm, Fields fields, InstanceValue memberName, InstanceValue obj) {
 		VMOperations ops = vm.getOperations();
 		// Copy over clazz, name, type & invoke expand
-		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(obj, "clazz", "Ljava/lang/Class;")));
-		int slot = ops.getInt(obj, "slot");
+		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(fields.constructorClazz.getReference(obj)));
+		int slot = fields.constructorSlot.getInt(obj);
 		JavaMethod method = clazz.getMethodBySlot(slot);
 
-		ops.putReference(memberName, "clazz", "Ljava/lang/Class;", clazz.getOop());
-		ops.putReference(memberName, "name", "Ljava/lang/String;", vm.getStringPool().intern(method.getName()));
+		fields.clazz.putReference(memberName, clazz.getOop());
+		fields.name.putReference(memberName, vm.getStringPool().intern(method.getName()));
 		InstanceValue mt = ops.methodType(clazz, method.getType());
-		ops.putReference(memberName, "type", "Ljava/lang/Object;", mt);
+		fields.type.putReference(memberName, mt);
 		ops.initMethodMember(REF_newInvokeSpecial, memberName, method, IS_CONSTRUCTOR);
 	}
 
-	private void initMemberNameField(VirtualMachine vm, InstanceValue memberName, InstanceValue obj) {
+	private void initMemberNameField(VirtualMachine vm, Fields fields, InstanceValue memberName, InstanceValue obj) {
 		VMOperations ops = vm.getOperations();
 		// Copy over clazz, name, type & invoke expand
-		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(ops.getReference(obj, "clazz", "Ljava/lang/Class;")));
-		int slot = ops.getInt(obj, "slot");
+		InstanceClass clazz = (InstanceClass) vm.getClassStorage().lookup(ops.checkNotNull(fields.fieldClazz.getReference(obj)));
+		int slot = fields.fieldSlot.getInt(obj);
 		JavaField field = clazz.getFieldBySlot(slot);
-		ops.putReference(memberName, "clazz", "Ljava/lang/Class;", clazz.getOop());
-		ops.putReference(memberName, "name", "Ljava/lang/String;", vm.getStringPool().intern(field.getName()));
+		fields.clazz.putReference(memberName, clazz.getOop());
+		fields.name.putReference(memberName, vm.getStringPool().intern(field.getName()));
 		InstanceValue mt = field.getType().getOop();
-		ops.putReference(memberName, "type", "Ljava/lang/Object;", mt);
+		fields.type.putReference(memberName, mt);
 		int refKind;
 		if ((field.getModifiers() & ACC_STATIC) == 0) {
 			refKind = REF_getField;
@@ -345,4 +329,44 @@ private void initFieldMember(int refKind, VirtualMachine vm, InstanceValue membe
 		}
 		ops.initFieldMember(refKind, memberName, handle);
 	}
+
+	private static final class Fields {
+		final FieldHandle form;
+		final FieldHandle vmentry;
+		final FieldHandle target;
+		final FieldHandle clazz;
+		final FieldHandle name;
+		final FieldHandle type;
+		final FieldHandle flags;
+		final FieldHandle vmindex;
+		final FieldHandle methodClazz;
+		final FieldHandle methodSlot;
+		final FieldHandle constructorClazz;
+		final FieldHandle constructorSlot;
+		final FieldHandle fieldClazz;
+		final FieldHandle fieldSlot;
+
+		Fields(VirtualMachine vm) {
+			VMOperations ops = vm.getOperations();
+			Symbols symbols = vm.getSymbols();
+			form = ops.getFieldHandle(symbols.java_lang_invoke_MethodHandle(), "form", "Ljava/lang/invoke/LambdaForm;");
+			vmentry = ops.getFieldHandle((InstanceClass) vm.findBootstrapClass("java/lang/invoke/LambdaForm"), "vmentry", "Ljava/lang/invoke/MemberName;");
+			target = ops.getFieldHandle(symbols.java_lang_invoke_CallSite(), "target", "Ljava/lang/invoke/MethodHandle;");
+			InstanceClass memberName = symbols.java_lang_invoke_MemberName();
+			clazz = ops.getFieldHandle(memberName, "clazz", "Ljava/lang/Class;");
+			name = ops.getFieldHandle(memberName, "name", "Ljava/lang/String;");
+			type = ops.getFieldHandle(memberName, "type", "Ljava/lang/Object;");
+			flags = ops.getFieldHandle(memberName, "flags", "I");
+			vmindex = ops.getFieldHandle(memberName, VM_INDEX, "I");
+			InstanceClass method = symbols.java_lang_reflect_Method();
+			methodClazz = ops.getFieldHandle(method, "clazz", "Ljava/lang/Class;");
+			methodSlot = ops.getFieldHandle(method, "slot", "I");
+			InstanceClass constructor = symbols.java_lang_reflect_Constructor();
+			constructorClazz = ops.getFieldHandle(constructor, "clazz", "Ljava/lang/Class;");
+			constructorSlot = ops.getFieldHandle(constructor, "slot", "I");
+			InstanceClass field = symbols.java_lang_reflect_Field();
+			fieldClazz = ops.getFieldHandle(field, "clazz", "Ljava/lang/Class;");
+			fieldSlot = ops.getFieldHandle(field, "slot", "I");
+		}
+	}
 }
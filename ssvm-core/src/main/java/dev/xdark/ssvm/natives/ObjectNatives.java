@@ -13,7 +13,9 @@
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.synchronizer.Mutex;
+import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.InstanceValue;
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.experimental.UtilityClass;
 
@@ -39,38 +41,60 @@ public void init(VirtualMachine vm) {
 			return Result.ABORT;
 		});
 		vmi.setInvoker(object, "notify", "()V", ctx -> {
-			Mutex mutex = vm.getMemoryManager().getMutex(ctx.getLocals().loadReference(0));
-			if (!mutex.isHeldByCurrentThread()) {
+			ObjectValue value = ctx.getLocals().loadReference(0);
+			MemoryManager memoryManager = vm.getMemoryManager();
+			// Check before inflating, lock of another thread is never inflated
+			if (!memoryManager.holdsLock(value)) {
 				vm.getOperations().throwException(symbols.java_lang_IllegalMonitorStateException());
 				return Result.ABORT;
 			}
+			Mutex mutex = memoryManager.getMutex(value);
 			mutex.doNotify();
 			return Result.ABORT;
 		});
 		vmi.setInvoker(object, "notifyAll", "()V", ctx -> {
-			Mutex mutex = vm.getMemoryManager().getMutex(ctx.getLocals().loadReference(0));
-			if (!mutex.isHeldByCurrentThread()) {
+			ObjectValue value = ctx.getLocals().loadReference(0);
+			MemoryManager memoryManager = vm.getMemoryManager();
+			// Check before inflating, lock of another thread is never inflated
+			if (!memoryManager.holdsLock(value)) {
 				vm.getOperations().throwException(symbols.java_lang_IllegalMonitorStateException());
 				return Result.ABORT;
 			}
+			Mutex mutex = memoryManager.getMutex(value);
 			mutex.doNotifyAll();
 			return Result.ABORT;
 		});
 		vmi.setInvoker(object, "wait", "(J)V", ctx -> {
 			Locals locals = ctx.getLocals();
-			Mutex mutex = vm.getMemoryManager().getMutex(ctx.getLocals().loadReference(0));
-			if (!mutex.isHeldByCurrentThread()) {
+			ObjectValue value = locals.loadReference(0);
+			MemoryManager memoryManager = vm.getMemoryManager();
+			if (!memoryManager.holdsLock(value)) {
 				vm.getOperations().throwException(symbols.java_lang_IllegalMonitorStateException());
 			}
+			Mutex mutex = memoryManager.getMutex(value);
+			ThreadManager threadManager = vm.getThreadManager();
+			InstanceValue thread = threadManager.currentJavaThread().getOop();
+			if (threadManager.isInterrupted(thread, true)) {
+				vm.getOperations().throwException(symbols.java_lang_InterruptedException());
+				return Result.ABORT;
+			}
+			long time = locals.loadLong(1);
+			if (time == 0L) {
+				threadManager.beginBlocking();
+				time = Long.MAX_VALUE;
+			} else {
+				threadManager.beginBlocking(time);
+			}
 			try {
-				long time = locals.loadLong(1);
-				if (time == 0L) {
-					time = Long.MAX_VALUE;
-				}
 				mutex.doWait(time);
 			} catch (InterruptedException ex) {
+				threadManager.endBlocking();
+				// Throwing InterruptedException clears the status
+				threadManager.isInterrupted(thread, true);
 				vm.getOperations().throwException(symbols.java_lang_InterruptedException());
+				return Result.ABORT;
 			}
+			threadManager.endBlocking();
 			return Result.ABORT;
 		});
 		vmi.setInvoker(object, "hashCode", "()I", ctx -> {
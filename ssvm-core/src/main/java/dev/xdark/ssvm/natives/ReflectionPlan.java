@@ -0,0 +1,189 @@
+package dev.xdark.ssvm.natives;
+
+import dev.xdark.ssvm.LinkResolver;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.PanicException;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.member.LinkageKey;
+import dev.xdark.ssvm.mirror.type.JavaClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.ObjectValue;
+import dev.xdark.ssvm.value.sink.ReflectionSink;
+import org.objectweb.asm.Type;
+
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+
+/**
+ * Precompiled reflective invocation of a method.
+ * Argument unboxing shape, dispatch kind and
+ * return boxing are computed once per method.
+ * Plan is linked to the method mirror, so all
+ * reflection objects of the same method share it.
+ *
+ * @author xDark
+ */
+final class ReflectionPlan {
+	static final LinkageKey<ReflectionPlan> PLAN = new LinkageKey<>(ReflectionPlan::new);
+	private final JavaMethod method;
+	private final boolean isStatic;
+	private final boolean needsDispatch;
+	private final int[] sorts;
+	private final int returnSort;
+	private volatile Dispatch dispatch;
+
+	/**
+	 * @param method Method to invoke.
+	 */
+	ReflectionPlan(JavaMethod method) {
+		this.method = method;
+		int modifiers = method.getModifiers();
+		isStatic = (modifiers & ACC_STATIC) != 0;
+		needsDispatch = !isStatic
+			&& !"<init>".equals(method.getName())
+			&& (modifiers & (ACC_PRIVATE | ACC_FINAL)) == 0
+			&& (method.getOwner().getModifiers() & ACC_FINAL) == 0;
+		JavaClass[] types = method.getArgumentTypes();
+		int[] sorts = new int[types.length];
+		for (int i = 0; i < types.length; i++) {
+			sorts[i] = types[i].getSort();
+		}
+		this.sorts = sorts;
+		returnSort = method.getReturnType().getSort();
+	}
+
+	/**
+	 * @return Method to invoke.
+	 */
+	JavaMethod getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return Whether the method is static.
+	 */
+	boolean isStatic() {
+		return isStatic;
+	}
+
+	/**
+	 * @return Amount of arguments the method takes.
+	 */
+	int getArgumentCount() {
+		return sorts.length;
+	}
+
+	/**
+	 * Selects the method to invoke on the receiver.
+	 * Last receiver class is cached.
+	 *
+	 * @param linkResolver Link resolver.
+	 * @param instance     Receiver, must not be {@code null}.
+	 * @return Resolved method.
+	 */
+	JavaMethod selectTarget(LinkResolver linkResolver, ObjectValue instance) {
+		JavaMethod method = this.method;
+		if (!needsDispatch) {
+			return method;
+		}
+		JavaClass type = instance.getJavaClass();
+		Dispatch dispatch = this.dispatch;
+		if (dispatch != null && dispatch.type == type) {
+			return dispatch.target;
+		}
+		JavaMethod target = linkResolver.resolveVirtualMethod(type, method.getName(), method.getDesc());
+		this.dispatch = new Dispatch(type, target);
+		return target;
+	}
+
+	/**
+	 * Unboxes arguments into locals.
+	 *
+	 * @param ops    VM operations.
+	 * @param array  Boxed arguments.
+	 * @param locals Locals to copy arguments to.
+	 * @param offset Local offset.
+	 */
+	void copyArguments(VMOperations ops, ArrayValue array, Locals locals, int offset) {
+		int[] sorts = this.sorts;
+		for (int i = 0; i < sorts.length; i++) {
+			ObjectValue value = array.getReference(i);
+			switch (sorts[i]) {
+				case Type.BOOLEAN:
+					locals.setInt(offset++, ops.unboxBoolean(value) ? 1 : 0);
+					break;
+				case Type.CHAR:
+					locals.setInt(offset++, ops.unboxChar(value));
+					break;
+				case Type.BYTE:
+				case Type.SHORT:
+				case Type.INT:
+					locals.setInt(offset++, ops.unboxInt(value));
+					break;
+				case Type.FLOAT:
+					locals.setFloat(offset++, ops.unboxFloat(value));
+					break;
+				case Type.LONG:
+					locals.setLong(offset, ops.unboxLong(value));
+					offset += 2;
+					break;
+				case Type.DOUBLE:
+					locals.setDouble(offset, ops.unboxDouble(value));
+					offset += 2;
+					break;
+				default:
+					locals.setReference(offset++, value);
+			}
+		}
+	}
+
+	/**
+	 * Boxes method result.
+	 *
+	 * @param ops  VM operations.
+	 * @param sink Result sink.
+	 * @return Boxed result or {@code null},
+	 * if method is void.
+	 */
+	ObjectValue boxResult(VMOperations ops, ReflectionSink sink) {
+		if (!sink.isSet()) {
+			return null;
+		}
+		switch (returnSort) {
+			case Type.LONG:
+				return ops.boxLong(sink.longValue);
+			case Type.DOUBLE:
+				return ops.boxDouble(Double.longBitsToDouble(sink.longValue));
+			case Type.INT:
+				return ops.boxInt(sink.intValue);
+			case Type.FLOAT:
+				return ops.boxFloat(Float.intBitsToFloat(sink.intValue));
+			case Type.CHAR:
+				return ops.boxChar((char) sink.intValue);
+			case Type.SHORT:
+				return ops.boxShort((short) sink.intValue);
+			case Type.BYTE:
+				return ops.boxByte((byte) sink.intValue);
+			case Type.BOOLEAN:
+				return ops.boxBoolean(sink.intValue != 0);
+			default:
+				ObjectValue ref = sink.referenceValue;
+				if (ref == null) {
+					throw new PanicException("Expected reference");
+				}
+				return ref;
+		}
+	}
+
+	private static final class Dispatch {
+		final JavaClass type;
+		final JavaMethod target;
+
+		Dispatch(JavaClass type, JavaMethod target) {
+			this.type = type;
+			this.target = target;
+		}
+	}
+}
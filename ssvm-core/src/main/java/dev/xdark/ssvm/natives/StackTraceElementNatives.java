@@ -5,6 +5,7 @@
 import dev.xdark.ssvm.execution.Locals;
 import dev.xdark.ssvm.execution.Result;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.FieldHandle;
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
@@ -24,16 +25,16 @@ public class StackTraceElementNatives {
 	public void init(VirtualMachine vm) {
 		VMInterface vmi = vm.getInterface();
 		InstanceClass stackTraceElement = (InstanceClass) vm.findBootstrapClass("java/lang/StackTraceElement");
+		FieldHandle backtraceField = vm.getOperations().getFieldHandle(vm.getSymbols().java_lang_Throwable(), "backtrace", "Ljava/lang/Object;");
 		vmi.setInvoker(stackTraceElement, "initStackTraceElements", "([Ljava/lang/StackTraceElement;Ljava/lang/Throwable;)V", ctx -> {
 			VMOperations ops = vm.getOperations();
 			Locals locals = ctx.getLocals();
 			ArrayValue arr = ops.checkNotNull(locals.loadReference(0));
 			InstanceValue ex = ops.checkNotNull(locals.loadReference(1));
-			ArrayValue initialized = ops.checkNotNull(ops.getReference(ex, "backtrace", "Ljava/lang/Object;"));
-
-			int x = 0;
-			for (int i = initialized.getLength(); i != 0; ) {
-				arr.setReference(x++, initialized.getReference(--i));
+			ArrayValue backtrace = ops.checkNotNull(backtraceField.getReference(ex));
+			int depth = Math.min(arr.getLength(), ops.getBacktraceDepth(backtrace));
+			for (int i = 0; i < depth; i++) {
+				arr.setReference(i, ops.newStackTraceElement(backtrace, i));
 			}
 			return Result.ABORT;
 		});
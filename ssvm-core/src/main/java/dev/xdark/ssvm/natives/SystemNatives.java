@@ -5,15 +5,11 @@
 import dev.xdark.ssvm.api.VMInterface;
 import dev.xdark.ssvm.execution.Locals;
 import dev.xdark.ssvm.execution.Result;
-import dev.xdark.ssvm.memory.allocation.MemoryData;
-import dev.xdark.ssvm.memory.management.MemoryManager;
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
-import dev.xdark.ssvm.mirror.type.JavaClass;
 import dev.xdark.ssvm.operation.VMOperations;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.thread.ThreadStorage;
-import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.experimental.UtilityClass;
@@ -45,27 +41,8 @@ public void init(VirtualMachine vm) {
 			return Result.ABORT;
 		});
 		vmi.setInvoker(sys, "arraycopy", "(Ljava/lang/Object;ILjava/lang/Object;II)V", ctx -> {
-			VMOperations ops = vm.getOperations();
 			Locals locals = ctx.getLocals();
-			ArrayValue src = ops.checkNotNull(locals.loadReference(0));
-			ArrayValue dst = ops.checkNotNull(locals.loadReference(2));
-			int srcPos = locals.loadInt(1);
-			int dstPos = locals.loadInt(3);
-			int length = locals.loadInt(4);
-			MemoryManager memoryManager = vm.getMemoryManager();
-			JavaClass srcComponent = src.getJavaClass().getComponentType();
-			JavaClass dstComponent = dst.getJavaClass().getComponentType();
-
-			long scale = memoryManager.sizeOfType(srcComponent);
-			ops.checkEquals(scale, memoryManager.sizeOfType(dstComponent));
-
-			int start = memoryManager.arrayBaseOffset(srcComponent);
-			ops.checkEquals(start, memoryManager.arrayBaseOffset(dstComponent));
-
-			MemoryData srcData = src.getMemory().getData();
-			long dataStartPos = start + srcPos * scale;
-			MemoryData dstData = dst.getMemory().getData();
-			srcData.write(dataStartPos, dstData, start + (long) dstPos * scale, (long) length * scale);
+			vm.getOperations().arrayCopy(locals.loadReference(0), locals.loadInt(1), locals.loadReference(2), locals.loadInt(3), locals.loadInt(4));
 			return Result.ABORT;
 		});
 		vmi.setInvoker(sys, "identityHashCode", "(Ljava/lang/Object;)I", ctx -> {
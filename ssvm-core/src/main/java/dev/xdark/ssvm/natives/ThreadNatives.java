@@ -8,9 +8,10 @@
 import dev.xdark.ssvm.jvmti.ThreadState;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.symbol.Symbols;
-import dev.xdark.ssvm.synchronizer.Mutex;
 import dev.xdark.ssvm.thread.JavaThread;
 import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.InstanceValue;
+import dev.xdark.ssvm.value.ObjectValue;
 import lombok.experimental.UtilityClass;
 
 import java.util.List;
@@ -60,8 +61,8 @@ public void init(VirtualMachine vm) {
 			return Result.ABORT;
 		});
 		vmi.setInvoker(thread, "holdsLock", "(Ljava/lang/Object;)Z", ctx -> {
-			Mutex mutex = vm.getMemoryManager().getMutex(vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0)));
-			ctx.setResult(mutex.isHeldByCurrentThread() ? 1 : 0);
+			boolean holdsLock = vm.getMemoryManager().holdsLock(vm.getOperations().checkNotNull(ctx.getLocals().loadReference(0)));
+			ctx.setResult(holdsLock ? 1 : 0);
 			return Result.ABORT;
 		});
 		vmi.setInvoker(thread, "getThreads", "()[Ljava/lang/Thread;", ctx -> {
@@ -74,6 +75,19 @@ public void init(VirtualMachine vm) {
 			ctx.setResult(array);
 			return Result.ABORT;
 		});
+		vmi.setInvoker(thread, "stop0", "(Ljava/lang/Object;)V", ctx -> {
+			Locals locals = ctx.getLocals();
+			InstanceValue oop = locals.loadReference(0);
+			ObjectValue exception = vm.getOperations().checkNotNull(locals.loadReference(1));
+			if (oop == vm.currentJavaThread().getOop()) {
+				vm.getOperations().throwException(exception);
+			} else {
+				vm.getThreadManager().stop(oop, (InstanceValue) exception);
+			}
+			return Result.ABORT;
+		});
+		// Threads are never suspended
+		vmi.setInvoker(thread, "resume0", "()V", MethodInvoker.noop());
 		vmi.setInvoker(thread, "sleep", "(J)V", ctx -> {
 			long time = ctx.getLocals().loadLong(0);
 			if (time < 0L) {
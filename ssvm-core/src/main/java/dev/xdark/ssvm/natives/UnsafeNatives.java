@@ -33,6 +33,7 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -165,6 +166,33 @@ private static void init(VirtualMachine vm, InstanceClass unsafe, UnsafeHelper u
 		vmi.setInvoker(unsafe, "loadFence", "()V", MethodInvoker.noop());
 		vmi.setInvoker(unsafe, "storeFence", "()V", MethodInvoker.noop());
 		vmi.setInvoker(unsafe, "fullFence", "()V", MethodInvoker.noop());
+		vmi.setInvoker(unsafe, "park", "(ZJ)V", ctx -> {
+			Locals locals = ctx.getLocals();
+			boolean absolute = locals.loadInt(1) != 0;
+			long time = locals.loadLong(2);
+			long nanos;
+			if (absolute) {
+				// Deadline in milliseconds since the epoch
+				nanos = TimeUnit.MILLISECONDS.toNanos(time - vm.getTimeManager().currentTimeMillis());
+				if (nanos <= 0L) {
+					return Result.ABORT;
+				}
+			} else {
+				if (time < 0L) {
+					return Result.ABORT;
+				}
+				nanos = time;
+			}
+			vm.getThreadManager().park(nanos);
+			return Result.ABORT;
+		});
+		vmi.setInvoker(unsafe, "unpark", "(Ljava/lang/Object;)V", ctx -> {
+			ObjectValue thread = ctx.getLocals().loadReference(1);
+			if (!thread.isNull()) {
+				vm.getThreadManager().unpark((InstanceValue) thread);
+			}
+			return Result.ABORT;
+		});
 		vmi.setInvoker(unsafe, uhelper.compareAndSetInt(), "(Ljava/lang/Object;JII)Z", ctx -> {
 			Locals locals = ctx.getLocals();
 			ObjectValue obj = locals.loadReference(1);
@@ -1,18 +1,10 @@
 package dev.xdark.ssvm.natives;
 
-import dev.xdark.ssvm.VirtualMachine;
-import dev.xdark.ssvm.execution.Locals;
-import dev.xdark.ssvm.execution.PanicException;
-import dev.xdark.ssvm.mirror.type.JavaClass;
-import dev.xdark.ssvm.operation.VMOperations;
-import dev.xdark.ssvm.value.ArrayValue;
-import dev.xdark.ssvm.value.ObjectValue;
 import lombok.experimental.UtilityClass;
 import me.coley.cafedude.classfile.attribute.AnnotationDefaultAttribute;
 import me.coley.cafedude.classfile.attribute.AnnotationsAttribute;
 import me.coley.cafedude.classfile.attribute.ParameterAnnotationsAttribute;
 import me.coley.cafedude.io.AnnotationWriter;
-import org.objectweb.asm.Type;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
@@ -26,45 +18,6 @@
 @UtilityClass
 final class Util {
 
-	void copyReflectionArguments(VirtualMachine vm, JavaClass[] argTypes, ArrayValue array, Locals locals, int offset) {
-		VMOperations ops = vm.getOperations();
-		for (int i = 0; i < argTypes.length; i++) {
-			JavaClass type = argTypes[i];
-			int sort = type.getSort();
-			ObjectValue value = array.getReference(i);
-			if (sort < Type.ARRAY) {
-				switch (sort) {
-					case Type.BOOLEAN:
-						locals.setInt(offset++, ops.unboxBoolean(value) ? 1 : 0);
-						break;
-					case Type.CHAR:
-						locals.setInt(offset++, ops.unboxChar(value));
-						break;
-					case Type.BYTE:
-					case Type.SHORT:
-					case Type.INT:
-						locals.setInt(offset++, ops.unboxInt(value));
-						break;
-					case Type.FLOAT:
-						locals.setFloat(offset++, ops.unboxFloat(value));
-						break;
-					case Type.LONG:
-						locals.setLong(offset, ops.unboxLong(value));
-						offset += 2;
-						break;
-					case Type.DOUBLE:
-						locals.setDouble(offset, ops.unboxDouble(value));
-						offset += 2;
-						break;
-					default:
-						throw new PanicException("Bad sort: " + sort);
-				}
-			} else {
-				locals.setReference(offset++, value);
-			}
-		}
-	}
-
 	/**
 	 * Converts {@link AnnotationsAttribute} back
 	 * to it's raw form.
@@ -15,6 +15,8 @@
 @UtilityClass
 public class VMNatives {
 
+	private final long MAX_ADJUSTMENT_SECONDS = 0xFFFFFFFFL;
+
 	/**
 	 * @param vm VM instance.
 	 */
@@ -34,6 +36,17 @@ public void init(VirtualMachine vm) {
 			});
 		}
 		vmi.setInvoker(klass, "initialize", "()V", MethodInvoker.noop());
+		vmi.setInvoker(klass, "getNanoTimeAdjustment", "(J)J", ctx -> {
+			long offsetInSeconds = ctx.getLocals().loadLong(0);
+			long millis = vm.getTimeManager().currentTimeMillis();
+			long seconds = Math.floorDiv(millis, 1000L) - offsetInSeconds;
+			if (seconds > MAX_ADJUSTMENT_SECONDS || seconds < -MAX_ADJUSTMENT_SECONDS) {
+				ctx.setResult(-1L);
+			} else {
+				ctx.setResult(seconds * 1_000_000_000L + Math.floorMod(millis, 1000L) * 1_000_000L);
+			}
+			return Result.ABORT;
+		});
 		InstanceClass win32ErrorMode = (InstanceClass) vm.findBootstrapClass("sun/io/Win32ErrorMode");
 		if (win32ErrorMode != null) {
 			vmi.setInvoker(win32ErrorMode, "setErrorMode", "(J)J", ctx -> {
@@ -203,4 +203,18 @@ public interface ArrayOperations {
 	 * @param value Value to set.
 	 */
 	void arrayStoreByte(ObjectValue array, int index, byte value);
+
+	/**
+	 * Copies array elements, as {@link System#arraycopy(Object, int, Object, int, int)} does.
+	 * Throws VM exception if either array is null,
+	 * array types are incompatible, range is out of bounds
+	 * or element cannot be stored in the destination array.
+	 *
+	 * @param src    Source array.
+	 * @param srcPos Source position.
+	 * @param dst    Destination array.
+	 * @param dstPos Destination position.
+	 * @param length Amount of elements to copy.
+	 */
+	void arrayCopy(ObjectValue src, int srcPos, ObjectValue dst, int dstPos, int length);
 }
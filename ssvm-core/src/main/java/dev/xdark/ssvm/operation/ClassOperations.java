@@ -8,6 +8,9 @@
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Type;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * VM class operations.
  *
@@ -101,6 +104,23 @@ default InstanceClass defineClass(ObjectValue classLoader, String name, byte[] b
 		return defineClass(classLoader, name, b, off, len, protectionDomain, source, 0);
 	}
 
+	/**
+	 * Defines a batch of classes in the VM.
+	 * Classes are ordered so that super classes and interfaces
+	 * from the same batch are defined before their subtypes, and
+	 * class loader data lock is held for the whole batch.
+	 * Throws VM exception if any class failed verification,
+	 * classes defined before the failure stay defined.
+	 *
+	 * @param classLoader      Class loader.
+	 * @param classes          Parsed classes.
+	 * @param protectionDomain Protection domain.
+	 * @param source           Class source.
+	 * @return Defined classes, in definition order.
+	 */
+	@NotNull
+	List<InstanceClass> defineClasses(ObjectValue classLoader, Collection<ParsedClassData> classes, ObjectValue protectionDomain, String source);
+
 	/**
 	 * Attempts to find a class in the VM.
 	 * Throws VM exception if class was not found,
@@ -1,5 +1,6 @@
 package dev.xdark.ssvm.operation;
 
+import dev.xdark.ssvm.mirror.type.ArrayClass;
 import dev.xdark.ssvm.mirror.type.JavaClass;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.value.ArrayValue;
@@ -118,6 +119,87 @@ public void arrayStoreByte(ObjectValue array, int index, byte value) {
 		verifyArrayAccess(array, index).setByte(index, value);
 	}
 
+	@Override
+	public void arrayCopy(ObjectValue src, int srcPos, ObjectValue dst, int dstPos, int length) {
+		VMOperations ops = this.ops;
+		Symbols symbols = this.symbols;
+		ops.checkNotNull(src);
+		ops.checkNotNull(dst);
+		JavaClass srcType = src.getJavaClass();
+		JavaClass dstType = dst.getJavaClass();
+		if (!srcType.isArray()) {
+			ops.throwException(symbols.java_lang_ArrayStoreException(), "arraycopy: source type " + srcType.getName() + " is not an array");
+		}
+		if (!dstType.isArray()) {
+			ops.throwException(symbols.java_lang_ArrayStoreException(), "arraycopy: destination type " + dstType.getName() + " is not an array");
+		}
+		JavaClass srcComponent = srcType.getComponentType();
+		JavaClass dstComponent = dstType.getComponentType();
+		boolean primitive = srcComponent.isPrimitive();
+		if ((primitive || dstComponent.isPrimitive()) && srcComponent != dstComponent) {
+			ops.throwException(symbols.java_lang_ArrayStoreException(), "arraycopy: type mismatch: can not copy " + arrayTypeName(srcComponent) + "[] into " + arrayTypeName(dstComponent) + "[]");
+		}
+		ArrayValue srcArray = (ArrayValue) src;
+		ArrayValue dstArray = (ArrayValue) dst;
+		int srcLength = srcArray.getLength();
+		int dstLength = dstArray.getLength();
+		if (srcPos < 0) {
+			ops.throwException(symbols.java_lang_ArrayIndexOutOfBoundsException(), "arraycopy: source index " + srcPos + " out of bounds for " + arrayTypeName(srcComponent) + '[' + srcLength + ']');
+		}
+		if (dstPos < 0) {
+			ops.throwException(symbols.java_lang_ArrayIndexOutOfBoundsException(), "arraycopy: destination index " + dstPos + " out of bounds for " + arrayTypeName(dstComponent) + '[' + dstLength + ']');
+		}
+		if (length < 0) {
+			ops.throwException(symbols.java_lang_ArrayIndexOutOfBoundsException(), "arraycopy: length " + length + " is negative");
+		}
+		if ((long) srcPos + length > srcLength) {
+			ops.throwException(symbols.java_lang_ArrayIndexOutOfBoundsException(), "arraycopy: last source index " + ((long) srcPos + length) + " out of bounds for " + arrayTypeName(srcComponent) + '[' + srcLength + ']');
+		}
+		if ((long) dstPos + length > dstLength) {
+			ops.throwException(symbols.java_lang_ArrayIndexOutOfBoundsException(), "arraycopy: last destination index " + ((long) dstPos + length) + " out of bounds for " + arrayTypeName(dstComponent) + '[' + dstLength + ']');
+		}
+		if (length == 0) {
+			return;
+		}
+		if (primitive || dstComponent.isAssignableFrom(srcComponent)) {
+			// Same layout, elements can be copied in bulk,
+			// overlapping ranges are handled by the memory
+			ArrayClass srcClass = (ArrayClass) srcType;
+			ArrayClass dstClass = (ArrayClass) dstType;
+			int shift = srcClass.getElementShift();
+			srcArray.getMemory().getData().write(
+				srcClass.getBaseOffset() + ((long) srcPos << shift),
+				dstArray.getMemory().getData(),
+				dstClass.getBaseOffset() + ((long) dstPos << shift),
+				(long) length << shift
+			);
+			return;
+		}
+		// Arrays are different, so ranges cannot overlap.
+		// Elements before the failing one are still copied
+		for (int i = 0; i < length; i++) {
+			ObjectValue value = srcArray.getReference(srcPos + i);
+			if (!value.isNull()) {
+				JavaClass valueType = value.getJavaClass();
+				if (!dstComponent.isAssignableFrom(valueType)) {
+					String message;
+					if (srcComponent.isAssignableFrom(dstComponent)) {
+						message = "arraycopy: element type mismatch: can not cast one of the elements of " + srcComponent.getName() + "[] to the type of the destination array, " + dstComponent.getName();
+					} else {
+						message = "arraycopy: type mismatch: can not copy " + srcComponent.getName() + "[] into " + dstComponent.getName() + "[]";
+					}
+					ops.throwException(symbols.java_lang_ArrayStoreException(), message);
+				}
+			}
+			dstArray.setReference(dstPos + i, value);
+		}
+	}
+
+	private static String arrayTypeName(JavaClass component) {
+		// Same as HotSpot, reference arrays are not named
+		return component.isPrimitive() ? component.getName() : "object array";
+	}
+
 	private ArrayValue verifyArrayAccess(ObjectValue value, int index) {
 		VMOperations ops = this.ops;
 		ArrayValue array = ops.checkNotNull(value);
@@ -29,6 +29,7 @@
 import dev.xdark.ssvm.mirror.type.JavaClass;
 import dev.xdark.ssvm.symbol.Primitives;
 import dev.xdark.ssvm.symbol.Symbols;
+import dev.xdark.ssvm.thread.Safepoint;
 import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.util.AsmUtil;
 import dev.xdark.ssvm.util.Assertions;
@@ -37,7 +38,6 @@
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
@@ -46,9 +46,13 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Default implementation.
@@ -68,33 +72,35 @@ public final class DefaultClassOperations implements ClassOperations {
 	private final ClassLoaders classLoaders;
 	private final ClassDefiner classDefiner;
 	private final ClassStorage classStorage;
+	private final Safepoint safepoint;
 	private final VMEventCollection eventCollection;
 	private final VMOperations ops;
 
 	@Override
 	public void link(@NotNull InstanceClass instanceClass) {
+		link(instanceClass, null);
+	}
+
+	private void link(InstanceClass instanceClass, LinkPlan plan) {
 		InitializationState state = instanceClass.state();
-		state.lock();
+		state.lock(safepoint);
 		state.set(InstanceClass.State.IN_PROGRESS);
 		try {
 			eventCollection.getClassPrepare().invoke(instanceClass);
 			ClassLinkage linkage = instanceClass.linkage();
 			ClassNode node = instanceClass.getNode();
+			// Listeners of ClassPrepare are allowed to change class members,
+			// in which case plan computed ahead of time is stale
+			if (plan == null || !plan.isValidFor(node)) {
+				plan = prepareLink(instanceClass);
+			}
 			String superName = node.superName;
 			List<String> interfaces = node.interfaces;
 			if (superName != null) {
 				linkage.setSuperClass((InstanceClass) findClass(instanceClass, superName, false));
 			}
-			// Create method and field area
-			MirrorFactory mf = this.mirrorFactory;
-			// Set methods
-			List<MethodNode> methods = node.methods;
-			List<JavaMethod> allMethods = new ArrayList<>(methods.size());
-			for (int i = 0, j = methods.size(); i < j; i++) {
-				allMethods.add(mf.newMethod(instanceClass, methods.get(i), i));
-			}
-			linkage.setMethodArea(new SimpleClassArea<>(allMethods));
-			List<JavaField> virtualFields = new ArrayList<>();
+			linkage.setMethodArea(plan.methodArea);
+			List<JavaField> virtualFields = new ArrayList<>(plan.virtualFieldCount);
 			InstanceClass jc = instanceClass.getSuperClass();
 			JavaField lastField = null;
 			while (jc != null) {
@@ -122,6 +128,7 @@ public void link(@NotNull InstanceClass instanceClass) {
 				offset = memoryManager.valueBaseOffset(instanceClass);
 			}
 
+			MirrorFactory mf = this.mirrorFactory;
 			List<FieldNode> fields = node.fields;
 			int slot = 0;
 			for (int i = 0, j = fields.size(); i < j; i++) {
@@ -134,10 +141,6 @@ public void link(@NotNull InstanceClass instanceClass) {
 			}
 			linkage.setVirtualFieldArea(new SimpleClassArea<>(virtualFields));
 			linkage.setOccupiedInstanceSpace(offset - memoryManager.valueBaseOffset(instanceClass));
-			int slotOffset = slot;
-			// Static fields are stored right after java/lang/Class virtual fields
-			// At this point of linkage java/lang/Class must already set its virtual
-			// fields as we are doing it before (see above)
 			InstanceClass jlc = symbols.java_lang_Class();
 			if (jlc == null) {
 				// Linking it now?
@@ -145,30 +148,21 @@ public void link(@NotNull InstanceClass instanceClass) {
 				jlc = instanceClass;
 			}
 			Assertions.notNull(jlc, "null java/lang/Class");
-			ClassArea<JavaField> jlcFieldArea = jlc.virtualFieldArea();
-			if (jlcFieldArea == null) {
-				Assertions.check("java/lang/Object".equals(node.name), "virtual field area");
-				// No static fields allowed here.
-				linkage.setStaticFieldArea(EmptyClassArea.create());
-				linkage.setOccupiedStaticSpace(0L);
-			} else {
-				JavaField maxVirtualField = jlcFieldArea.stream()
-					.max(Comparator.comparingLong(JavaField::getOffset))
-					.orElseThrow(() -> new PanicException("No fields in java/lang/Class"));
-				offset = maxVirtualField.getOffset() + memoryManager.sizeOfType(maxVirtualField.getType()); // TODO calling getType may lead to exception
-				long baseStaticOffset = offset;
-				List<JavaField> staticFields = new ArrayList<>(fields.size() - slot);
-				for (int i = 0, j = fields.size(); i < j; i++) {
-					FieldNode fieldNode = fields.get(i);
-					if ((fieldNode.access & Opcodes.ACC_STATIC) != 0) {
-						JavaField field = mf.newField(instanceClass, fieldNode, slot++, offset);
-						offset += safeSizeOf(field.getDesc());
-						staticFields.add(field);
-					}
+			if (plan.staticFieldArea == null) {
+				// Static layout could not be computed ahead of time,
+				// VM is still starting up
+				ClassArea<JavaField> jlcFieldArea = jlc.virtualFieldArea();
+				if (jlcFieldArea == null) {
+					Assertions.check("java/lang/Object".equals(node.name), "virtual field area");
+					// No static fields allowed here.
+					plan.staticFieldArea = EmptyClassArea.create();
+					plan.occupiedStaticSpace = 0L;
+				} else {
+					layoutStaticFields(instanceClass, jlcFieldArea, plan);
 				}
-				linkage.setStaticFieldArea(new SimpleClassArea<>(staticFields, slotOffset));
-				linkage.setOccupiedStaticSpace(offset - baseStaticOffset);
 			}
+			linkage.setStaticFieldArea(plan.staticFieldArea);
+			linkage.setOccupiedStaticSpace(plan.occupiedStaticSpace);
 			// Load interfaces now
 			if (!interfaces.isEmpty()) {
 				InstanceClass[] classes = new InstanceClass[interfaces.size()];
@@ -200,7 +194,7 @@ public void link(@NotNull InstanceClass instanceClass) {
 	@Override
 	public void initialize(@NotNull InstanceClass instanceClass) {
 		InitializationState state = instanceClass.state();
-		state.lock();
+		state.lock(safepoint);
 		if (state.is(InstanceClass.State.COMPLETE) || state.is(InstanceClass.State.IN_PROGRESS)) {
 			state.unlock();
 			return;
@@ -258,34 +252,8 @@ public JavaClass findBootstrapClassOrNull(String internalName, boolean initializ
 
 	@Override
 	public @NotNull InstanceClass defineClass(ObjectValue classLoader, ParsedClassData data, ObjectValue protectionDomain, String source, int options) {
-		ClassReader reader = data.getClassReader();
-		InstanceClass jc = mirrorFactory.newInstanceClass(classLoader, reader, data.getNode());
-		InitializationState state = jc.state();
-		state.lock();
-		try {
-			if ((options & ClassDefinitionOption.ANONYMOUS) == 0) {
-				ClassLoaderData classLoaderData = classLoaders.getClassLoaderData(classLoader);
-				if (!classLoaderData.linkClass(jc)) {
-					ops.throwException(symbols.java_lang_NoClassDefFoundError(), "Duplicate class: " + reader.getClassName());
-				}
-			}
-			link(jc);
-			if ((options & ClassDefinitionOption.ANONYMOUS) != 0) {
-				if (!classLoaders.createAnonymousClassLoaderData(jc).linkClass(jc)) {
-					ops.throwException(symbols.java_lang_NoClassDefFoundError(), "Failed to link to anonymous data: " + reader.getClassName());
-				}
-			}
-			if (!classLoader.isNull()) {
-				ops.putReference(jc.getOop(), "classLoader", "Ljava/lang/ClassLoader;", classLoader);
-			}
-			if (!protectionDomain.isNull()) {
-				ops.putReference(jc.getOop(), InjectedClassLayout.java_lang_Class_protectionDomain.name(), InjectedClassLayout.java_lang_Class_protectionDomain.descriptor(), protectionDomain);
-			}
-			classStorage.register(jc);
-		} finally {
-			state.unlock();
-		}
-		return jc;
+		InstanceClass jc = mirrorFactory.newInstanceClass(classLoader, data.getClassReader(), data.getNode());
+		return defineClass0(classLoader, jc, null, protectionDomain, options);
 	}
 
 	@Override
@@ -310,6 +278,42 @@ public JavaClass findBootstrapClassOrNull(String internalName, boolean initializ
 		return defineClass(classLoader, data, protectionDomain, source, options);
 	}
 
+	@Override
+	public @NotNull List<InstanceClass> defineClasses(ObjectValue classLoader, Collection<ParsedClassData> classes, ObjectValue protectionDomain, String source) {
+		Map<String, ParsedClassData> pending = new LinkedHashMap<>(classes.size() + (classes.size() >> 1));
+		for (ParsedClassData data : classes) {
+			String name = data.getClassReader().getClassName();
+			if (pending.putIfAbsent(name, data) != null) {
+				ops.throwException(symbols.java_lang_NoClassDefFoundError(), "Duplicate class: " + name);
+			}
+		}
+		List<ParsedClassData> ordered = new ArrayList<>(pending.size());
+		while (!pending.isEmpty()) {
+			String name = pending.keySet().iterator().next();
+			sortHierarchy(pending, name, ordered);
+		}
+		int count = ordered.size();
+		InstanceClass[] mirrors = new InstanceClass[count];
+		MirrorFactory mf = this.mirrorFactory;
+		for (int i = 0; i < count; i++) {
+			ParsedClassData data = ordered.get(i);
+			mirrors[i] = mf.newInstanceClass(classLoader, data.getClassReader(), data.getNode());
+		}
+		// Layout of methods and static fields does not depend on
+		// other classes, so it is computed for the whole batch in parallel.
+		// Only the publication is done in order.
+		LinkPlan[] plans = new LinkPlan[count];
+		IntStream.range(0, count).parallel().forEach(i -> plans[i] = prepareLink(mirrors[i]));
+		List<InstanceClass> defined = new ArrayList<>(count);
+		ClassLoaderData data = classLoaders.getClassLoaderData(classLoader);
+		try (CloseableLock lock = data.lock(safepoint)) {
+			for (int i = 0; i < count; i++) {
+				defined.add(defineClass0(classLoader, mirrors[i], plans[i], protectionDomain, 0));
+			}
+		}
+		return defined;
+	}
+
 	@Override
 	public @NotNull JavaClass findClass(JavaClass klass, Type type, boolean initialize) {
 		return findClass(klass.getClassLoader(), type, initialize);
@@ -455,6 +459,113 @@ private void throwClassException(VMException ex) {
 		throw ex;
 	}
 
+	private void sortHierarchy(Map<String, ParsedClassData> pending, String name, List<ParsedClassData> ordered) {
+		// Removing the class first also breaks circularity
+		ParsedClassData data = pending.remove(name);
+		if (data == null) {
+			return;
+		}
+		ClassNode node = data.getNode();
+		String superName = node.superName;
+		if (superName != null) {
+			sortHierarchy(pending, superName, ordered);
+		}
+		List<String> interfaces = node.interfaces;
+		for (int i = 0, j = interfaces.size(); i < j; i++) {
+			sortHierarchy(pending, interfaces.get(i), ordered);
+		}
+		ordered.add(data);
+	}
+
+	private InstanceClass defineClass0(ObjectValue classLoader, InstanceClass jc, LinkPlan plan, ObjectValue protectionDomain, int options) {
+		InitializationState state = jc.state();
+		state.lock(safepoint);
+		try {
+			if ((options & ClassDefinitionOption.ANONYMOUS) == 0) {
+				ClassLoaderData classLoaderData = classLoaders.getClassLoaderData(classLoader);
+				if (!classLoaderData.linkClass(jc)) {
+					ops.throwException(symbols.java_lang_NoClassDefFoundError(), "Duplicate class: " + jc.getInternalName());
+				}
+			}
+			link(jc, plan);
+			if ((options & ClassDefinitionOption.ANONYMOUS) != 0) {
+				if (!classLoaders.createAnonymousClassLoaderData(jc).linkClass(jc)) {
+					ops.throwException(symbols.java_lang_NoClassDefFoundError(), "Failed to link to anonymous data: " + jc.getInternalName());
+				}
+			}
+			if (!classLoader.isNull()) {
+				ops.putReference(jc.getOop(), "classLoader", "Ljava/lang/ClassLoader;", classLoader);
+			}
+			if (!protectionDomain.isNull()) {
+				ops.putReference(jc.getOop(), InjectedClassLayout.java_lang_Class_protectionDomain.name(), InjectedClassLayout.java_lang_Class_protectionDomain.descriptor(), protectionDomain);
+			}
+			classStorage.register(jc);
+		} finally {
+			state.unlock();
+		}
+		return jc;
+	}
+
+	/**
+	 * Computes the part of the class layout that does not
+	 * depend on other classes being linked.
+	 * Does not have any side effects and may be called
+	 * concurrently for different classes.
+	 *
+	 * @param instanceClass Class to compute layout for.
+	 * @return Link plan.
+	 */
+	private LinkPlan prepareLink(InstanceClass instanceClass) {
+		ClassNode node = instanceClass.getNode();
+		MirrorFactory mf = this.mirrorFactory;
+		List<MethodNode> methods = node.methods;
+		MethodNode[] methodSnapshot = methods.toArray(new MethodNode[0]);
+		List<JavaMethod> allMethods = new ArrayList<>(methodSnapshot.length);
+		for (int i = 0; i < methodSnapshot.length; i++) {
+			allMethods.add(mf.newMethod(instanceClass, methodSnapshot[i], i));
+		}
+		List<FieldNode> fields = node.fields;
+		FieldNode[] fieldSnapshot = fields.toArray(new FieldNode[0]);
+		int virtualFieldCount = 0;
+		for (FieldNode fieldNode : fieldSnapshot) {
+			if ((fieldNode.access & Opcodes.ACC_STATIC) == 0) {
+				virtualFieldCount++;
+			}
+		}
+		LinkPlan plan = new LinkPlan(methodSnapshot, fieldSnapshot, new SimpleClassArea<>(allMethods), virtualFieldCount);
+		// Static fields are stored right after java/lang/Class virtual fields
+		InstanceClass jlc = symbols.java_lang_Class();
+		if (jlc != null && jlc != instanceClass) {
+			ClassArea<JavaField> jlcFieldArea = jlc.virtualFieldArea();
+			if (jlcFieldArea != null) {
+				layoutStaticFields(instanceClass, jlcFieldArea, plan);
+			}
+		}
+		return plan;
+	}
+
+	private void layoutStaticFields(InstanceClass instanceClass, ClassArea<JavaField> jlcFieldArea, LinkPlan plan) {
+		JavaField maxVirtualField = jlcFieldArea.stream()
+			.max(Comparator.comparingLong(JavaField::getOffset))
+			.orElseThrow(() -> new PanicException("No fields in java/lang/Class"));
+		long offset = maxVirtualField.getOffset() + safeSizeOf(maxVirtualField.getDesc());
+		long baseStaticOffset = offset;
+		MirrorFactory mf = this.mirrorFactory;
+		FieldNode[] fields = plan.fields;
+		int slotOffset = plan.virtualFieldCount;
+		int slot = slotOffset;
+		List<JavaField> staticFields = new ArrayList<>(fields.length - slotOffset);
+		for (FieldNode fieldNode : fields) {
+			if ((fieldNode.access & Opcodes.ACC_STATIC) != 0) {
+				JavaField field = mf.newField(instanceClass, fieldNode, slot++, offset);
+				offset += safeSizeOf(field.getDesc());
+				staticFields.add(field);
+			}
+		}
+		plan.staticFieldArea = new SimpleClassArea<>(staticFields, slotOffset);
+		plan.occupiedStaticSpace = offset - baseStaticOffset;
+	}
+
 	private JavaClass findClass0(ClassLoaderData data, ObjectValue classLoader, String internalName, boolean initialize, boolean _throw) {
 		int dimensions = 0;
 		while (internalName.charAt(dimensions) == '[') {
@@ -481,7 +592,7 @@ private JavaClass findClass0(ClassLoaderData data, ObjectValue classLoader, Stri
 			}
 		}
 		String trueName = dimensions == 0 ? internalName : internalName.substring(dimensions + 1, internalName.length() - 1);
-		try (CloseableLock lock = data.lock()) {
+		try (CloseableLock lock = data.lock(safepoint)) {
 			klass = data.getClass(trueName);
 			if (klass == null) {
 				if (classLoader.isNull()) {
@@ -518,4 +629,40 @@ private JavaClass findClass0(ClassLoaderData data, ObjectValue classLoader, Stri
 		}
 		return klass;
 	}
+
+	/**
+	 * Layout of the class computed before it is published.
+	 */
+	private static final class LinkPlan {
+		final MethodNode[] methods;
+		final FieldNode[] fields;
+		final ClassArea<JavaMethod> methodArea;
+		final int virtualFieldCount;
+		ClassArea<JavaField> staticFieldArea;
+		long occupiedStaticSpace;
+
+		LinkPlan(MethodNode[] methods, FieldNode[] fields, ClassArea<JavaMethod> methodArea, int virtualFieldCount) {
+			this.methods = methods;
+			this.fields = fields;
+			this.methodArea = methodArea;
+			this.virtualFieldCount = virtualFieldCount;
+		}
+
+		boolean isValidFor(ClassNode node) {
+			return sameElements(methods, node.methods) && sameElements(fields, node.fields);
+		}
+
+		private static boolean sameElements(Object[] snapshot, List<?> list) {
+			int length = snapshot.length;
+			if (length != list.size()) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (snapshot[i] != list.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 }
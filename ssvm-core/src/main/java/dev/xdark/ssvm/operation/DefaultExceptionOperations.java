@@ -1,22 +1,28 @@
 package dev.xdark.ssvm.operation;
 
+import dev.xdark.ssvm.asm.Modifier;
+import dev.xdark.ssvm.classloading.ClassStorage;
 import dev.xdark.ssvm.execution.ExecutionContext;
 import dev.xdark.ssvm.execution.Locals;
 import dev.xdark.ssvm.execution.VMException;
+import dev.xdark.ssvm.memory.allocation.MemoryData;
 import dev.xdark.ssvm.memory.management.MemoryManager;
-import dev.xdark.ssvm.mirror.member.JavaField;
 import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.member.LinkageKey;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.thread.ThreadManager;
+import dev.xdark.ssvm.thread.backtrace.Backtrace;
 import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.RequiredArgsConstructor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.stream.IntStream;
 
 /**
  * Default implementation.
@@ -25,34 +31,73 @@
  */
 @RequiredArgsConstructor
 public final class DefaultExceptionOperations implements ExceptionOperations {
+	private static final int BACKTRACE_FRAME_SIZE = 3;
+	private static final int FAST_THROW_THRESHOLD = 16;
+	// Throw counters, one per instruction of the method
+	private static final LinkageKey<AtomicIntegerArray> THROW_SITES = new LinkageKey<>(method -> new AtomicIntegerArray(method.getNode().instructions.size()));
+	private final Map<InstanceClass, InstanceValue> templates = new ConcurrentHashMap<>();
+	private final Map<InstanceClass, InstanceValue> preallocated = new ConcurrentHashMap<>();
 	private final MemoryManager memoryManager;
 	private final ThreadManager threadManager;
+	private final ClassStorage classStorage;
 	private final Symbols symbols;
 	private final VMOperations ops;
+	private final boolean omitStackTraceInFastThrow;
+	private Fields fields;
 
 	@Override
-	public InstanceValue newStackTraceElement(ExecutionContext<?> frame) {
+	public InstanceValue newStackTraceElement(JavaMethod method, int lineNumber) {
 		VMOperations ops = this.ops;
 		InstanceClass jc = symbols.java_lang_StackTraceElement();
 		ops.initialize(jc);
+		Fields fields = fields();
 		InstanceValue value = memoryManager.newInstance(jc);
-		JavaMethod method = frame.getMethod();
 		InstanceClass owner = method.getOwner();
-		ops.putReference(value, "declaringClass", "Ljava/lang/String;", ops.newUtf8(owner.getName()));
-		ops.putReference(value, "methodName", "Ljava/lang/String;", ops.newUtf8(method.getName()));
+		fields.declaringClass.putReference(value, ops.newUtf8(owner.getName()));
+		fields.methodName.putReference(value, ops.newUtf8(method.getName()));
 		String sourceFile = owner.getNode().sourceFile;
 		if (sourceFile != null) {
-			ops.putReference(value, "fileName", "Ljava/lang/String;", ops.newUtf8(sourceFile));
+			fields.fileName.putReference(value, ops.newUtf8(sourceFile));
 		}
-		ops.putInt(value, "lineNumber", frame.getLineNumber());
-		// TODO FieldOperations must also accept JavaField directly
-		JavaField field = jc.getField("declaringClassObject", "Ljava/lang/Class;");
-		if (field != null) {
-			memoryManager.writeValue(value, field.getOffset(), owner.getOop());
+		fields.lineNumber.putInt(value, lineNumber);
+		FieldHandle declaringClassObject = fields.declaringClassObject;
+		if (declaringClassObject != null) {
+			declaringClassObject.putReference(value, owner.getOop());
 		}
 		return value;
 	}
 
+	@Override
+	public ArrayValue captureBacktrace(Backtrace backtrace) {
+		// See BacktraceBuilder in HotSpot, each frame is
+		// stored as class id, method slot and line number
+		int[] frames = new int[backtrace.depth() * BACKTRACE_FRAME_SIZE];
+		// Backtrace is iterated from the bottom frame
+		int index = frames.length;
+		for (ExecutionContext<?> frame : backtrace) {
+			JavaMethod method = frame.getMethod();
+			if (Modifier.isHiddenFrame(method.getModifiers())) {
+				continue;
+			}
+			index -= BACKTRACE_FRAME_SIZE;
+			frames[index] = method.getOwner().getId();
+			frames[index + 1] = method.getSlot();
+			frames[index + 2] = frame.getLineNumber();
+		}
+		return ops.toVMInts(frames, index, frames.length);
+	}
+
+	@Override
+	public int getBacktraceDepth(ArrayValue backtrace) {
+		return backtrace.getLength() / BACKTRACE_FRAME_SIZE;
+	}
+
+	@Override
+	public InstanceValue newStackTraceElement(ArrayValue backtrace, int index) {
+		int offset = index * BACKTRACE_FRAME_SIZE;
+		return newStackTraceElement(frameMethod(backtrace, offset), backtrace.getInt(offset + 2));
+	}
+
 	@Override
 	public void throwException(ObjectValue value) {
 		if (value.isNull()) {
@@ -61,20 +106,30 @@ public void throwException(ObjectValue value) {
 		throw new VMException((InstanceValue) value);
 	}
 
+	@Override
+	public void throwException(InstanceClass javaClass, String message, ObjectValue cause) {
+		if (omitStackTraceInFastThrow && cause == null && isImplicitException(javaClass) && isHotThrowSite()) {
+			throw new VMException(preallocatedException(javaClass));
+		}
+		throwException(newException(javaClass, message, cause));
+	}
+
 	@Override
 	public InstanceValue newException(InstanceClass javaClass, String message, ObjectValue cause) {
 		VMOperations ops = this.ops;
-		ops.initialize(javaClass);
-		InstanceValue instance = memoryManager.newInstance(javaClass);
-		JavaMethod m = javaClass.getMethod("<init>", "()V");
-		Locals locals = threadManager.currentThreadStorage().newLocals(m);
-		locals.setReference(0, instance);
-		ops.invokeVoid(m, locals);
+		InstanceValue instance;
+		if (isImplicitException(javaClass)) {
+			instance = copyTemplate(javaClass);
+			captureBacktrace(instance);
+		} else {
+			instance = constructException(javaClass);
+		}
+		Fields fields = fields();
 		if (message != null) {
-			ops.putReference(instance, "detailMessage", "Ljava/lang/String;", ops.newUtf8(message));
+			fields.detailMessage.putReference(instance, ops.newUtf8(message));
 		}
 		if (cause != null) {
-			ops.putReference(instance, "cause", "Ljava/lang/Throwable;", cause);
+			fields.cause.putReference(instance, cause);
 		}
 		return instance;
 	}
@@ -82,29 +137,26 @@ public InstanceValue newException(InstanceClass javaClass, String message, Objec
 	@Override
 	public Exception toJavaException(InstanceValue oop) {
 		VMOperations ops = this.ops;
-		String msg = ops.readUtf8(ops.getReference(oop, "detailMessage", "Ljava/lang/String;"));
+		Fields fields = fields();
+		String msg = ops.readUtf8(fields.detailMessage.getReference(oop));
 		Exception exception = new Exception(msg);
-		ObjectValue backtrace = ops.getReference(oop, "backtrace", "Ljava/lang/Object;");
+		ObjectValue backtrace = fields.backtrace.getReference(oop);
 		if (!backtrace.isNull()) {
 			ArrayValue arrayValue = (ArrayValue) backtrace;
-			StackTraceElement[] stackTrace = IntStream.range(0, arrayValue.getLength())
-				.mapToObj(i -> {
-					InstanceValue value = (InstanceValue) arrayValue.getReference(i);
-					String declaringClass = ops.readUtf8(ops.getReference(value, "declaringClass", "Ljava/lang/String;"));
-					String methodName = ops.readUtf8(ops.getReference(value, "methodName", "Ljava/lang/String;"));
-					String fileName = ops.readUtf8(ops.getReference(value, "fileName", "Ljava/lang/String;"));
-					int line = ops.getInt(value, "lineNumber");
-					return new StackTraceElement(declaringClass, methodName, fileName, line);
-				})
-				.toArray(StackTraceElement[]::new);
-			Collections.reverse(Arrays.asList(stackTrace));
+			StackTraceElement[] stackTrace = new StackTraceElement[getBacktraceDepth(arrayValue)];
+			for (int i = 0; i < stackTrace.length; i++) {
+				int offset = i * BACKTRACE_FRAME_SIZE;
+				JavaMethod method = frameMethod(arrayValue, offset);
+				InstanceClass owner = method.getOwner();
+				stackTrace[i] = new StackTraceElement(owner.getName(), method.getName(), owner.getNode().sourceFile, arrayValue.getInt(offset + 2));
+			}
 			exception.setStackTrace(stackTrace);
 		}
-		ObjectValue cause = ops.getReference(oop, "cause", "Ljava/lang/Throwable;");
+		ObjectValue cause = fields.cause.getReference(oop);
 		if (!cause.isNull() && cause != oop) {
 			exception.initCause(toJavaException((InstanceValue) cause));
 		}
-		ObjectValue suppressedExceptions = ops.getReference(oop, "suppressedExceptions", "Ljava/util/List;");
+		ObjectValue suppressedExceptions = fields.suppressedExceptions.getReference(oop);
 		if (!suppressedExceptions.isNull()) {
 			InstanceClass cl = (InstanceClass) ops.findClass(memoryManager.nullValue(), "java/util/ArrayList", false);
 			if (cl == suppressedExceptions.getJavaClass()) {
@@ -119,4 +171,144 @@ public Exception toJavaException(InstanceValue oop) {
 		}
 		return exception;
 	}
+
+	private JavaMethod frameMethod(ArrayValue backtrace, int offset) {
+		InstanceClass owner = (InstanceClass) classStorage.lookup(backtrace.getInt(offset));
+		return owner.getMethodBySlot(backtrace.getInt(offset + 1));
+	}
+
+	private InstanceValue constructException(InstanceClass javaClass) {
+		VMOperations ops = this.ops;
+		ops.initialize(javaClass);
+		InstanceValue instance = memoryManager.newInstance(javaClass);
+		JavaMethod m = javaClass.getMethod("<init>", "()V");
+		Locals locals = threadManager.currentThreadStorage().newLocals(m);
+		locals.setReference(0, instance);
+		ops.invokeVoid(m, locals);
+		return instance;
+	}
+
+	private boolean isImplicitException(InstanceClass javaClass) {
+		Symbols symbols = this.symbols;
+		return javaClass == symbols.java_lang_NullPointerException()
+			|| javaClass == symbols.java_lang_ArrayIndexOutOfBoundsException()
+			|| javaClass == symbols.java_lang_ClassCastException()
+			|| javaClass == symbols.java_lang_ArithmeticException()
+			|| javaClass == symbols.java_lang_ArrayStoreException()
+			|| javaClass == symbols.java_lang_NegativeArraySizeException();
+	}
+
+	private InstanceValue copyTemplate(InstanceClass javaClass) {
+		// Implicit exceptions have trivial constructors,
+		// so instead of running <init> chain, copy fields
+		// from an instance that was constructed once
+		Map<InstanceClass, InstanceValue> templates = this.templates;
+		InstanceValue template = templates.get(javaClass);
+		if (template == null) {
+			template = constructException(javaClass);
+			InstanceValue existing = templates.putIfAbsent(javaClass, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+		MemoryManager memoryManager = this.memoryManager;
+		InstanceValue instance = memoryManager.newInstance(javaClass);
+		int offset = memoryManager.valueBaseOffset(instance);
+		MemoryData data = template.getMemory().getData();
+		data.write(offset, instance.getMemory().getData(), offset, data.length() - offset);
+		fields().cause.putReference(instance, instance);
+		return instance;
+	}
+
+	private void captureBacktrace(InstanceValue exception) {
+		setBacktrace(exception, captureBacktrace(threadManager.currentOsThread().getBacktrace()));
+	}
+
+	private void setBacktrace(InstanceValue exception, ArrayValue backtrace) {
+		Fields fields = fields();
+		fields.backtrace.putReference(exception, backtrace);
+		FieldHandle depth = fields.depth;
+		if (depth != null) {
+			depth.putInt(exception, getBacktraceDepth(backtrace));
+		}
+	}
+
+	private boolean isHotThrowSite() {
+		// Natives that raise exceptions are attributed
+		// to the instruction that called them
+		Backtrace backtrace = threadManager.currentOsThread().getBacktrace();
+		ExecutionContext<?> frame;
+		int index = 1;
+		while ((frame = backtrace.at(index++)) != null) {
+			JavaMethod method = frame.getMethod();
+			if ((method.getModifiers() & Opcodes.ACC_NATIVE) != 0) {
+				continue;
+			}
+			AtomicIntegerArray counters = method.getLinkage(THROW_SITES);
+			int position = frame.getInsnPosition();
+			if (position < 0 || position >= counters.length()) {
+				return false;
+			}
+			return counters.get(position) >= FAST_THROW_THRESHOLD || counters.incrementAndGet(position) >= FAST_THROW_THRESHOLD;
+		}
+		return false;
+	}
+
+	private InstanceValue preallocatedException(InstanceClass javaClass) {
+		// Same as HotSpot, preallocated exception
+		// has no message and an empty stack trace
+		Map<InstanceClass, InstanceValue> preallocated = this.preallocated;
+		InstanceValue exception = preallocated.get(javaClass);
+		if (exception == null) {
+			exception = copyTemplate(javaClass);
+			setBacktrace(exception, ops.allocateIntArray(0));
+			InstanceValue existing = preallocated.putIfAbsent(javaClass, exception);
+			if (existing != null) {
+				exception = existing;
+			}
+		}
+		return exception;
+	}
+
+	private Fields fields() {
+		Fields fields = this.fields;
+		if (fields == null) {
+			fields = new Fields(ops, symbols);
+			this.fields = fields;
+		}
+		return fields;
+	}
+
+	private static final class Fields {
+		final FieldHandle detailMessage;
+		final FieldHandle cause;
+		final FieldHandle backtrace;
+		final FieldHandle depth;
+		final FieldHandle suppressedExceptions;
+		final FieldHandle declaringClass;
+		final FieldHandle methodName;
+		final FieldHandle fileName;
+		final FieldHandle lineNumber;
+		final FieldHandle declaringClassObject;
+
+		Fields(VMOperations ops, Symbols symbols) {
+			InstanceClass throwable = symbols.java_lang_Throwable();
+			detailMessage = ops.getFieldHandle(throwable, "detailMessage", "Ljava/lang/String;");
+			cause = ops.getFieldHandle(throwable, "cause", "Ljava/lang/Throwable;");
+			backtrace = ops.getFieldHandle(throwable, "backtrace", "Ljava/lang/Object;");
+			depth = optionalField(ops, throwable, "depth", "I");
+			suppressedExceptions = ops.getFieldHandle(throwable, "suppressedExceptions", "Ljava/util/List;");
+			InstanceClass stackTraceElement = symbols.java_lang_StackTraceElement();
+			declaringClass = ops.getFieldHandle(stackTraceElement, "declaringClass", "Ljava/lang/String;");
+			methodName = ops.getFieldHandle(stackTraceElement, "methodName", "Ljava/lang/String;");
+			fileName = ops.getFieldHandle(stackTraceElement, "fileName", "Ljava/lang/String;");
+			lineNumber = ops.getFieldHandle(stackTraceElement, "lineNumber", "I");
+			declaringClassObject = optionalField(ops, stackTraceElement, "declaringClassObject", "Ljava/lang/Class;");
+		}
+
+		// Field is not present on all JDK versions
+		private static FieldHandle optionalField(VMOperations ops, InstanceClass klass, String name, String desc) {
+			return klass.getField(name, desc) == null ? null : ops.getFieldHandle(klass, name, desc);
+		}
+	}
 }
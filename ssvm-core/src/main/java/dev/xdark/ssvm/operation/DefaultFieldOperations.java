@@ -349,6 +349,16 @@ public void putBoolean(InstanceClass klass, String name, boolean value) {
 		klass.getOop().getData().writeByte(field.getOffset(), (byte) (value ? 1 : 0));
 	}
 
+	@Override
+	public FieldHandle getFieldHandle(InstanceClass klass, String name, String desc) {
+		return new FieldHandle(memoryManager, linkResolver, ops, klass, name, desc, false);
+	}
+
+	@Override
+	public FieldHandle getStaticFieldHandle(InstanceClass klass, String name, String desc) {
+		return new FieldHandle(memoryManager, linkResolver, ops, klass, name, desc, true);
+	}
+
 	private long getFieldOffsetForInstance(ObjectValue instance, InstanceClass klass, String name, String desc) {
 		ops.checkNotNull(instance);
 		JavaField field = linkResolver.resolveVirtualField(klass, name, desc);
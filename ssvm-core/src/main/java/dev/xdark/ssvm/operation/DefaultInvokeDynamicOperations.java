@@ -10,7 +10,9 @@
 import dev.xdark.ssvm.memory.management.StringPool;
 import dev.xdark.ssvm.mirror.member.JavaField;
 import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.member.LinkageKey;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.mirror.type.JavaClass;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.thread.ThreadStorage;
@@ -34,6 +36,7 @@
  */
 @RequiredArgsConstructor
 public final class DefaultInvokeDynamicOperations implements InvokeDynamicOperations {
+	static final LinkageKey<MethodHandleLink> LINK = new LinkageKey<>(MethodHandleLink::new);
 
 	private final Symbols symbols;
 	private final ThreadManager threadManager;
@@ -42,6 +45,9 @@ public final class DefaultInvokeDynamicOperations implements InvokeDynamicOperat
 	private final ClassStorage classStorage;
 	private final MemoryManager memoryManager;
 	private final VMOperations ops;
+	private long vmlinkOffset = -1L;
+	private long clazzOffset = -1L;
+	private long flagsOffset = -1L;
 
 	@Override
 	public InstanceValue linkCall(InvokeDynamicInsnNode insn, InstanceClass caller) {
@@ -157,12 +163,50 @@ public JavaMethod readVMTargetFromHandle(InstanceValue handle) {
 
 	@Override
 	public JavaMethod readVMTargetFromMemberName(InstanceValue vmentry) {
+		MethodHandleLink link = readLink(vmentry);
+		if (link != null) {
+			return link.getTarget();
+		}
 		VMOperations ops = this.ops;
 		InstanceValue resolved = ops.checkNotNull(ops.getReference(vmentry, "method", symbols.java_lang_invoke_ResolvedMethodName().getDescriptor()));
 		InstanceClass clazz = (InstanceClass) classStorage.lookup(ops.checkNotNull(ops.getReference(vmentry, "clazz", "Ljava/lang/Class;")));
 		return clazz.getMethodBySlot(ops.getInt(ops.getReference(resolved, InjectedClassLayout.java_lang_invoke_ResolvedMethodName_vmtarget.name(), InjectedClassLayout.java_lang_invoke_ResolvedMethodName_vmtarget.descriptor()), "value"));
 	}
 
+	@Override
+	public JavaMethod resolveVMTargetFromMemberName(InstanceValue vmentry, ObjectValue receiver) {
+		MethodHandleLink link = readLink(vmentry);
+		JavaMethod vmtarget = link != null ? link.getTarget() : readVMTargetFromMemberName(vmentry);
+		if ((vmtarget.getModifiers() & Opcodes.ACC_STATIC) != 0) {
+			return vmtarget;
+		}
+		// Flags are not cached, as reference kind
+		// is changed by MemberName#asSpecial
+		int flags = vmentry.getData().readInt(flagsOffset());
+		int refKind = (flags >> MN_REFERENCE_KIND_SHIFT) & MN_REFERENCE_KIND_MASK;
+		if (refKind == REF_invokeSpecial || refKind == REF_newInvokeSpecial) {
+			return vmtarget;
+		}
+		ops.checkNotNull(receiver);
+		JavaClass receiverClass = receiver.getJavaClass();
+		if (link != null) {
+			JavaMethod cached = link.dispatch(receiverClass);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		JavaMethod method;
+		if (refKind == REF_invokeInterface) {
+			method = runtimeResolver.resolveInterfaceMethod(receiver, vmtarget.getName(), vmtarget.getDesc());
+		} else {
+			method = runtimeResolver.resolveVirtualMethod(receiver, vmtarget.getName(), vmtarget.getDesc());
+		}
+		if (link != null) {
+			link.cache(receiverClass, method);
+		}
+		return method;
+	}
+
 	/**
 	 * Initializes method member.
 	 *
@@ -187,6 +231,9 @@ public void initMethodMember(int refKind, InstanceValue memberName, JavaMethod h
 		int flags = handle.getModifiers() & Modifier.RECOGNIZED_METHOD_MODIFIERS;
 		flags |= mnType | (refKind << MN_REFERENCE_KIND_SHIFT);
 		ops.putInt(memberName, "flags", flags);
+		// Link lives on the method and is shared between
+		// all member names of it, member name only keeps the slot
+		memberName.getData().writeInt(vmlinkOffset(), handle.getSlot() + 1);
 	}
 
 	/**
@@ -212,6 +259,51 @@ public void initFieldMember(int refKind, InstanceValue memberName, JavaField han
 		int flags = handle.getModifiers() & Modifier.RECOGNIZED_FIELD_MODIFIERS;
 		flags |= IS_FIELD | (refKind << MN_REFERENCE_KIND_SHIFT);
 		ops.putInt(memberName, "flags", flags);
+		// Member name may be reused
+		memberName.getData().writeInt(vmlinkOffset(), 0);
+	}
+
+	private MethodHandleLink readLink(InstanceValue memberName) {
+		int slot = memberName.getData().readInt(vmlinkOffset()) - 1;
+		if (slot < 0) {
+			return null;
+		}
+		ObjectValue clazz = memoryManager.readReference(memberName, clazzOffset());
+		if (clazz.isNull()) {
+			return null;
+		}
+		JavaMethod method = ((InstanceClass) classStorage.lookup(clazz)).getMethodBySlot(slot);
+		return method == null ? null : method.getLinkage(LINK);
+	}
+
+	private long vmlinkOffset() {
+		long offset = vmlinkOffset;
+		if (offset == -1L) {
+			offset = symbols.java_lang_invoke_MemberName().getField(
+				InjectedClassLayout.java_lang_invoke_MemberName_vmlink.name(),
+				InjectedClassLayout.java_lang_invoke_MemberName_vmlink.descriptor()
+			).getOffset();
+			vmlinkOffset = offset;
+		}
+		return offset;
+	}
+
+	private long clazzOffset() {
+		long offset = clazzOffset;
+		if (offset == -1L) {
+			offset = symbols.java_lang_invoke_MemberName().getField("clazz", "Ljava/lang/Class;").getOffset();
+			clazzOffset = offset;
+		}
+		return offset;
+	}
+
+	private long flagsOffset() {
+		long offset = flagsOffset;
+		if (offset == -1L) {
+			offset = symbols.java_lang_invoke_MemberName().getField("flags", "I").getOffset();
+			flagsOffset = offset;
+		}
+		return offset;
 	}
 
 	private ObjectValue forInvokeDynamicCall(InstanceClass caller, Object arg) {
@@ -4,6 +4,7 @@
 import dev.xdark.ssvm.execution.Locals;
 import dev.xdark.ssvm.memory.allocation.MemoryData;
 import dev.xdark.ssvm.memory.management.MemoryManager;
+import dev.xdark.ssvm.memory.management.StringLayout;
 import dev.xdark.ssvm.mirror.member.JavaField;
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
@@ -32,16 +33,19 @@ public final class DefaultStringOperations implements StringOperations {
 	private final LinkResolver linkResolver;
 	private final VMOperations ops;
 	private final int jvmVersion;
+	private final StringCache cache = new StringCache();
+	private final StringLayout layout;
 
 	@Override
 	public InstanceValue newUtf8(String value) {
 		InstanceValue strInstance;
 		if (jvmVersion >= 9) {
 			// Need to also assign the 'coder' value to strings that are not LATIN1
-			ArrayValue array = toBytes(value);
-			strInstance = newUtf8FromBytes(array);
-			if (array.getLength() > value.length()) {
-				ops.putByte(strInstance, "coder", (byte) 1);
+			if (isLatin1(value)) {
+				strInstance = newUtf8FromBytes(ops.toVMBytes(value.getBytes(StandardCharsets.ISO_8859_1)));
+			} else {
+				strInstance = newUtf8FromBytes(toUtf16Bytes(value));
+				strInstance.getData().writeByte(layout.coderOffset(), StringLayout.CODER_UTF16);
 			}
 		} else {
 			strInstance = newUtf8FromChars(toChars(value));
@@ -98,16 +102,34 @@ public String readUtf8(ObjectValue value) {
 		if (jc != symbols.java_lang_String()) {
 			throw new IllegalStateException("Not a string: " + value + " (" + jc + ')');
 		}
-		JavaField charValue = jc.getField("value", "[C");
-		ArrayValue array;
-		if (charValue != null) {
-			array = (ArrayValue) memoryManager.readReference(value, charValue.getOffset());
+		StringLayout layout = this.layout;
+		JavaField valueField = layout.valueField();
+		ArrayValue array = (ArrayValue) memoryManager.readReference(value, valueField.getOffset());
+		StringCache cache = this.cache;
+		String result = cache.get(value, array);
+		if (result != null) {
+			return result;
+		}
+		MemoryData data = array.getMemory().getData();
+		long baseOffset = memoryManager.arrayBaseOffset(array);
+		int length = array.getLength();
+		if (layout.isCharBacked()) {
+			char[] chars = new char[length];
+			data.read(baseOffset, chars, 0, length);
+			result = UnsafeUtil.newString(chars);
+		} else if (layout.isUtf16((InstanceValue) value)) {
+			// UTF16 strings are stored in the VM byte order,
+			// which is the same order chars are read in
+			char[] chars = new char[length >> 1];
+			data.read(baseOffset, chars, 0, chars.length);
+			result = UnsafeUtil.newString(chars);
 		} else {
-			JavaField byteValue = jc.getField("value", "[B");
-			ArrayValue arrayRef = (ArrayValue) memoryManager.readReference(value, byteValue.getOffset());
-			return new String(ops.toJavaBytes(arrayRef), StandardCharsets.UTF_8);
+			byte[] bytes = new byte[length];
+			data.read(baseOffset, bytes, 0, length);
+			result = new String(bytes, StandardCharsets.ISO_8859_1);
 		}
-		return UnsafeUtil.newString(ops.toJavaChars(array));
+		cache.put(value, array, result);
+		return result;
 	}
 
 	@Override
@@ -126,6 +148,24 @@ public ArrayValue toChars(String value) {
 		return wrapper;
 	}
 
+	private ArrayValue toUtf16Bytes(String value) {
+		int length = value.length();
+		ArrayValue wrapper = ops.allocateByteArray(length << 1);
+		MemoryData memory = wrapper.getMemory().getData();
+		char[] chars = UnsafeUtil.getChars(value);
+		memory.write(memoryManager.arrayBaseOffset(wrapper), chars, 0, length);
+		return wrapper;
+	}
+
+	private static boolean isLatin1(String value) {
+		for (int i = 0, j = value.length(); i < j; i++) {
+			if (value.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public ArrayValue toBytes(String value) {
 		byte[] bytes = UnsafeUtil.getBytes(value);
@@ -3,6 +3,7 @@
 import dev.xdark.ssvm.memory.management.MemoryManager;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.synchronizer.Mutex;
+import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.RequiredArgsConstructor;
 
@@ -16,21 +17,45 @@ public final class DefaultSynchronizationOperations implements SynchronizationOp
 
 	private final Symbols symbols;
 	private final MemoryManager memoryManager;
+	private final ThreadManager threadManager;
 	private final VMOperations ops;
 
 	@Override
 	public void monitorEnter(ObjectValue value) {
 		ops.checkNotNull(value);
-		Mutex mutex = memoryManager.getMutex(value);
-		mutex.lock();
+		MemoryManager memoryManager = this.memoryManager;
+		while (true) {
+			if (memoryManager.tryLightweightLock(value)) {
+				return;
+			}
+			Mutex mutex = memoryManager.getMutex(value);
+			if (!mutex.tryLock()) {
+				threadManager.lockContended(mutex);
+			}
+			if (memoryManager.isMutexAttached(value, mutex)) {
+				return;
+			}
+			// Mutex was deflated before we acquired it, retry
+			mutex.tryUnlock();
+		}
 	}
 
 	@Override
 	public void monitorExit(ObjectValue value) {
 		ops.checkNotNull(value);
+		MemoryManager memoryManager = this.memoryManager;
+		if (memoryManager.tryLightweightUnlock(value)) {
+			return;
+		}
+		// Do not inflate the lock of another thread
+		if (!memoryManager.holdsLock(value)) {
+			ops.throwException(symbols.java_lang_IllegalMonitorStateException());
+		}
 		Mutex mutex = memoryManager.getMutex(value);
 		if (!mutex.tryUnlock()) {
 			ops.throwException(symbols.java_lang_IllegalMonitorStateException());
+		} else if (!mutex.isHeldByCurrentThread()) {
+			memoryManager.tryDeflate(value, mutex);
 		}
 	}
 }
@@ -1,7 +1,10 @@
 package dev.xdark.ssvm.operation;
 
 import dev.xdark.ssvm.execution.ExecutionContext;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.backtrace.Backtrace;
+import dev.xdark.ssvm.value.ArrayValue;
 import dev.xdark.ssvm.value.InstanceValue;
 import dev.xdark.ssvm.value.ObjectValue;
 
@@ -16,7 +19,42 @@ public interface ExceptionOperations {
 	 * @param frame Stack frame.
 	 * @return VM oop of {@link StackTraceElement}.
 	 */
-	InstanceValue newStackTraceElement(ExecutionContext<?> frame);
+	default InstanceValue newStackTraceElement(ExecutionContext<?> frame) {
+		return newStackTraceElement(frame.getMethod(), frame.getLineNumber());
+	}
+
+	/**
+	 * @param method     Method of the frame.
+	 * @param lineNumber Line number of the frame.
+	 * @return VM oop of {@link StackTraceElement}.
+	 */
+	InstanceValue newStackTraceElement(JavaMethod method, int lineNumber);
+
+	/**
+	 * Captures compact backtrace.
+	 * Hidden frames are skipped, stack trace elements
+	 * are not created until they are requested.
+	 *
+	 * @param backtrace Thread backtrace.
+	 * @return VM array containing captured frames,
+	 * top frame first.
+	 * @see #getBacktraceDepth(ArrayValue)
+	 * @see #newStackTraceElement(ArrayValue, int)
+	 */
+	ArrayValue captureBacktrace(Backtrace backtrace);
+
+	/**
+	 * @param backtrace Backtrace captured by {@link #captureBacktrace(Backtrace)}.
+	 * @return Amount of frames in the backtrace.
+	 */
+	int getBacktraceDepth(ArrayValue backtrace);
+
+	/**
+	 * @param backtrace Backtrace captured by {@link #captureBacktrace(Backtrace)}.
+	 * @param index     Frame index, {@code 0} being the top frame.
+	 * @return VM oop of {@link StackTraceElement}.
+	 */
+	InstanceValue newStackTraceElement(ArrayValue backtrace, int index);
 
 	/**
 	 * Throws exception.
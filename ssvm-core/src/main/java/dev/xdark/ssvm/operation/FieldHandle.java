@@ -0,0 +1,282 @@
+package dev.xdark.ssvm.operation;
+
+import dev.xdark.ssvm.LinkResolver;
+import dev.xdark.ssvm.memory.management.MemoryManager;
+import dev.xdark.ssvm.mirror.member.JavaField;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.value.ObjectValue;
+
+/**
+ * Field resolved by it's name and descriptor only once.
+ * <p>
+ * The field is resolved on the first access,
+ * all accesses after that go straight to the object memory.
+ * For static fields, instance argument is ignored.
+ *
+ * @author xDark
+ */
+public final class FieldHandle {
+
+	private final MemoryManager memoryManager;
+	private final LinkResolver linkResolver;
+	private final VMOperations ops;
+	private final InstanceClass klass;
+	private final String name;
+	private final String desc;
+	private final boolean isStatic;
+	private JavaField field;
+
+	FieldHandle(MemoryManager memoryManager, LinkResolver linkResolver, VMOperations ops, InstanceClass klass, String name, String desc, boolean isStatic) {
+		this.memoryManager = memoryManager;
+		this.linkResolver = linkResolver;
+		this.ops = ops;
+		this.klass = klass;
+		this.name = name;
+		this.desc = desc;
+		this.isStatic = isStatic;
+	}
+
+	/**
+	 * Throws VM exception if field was not found.
+	 *
+	 * @return Resolved field.
+	 */
+	public JavaField getField() {
+		JavaField field = this.field;
+		if (field == null) {
+			if (isStatic) {
+				field = linkResolver.resolveStaticField(klass, name, desc);
+			} else {
+				field = linkResolver.resolveVirtualField(klass, name, desc);
+			}
+			this.field = field;
+		}
+		return field;
+	}
+
+	/**
+	 * Throws VM exception if field was not found.
+	 *
+	 * @return Field offset.
+	 */
+	public long getOffset() {
+		return getField().getOffset();
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public ObjectValue getReference(ObjectValue instance) {
+		JavaField field = getField();
+		return memoryManager.readReference(base(instance, field), field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public long getLong(ObjectValue instance) {
+		JavaField field = getField();
+		return base(instance, field).getData().readLong(field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public double getDouble(ObjectValue instance) {
+		return Double.longBitsToDouble(getLong(instance));
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public int getInt(ObjectValue instance) {
+		JavaField field = getField();
+		return base(instance, field).getData().readInt(field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public float getFloat(ObjectValue instance) {
+		return Float.intBitsToFloat(getInt(instance));
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public char getChar(ObjectValue instance) {
+		JavaField field = getField();
+		return base(instance, field).getData().readChar(field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public short getShort(ObjectValue instance) {
+		JavaField field = getField();
+		return base(instance, field).getData().readShort(field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public byte getByte(ObjectValue instance) {
+		JavaField field = getField();
+		return base(instance, field).getData().readByte(field.getOffset());
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to get value from.
+	 * @return Field value.
+	 */
+	public boolean getBoolean(ObjectValue instance) {
+		return getByte(instance) != 0;
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putReference(ObjectValue instance, ObjectValue value) {
+		JavaField field = getField();
+		memoryManager.writeValue(base(instance, field), field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putLong(ObjectValue instance, long value) {
+		JavaField field = getField();
+		base(instance, field).getData().writeLong(field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putDouble(ObjectValue instance, double value) {
+		putLong(instance, Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putInt(ObjectValue instance, int value) {
+		JavaField field = getField();
+		base(instance, field).getData().writeInt(field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putFloat(ObjectValue instance, float value) {
+		putInt(instance, Float.floatToRawIntBits(value));
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putChar(ObjectValue instance, char value) {
+		JavaField field = getField();
+		base(instance, field).getData().writeChar(field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putShort(ObjectValue instance, short value) {
+		JavaField field = getField();
+		base(instance, field).getData().writeShort(field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putByte(ObjectValue instance, byte value) {
+		JavaField field = getField();
+		base(instance, field).getData().writeByte(field.getOffset(), value);
+	}
+
+	/**
+	 * Throws VM exception if field was not found,
+	 * or an instance is {@code null}.
+	 *
+	 * @param instance Instance to set value in.
+	 * @param value    Value to set.
+	 */
+	public void putBoolean(ObjectValue instance, boolean value) {
+		putByte(instance, (byte) (value ? 1 : 0));
+	}
+
+	private ObjectValue base(ObjectValue instance, JavaField field) {
+		if (isStatic) {
+			return field.getOwner().getOop();
+		}
+		return ops.checkNotNull(instance);
+	}
+}
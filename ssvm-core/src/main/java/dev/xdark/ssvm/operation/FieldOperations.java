@@ -609,4 +609,26 @@ public interface FieldOperations {
 	 * @param value Value to set.
 	 */
 	void putBoolean(InstanceClass klass, String name, boolean value);
+
+	/**
+	 * Creates a handle for a virtual field.
+	 * The field is resolved once, on the first access.
+	 *
+	 * @param klass Class to resolve field in.
+	 * @param name  Field name.
+	 * @param desc  Field descriptor.
+	 * @return Field handle.
+	 */
+	FieldHandle getFieldHandle(InstanceClass klass, String name, String desc);
+
+	/**
+	 * Creates a handle for a static field.
+	 * The field is resolved once, on the first access.
+	 *
+	 * @param klass Class to resolve field in.
+	 * @param name  Field name.
+	 * @param desc  Field descriptor.
+	 * @return Field handle.
+	 */
+	FieldHandle getStaticFieldHandle(InstanceClass klass, String name, String desc);
 }
@@ -5,6 +5,7 @@
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.value.InstanceValue;
+import dev.xdark.ssvm.value.ObjectValue;
 import dev.xdark.ssvm.value.sink.ValueSink;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
@@ -86,6 +87,17 @@ public interface InvokeDynamicOperations {
 	 */
 	JavaMethod readVMTargetFromMemberName(InstanceValue vmentry);
 
+	/**
+	 * Resolves method to invoke through a member name.
+	 * Virtual targets are dispatched on the receiver class.
+	 *
+	 * @param vmentry  Member name to read target from.
+	 * @param receiver Call receiver, ignored for static and special calls.
+	 * @return Method to invoke.
+	 * Throws VM exception if handle is not initialized, or receiver is {@code null}.
+	 */
+	JavaMethod resolveVMTargetFromMemberName(InstanceValue vmentry, ObjectValue receiver);
+
 	/**
 	 * Initializes method member.
 	 *
@@ -0,0 +1,62 @@
+package dev.xdark.ssvm.operation;
+
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.JavaClass;
+
+/**
+ * Resolved target of a method member name,
+ * with a monomorphic dispatch cache.
+ *
+ * @author xDark
+ */
+final class MethodHandleLink {
+	private final JavaMethod target;
+	private volatile Dispatch dispatch;
+
+	/**
+	 * @param target Resolved target.
+	 */
+	MethodHandleLink(JavaMethod target) {
+		this.target = target;
+	}
+
+	/**
+	 * @return Resolved target.
+	 */
+	JavaMethod getTarget() {
+		return target;
+	}
+
+	/**
+	 * @param receiverClass Receiver class.
+	 * @return Cached virtual target or {@code null},
+	 * if the receiver class does not match.
+	 */
+	JavaMethod dispatch(JavaClass receiverClass) {
+		Dispatch dispatch = this.dispatch;
+		if (dispatch != null && dispatch.receiverClass == receiverClass) {
+			return dispatch.method;
+		}
+		return null;
+	}
+
+	/**
+	 * Caches virtual target.
+	 *
+	 * @param receiverClass Receiver class.
+	 * @param method        Virtual target.
+	 */
+	void cache(JavaClass receiverClass, JavaMethod method) {
+		dispatch = new Dispatch(receiverClass, method);
+	}
+
+	private static final class Dispatch {
+		final JavaClass receiverClass;
+		final JavaMethod method;
+
+		Dispatch(JavaClass receiverClass, JavaMethod method) {
+			this.receiverClass = receiverClass;
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package dev.xdark.ssvm.operation;
+
+import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.ObjectValue;
+
+/**
+ * Small direct-mapped cache of recently
+ * converted VM strings.
+ * <p>
+ * Entry is only valid while the string
+ * still points to the same value array.
+ *
+ * @author xDark
+ */
+final class StringCache {
+	private static final int SIZE = 256;
+	private final Entry[] entries = new Entry[SIZE];
+
+	/**
+	 * @param value VM string.
+	 * @param array String value array.
+	 * @return Cached host string or {@code null},
+	 * if there is no entry.
+	 */
+	String get(ObjectValue value, ArrayValue array) {
+		Entry entry = entries[index(value)];
+		if (entry != null && entry.value == value && entry.array == array) {
+			return entry.result;
+		}
+		return null;
+	}
+
+	/**
+	 * @param value  VM string.
+	 * @param array  String value array.
+	 * @param result Host string.
+	 */
+	void put(ObjectValue value, ArrayValue array, String result) {
+		entries[index(value)] = new Entry(value, array, result);
+	}
+
+	private static int index(ObjectValue value) {
+		int h = System.identityHashCode(value);
+		return (h ^ (h >>> 16)) & (SIZE - 1);
+	}
+
+	private static final class Entry {
+		final ObjectValue value;
+		final ArrayValue array;
+		final String result;
+
+		Entry(ObjectValue value, ArrayValue array, String result) {
+			this.value = value;
+			this.array = array;
+			this.result = result;
+		}
+	}
+}
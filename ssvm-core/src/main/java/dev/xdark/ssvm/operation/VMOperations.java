@@ -4,6 +4,7 @@
 import dev.xdark.ssvm.RuntimeResolver;
 import dev.xdark.ssvm.VirtualMachine;
 import dev.xdark.ssvm.memory.management.MemoryManager;
+import dev.xdark.ssvm.memory.management.StringLayout;
 import dev.xdark.ssvm.memory.management.StringPool;
 import dev.xdark.ssvm.symbol.Symbols;
 import dev.xdark.ssvm.thread.ThreadManager;
@@ -74,14 +75,14 @@ public VMOperations(VirtualMachine vm) {
 		allocationOperations = new DefaultAllocationOperations(memoryManager, symbols, vm.getPrimitives(), this);
 		conversionOperations = new DefaultConversionOperations(symbols, memoryManager, this);
 		arrayOperations = new DefaultArrayOperations(symbols, this);
-		exceptionOperations = new DefaultExceptionOperations(memoryManager, threadManager, symbols, this);
+		exceptionOperations = new DefaultExceptionOperations(memoryManager, threadManager, vm.getClassStorage(), symbols, this, vm.isOmitStackTraceInFastThrow());
 		fieldOperations = new DefaultFieldOperations(memoryManager, linkResolver, this);
 		invocationOperations = new DefaultInvocationOperations(vm.getExecutionEngine(), threadManager);
 		primitiveOperations = new DefaultPrimitiveOperations(symbols, threadManager, linkResolver, runtimeResolver, this);
-		stringOperations = new DefaultStringOperations(memoryManager, threadManager, symbols, linkResolver, this, vm.getJvmVersion());
-		synchronizationOperations = new DefaultSynchronizationOperations(symbols, memoryManager, this);
+		stringOperations = new DefaultStringOperations(memoryManager, threadManager, symbols, linkResolver, this, vm.getJvmVersion(), new StringLayout(symbols));
+		synchronizationOperations = new DefaultSynchronizationOperations(symbols, memoryManager, threadManager, this);
 		verificationOperations = new DefaultVerificationOperations(symbols, this);
-		classOperations = new DefaultClassOperations(vm.getMirrorFactory(), memoryManager, threadManager, vm.getBootClassFinder(), runtimeResolver, symbols, vm.getPrimitives(), vm.getClassLoaders(), vm.getClassDefiner(), vm.getClassStorage(), vm, this);
+		classOperations = new DefaultClassOperations(vm.getMirrorFactory(), memoryManager, threadManager, vm.getBootClassFinder(), runtimeResolver, symbols, vm.getPrimitives(), vm.getClassLoaders(), vm.getClassDefiner(), vm.getClassStorage(), vm.getSafepoint(), vm, this);
 		methodHandleOperations = new DefaultMethodHandleOperations(symbols, threadManager, linkResolver, this);
 		invokeDynamicOperations = new DefaultInvokeDynamicOperations(symbols, threadManager, stringPool, runtimeResolver, vm.getClassStorage(), memoryManager, this);
 		constantOperations = new DefaultConstantOperations(memoryManager, threadManager, stringPool, this);
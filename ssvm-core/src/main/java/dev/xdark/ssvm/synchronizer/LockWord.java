@@ -0,0 +1,136 @@
+package dev.xdark.ssvm.synchronizer;
+
+import dev.xdark.ssvm.execution.PanicException;
+import lombok.experimental.UtilityClass;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock word layout.
+ * <p>
+ * Lock word is stored in the object header and has three states,
+ * distinguished by the lowest two bits:
+ * <pre>
+ * neutral:  all bits set
+ * thin:     [owner:22][recursions:8][00]
+ * inflated: [mutex id:30][01]
+ * </pre>
+ * Thin lock is acquired with a single CAS and only changed by the owner,
+ * or by the thread that inflates it to a {@link Mutex}.
+ * <p>
+ * Owner ids are assigned to host threads on first use and
+ * returned to a free list by {@link #releaseOwner()} once the thread
+ * stops running Java code, so the limit applies to threads
+ * that run at the same time, not to all threads ever started.
+ * A thread must not hold any locks when it releases its id.
+ *
+ * @author xDark
+ */
+@UtilityClass
+public class LockWord {
+
+	public final int NEUTRAL = -1;
+	public final int MAX_RECURSIONS = 0xff;
+	private final int MAX_OWNER = (1 << 22) - 1;
+	private final int TAG_MASK = 0b11;
+	private final int TAG_THIN = 0b00;
+	private final int TAG_INFLATED = 0b01;
+	private final AtomicInteger NEXT_OWNER = new AtomicInteger();
+	private final Queue<Integer> FREE_OWNERS = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<Integer> OWNER = new ThreadLocal<>();
+
+	/**
+	 * @return Id of the current thread, used as the lock owner.
+	 */
+	public int currentOwner() {
+		Integer owner = OWNER.get();
+		if (owner == null) {
+			owner = allocateOwner();
+			OWNER.set(owner);
+		}
+		return owner;
+	}
+
+	/**
+	 * Returns id of the current thread to the free list.
+	 * Next call to {@link #currentOwner()} allocates a new one.
+	 */
+	public void releaseOwner() {
+		Integer owner = OWNER.get();
+		if (owner != null) {
+			OWNER.remove();
+			FREE_OWNERS.offer(owner);
+		}
+	}
+
+	private int allocateOwner() {
+		Integer free = FREE_OWNERS.poll();
+		if (free != null) {
+			return free;
+		}
+		int owner = NEXT_OWNER.incrementAndGet();
+		if (owner > MAX_OWNER) {
+			throw new PanicException("Too many threads");
+		}
+		return owner;
+	}
+
+	/**
+	 * @param owner      Owner id.
+	 * @param recursions Lock count.
+	 * @return Thin lock word.
+	 */
+	public int thin(int owner, int recursions) {
+		return owner << 10 | recursions << 2 | TAG_THIN;
+	}
+
+	/**
+	 * @param id Mutex id.
+	 * @return Inflated lock word.
+	 */
+	public int inflated(int id) {
+		return id << 2 | TAG_INFLATED;
+	}
+
+	/**
+	 * @param word Lock word.
+	 * @return {@code true} if lock word is a thin lock.
+	 */
+	public boolean isThin(int word) {
+		return (word & TAG_MASK) == TAG_THIN;
+	}
+
+	/**
+	 * @param word Lock word.
+	 * @return {@code true} if lock word points to a mutex.
+	 */
+	public boolean isInflated(int word) {
+		return (word & TAG_MASK) == TAG_INFLATED;
+	}
+
+	/**
+	 * @param word Thin lock word.
+	 * @return Owner id.
+	 */
+	public int owner(int word) {
+		return word >>> 10;
+	}
+
+	/**
+	 * @param word Thin lock word.
+	 * @return Lock count.
+	 */
+	public int recursions(int word) {
+		return (word >>> 2) & MAX_RECURSIONS;
+	}
+
+	/**
+	 * @param word Inflated lock word.
+	 * @return Mutex id.
+	 */
+	public int mutexId(int word) {
+		return word >>> 2;
+	}
+}
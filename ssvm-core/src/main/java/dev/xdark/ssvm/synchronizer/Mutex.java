@@ -17,6 +17,13 @@ public interface Mutex {
 	 */
 	void lock();
 
+	/**
+	 * Locks mutex only if it is not held by another thread.
+	 *
+	 * @return {@code true} if mutex was acquired.
+	 */
+	boolean tryLock();
+
 	/**
 	 * Unlocks mutex.
 	 */
@@ -47,4 +54,13 @@ public interface Mutex {
 	 * @return {@code true} if current thread holds this lock.
 	 */
 	boolean isHeldByCurrentThread();
+
+	/**
+	 * @return {@code true} if mutex was detached from its object
+	 * and must not be used anymore.
+	 * @see ObjectSynchronizer#tryDeflate(Mutex)
+	 */
+	default boolean isDeflated() {
+		return false;
+	}
 }
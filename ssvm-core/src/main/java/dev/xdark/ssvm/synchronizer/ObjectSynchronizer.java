@@ -12,15 +12,40 @@ public interface ObjectSynchronizer {
 	 */
 	Mutex acquire();
 
+	/**
+	 * Creates new mutex that is already held
+	 * on behalf of the thin lock owner.
+	 *
+	 * @param owner      Thin lock owner id.
+	 * @param recursions Thin lock count.
+	 * @return New mutex.
+	 * @see LockWord
+	 */
+	Mutex inflate(int owner, int recursions);
+
 	/**
 	 * @param id Mutex id.
 	 * @return Mutex by it's id.
 	 */
 	Mutex get(int id);
 
-	// TODO impl when GC is here
 	/**
-	 * Releases mutex.
+	 * Attempts to deflate the mutex.
+	 * Mutex can only be deflated if it is not held by
+	 * any thread and there are no threads waiting on it.
+	 * Once deflated, the mutex must be detached from its object
+	 * and released with {@link #free(Mutex)}.
+	 *
+	 * @param mutex Mutex to deflate.
+	 * @return {@code true} if mutex was deflated.
+	 */
+	default boolean tryDeflate(Mutex mutex) {
+		return false;
+	}
+
+	/**
+	 * Releases mutex, so that it's id may be reused.
+	 * Mutex must not be attached to any object.
 	 *
 	 * @param mutex Mutex to release.
 	 */
@@ -26,6 +26,11 @@ public void lock() {
 		lock.lock();
 	}
 
+	@Override
+	public boolean tryLock() {
+		return lock.tryLock();
+	}
+
 	@Override
 	public boolean tryUnlock() {
 		ReentrantLock lock = this.lock;
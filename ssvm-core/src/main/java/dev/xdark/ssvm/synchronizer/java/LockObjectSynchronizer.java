@@ -2,6 +2,7 @@
 
 import dev.xdark.ssvm.metadata.MetadataStorage;
 import dev.xdark.ssvm.metadata.SimpleMetadataStorage;
+import dev.xdark.ssvm.synchronizer.LockWord;
 import dev.xdark.ssvm.synchronizer.Mutex;
 import dev.xdark.ssvm.synchronizer.ObjectSynchronizer;
 
@@ -22,6 +23,19 @@ public Mutex acquire() {
 		return mutex;
 	}
 
+	@Override
+	public Mutex inflate(int owner, int recursions) {
+		// Java locks can only be acquired by the owner itself
+		if (owner != LockWord.currentOwner()) {
+			throw new IllegalMonitorStateException("Cannot inflate lock on behalf of another thread");
+		}
+		Mutex mutex = acquire();
+		while (recursions-- != 0) {
+			mutex.lock();
+		}
+		return mutex;
+	}
+
 	@Override
 	public Mutex get(int id) {
 		return mutexStorage.lookup(id);
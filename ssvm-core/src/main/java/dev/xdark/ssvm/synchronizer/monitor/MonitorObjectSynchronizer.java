@@ -0,0 +1,45 @@
+package dev.xdark.ssvm.synchronizer.monitor;
+
+import dev.xdark.ssvm.synchronizer.Mutex;
+import dev.xdark.ssvm.synchronizer.ObjectSynchronizer;
+
+/**
+ * Synchronizer that backs inflated
+ * object locks with {@link ObjectMonitor}.
+ * Idle monitors are deflated and their ids are reused.
+ *
+ * @author xDark
+ */
+public final class MonitorObjectSynchronizer implements ObjectSynchronizer {
+	private final MonitorTable monitors = new MonitorTable();
+
+	@Override
+	public Mutex acquire() {
+		return register(new ObjectMonitor(0, 0));
+	}
+
+	@Override
+	public Mutex inflate(int owner, int recursions) {
+		return register(new ObjectMonitor(owner, recursions));
+	}
+
+	@Override
+	public Mutex get(int id) {
+		return monitors.get(id);
+	}
+
+	@Override
+	public boolean tryDeflate(Mutex mutex) {
+		return ((ObjectMonitor) mutex).tryDeflate();
+	}
+
+	@Override
+	public void free(Mutex mutex) {
+		monitors.free((ObjectMonitor) mutex);
+	}
+
+	private Mutex register(ObjectMonitor monitor) {
+		monitors.register(monitor);
+		return monitor;
+	}
+}
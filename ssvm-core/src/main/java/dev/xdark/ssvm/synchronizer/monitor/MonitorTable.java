@@ -0,0 +1,99 @@
+package dev.xdark.ssvm.synchronizer.monitor;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Table of live monitors.
+ * <p>
+ * Monitors are stored in fixed size pages, so that
+ * the table never copies monitors when it grows.
+ * Lookups are lock-free, ids of released monitors
+ * are reused, so the table only grows up to the maximum
+ * amount of monitors that were alive at the same time.
+ * The lock is never held across a safepoint poll,
+ * so it is acquired without entering a safe region.
+ *
+ * @author xDark
+ */
+final class MonitorTable {
+	private static final int PAGE_SHIFT = 10;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private final Lock lock = new ReentrantLock();
+	private volatile ObjectMonitor[][] pages = new ObjectMonitor[0][];
+	private int[] freeIds = new int[16];
+	private int freeCount;
+	private int nextId;
+
+	/**
+	 * @param id Monitor id.
+	 * @return Monitor by it's id or {@code null},
+	 * if there is no such monitor.
+	 */
+	ObjectMonitor get(int id) {
+		ObjectMonitor[][] pages = this.pages;
+		int page = id >>> PAGE_SHIFT;
+		if (page >= pages.length) {
+			return null;
+		}
+		return pages[page][id & (PAGE_SIZE - 1)];
+	}
+
+	/**
+	 * Assigns an id to the monitor.
+	 *
+	 * @param monitor Monitor to register.
+	 */
+	void register(ObjectMonitor monitor) {
+		Lock lock = this.lock;
+		lock.lock();
+		try {
+			int id;
+			if (freeCount != 0) {
+				id = freeIds[--freeCount];
+			} else {
+				id = nextId++;
+				ObjectMonitor[][] pages = this.pages;
+				int page = id >>> PAGE_SHIFT;
+				if (page == pages.length) {
+					pages = Arrays.copyOf(pages, page + 1);
+					pages[page] = new ObjectMonitor[PAGE_SIZE];
+					this.pages = pages;
+				}
+			}
+			monitor.id = id;
+			this.pages[id >>> PAGE_SHIFT][id & (PAGE_SIZE - 1)] = monitor;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases monitor id.
+	 *
+	 * @param monitor Monitor to release.
+	 */
+	void free(ObjectMonitor monitor) {
+		Lock lock = this.lock;
+		lock.lock();
+		try {
+			int id = monitor.id;
+			ObjectMonitor[] page = pages[id >>> PAGE_SHIFT];
+			int index = id & (PAGE_SIZE - 1);
+			if (page[index] != monitor) {
+				return;
+			}
+			page[index] = null;
+			int[] freeIds = this.freeIds;
+			int freeCount = this.freeCount;
+			if (freeCount == freeIds.length) {
+				this.freeIds = freeIds = Arrays.copyOf(freeIds, freeCount << 1);
+			}
+			freeIds[freeCount] = id;
+			this.freeCount = freeCount + 1;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
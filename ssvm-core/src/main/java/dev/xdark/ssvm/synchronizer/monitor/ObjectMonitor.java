@@ -0,0 +1,178 @@
+package dev.xdark.ssvm.synchronizer.monitor;
+
+import dev.xdark.ssvm.synchronizer.LockWord;
+import dev.xdark.ssvm.synchronizer.Mutex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Heavyweight monitor.
+ * Unlike {@link java.util.concurrent.locks.ReentrantLock},
+ * it can be created on behalf of another thread,
+ * which is required to inflate thin locks.
+ *
+ * @author xDark
+ */
+final class ObjectMonitor implements Mutex {
+
+	int id;
+	private final ReentrantLock guard = new ReentrantLock();
+	private final Condition entry = guard.newCondition();
+	private final Condition waitSet = guard.newCondition();
+	private volatile int owner;
+	private int recursions;
+	// Threads blocked on entry or in the wait set
+	private int entrants;
+	private int waiters;
+	private volatile boolean deflated;
+
+	ObjectMonitor(int owner, int recursions) {
+		this.owner = owner;
+		this.recursions = recursions;
+	}
+
+	@Override
+	public int id() {
+		return id;
+	}
+
+	@Override
+	public void lock() {
+		int self = LockWord.currentOwner();
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			if (owner == self) {
+				recursions++;
+				return;
+			}
+			if (owner != 0) {
+				entrants++;
+				do {
+					entry.awaitUninterruptibly();
+				} while (owner != 0);
+				entrants--;
+			}
+			owner = self;
+			recursions = 1;
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public boolean tryLock() {
+		int self = LockWord.currentOwner();
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			int owner = this.owner;
+			if (owner == self) {
+				recursions++;
+				return true;
+			}
+			if (owner == 0) {
+				this.owner = self;
+				recursions = 1;
+				return true;
+			}
+			return false;
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public boolean tryUnlock() {
+		int self = LockWord.currentOwner();
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			if (owner != self) {
+				return false;
+			}
+			if (--recursions == 0) {
+				owner = 0;
+				entry.signal();
+			}
+			return true;
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public void doWait(long timeoutMillis) throws InterruptedException {
+		int self = LockWord.currentOwner();
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			// Fully release the monitor
+			int recursions = this.recursions;
+			owner = 0;
+			this.recursions = 0;
+			entry.signal();
+			waiters++;
+			try {
+				waitSet.await(timeoutMillis, TimeUnit.MILLISECONDS);
+			} finally {
+				while (owner != 0) {
+					entry.awaitUninterruptibly();
+				}
+				waiters--;
+				owner = self;
+				this.recursions = recursions;
+			}
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public void doNotify() {
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			waitSet.signal();
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public void doNotifyAll() {
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			waitSet.signalAll();
+		} finally {
+			guard.unlock();
+		}
+	}
+
+	@Override
+	public boolean isHeldByCurrentThread() {
+		return owner == LockWord.currentOwner();
+	}
+
+	@Override
+	public boolean isDeflated() {
+		return deflated;
+	}
+
+	boolean tryDeflate() {
+		ReentrantLock guard = this.guard;
+		guard.lock();
+		try {
+			if (owner != 0 || entrants != 0 || waiters != 0 || deflated) {
+				return false;
+			}
+			deflated = true;
+			return true;
+		} finally {
+			guard.unlock();
+		}
+	}
+}
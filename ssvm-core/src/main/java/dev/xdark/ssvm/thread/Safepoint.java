@@ -0,0 +1,137 @@
+package dev.xdark.ssvm.thread;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Global safepoint.
+ * <p>
+ * Every thread that runs VM code holds a shared permit,
+ * threads that block in the host code temporarily
+ * give it up by entering a safe region.
+ * Safepoint operation takes the exclusive permit,
+ * so it only runs once all threads are either polling
+ * or are in a safe region.
+ * <p>
+ * Threads that run VM code without ever calling {@link #enter()}
+ * are not tracked and are not stopped.
+ * <p>
+ * VM locks that may be held while the owner polls the safepoint,
+ * e.g. class initialization lock, must be acquired with
+ * {@link #lock(Lock)}, otherwise a thread waiting for such lock
+ * keeps its permit and the safepoint is never reached.
+ *
+ * @author xDark
+ */
+public final class Safepoint {
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+	private final AtomicInteger requests = new AtomicInteger();
+
+	/**
+	 * Marks current thread as running VM code.
+	 * Calls may be nested.
+	 */
+	public void enter() {
+		lock.readLock().lock();
+	}
+
+	/**
+	 * Marks current thread as no longer running VM code.
+	 */
+	public void exit() {
+		lock.readLock().unlock();
+	}
+
+	/**
+	 * Releases all permits held by current thread.
+	 * Must be called before the thread blocks in the host code.
+	 *
+	 * @return Amount of permits to pass to {@link #exitSafeRegion(int)}.
+	 */
+	public int enterSafeRegion() {
+		ReentrantReadWriteLock lock = this.lock;
+		int holds = lock.getReadHoldCount();
+		ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+		for (int i = 0; i < holds; i++) {
+			readLock.unlock();
+		}
+		return holds;
+	}
+
+	/**
+	 * Re-acquires permits released by {@link #enterSafeRegion()}.
+	 * Blocks if safepoint operation is in progress.
+	 *
+	 * @param holds Amount of permits to acquire.
+	 */
+	public void exitSafeRegion(int holds) {
+		ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+		for (int i = 0; i < holds; i++) {
+			readLock.lock();
+		}
+	}
+
+	/**
+	 * Acquires a lock that may be held by a thread
+	 * stopped at the safepoint.
+	 * If the lock is contended, current thread
+	 * waits for it in a safe region.
+	 *
+	 * @param lock Lock to acquire.
+	 */
+	public void lock(Lock lock) {
+		if (lock.tryLock()) {
+			return;
+		}
+		int holds = enterSafeRegion();
+		try {
+			lock.lock();
+		} finally {
+			exitSafeRegion(holds);
+		}
+	}
+
+	/**
+	 * Polls the safepoint.
+	 * Blocks current thread if safepoint operation
+	 * is pending or is in progress.
+	 */
+	public void poll() {
+		if (requests.get() != 0) {
+			exitSafeRegion(enterSafeRegion());
+		}
+	}
+
+	/**
+	 * @return Whether safepoint operation is pending.
+	 */
+	public boolean isPending() {
+		return requests.get() != 0;
+	}
+
+	/**
+	 * Stops all threads and runs an operation.
+	 * Threads are resumed once the operation completes.
+	 *
+	 * @param operation Operation to run.
+	 */
+	public void execute(Runnable operation) {
+		int holds = enterSafeRegion();
+		AtomicInteger requests = this.requests;
+		requests.incrementAndGet();
+		ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+		try {
+			writeLock.lock();
+			try {
+				operation.run();
+			} finally {
+				writeLock.unlock();
+			}
+		} finally {
+			requests.decrementAndGet();
+			exitSafeRegion(holds);
+		}
+	}
+}
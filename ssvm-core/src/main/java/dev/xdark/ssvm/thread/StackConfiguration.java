@@ -0,0 +1,101 @@
+package dev.xdark.ssvm.thread;
+
+import dev.xdark.ssvm.util.Assertions;
+
+/**
+ * Thread stack limits,
+ * similar to {@code -Xss} flag of Java.
+ *
+ * @author xDark
+ */
+public final class StackConfiguration {
+	public static final StackConfiguration DEFAULT = new StackConfiguration(1024L * 1024L, 16L * 1024L, 1024);
+	/**
+	 * Smallest stack size a thread may request, in bytes.
+	 */
+	public static final long MIN_STACK_SIZE = 64L * 1024L;
+	/**
+	 * Largest stack size a thread may request, in bytes,
+	 * same as the {@code -Xss} limit of HotSpot.
+	 */
+	public static final long MAX_STACK_SIZE = 1024L * 1024L * 1024L;
+	private final long stackSize;
+	private final long chunkSize;
+	private final int maxFrames;
+
+	/**
+	 * @param stackSize Default maximum size of the thread storage,
+	 *                  in bytes, used if the size of a thread is not specified.
+	 * @param chunkSize Size of the chunks thread storage grows by, in bytes.
+	 * @param maxFrames Maximum amount of frames, for threads
+	 *                  with the default stack size or larger.
+	 */
+	public StackConfiguration(long stackSize, long chunkSize, int maxFrames) {
+		Assertions.check(stackSize > 0L, "stack size must be positive");
+		Assertions.check(chunkSize > 0L, "chunk size must be positive");
+		Assertions.check(maxFrames > 0, "max frames must be positive");
+		this.stackSize = stackSize;
+		this.chunkSize = chunkSize;
+		this.maxFrames = maxFrames;
+	}
+
+	/**
+	 * @return Default maximum size of the thread storage, in bytes.
+	 */
+	public long getStackSize() {
+		return stackSize;
+	}
+
+	/**
+	 * Computes storage size for a thread.
+	 * Like HotSpot, requested size is rounded up
+	 * to the chunk size and clamped to
+	 * {@link #MIN_STACK_SIZE} and {@link #MAX_STACK_SIZE}.
+	 *
+	 * @param requested Stack size requested by the thread,
+	 *                  {@code 0} or less to use the default one.
+	 * @return Maximum size of the thread storage, in bytes.
+	 */
+	public long clampStackSize(long requested) {
+		if (requested <= 0L) {
+			return stackSize;
+		}
+		long size = Math.max(MIN_STACK_SIZE, Math.min(MAX_STACK_SIZE, requested));
+		long chunkSize = this.chunkSize;
+		long remainder = size % chunkSize;
+		if (remainder != 0L) {
+			size += chunkSize - remainder;
+		}
+		return size;
+	}
+
+	/**
+	 * @return Size of the chunks thread storage grows by, in bytes.
+	 */
+	public long getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return Maximum amount of frames.
+	 */
+	public int getMaxFrames() {
+		return maxFrames;
+	}
+
+	/**
+	 * Computes frame limit for a thread.
+	 * The limit is proportional to the stack size, so that
+	 * threads with smaller stacks overflow earlier.
+	 * Frames also take the host stack of the thread
+	 * that runs them, so the limit never exceeds {@link #getMaxFrames()}.
+	 *
+	 * @param stackSize Stack size returned by {@link #clampStackSize(long)}.
+	 * @return Maximum amount of frames.
+	 */
+	public int getMaxFrames(long stackSize) {
+		int maxFrames = this.maxFrames;
+		long frames = stackSize * maxFrames / this.stackSize;
+		return (int) Math.max(1L, Math.min(maxFrames, frames));
+	}
+}
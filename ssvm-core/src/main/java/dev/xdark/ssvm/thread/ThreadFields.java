@@ -0,0 +1,60 @@
+package dev.xdark.ssvm.thread;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.FieldHandle;
+import dev.xdark.ssvm.operation.VMOperations;
+
+/**
+ * Fields of {@code java/lang/Thread}
+ * used by thread managers.
+ * Must only be created once VM symbols are initialized.
+ *
+ * @author xDark
+ */
+public final class ThreadFields {
+	private final FieldHandle eetop;
+	private final FieldHandle name;
+	private final FieldHandle priority;
+	private final FieldHandle stackSize;
+
+	/**
+	 * @param vm VM instance.
+	 */
+	public ThreadFields(VirtualMachine vm) {
+		VMOperations ops = vm.getOperations();
+		InstanceClass thread = vm.getSymbols().java_lang_Thread();
+		eetop = ops.getFieldHandle(thread, "eetop", "J");
+		name = ops.getFieldHandle(thread, "name", "Ljava/lang/String;");
+		priority = ops.getFieldHandle(thread, "priority", "I");
+		stackSize = ops.getFieldHandle(thread, "stackSize", "J");
+	}
+
+	/**
+	 * @return {@code eetop} field.
+	 */
+	public FieldHandle eetop() {
+		return eetop;
+	}
+
+	/**
+	 * @return {@code name} field.
+	 */
+	public FieldHandle name() {
+		return name;
+	}
+
+	/**
+	 * @return {@code priority} field.
+	 */
+	public FieldHandle priority() {
+		return priority;
+	}
+
+	/**
+	 * @return {@code stackSize} field.
+	 */
+	public FieldHandle stackSize() {
+		return stackSize;
+	}
+}
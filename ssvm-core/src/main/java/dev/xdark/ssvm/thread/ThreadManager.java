@@ -1,5 +1,6 @@
 package dev.xdark.ssvm.thread;
 
+import dev.xdark.ssvm.synchronizer.Mutex;
 import dev.xdark.ssvm.thread.backtrace.Backtrace;
 import dev.xdark.ssvm.value.InstanceValue;
 
@@ -60,12 +61,23 @@ public interface ThreadManager {
 
 	/**
 	 * Stops the thread.
+	 * Exception is thrown in the thread
+	 * once it polls the safepoint in the interpreter.
 	 *
 	 * @param oop       Thread to stop.
 	 * @param exception Exception to propagate.
+	 * @see #pollAsyncException()
 	 */
 	void stop(InstanceValue oop, InstanceValue exception);
 
+	/**
+	 * Takes exception passed to {@link #stop(InstanceValue, InstanceValue)}
+	 * for current thread.
+	 *
+	 * @return Pending exception or {@code null}.
+	 */
+	InstanceValue pollAsyncException();
+
 	/**
 	 * @return Current Java thread or {@code null},
 	 * if current thread is not VM thread or not attached.
@@ -134,6 +146,73 @@ default Backtrace currentBacktrace() {
 	 */
 	void yield();
 
+	/**
+	 * Blocks current thread until it is unparked,
+	 * interrupted, or the timeout elapses.
+	 * Returns immediately if the permit is available,
+	 * consuming it.
+	 *
+	 * @param nanos Timeout in nanoseconds,
+	 *              or {@code 0} to wait indefinitely.
+	 * @see java.util.concurrent.locks.LockSupport#park(Object)
+	 */
+	void park(long nanos);
+
+	/**
+	 * Makes the permit available to the thread,
+	 * waking it up if it is parked.
+	 *
+	 * @param oop Thread to unpark.
+	 * @see java.util.concurrent.locks.LockSupport#unpark(Thread)
+	 */
+	void unpark(InstanceValue oop);
+
+	/**
+	 * Acquires mutex that could not be acquired
+	 * without blocking.
+	 * Thread managers that run Java threads on
+	 * fewer host threads may switch to another thread
+	 * until the mutex is released.
+	 * Implementations that run threads registered with
+	 * {@link Safepoint} must wait in a safe region,
+	 * as the owner may be stopped at the safepoint.
+	 *
+	 * @param mutex Mutex to acquire.
+	 */
+	default void lockContended(Mutex mutex) {
+		mutex.lock();
+	}
+
+	/**
+	 * Called before current thread blocks in the host code,
+	 * e.g. in {@link Object#wait()}.
+	 */
+	default void beginBlocking() {
+	}
+
+	/**
+	 * Called before current thread blocks in the host code
+	 * until it is woken up or the timeout elapses,
+	 * e.g. in {@link Object#wait(long)}.
+	 * Thread managers that fast-forward the clock
+	 * must not do that while such thread is blocked,
+	 * as it would wake up past its deadline.
+	 *
+	 * @param timeoutMillis Timeout, in milliseconds.
+	 */
+	default void beginBlocking(long timeoutMillis) {
+		beginBlocking();
+	}
+
+	/**
+	 * Called after current thread is no longer
+	 * blocked in the host code.
+	 *
+	 * @see #beginBlocking()
+	 */
+	default void endBlocking() {
+	}
+
 	/**
 	 * Creates main thread.
 	 * After that call control will be passed into the VM and thread will be
@@ -2,12 +2,13 @@
 
 import dev.xdark.ssvm.execution.ExecutionContext;
 import dev.xdark.ssvm.execution.ExecutionRequest;
+import dev.xdark.ssvm.execution.PanicException;
 import dev.xdark.ssvm.util.CloseableUtil;
 import dev.xdark.ssvm.value.sink.ValueSink;
 
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Simple backtrace.
@@ -17,24 +18,44 @@
 public final class SimpleBacktrace implements Backtrace {
 
 	private static final int RESERVED_FRAMES = 12;
-	private final List<ExecutionContext<?>> frames;
+	private static final int INITIAL_FRAMES = 64;
+	private final int maxFrames;
+	private final Supplier<? extends RuntimeException> overflowHandler;
+	private ExecutionContext<?>[] frames;
 	private int frame;
+	private boolean overflowing;
+
+	/**
+	 * @param maxFrames       Maximum amount of frames.
+	 * @param overflowHandler Supplier of the exception that is thrown when
+	 *                        there are no frames left. The handler itself may use
+	 *                        a few reserved frames.
+	 */
+	public SimpleBacktrace(int maxFrames, Supplier<? extends RuntimeException> overflowHandler) {
+		this.maxFrames = Math.max(maxFrames, RESERVED_FRAMES + 4);
+		this.overflowHandler = overflowHandler;
+		frames = new ExecutionContext[Math.min(this.maxFrames, INITIAL_FRAMES)];
+	}
 
 	public SimpleBacktrace(int frameCount) {
-		frames = Arrays.asList(new ExecutionContext[Math.max(frameCount, RESERVED_FRAMES + 4)]);
+		this(frameCount, null);
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public <R extends ValueSink> ExecutionContext<R> push(ExecutionRequest<R> request) {
 		int frameIndex = this.frame;
-		List<ExecutionContext<?>> frames = this.frames;
-		if (frameIndex == frames.size() - RESERVED_FRAMES) {
-			// TODO stack overflow
+		if (frameIndex >= maxFrames - RESERVED_FRAMES) {
+			checkOverflow(frameIndex);
 		}
-		SimpleExecutionContext<R> ctx = (SimpleExecutionContext<R>) frames.get(frameIndex);
+		ExecutionContext<?>[] frames = this.frames;
+		if (frameIndex == frames.length) {
+			this.frames = frames = Arrays.copyOf(frames, Math.min(maxFrames, frameIndex << 1));
+		}
+		SimpleExecutionContext<R> ctx = (SimpleExecutionContext<R>) frames[frameIndex];
 		if (ctx == null) {
 			ctx = new SimpleExecutionContext<>();
-			frames.set(frameIndex, ctx);
+			frames[frameIndex] = ctx;
 		}
 		ctx.init(request.getMethod(), request.getStack(), request.getLocals(), request.getResultSink());
 		this.frame = frameIndex + 1;
@@ -44,7 +65,7 @@ public <R extends ValueSink> ExecutionContext<R> push(ExecutionRequest<R> reques
 	@Override
 	public ExecutionContext<?> peek() {
 		int frame = this.frame;
-		return frame == 0 ? null : frames.get(frame - 1);
+		return frame == 0 ? null : frames[frame - 1];
 	}
 
 	@Override
@@ -53,12 +74,12 @@ public ExecutionContext<?> at(int index) {
 			throw new IllegalArgumentException("Out of bounds");
 		}
 		index = frame - index;
-		return index < 0 ? null : frames.get(index);
+		return index < 0 ? null : frames[index];
 	}
 
 	@Override
 	public void pop() {
-		CloseableUtil.close(frames.get(--frame));
+		CloseableUtil.close(frames[--frame]);
 	}
 
 	@Override
@@ -68,6 +89,25 @@ public int depth() {
 
 	@Override
 	public Iterator<ExecutionContext<?>> iterator() {
-		return frames.subList(0, frame).iterator();
+		return Arrays.asList(frames).subList(0, frame).iterator();
+	}
+
+	private void checkOverflow(int frameIndex) {
+		Supplier<? extends RuntimeException> overflowHandler = this.overflowHandler;
+		if (frameIndex == maxFrames) {
+			throw new PanicException("Backtrace overflow");
+		}
+		if (overflowHandler == null || overflowing) {
+			// Handler is running, let it use reserved frames
+			return;
+		}
+		overflowing = true;
+		RuntimeException ex;
+		try {
+			ex = overflowHandler.get();
+		} finally {
+			overflowing = false;
+		}
+		throw ex;
 	}
 }
@@ -15,22 +15,63 @@
 import dev.xdark.ssvm.util.BoundedQueue;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.Supplier;
 
+/**
+ * Thread storage that allocates values in the heap.
+ * <p>
+ * Storage is split into chunks that are allocated
+ * on demand, up to the maximum size.
+ *
+ * @author xDark
+ */
 public final class HeapThreadStorage implements ThreadStorage {
 	private static final int VALUE_SCALE = 8;
+	// Extra space for the overflow handler
+	private static final long RESERVED_SIZE = 16L * 1024L;
 	private final Queue<HeapComponent> queue = new BoundedQueue<>(new ArrayDeque<>(), 128);
+	private final List<MemoryBlock> chunks = new ArrayList<>();
 	private final MemoryManager manager;
 	private final MemoryAllocator allocator;
-	private final MemoryBlock block;
-	private final MemoryData memory;
+	private final long chunkSize;
+	private final long maxSize;
+	private final Supplier<? extends RuntimeException> overflowHandler;
+	private MemoryData memory;
+	private int chunk = -1;
 	private long pointer;
+	private long used;
+	private boolean overflowing;
 
-	public HeapThreadStorage(MemoryManager manager, MemoryAllocator allocator, MemoryBlock block) {
+	/**
+	 * @param manager         Memory manager.
+	 * @param allocator       Memory allocator.
+	 * @param chunkSize       Size of the chunks storage grows by.
+	 * @param maxSize         Maximum size of the storage.
+	 * @param overflowHandler Supplier of the exception that is thrown when
+	 *                        the storage is exhausted. The handler itself may use
+	 *                        a bit of extra space.
+	 */
+	public HeapThreadStorage(MemoryManager manager, MemoryAllocator allocator, long chunkSize, long maxSize, Supplier<? extends RuntimeException> overflowHandler) {
 		this.manager = manager;
 		this.allocator = allocator;
-		this.block = block;
-		memory = block.getData();
+		this.chunkSize = chunkSize;
+		this.maxSize = maxSize;
+		this.overflowHandler = overflowHandler;
+	}
+
+	/**
+	 * Creates storage backed by a single block.
+	 *
+	 * @param manager   Memory manager.
+	 * @param allocator Memory allocator.
+	 * @param block     Storage memory.
+	 */
+	public HeapThreadStorage(MemoryManager manager, MemoryAllocator allocator, MemoryBlock block) {
+		this(manager, allocator, block.getData().length(), block.getData().length(), null);
+		chunks.add(block);
 	}
 
 	@Override
@@ -55,14 +96,31 @@ public Locals newLocals(int size) {
 
 	@Override
 	public void free() {
-		if (!allocator.freeHeap(block.getAddress())) {
-			throw new PanicException("Failed to free thread block");
+		List<MemoryBlock> chunks = this.chunks;
+		for (int i = 0, j = chunks.size(); i < j; i++) {
+			freeChunk(chunks.get(i));
 		}
+		chunks.clear();
 	}
 
 	private void doAllocate(HeapComponent component, long size) {
+		long used = this.used;
+		long maxSize = this.maxSize;
+		if (used + size > maxSize) {
+			checkOverflow(used + size - maxSize);
+		}
+		ThreadMemoryDataImpl threadData = component.threadData();
+		threadData.chunk = chunk;
+		threadData.pointer = pointer;
+		threadData.used = used;
 		long pointer = this.pointer;
+		MemoryData memory = this.memory;
+		if (memory == null || pointer + size > memory.length()) {
+			memory = nextChunk(size);
+			pointer = 0L;
+		}
 		this.pointer = pointer + size;
+		this.used = used + size;
 		SliceMemoryData slice = component.slice;
 		if (slice == null) {
 			slice = new SliceMemoryData();
@@ -71,6 +129,73 @@ private void doAllocate(HeapComponent component, long size) {
 		slice.init(memory, pointer, size);
 	}
 
+	private void checkOverflow(long excess) {
+		Supplier<? extends RuntimeException> overflowHandler = this.overflowHandler;
+		if (overflowHandler == null || overflowing) {
+			if (overflowHandler == null || excess > RESERVED_SIZE) {
+				throw new PanicException("Thread storage overflow");
+			}
+			// Handler is running, let it use reserved space
+			return;
+		}
+		overflowing = true;
+		RuntimeException ex;
+		try {
+			ex = overflowHandler.get();
+		} finally {
+			overflowing = false;
+		}
+		throw ex;
+	}
+
+	private MemoryData nextChunk(long size) {
+		List<MemoryBlock> chunks = this.chunks;
+		int index = chunk + 1;
+		MemoryBlock block = null;
+		if (index < chunks.size()) {
+			// Reuse cached chunk, if it fits
+			block = chunks.get(index);
+			if (block.getData().length() < size) {
+				freeChunk(block);
+				block = null;
+			}
+		}
+		if (block == null) {
+			block = allocator.allocateHeap(Math.max(chunkSize, size));
+			if (block == null) {
+				throw new PanicException("Failed to allocate thread storage");
+			}
+			if (index < chunks.size()) {
+				chunks.set(index, block);
+			} else {
+				chunks.add(block);
+			}
+		}
+		chunk = index;
+		return memory = block.getData();
+	}
+
+	private void restore(int chunk, long pointer, long used) {
+		List<MemoryBlock> chunks = this.chunks;
+		if (chunk != this.chunk) {
+			// Keep one spare chunk, so that the calls
+			// on the chunk boundary do not allocate
+			for (int i = chunks.size() - 1; i > chunk + 1; i--) {
+				freeChunk(chunks.remove(i));
+			}
+			this.chunk = chunk;
+			memory = chunk < 0 ? null : chunks.get(chunk).getData();
+		}
+		this.pointer = pointer;
+		this.used = used;
+	}
+
+	private void freeChunk(MemoryBlock block) {
+		if (!allocator.freeHeap(block.getAddress())) {
+			throw new PanicException("Failed to free thread block");
+		}
+	}
+
 	private HeapComponent pollComponent() {
 		HeapComponent component = queue.poll();
 		if (component == null) {
@@ -110,13 +235,18 @@ Locals makeLocals(long size) {
 		}
 
 		ThreadMemoryData makeThreadData(long size) {
+			ThreadMemoryDataImpl threadData = threadData();
+			threadData.data = slice;
+			threadData.size = size;
+			return threadData;
+		}
+
+		ThreadMemoryDataImpl threadData() {
 			ThreadMemoryDataImpl threadData = this.threadData;
 			if (threadData == null) {
 				threadData = new ThreadMemoryDataImpl(this);
 				this.threadData = threadData;
 			}
-			threadData.data = slice;
-			threadData.size = size;
 			return threadData;
 		}
 	}
@@ -125,6 +255,10 @@ private final class ThreadMemoryDataImpl implements ThreadMemoryData {
 		final HeapComponent attachment;
 		MemoryData data;
 		long size;
+		// Storage state before allocation
+		int chunk;
+		long pointer;
+		long used;
 
 		ThreadMemoryDataImpl(HeapComponent attachment) {
 			this.attachment = attachment;
@@ -138,7 +272,7 @@ public MemoryData data() {
 		@Override
 		public void reclaim() {
 			HeapThreadStorage ts = HeapThreadStorage.this;
-			ts.pointer = ts.pointer - size;
+			ts.restore(chunk, pointer, used);
 			ts.queue.offer(attachment);
 		}
 	}
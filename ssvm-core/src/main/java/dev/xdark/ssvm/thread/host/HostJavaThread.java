@@ -0,0 +1,42 @@
+package dev.xdark.ssvm.thread.host;
+
+import dev.xdark.ssvm.thread.JavaThread;
+import dev.xdark.ssvm.thread.OSThread;
+import dev.xdark.ssvm.value.InstanceValue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Java thread backed by a host thread.
+ *
+ * @author xDark
+ */
+final class HostJavaThread implements JavaThread {
+	private final InstanceValue oop;
+	final HostOSThread osThread;
+	volatile Thread host;
+	volatile boolean interrupted;
+	InstanceValue asyncException; // Thread#stop0, guarded by this
+	// Park permit, host permit cannot be used
+	// as it may be consumed by the VM itself
+	final AtomicBoolean permit = new AtomicBoolean();
+	long eetop;
+	int attachCount;
+	// Safepoint permits released by ThreadManager#beginBlocking
+	int safepointHolds;
+
+	HostJavaThread(InstanceValue oop, HostOSThread osThread) {
+		this.oop = oop;
+		this.osThread = osThread;
+	}
+
+	@Override
+	public InstanceValue getOop() {
+		return oop;
+	}
+
+	@Override
+	public OSThread getOsThread() {
+		return osThread;
+	}
+}
@@ -0,0 +1,529 @@
+package dev.xdark.ssvm.thread.host;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.VMException;
+import dev.xdark.ssvm.io.Handle;
+import dev.xdark.ssvm.jvmti.ThreadState;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.synchronizer.LockWord;
+import dev.xdark.ssvm.synchronizer.Mutex;
+import dev.xdark.ssvm.thread.JavaThread;
+import dev.xdark.ssvm.thread.OSThread;
+import dev.xdark.ssvm.thread.Safepoint;
+import dev.xdark.ssvm.thread.StackConfiguration;
+import dev.xdark.ssvm.thread.ThreadFields;
+import dev.xdark.ssvm.thread.ThreadManager;
+import dev.xdark.ssvm.thread.ThreadStorage;
+import dev.xdark.ssvm.thread.backtrace.Backtrace;
+import dev.xdark.ssvm.thread.backtrace.SimpleBacktrace;
+import dev.xdark.ssvm.thread.heap.HeapThreadStorage;
+import dev.xdark.ssvm.timezone.TimeManager;
+import dev.xdark.ssvm.util.Assertions;
+import dev.xdark.ssvm.value.InstanceValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Thread manager that runs every Java thread
+ * on its own host thread.
+ * <p>
+ * Java threads are executed in parallel, so the rest of the VM
+ * must be safe to use from multiple threads, e.g.
+ * {@link dev.xdark.ssvm.memory.allocation.SynchronizedMemoryAllocator}
+ * must be used as the memory allocator.
+ * Custom instruction processors that rewrite method code
+ * must go through {@link dev.xdark.ssvm.util.AsmUtil#replace},
+ * as several threads may execute the same method at once.
+ *
+ * @author xDark
+ */
+public final class HostThreadManager implements ThreadManager {
+	private final ThreadLocal<HostJavaThread> currentThread = new ThreadLocal<>();
+	// Mapping between eetop and Java thread
+	private final Map<Handle, HostJavaThread> javaThreads = new ConcurrentHashMap<>();
+	private final AtomicLong eetopCounter = new AtomicLong();
+	// Threads with pending Thread#stop0 exception
+	private final AtomicInteger asyncExceptions = new AtomicInteger();
+	private final VirtualMachine vm;
+	private final ThreadFactory threadFactory;
+	private final StackConfiguration stackConfiguration;
+	private ThreadFields fields;
+
+	/**
+	 * @param vm                 VM instance.
+	 * @param threadFactory      Factory for host threads.
+	 *                           On newer JDKs, virtual thread factory may be used.
+	 * @param stackConfiguration Thread stack limits.
+	 */
+	public HostThreadManager(VirtualMachine vm, ThreadFactory threadFactory, StackConfiguration stackConfiguration) {
+		this.vm = vm;
+		this.threadFactory = threadFactory;
+		this.stackConfiguration = stackConfiguration;
+	}
+
+	/**
+	 * @param vm            VM instance.
+	 * @param threadFactory Factory for host threads.
+	 *                      On newer JDKs, virtual thread factory may be used.
+	 */
+	public HostThreadManager(VirtualMachine vm, ThreadFactory threadFactory) {
+		this(vm, threadFactory, StackConfiguration.DEFAULT);
+	}
+
+	/**
+	 * Creates thread manager that uses daemon
+	 * platform threads.
+	 *
+	 * @param vm VM instance.
+	 */
+	public HostThreadManager(VirtualMachine vm) {
+		this(vm, r -> {
+			Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void startThread(InstanceValue oop) {
+		long stackSize = fields().stackSize().getLong(oop);
+		HostOSThread osThread = newOsThread(stackSize);
+		// Do sync between OS thread and Java thread
+		syncThread(osThread, oop);
+		HostJavaThread javaThread = new HostJavaThread(oop, osThread);
+		setThreadEetop(javaThread);
+		Thread host = threadFactory.newThread(() -> run(javaThread));
+		host.setName(osThread.getName());
+		javaThread.host = host;
+		host.start();
+	}
+
+	@Override
+	public void suspendThread(InstanceValue oop) {
+		vm.getOperations().throwException(vm.getSymbols().java_lang_UnsatisfiedLinkError());
+	}
+
+	@Override
+	public void resumeThread(InstanceValue oop) {
+		vm.getOperations().throwException(vm.getSymbols().java_lang_UnsatisfiedLinkError());
+	}
+
+	@Override
+	public void setPriority(InstanceValue oop, int priority) {
+		HostJavaThread th = forThread(oop);
+		if (th != null) {
+			th.osThread.setPriority(priority);
+		}
+	}
+
+	@Override
+	public void interrupt(InstanceValue oop) {
+		HostJavaThread th = forThread(oop);
+		if (dead(th)) {
+			return;
+		}
+		th.interrupted = true;
+		Thread host = th.host;
+		if (host != null) {
+			// Wake up the thread if it is blocked
+			host.interrupt();
+		}
+	}
+
+	@Override
+	public void setName(InstanceValue oop, String name) {
+		HostJavaThread th = forThread(oop);
+		if (th != null) {
+			th.osThread.setName(name);
+		}
+	}
+
+	@Override
+	public void stop(InstanceValue oop, InstanceValue exception) {
+		HostJavaThread th = forThread(oop);
+		if (th != null) {
+			synchronized (th) {
+				if (th.asyncException == null) {
+					asyncExceptions.incrementAndGet();
+				}
+				th.asyncException = exception;
+			}
+		}
+	}
+
+	@Override
+	public InstanceValue pollAsyncException() {
+		if (asyncExceptions.get() == 0) {
+			return null;
+		}
+		HostJavaThread th = currentThread.get();
+		if (th == null) {
+			return null;
+		}
+		synchronized (th) {
+			InstanceValue exception = th.asyncException;
+			if (exception != null) {
+				th.asyncException = null;
+				asyncExceptions.decrementAndGet();
+			}
+			return exception;
+		}
+	}
+
+	@Override
+	public JavaThread currentJavaThread() {
+		return currentThread.get();
+	}
+
+	@Override
+	public OSThread currentOsThread() {
+		HostJavaThread th = currentThread.get();
+		return th == null ? null : th.osThread;
+	}
+
+	@Override
+	public void attachCurrentThread() {
+		ThreadLocal<HostJavaThread> currentThread = this.currentThread;
+		HostJavaThread javaThread = currentThread.get();
+		vm.getSafepoint().enter();
+		if (javaThread != null) {
+			javaThread.attachCount++;
+			return;
+		}
+		Thread th = Thread.currentThread();
+		javaThread = bind(th, th.getName());
+		javaThread.attachCount = 1;
+	}
+
+	@Override
+	public void detachCurrentThread() {
+		HostJavaThread th = currentThread.get();
+		if (th == null) {
+			return;
+		}
+		if (--th.attachCount == 0) {
+			currentThread.remove();
+			terminate(th);
+		}
+		vm.getSafepoint().exit();
+	}
+
+	@Override
+	public boolean isInterrupted(InstanceValue oop, boolean clear) {
+		HostJavaThread th = forThread(oop);
+		if (dead(th)) {
+			return false;
+		}
+		boolean flag = th.interrupted;
+		if (flag && clear) {
+			th.interrupted = false;
+			if (th.host == Thread.currentThread()) {
+				// Clear host flag as well, so that
+				// next wait does not throw
+				Thread.interrupted();
+			}
+		}
+		return flag;
+	}
+
+	@Override
+	public List<JavaThread> snapshot() {
+		return new ArrayList<>(javaThreads.values());
+	}
+
+	@Override
+	public void sleep(long millis) {
+		HostJavaThread th = currentThread();
+		if (th.interrupted) {
+			th.interrupted = false;
+			Thread.interrupted();
+			vm.getOperations().throwException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
+		}
+		if (millis == 0L) {
+			return;
+		}
+		OSThread osThread = th.osThread;
+		osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_TIMED_WAITING.with(ThreadState.JVMTI_THREAD_STATE_SLEEPING));
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		boolean interrupted = false;
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ex) {
+			interrupted = true;
+		} finally {
+			safepoint.exitSafeRegion(holds);
+			osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
+		}
+		if (interrupted) {
+			// Propagate to VM code
+			th.interrupted = false;
+			vm.getOperations().throwException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
+		}
+	}
+
+	@Override
+	public void yield() {
+		Thread.yield();
+	}
+
+	@Override
+	public void park(long nanos) {
+		HostJavaThread th = currentThread();
+		AtomicBoolean permit = th.permit;
+		if (permit.getAndSet(false) || th.interrupted) {
+			return;
+		}
+		OSThread osThread = th.osThread;
+		ThreadState state = nanos == 0L ? ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_WAITING : ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_TIMED_WAITING;
+		osThread.setThreadState(state.with(ThreadState.JVMTI_THREAD_STATE_PARKED));
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			// Deadline is measured by the VM clock, same as Unsafe#park
+			TimeManager timeManager = vm.getTimeManager();
+			long deadline = timeManager.nanoTime() + nanos;
+			while (!permit.getAndSet(false) && !th.interrupted) {
+				if (nanos == 0L) {
+					LockSupport.park(this);
+				} else {
+					long remaining = deadline - timeManager.nanoTime();
+					if (remaining <= 0L) {
+						break;
+					}
+					LockSupport.parkNanos(this, remaining);
+				}
+			}
+		} finally {
+			safepoint.exitSafeRegion(holds);
+			osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
+		}
+	}
+
+	@Override
+	public void lockContended(Mutex mutex) {
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			mutex.lock();
+		} finally {
+			safepoint.exitSafeRegion(holds);
+		}
+	}
+
+	@Override
+	public void beginBlocking() {
+		HostJavaThread th = currentThread.get();
+		if (th != null) {
+			th.safepointHolds = vm.getSafepoint().enterSafeRegion();
+		}
+	}
+
+	@Override
+	public void endBlocking() {
+		HostJavaThread th = currentThread.get();
+		if (th != null) {
+			int holds = th.safepointHolds;
+			th.safepointHolds = 0;
+			vm.getSafepoint().exitSafeRegion(holds);
+		}
+	}
+
+	@Override
+	public void unpark(InstanceValue oop) {
+		HostJavaThread th = forThread(oop);
+		if (dead(th)) {
+			return;
+		}
+		th.permit.set(true);
+		Thread host = th.host;
+		if (host != null) {
+			LockSupport.unpark(host);
+		}
+	}
+
+	@Override
+	public JavaThread createMainThread() {
+		ThreadLocal<HostJavaThread> currentThread = this.currentThread;
+		HostJavaThread previous = currentThread.get();
+		if (previous != null) {
+			// Main thread takes over current host thread
+			currentThread.remove();
+			terminate(previous);
+		} else {
+			vm.getSafepoint().enter();
+		}
+		HostJavaThread javaThread = bind(Thread.currentThread(), "main");
+		javaThread.attachCount = 1;
+		return javaThread;
+	}
+
+	@Override
+	public JavaThread getThread(InstanceValue oop) {
+		// Fast check
+		HostJavaThread currentThread = this.currentThread.get();
+		if (currentThread != null && oop == currentThread.getOop()) {
+			return currentThread;
+		}
+		return forThread(oop);
+	}
+
+	private HostJavaThread currentThread() {
+		HostJavaThread th = currentThread.get();
+		Assertions.notNull(th, "not a Java thread");
+		return th;
+	}
+
+	private HostJavaThread bind(Thread host, String name) {
+		InstanceValue oop = vm.getMemoryManager().newInstance(vm.getSymbols().java_lang_Thread());
+		HostOSThread osThread = newOsThread(0L);
+		HostJavaThread javaThread = new HostJavaThread(oop, osThread);
+		javaThread.host = host;
+		// Thread must be visible before any VM code is called
+		currentThread.set(javaThread);
+		VMOperations ops = vm.getOperations();
+		fields().name().putReference(oop, ops.newUtf8(name));
+		fields().priority().putInt(oop, host.getPriority());
+		syncThread(osThread, oop);
+		setThreadEetop(javaThread);
+		return javaThread;
+	}
+
+	private void run(HostJavaThread javaThread) {
+		ThreadLocal<HostJavaThread> currentThread = this.currentThread;
+		currentThread.set(javaThread);
+		Safepoint safepoint = vm.getSafepoint();
+		safepoint.enter();
+		try {
+			InstanceValue oop = javaThread.getOop();
+			VMOperations ops = vm.getOperations();
+			try {
+				JavaMethod run = vm.getLinkResolver().resolveVirtualMethod(oop.getJavaClass(), "run", "()V");
+				Locals locals = javaThread.osThread.getStorage().newLocals(run);
+				locals.setReference(0, oop);
+				ops.invokeVoid(run, locals);
+			} catch (VMException ex) {
+				dispatchUncaughtException(javaThread, ex.getOop());
+			}
+			exit(javaThread);
+		} finally {
+			currentThread.remove();
+			terminate(javaThread);
+			safepoint.exit();
+			LockWord.releaseOwner();
+		}
+	}
+
+	private void dispatchUncaughtException(HostJavaThread javaThread, InstanceValue exception) {
+		InstanceClass jlt = vm.getSymbols().java_lang_Thread();
+		JavaMethod dispatch = jlt.getMethod("dispatchUncaughtException", "(Ljava/lang/Throwable;)V");
+		if (dispatch == null) {
+			return;
+		}
+		Locals locals = javaThread.osThread.getStorage().newLocals(dispatch);
+		locals.setReference(0, javaThread.getOop());
+		locals.setReference(1, exception);
+		try {
+			vm.getOperations().invokeVoid(dispatch, locals);
+		} catch (VMException ignored) {
+			// Exceptions thrown by the thread on exit are ignored
+		}
+	}
+
+	private void exit(HostJavaThread javaThread) {
+		InstanceValue oop = javaThread.getOop();
+		JavaMethod exit = vm.getSymbols().java_lang_Thread().getMethod("exit", "()V");
+		if (exit != null) {
+			Locals locals = javaThread.osThread.getStorage().newLocals(exit);
+			locals.setReference(0, oop);
+			try {
+				vm.getOperations().invokeVoid(exit, locals);
+			} catch (VMException ignored) {
+				// Same as above
+			}
+		}
+		// Thread is no longer alive, wake up
+		// all threads waiting in Thread#join
+		javaThread.osThread.setThreadState(ThreadState.JVMTI_THREAD_STATE_TERMINATED);
+		javaThreads.remove(Handle.threadLocal(javaThread.eetop));
+		VMOperations ops = vm.getOperations();
+		fields().eetop().putLong(oop, 0L);
+		ops.monitorEnter(oop);
+		try {
+			vm.getMemoryManager().getMutex(oop).doNotifyAll();
+		} finally {
+			ops.monitorExit(oop);
+		}
+	}
+
+	private void terminate(HostJavaThread javaThread) {
+		HostOSThread osThread = javaThread.osThread;
+		osThread.setThreadState(ThreadState.JVMTI_THREAD_STATE_TERMINATED);
+		javaThreads.remove(Handle.threadLocal(javaThread.eetop));
+		javaThread.host = null;
+		if (osThread.getStorage() != null) {
+			osThread.free();
+		}
+	}
+
+	private HostOSThread newOsThread(long stackSize) {
+		StackConfiguration stackConfiguration = this.stackConfiguration;
+		stackSize = stackConfiguration.clampStackSize(stackSize);
+		Supplier<VMException> overflowHandler = this::stackOverflow;
+		Backtrace backtrace = new SimpleBacktrace(stackConfiguration.getMaxFrames(stackSize), overflowHandler);
+		ThreadStorage storage = new HeapThreadStorage(vm.getMemoryManager(), vm.getMemoryAllocator(), stackConfiguration.getChunkSize(), stackSize, overflowHandler);
+		return new HostOSThread(backtrace, storage);
+	}
+
+	private VMException stackOverflow() {
+		return new VMException(vm.getOperations().newException(vm.getSymbols().java_lang_StackOverflowError()));
+	}
+
+	private void setThreadEetop(HostJavaThread th) {
+		// eetop is never reused, so there is no need to probe
+		long eetop = eetopCounter.incrementAndGet();
+		th.eetop = eetop;
+		javaThreads.put(Handle.of(eetop), th);
+		fields().eetop().putLong(th.getOop(), eetop);
+	}
+
+	private void syncThread(OSThread thread, InstanceValue oop) {
+		VMOperations ops = vm.getOperations();
+		thread.setName(ops.readUtf8(fields().name().getReference(oop)));
+		thread.setPriority(fields().priority().getInt(oop));
+		thread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
+	}
+
+	private ThreadFields fields() {
+		ThreadFields fields = this.fields;
+		if (fields == null) {
+			fields = new ThreadFields(vm);
+			this.fields = fields;
+		}
+		return fields;
+	}
+
+	private HostJavaThread forThread(InstanceValue oop) {
+		long eetop = fields().eetop().getLong(oop);
+		if (eetop == 0L) {
+			return null;
+		}
+		return javaThreads.get(Handle.threadLocal(eetop));
+	}
+
+	private static boolean dead(JavaThread th) {
+		return th == null || th.getOsThread().getThreadState() == ThreadState.JVMTI_THREAD_STATE_TERMINATED;
+	}
+}
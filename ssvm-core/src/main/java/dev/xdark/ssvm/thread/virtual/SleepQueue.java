@@ -0,0 +1,136 @@
+package dev.xdark.ssvm.thread.virtual;
+
+import java.util.Arrays;
+
+/**
+ * Queue of sleeping threads ordered by their deadline.
+ * <p>
+ * Binary heap that keeps the index of every thread
+ * in the thread itself, so that interrupted threads
+ * are removed in logarithmic time.
+ * Threads with the same deadline wake up in the order
+ * they fell asleep.
+ *
+ * @author xDark
+ */
+final class SleepQueue {
+	private VirtualJavaThread[] heap = new VirtualJavaThread[16];
+	private int size;
+	private long sequence;
+
+	/**
+	 * @return {@code true} if there are no sleeping threads.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return Thread with the earliest deadline or {@code null}.
+	 */
+	VirtualJavaThread peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	/**
+	 * Adds thread to the queue.
+	 * Deadline must be set before the call
+	 * and must not change until thread is removed.
+	 *
+	 * @param th Thread to add.
+	 */
+	void add(VirtualJavaThread th) {
+		VirtualJavaThread[] heap = this.heap;
+		int size = this.size;
+		if (size == heap.length) {
+			this.heap = heap = Arrays.copyOf(heap, size << 1);
+		}
+		th.sleepSequence = sequence++;
+		this.size = size + 1;
+		siftUp(heap, size, th);
+	}
+
+	/**
+	 * @return Removed thread with the earliest deadline or {@code null}.
+	 */
+	VirtualJavaThread poll() {
+		if (size == 0) {
+			return null;
+		}
+		VirtualJavaThread th = heap[0];
+		removeAt(0);
+		return th;
+	}
+
+	/**
+	 * @param th Thread to remove.
+	 * @return {@code true} if thread was removed.
+	 */
+	boolean remove(VirtualJavaThread th) {
+		int index = th.sleepIndex;
+		if (index < 0 || index >= size || heap[index] != th) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	private void removeAt(int index) {
+		VirtualJavaThread[] heap = this.heap;
+		heap[index].sleepIndex = -1;
+		int last = --size;
+		VirtualJavaThread moved = heap[last];
+		heap[last] = null;
+		if (index != last) {
+			siftDown(heap, index, moved);
+			if (heap[index] == moved) {
+				siftUp(heap, index, moved);
+			}
+		}
+	}
+
+	private void siftUp(VirtualJavaThread[] heap, int index, VirtualJavaThread th) {
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			VirtualJavaThread p = heap[parent];
+			if (compare(th, p) >= 0) {
+				break;
+			}
+			heap[index] = p;
+			p.sleepIndex = index;
+			index = parent;
+		}
+		heap[index] = th;
+		th.sleepIndex = index;
+	}
+
+	private void siftDown(VirtualJavaThread[] heap, int index, VirtualJavaThread th) {
+		int size = this.size;
+		int half = size >>> 1;
+		while (index < half) {
+			int child = (index << 1) + 1;
+			VirtualJavaThread c = heap[child];
+			int right = child + 1;
+			if (right < size && compare(heap[right], c) < 0) {
+				c = heap[child = right];
+			}
+			if (compare(th, c) <= 0) {
+				break;
+			}
+			heap[index] = c;
+			c.sleepIndex = index;
+			index = child;
+		}
+		heap[index] = th;
+		th.sleepIndex = index;
+	}
+
+	private static int compare(VirtualJavaThread a, VirtualJavaThread b) {
+		// Deadlines are nanoTime values, compare the difference
+		long diff = a.timeout - b.timeout;
+		if (diff != 0L) {
+			return diff < 0L ? -1 : 1;
+		}
+		return Long.compare(a.sleepSequence, b.sleepSequence);
+	}
+}
@@ -12,12 +12,21 @@
 final class VirtualJavaThread implements JavaThread {
 	private final InstanceValue oop;
 	final VirtualOSThread osThread;
-	boolean attached;
 	Thread foreign;
+	// Host thread that executes this thread
+	Thread carrier;
 	// Scheduler state
-	boolean interrupted;
-	InstanceValue exception; // Thread#stop0/interrupt
-	long timeout;
+	volatile boolean interrupted;
+	InstanceValue exception; // Thread#interrupt
+	InstanceValue asyncException; // Thread#stop0
+	long timeout; // Wake up deadline, in nanoseconds
+	int sleepIndex = -1; // Index in the sleep queue
+	long sleepSequence;
+	boolean blocked;
+	boolean timedBlocking; // Blocked in the host code with a timeout
+	int safepointHolds; // Safepoint permits released by beginBlocking
+	boolean permit;
+	boolean parked;
 
 	VirtualJavaThread(InstanceValue oop, VirtualOSThread osThread) {
 		this.oop = oop;
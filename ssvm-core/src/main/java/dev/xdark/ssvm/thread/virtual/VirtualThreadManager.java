@@ -1,38 +1,76 @@
 package dev.xdark.ssvm.thread.virtual;
 
 import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.ExecutionContext;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.execution.VMException;
 import dev.xdark.ssvm.io.Handle;
 import dev.xdark.ssvm.jvmti.ThreadState;
-import dev.xdark.ssvm.memory.allocation.MemoryAllocator;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.synchronizer.LockWord;
+import dev.xdark.ssvm.synchronizer.Mutex;
 import dev.xdark.ssvm.thread.JavaThread;
 import dev.xdark.ssvm.thread.OSThread;
+import dev.xdark.ssvm.thread.Safepoint;
+import dev.xdark.ssvm.thread.StackConfiguration;
+import dev.xdark.ssvm.thread.ThreadFields;
 import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.thread.ThreadStorage;
 import dev.xdark.ssvm.thread.backtrace.Backtrace;
 import dev.xdark.ssvm.thread.backtrace.SimpleBacktrace;
 import dev.xdark.ssvm.thread.heap.HeapThreadStorage;
+import dev.xdark.ssvm.timezone.TimeManager;
 import dev.xdark.ssvm.util.Assertions;
 import dev.xdark.ssvm.value.InstanceValue;
+import org.objectweb.asm.tree.AbstractInsnNode;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Virtual thread manager and scheduler.
+ * <p>
+ * Only one Java thread runs at a time. Every live Java thread
+ * is backed by a carrier thread, and the carriers pass
+ * the right to run between each other. Carriers are pooled
+ * and reused once their Java thread exits. On newer JDKs,
+ * virtual thread factory may be used to create them.
+ * Running thread is switched after it executes
+ * a certain amount of instructions, or when it sleeps, yields
+ * or contends on a monitor.
+ * Threads are scheduled round-robin in FIFO order, priorities
+ * are ignored, as HotSpot does on Linux by default. This way
+ * a thread contending on a monitor always lets the owner run,
+ * and no thread is starved.
+ * Execution is reproducible as long as threads do not block
+ * in the host code, e.g. in {@link Object#wait()}.
+ * If all threads are asleep, the scheduler asks {@link TimeManager}
+ * to fast-forward the clock to the earliest deadline, unless some
+ * thread waits for a timeout in the host code, e.g. in {@link Object#wait(long)}.
+ * <p>
+ * Java threads only make progress while some thread executes VM code,
+ * threads attached from the outside take part in scheduling
+ * until they are detached.
  *
  * @author xDark
  */
 public final class VirtualThreadManager implements ThreadManager {
 	private static final VirtualJavaThread SENTINEL = new VirtualJavaThread(null, null);
+	private static final int DEFAULT_TIME_SLICE = 10000;
 	// Mapping between eetop and Java thread
 	private final Map<Handle, VirtualJavaThread> javaThreads = new HashMap<>();
 	// Attached threads
@@ -40,20 +78,82 @@ public final class VirtualThreadManager implements ThreadManager {
 	// All threads so far
 	private final List<VirtualJavaThread> allThreads = new LinkedList<>();
 	// Threads for scheduling
-	private final Queue<VirtualJavaThread> scheduled = new PriorityQueue<>(Comparator.comparingInt(t -> t.getOsThread().getPriority()));
-	// TODO this is stupid
-	private final List<VirtualJavaThread> asleep = new ArrayList<>();
+	private final Queue<VirtualJavaThread> scheduled = new ArrayDeque<>();
+	// Sleeping and timed waiting threads
+	private final SleepQueue asleep = new SleepQueue();
+	private final ThreadLocal<VirtualJavaThread> carrierThread = new ThreadLocal<>();
 	private final Object threadLock = new Object[0];
 	private final VirtualMachine vm;
-	private VirtualJavaThread currentThread;
+	private final ExecutorService carriers;
+	private final int timeSlice;
+	private final StackConfiguration stackConfiguration;
+	private ThreadFields fields;
+	private volatile VirtualJavaThread currentThread;
+	// Threads with pending Thread#stop0 exception
+	private volatile int asyncExceptions;
+	private long eetopCounter; // guarded by threadLock
+	private int timedBlocking; // guarded by threadLock
+	private int budget;
+	private boolean slicing;
 
-	public VirtualThreadManager(VirtualMachine vm) {
+	/**
+	 * @param vm                 VM instance.
+	 * @param threadFactory      Factory for carrier threads.
+	 * @param timeSlice          Amount of instructions after which
+	 *                           running thread is switched.
+	 * @param stackConfiguration Thread stack limits.
+	 */
+	public VirtualThreadManager(VirtualMachine vm, ThreadFactory threadFactory, int timeSlice, StackConfiguration stackConfiguration) {
+		Assertions.check(timeSlice > 0, "time slice must be positive");
 		this.vm = vm;
+		// Idle carriers are kept around for a while
+		// so that short-lived threads reuse them
+		carriers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+		this.timeSlice = timeSlice;
+		this.stackConfiguration = stackConfiguration;
+		budget = timeSlice;
+	}
+
+	/**
+	 * @param vm            VM instance.
+	 * @param threadFactory Factory for carrier threads.
+	 * @param timeSlice     Amount of instructions after which
+	 *                      running thread is switched.
+	 */
+	public VirtualThreadManager(VirtualMachine vm, ThreadFactory threadFactory, int timeSlice) {
+		this(vm, threadFactory, timeSlice, StackConfiguration.DEFAULT);
+	}
+
+	public VirtualThreadManager(VirtualMachine vm) {
+		this(vm, r -> {
+			Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			return thread;
+		}, DEFAULT_TIME_SLICE);
 	}
 
 	@Override
 	public void startThread(InstanceValue oop) {
-		startThread0(oop, false);
+		long stackSize = fields().stackSize().getLong(oop);
+		VirtualOSThread thread = newOsThread(stackSize);
+		// Do sync between OS thread and Java thread
+		syncThread(thread, oop);
+		VirtualJavaThread javaThread = new VirtualJavaThread(oop, thread);
+		if (!slicing) {
+			// Time slicing is only needed once
+			// there is more than one thread
+			slicing = true;
+			vm.getInterface().registerInstructionInterceptor(this::tick);
+		}
+		synchronized (threadLock) {
+			setThreadEeetop(javaThread);
+			// Insert into a list of all threads for the scheduler
+			// before the carrier starts, so that the order
+			// does not depend on the host scheduler
+			allThreads.add(javaThread);
+			schedule(javaThread);
+		}
+		carriers.execute(() -> run(javaThread));
 	}
 
 	@Override
@@ -70,40 +170,39 @@ public void resumeThread(InstanceValue oop) {
 	public void setPriority(InstanceValue oop, int priority) {
 		VirtualJavaThread th = forThread(oop);
 		if (th != null) {
-			Queue<VirtualJavaThread> allThreads = this.scheduled;
-			OSThread ost = th.getOsThread();
-			if (ost.getPriority() != priority) {
-				boolean offer = allThreads.remove(th);
-				// Re-insert thread for the scheduler
-				ost.setPriority(priority);
-				if (offer) {
-					// setPriority may've been called
-					// from another thread on a thread that is asleep
-					allThreads.offer(th);
-				}
-			}
+			// Only reported, scheduler ignores priorities
+			th.getOsThread().setPriority(priority);
 		}
 	}
 
 	@Override
 	public void interrupt(InstanceValue oop) {
 		VirtualJavaThread th = forThread(oop);
-		if (th != null) {
-			if (dead(th)) {
-				return;
-			}
-			Thread foreign = th.foreign;
-			if (foreign != null) {
-				foreign.interrupt();
+		if (dead(th)) {
+			return;
+		}
+		// Only the running thread may change sleep state of the threads,
+		// so the exception can be allocated before taking the lock
+		InstanceValue exception = null;
+		if (th.timeout != 0L && !th.parked) {
+			exception = vm.getOperations().newException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
+		}
+		synchronized (threadLock) {
+			if (th.parked) {
+				// Parked threads return normally
+				th.interrupted = true;
+				unparkLocked(th);
+			} else if (th.timeout != 0L) {
+				th.timeout = 0L;
+				// Wake up thread from sleep
+				th.exception = exception;
+				asleep.remove(th);
+				schedule(th);
 			} else {
-				if (th.timeout != 0L) {
-					th.timeout = 0L;
-					// Wake up thread from sleep
-					th.exception = vm.getOperations().newException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
-					asleep.remove(th);
-					scheduled.offer(th);
-				} else {
-					th.interrupted = true;
+				th.interrupted = true;
+				if (th.blocked && th.carrier != null) {
+					// Thread is blocked in the host code
+					th.carrier.interrupt();
 				}
 			}
 		}
@@ -121,7 +220,34 @@ public void setName(InstanceValue oop, String name) {
 	public void stop(InstanceValue oop, InstanceValue exception) {
 		VirtualJavaThread th = forThread(oop);
 		if (th != null) {
-			th.exception = exception;
+			synchronized (threadLock) {
+				if (th.asyncException == null) {
+					asyncExceptions++;
+				}
+				th.asyncException = exception;
+			}
+		}
+	}
+
+	@Override
+	public InstanceValue pollAsyncException() {
+		if (asyncExceptions == 0) {
+			return null;
+		}
+		VirtualJavaThread th = currentThread;
+		if (th == null || th.carrier != Thread.currentThread()) {
+			th = carrierThread.get();
+			if (th == null) {
+				return null;
+			}
+		}
+		synchronized (threadLock) {
+			InstanceValue exception = th.asyncException;
+			if (exception != null) {
+				th.asyncException = null;
+				asyncExceptions--;
+			}
+			return exception;
 		}
 	}
 
@@ -139,23 +265,32 @@ public OSThread currentOsThread() {
 	public void attachCurrentThread() {
 		Thread th = Thread.currentThread();
 		Map<Thread, VirtualJavaThread> foreignThreads = this.foreignThreads;
+		VirtualJavaThread javaThread;
 		synchronized (threadLock) {
 			// TODO need to do counting here
-			if (foreignThreads.putIfAbsent(th, SENTINEL) == null) {
-				VirtualOSThread osThread = newOsThread(0L);
-				InstanceValue oop = vm.getMemoryManager().newInstance(vm.getSymbols().java_lang_Thread());
-				VirtualJavaThread javaThread = new VirtualJavaThread(oop, osThread);
-				foreignThreads.put(th, javaThread);
-				setThreadEeetop(javaThread);
-				javaThread.foreign = th;
-				String name = th.getName();
-				VMOperations ops = vm.getOperations();
-				ops.putReference(oop, "name", "Ljava/lang/String;", ops.newUtf8(name));
-				int priority = th.getPriority();
-				ops.putInt(oop, "priority", priority);
-				syncThread(osThread, oop);
+			if (foreignThreads.putIfAbsent(th, SENTINEL) != null) {
+				return;
 			}
+			VirtualOSThread osThread = newOsThread(0L);
+			InstanceValue oop = vm.getMemoryManager().newInstance(vm.getSymbols().java_lang_Thread());
+			javaThread = new VirtualJavaThread(oop, osThread);
+			foreignThreads.put(th, javaThread);
+			setThreadEeetop(javaThread);
+			javaThread.foreign = th;
+			javaThread.carrier = th;
+			carrierThread.set(javaThread);
+			// Wait for our turn before running any VM code
+			schedule(javaThread);
+			awaitTurn(javaThread);
 		}
+		vm.getSafepoint().enter();
+		InstanceValue oop = javaThread.getOop();
+		String name = th.getName();
+		VMOperations ops = vm.getOperations();
+		fields().name().putReference(oop, ops.newUtf8(name));
+		int priority = th.getPriority();
+		fields().priority().putInt(oop, priority);
+		syncThread(javaThread.getOsThread(), oop);
 	}
 
 	@Override
@@ -164,9 +299,16 @@ public void detachCurrentThread() {
 		VirtualJavaThread jth;
 		synchronized (threadLock) {
 			jth = foreignThreads.remove(th);
+			if (jth != null) {
+				jth.getOsThread().setThreadState(ThreadState.JVMTI_THREAD_STATE_TERMINATED);
+				scheduled.remove(jth);
+				release(jth);
+			}
 		}
 		if (jth != null) {
+			carrierThread.remove();
 			jth.osThread.free();
+			vm.getSafepoint().exit();
 		}
 	}
 
@@ -179,82 +321,215 @@ public boolean isInterrupted(InstanceValue oop, boolean clear) {
 		boolean flag = th.interrupted;
 		if (clear) {
 			th.interrupted = false;
+			if (th.foreign == null && th.carrier == Thread.currentThread()) {
+				// Drop the wake up sent to the carrier
+				// in case the thread was blocked
+				Thread.interrupted();
+			}
 		}
 		return flag;
 	}
 
 	@Override
 	public List<JavaThread> snapshot() {
-		return new ArrayList<>(allThreads);
+		synchronized (threadLock) {
+			return new ArrayList<>(allThreads);
+		}
 	}
 
 	@Override
 	public void sleep(long millis) {
 		VirtualJavaThread th = currentThread();
+		Assertions.check(!dead(th), "thread is not alive");
+		Assertions.check(th.timeout == 0L, "already sleeping");
+		if (th.interrupted) {
+			th.interrupted = false;
+			vm.getOperations().throwException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
+		}
 		if (millis == 0L) {
 			return;
 		}
-		Assertions.check(!dead(th), "thread is not alive");
 		OSThread osThread = th.getOsThread();
-		if (th.attached) {
-			osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_BLOCKED);
-			// Call to native Thread.sleep
-			th.timeout = millis;
-			try {
-				Thread.sleep(millis);
-			} catch (InterruptedException ex) {
-				// Propagate to VM code
-				th.timeout = 0L;
-				th.interrupted = true;
-				vm.getOperations().throwException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
-			} finally {
-				osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
-			}
-		} else {
-			Assertions.check(th.timeout == 0L, "already sleeping");
-			if (th.interrupted) {
-				th.interrupted = false;
-				vm.getOperations().throwException(vm.getSymbols().java_lang_InterruptedException(), "sleep interrupted");
-			} else {
-				osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_BLOCKED);
-				th.timeout = millis;
-				// Remove form scheduled threads and put to asleep
-				scheduled.remove(th);
+		osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_TIMED_WAITING.with(ThreadState.JVMTI_THREAD_STATE_SLEEPING));
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			synchronized (threadLock) {
+				// Deadline, in nanoseconds
+				long timeout = vm.getTimeManager().nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+				th.timeout = timeout == 0L ? 1L : timeout;
+				// Move to asleep threads and let others run
 				asleep.add(th);
+				release(th);
+				awaitTurn(th);
 			}
+		} finally {
+			safepoint.exitSafeRegion(holds);
+			osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
+		}
+		InstanceValue exception = th.exception;
+		if (exception != null) {
+			th.exception = null;
+			throw new VMException(exception);
 		}
 	}
 
 	@Override
 	public void yield() {
-		// Do nothing
+		switchThread(currentThread());
+	}
+
+	@Override
+	public void park(long nanos) {
+		VirtualJavaThread th = currentThread();
+		synchronized (threadLock) {
+			if (th.permit) {
+				th.permit = false;
+				return;
+			}
+		}
+		if (th.interrupted) {
+			return;
+		}
+		OSThread osThread = th.getOsThread();
+		ThreadState state = nanos == 0L ? ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_WAITING : ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_TIMED_WAITING;
+		osThread.setThreadState(state.with(ThreadState.JVMTI_THREAD_STATE_PARKED));
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			synchronized (threadLock) {
+				if (th.permit) {
+					// Unparked by the thread blocked in the host code
+					th.permit = false;
+					return;
+				}
+				th.parked = true;
+				if (nanos != 0L) {
+					long timeout = vm.getTimeManager().nanoTime() + nanos;
+					th.timeout = timeout == 0L ? 1L : timeout;
+					asleep.add(th);
+				}
+				// Not scheduled until unparked, interrupted
+				// or the timeout elapses
+				release(th);
+				awaitTurn(th);
+				th.permit = false;
+			}
+		} finally {
+			safepoint.exitSafeRegion(holds);
+			osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
+		}
+	}
+
+	@Override
+	public void unpark(InstanceValue oop) {
+		VirtualJavaThread th = forThread(oop);
+		if (dead(th)) {
+			return;
+		}
+		synchronized (threadLock) {
+			th.permit = true;
+			if (th.parked) {
+				unparkLocked(th);
+				// Wake up the scheduler in case
+				// nobody is running
+				threadLock.notifyAll();
+			}
+		}
+	}
+
+	@Override
+	public void lockContended(Mutex mutex) {
+		VirtualJavaThread th = currentThread();
+		while (!mutex.tryLock()) {
+			boolean canSwitch;
+			synchronized (threadLock) {
+				canSwitch = !scheduled.isEmpty();
+			}
+			if (!canSwitch) {
+				// Nothing else can run, so the owner is either
+				// asleep, or blocked in the host code
+				beginBlocking();
+				try {
+					mutex.lock();
+				} finally {
+					endBlocking();
+				}
+				return;
+			}
+			// Let the owner release the monitor
+			switchThread(th);
+		}
+	}
+
+	@Override
+	public void beginBlocking() {
+		block(false);
+	}
+
+	@Override
+	public void beginBlocking(long timeoutMillis) {
+		block(true);
+	}
+
+	@Override
+	public void endBlocking() {
+		VirtualJavaThread th = currentThread();
+		synchronized (threadLock) {
+			th.blocked = false;
+			if (th.timedBlocking) {
+				th.timedBlocking = false;
+				timedBlocking--;
+			}
+			schedule(th);
+			awaitTurn(th);
+		}
+		if (th.foreign == null) {
+			// Carrier may have been interrupted to wake it up,
+			// Java interruption status is tracked separately
+			Thread.interrupted();
+		}
+		int holds = th.safepointHolds;
+		th.safepointHolds = 0;
+		vm.getSafepoint().exitSafeRegion(holds);
 	}
 
 	@Override
 	public JavaThread createMainThread() {
-		InstanceValue oop = vm.getMemoryManager().newInstance(vm.getSymbols().java_lang_Thread());
 		Thread th = Thread.currentThread();
-		VirtualJavaThread javaThread = foreignThreads.get(th); // TODO fixme
-		if (javaThread == null) {
-			VirtualOSThread osThread = newOsThread(0L);
-			javaThread = new VirtualJavaThread(oop, osThread);
-		} else {
-			// TODO this is invalid, VM must be started from valid thread created by ThreadManager
-			/*
-			javaThread.foreign = null;
-			javaThread.attached = false;
-			*/
-		}
-		currentThread = javaThread;
+		VirtualJavaThread javaThread;
+		boolean created = false;
+		synchronized (threadLock) {
+			javaThread = foreignThreads.get(th); // TODO fixme
+			if (javaThread == null) {
+				created = true;
+				InstanceValue oop = vm.getMemoryManager().newInstance(vm.getSymbols().java_lang_Thread());
+				VirtualOSThread osThread = newOsThread(0L);
+				javaThread = new VirtualJavaThread(oop, osThread);
+				javaThread.carrier = th;
+				carrierThread.set(javaThread);
+				setThreadEeetop(javaThread);
+				schedule(javaThread);
+				awaitTurn(javaThread);
+			} else {
+				// TODO this is invalid, VM must be started from valid thread created by ThreadManager
+				/*
+				javaThread.foreign = null;
+				*/
+			}
+			allThreads.add(javaThread);
+		}
+		if (created) {
+			vm.getSafepoint().enter();
+		}
+		InstanceValue oop = javaThread.getOop();
 		VMOperations ops = vm.getOperations();
-		ops.putReference(oop, "name", "Ljava/lang/String;", ops.newUtf8("main"));
+		fields().name().putReference(oop, ops.newUtf8("main"));
 		int priority = th.getPriority();
-		ops.putInt(oop, "priority", priority);
+		fields().priority().putInt(oop, priority);
 		OSThread osThread = javaThread.getOsThread();
 		syncThread(osThread, oop);
 		osThread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
-		setThreadEeetop(javaThread);
-		schedule(javaThread);
 		return javaThread;
 	}
 
@@ -269,78 +544,252 @@ public JavaThread getThread(InstanceValue oop) {
 	}
 
 	private VirtualJavaThread currentThread() {
-		VirtualJavaThread th;
+		// Running thread is always the current one,
+		// unless the caller is blocked in the host code
+		VirtualJavaThread th = currentThread;
+		if (th == null || th.carrier != Thread.currentThread()) {
+			th = carrierThread.get();
+			Assertions.notNull(th, "not a Java thread");
+		}
+		return th;
+	}
+
+	private Result tick(ExecutionContext<?> ctx, AbstractInsnNode insn) {
+		if (--budget <= 0) {
+			budget = timeSlice;
+			switchThread(currentThread());
+		}
+		return Result.CONTINUE;
+	}
+
+	private void run(VirtualJavaThread javaThread) {
+		Thread carrier = Thread.currentThread();
+		carrier.setName(javaThread.getOsThread().getName());
+		carrierThread.set(javaThread);
 		synchronized (threadLock) {
-			th = foreignThreads.get(Thread.currentThread());
+			javaThread.carrier = carrier;
+			awaitTurn(javaThread);
 		}
-		if (th == null) {
-			th = currentThread;
-			Assertions.notNull(th, "not a Java thread");
-			if (th.attached) {
-				Assertions.check(th.foreign == Thread.currentThread(), "currentThread cache is poisoned");
+		Safepoint safepoint = vm.getSafepoint();
+		safepoint.enter();
+		try {
+			InstanceValue oop = javaThread.getOop();
+			VMOperations ops = vm.getOperations();
+			try {
+				JavaMethod run = vm.getLinkResolver().resolveVirtualMethod(oop.getJavaClass(), "run", "()V");
+				Locals locals = javaThread.osThread.getStorage().newLocals(run);
+				locals.setReference(0, oop);
+				ops.invokeVoid(run, locals);
+			} catch (VMException ex) {
+				invokeThreadMethod(javaThread, "dispatchUncaughtException", "(Ljava/lang/Throwable;)V", ex.getOop());
+			}
+			invokeThreadMethod(javaThread, "exit", "()V", null);
+			exit(javaThread);
+		} finally {
+			synchronized (threadLock) {
+				javaThread.getOsThread().setThreadState(ThreadState.JVMTI_THREAD_STATE_TERMINATED);
+				allThreads.remove(javaThread);
+				release(javaThread);
 			}
-			return th;
+			carrierThread.remove();
+			javaThread.osThread.free();
+			safepoint.exit();
+			// Carrier goes back to the pool
+			LockWord.releaseOwner();
+			Thread.interrupted();
 		}
-		return th;
 	}
 
-	private VirtualOSThread newOsThread(long stackSize) {
-		if (stackSize == 0L) {
-			// Default stack size, 1MB should be enough.
-			// TODO configurable, like Java's -Xss flag.
-			stackSize = 1024L * 1024L;
-		}
-		Backtrace backtrace = new SimpleBacktrace(1024);
-		MemoryAllocator memoryAllocator = vm.getMemoryAllocator();
-		ThreadStorage storage = new HeapThreadStorage(vm.getMemoryManager(), memoryAllocator, memoryAllocator.allocateHeap(stackSize));
-		return new VirtualOSThread(backtrace, storage);
+	private void invokeThreadMethod(VirtualJavaThread javaThread, String name, String desc, InstanceValue arg) {
+		JavaMethod method = vm.getSymbols().java_lang_Thread().getMethod(name, desc);
+		if (method == null) {
+			return;
+		}
+		Locals locals = javaThread.osThread.getStorage().newLocals(method);
+		locals.setReference(0, javaThread.getOop());
+		if (arg != null) {
+			locals.setReference(1, arg);
+		}
+		try {
+			vm.getOperations().invokeVoid(method, locals);
+		} catch (VMException ignored) {
+			// Exceptions thrown by the thread on exit are ignored
+		}
 	}
 
-	private VirtualJavaThread startThread0(InstanceValue oop, boolean attached) {
+	private void exit(VirtualJavaThread javaThread) {
+		InstanceValue oop = javaThread.getOop();
 		VMOperations ops = vm.getOperations();
-		long stackSize = ops.getLong(oop, "stackSize");
-		VirtualOSThread thread = newOsThread(stackSize);
-		// Do sync between OS thread and Java thread
-		syncThread(thread, oop);
-		thread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
-		VirtualJavaThread javaThread = new VirtualJavaThread(oop, thread);
-		javaThread.attached = attached;
-		setThreadEeetop(javaThread);
-		if (!attached) {
-			// Insert into a list of all threads for the scheduler
-			schedule(javaThread);
+		synchronized (threadLock) {
+			javaThreads.remove(Handle.threadLocal(fields().eetop().getLong(oop)));
 		}
-		return javaThread;
+		// Thread is no longer alive, wake up
+		// all threads waiting in Thread#join
+		javaThread.getOsThread().setThreadState(ThreadState.JVMTI_THREAD_STATE_TERMINATED);
+		fields().eetop().putLong(oop, 0L);
+		ops.monitorEnter(oop);
+		try {
+			vm.getMemoryManager().getMutex(oop).doNotifyAll();
+		} finally {
+			ops.monitorExit(oop);
+		}
+	}
+
+	private void switchThread(VirtualJavaThread th) {
+		// Other threads may request a safepoint
+		// once we give up the turn
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			synchronized (threadLock) {
+				wakeUp(vm.getTimeManager().nanoTime());
+				if (scheduled.isEmpty()) {
+					// Nothing else to run
+					return;
+				}
+				schedule(th);
+				release(th);
+				awaitTurn(th);
+			}
+		} finally {
+			safepoint.exitSafeRegion(holds);
+		}
+	}
+
+	private void block(boolean timed) {
+		VirtualJavaThread th = currentThread();
+		th.safepointHolds = vm.getSafepoint().enterSafeRegion();
+		synchronized (threadLock) {
+			th.blocked = true;
+			if (timed) {
+				th.timedBlocking = true;
+				timedBlocking++;
+			}
+			release(th);
+		}
+	}
+
+	// Must be called with threadLock held
+	private void release(VirtualJavaThread th) {
+		if (currentThread == th) {
+			currentThread = scheduled.poll();
+			threadLock.notifyAll();
+		}
+	}
+
+	// Must be called with threadLock held
+	private void awaitTurn(VirtualJavaThread th) {
+		Object threadLock = this.threadLock;
+		boolean interrupted = false;
+		while (currentThread != th) {
+			long waitMillis = 0L;
+			if (currentThread == null) {
+				// Nobody is running, pick next thread
+				wakeUp(vm.getTimeManager().nanoTime());
+				VirtualJavaThread next = scheduled.poll();
+				if (next != null) {
+					currentThread = next;
+					threadLock.notifyAll();
+					continue;
+				}
+				// Wait until some thread wakes up
+				VirtualJavaThread sleeping = asleep.peek();
+				if (sleeping != null) {
+					TimeManager timeManager = vm.getTimeManager();
+					// Threads waiting for a timeout in the host code
+					// would wake up past their deadline
+					if (timedBlocking == 0 && timeManager.advanceTo(sleeping.timeout)) {
+						// Clock was fast-forwarded, wake up the thread
+						continue;
+					}
+					waitMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(sleeping.timeout - timeManager.nanoTime()));
+				}
+			}
+			try {
+				threadLock.wait(waitMillis);
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted && th.foreign != null) {
+			// Restore interruption status for the host code,
+			// carriers are only interrupted by the scheduler
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Must be called with threadLock held
+	private void unparkLocked(VirtualJavaThread th) {
+		th.parked = false;
+		if (th.timeout != 0L) {
+			th.timeout = 0L;
+			asleep.remove(th);
+		}
+		schedule(th);
+	}
+
+	// Must be called with threadLock held
+	private void wakeUp(long now) {
+		SleepQueue asleep = this.asleep;
+		VirtualJavaThread th;
+		while ((th = asleep.peek()) != null && th.timeout - now <= 0L) {
+			asleep.poll();
+			th.timeout = 0L;
+			th.parked = false;
+			schedule(th);
+		}
+	}
+
+	private VirtualOSThread newOsThread(long stackSize) {
+		StackConfiguration stackConfiguration = this.stackConfiguration;
+		stackSize = stackConfiguration.clampStackSize(stackSize);
+		Supplier<VMException> overflowHandler = this::stackOverflow;
+		Backtrace backtrace = new SimpleBacktrace(stackConfiguration.getMaxFrames(stackSize), overflowHandler);
+		ThreadStorage storage = new HeapThreadStorage(vm.getMemoryManager(), vm.getMemoryAllocator(), stackConfiguration.getChunkSize(), stackSize, overflowHandler);
+		return new VirtualOSThread(backtrace, storage);
 	}
 
+	private VMException stackOverflow() {
+		return new VMException(vm.getOperations().newException(vm.getSymbols().java_lang_StackOverflowError()));
+	}
+
+	// Must be called with threadLock held
 	private void schedule(VirtualJavaThread thread) {
-		allThreads.add(thread);
 		scheduled.offer(thread);
 	}
 
 	private void setThreadEeetop(VirtualJavaThread th) {
-		Handle handle = Handle.of(0L);
-		// Insert into javaThreads map with free eetop
-		Map<Handle, VirtualJavaThread> javaThreads = this.javaThreads;
-		ThreadLocalRandom rng = ThreadLocalRandom.current();
-		do {
-			handle.set(rng.nextLong());
-		} while (javaThreads.putIfAbsent(handle, th) != null);
-		vm.getOperations().putLong(th.getOop(), "eetop", handle.get());
+		// eetop is never reused and does not depend
+		// on the host, so runs are reproducible
+		long eetop = ++eetopCounter;
+		javaThreads.put(Handle.of(eetop), th);
+		fields().eetop().putLong(th.getOop(), eetop);
 	}
 
 	private void syncThread(OSThread thread, InstanceValue oop) {
 		VMOperations ops = vm.getOperations();
-		thread.setName(ops.readUtf8(ops.getReference(oop, "name", "Ljava/lang/String;")));
-		thread.setPriority(ops.getInt(oop, "priority"));
+		thread.setName(ops.readUtf8(fields().name().getReference(oop)));
+		thread.setPriority(fields().priority().getInt(oop));
 		thread.setThreadState(ThreadState.JVMTI_JAVA_LANG_THREAD_STATE_RUNNABLE);
 	}
 
+	private ThreadFields fields() {
+		ThreadFields fields = this.fields;
+		if (fields == null) {
+			fields = new ThreadFields(vm);
+			this.fields = fields;
+		}
+		return fields;
+	}
+
 	private VirtualJavaThread forThread(InstanceValue oop) {
-		VMOperations ops = vm.getOperations();
-		long eetop = ops.getLong(oop, "eetop");
-		Handle handle = Handle.threadLocal(eetop);
-		return javaThreads.get(handle);
+		long eetop = fields().eetop().getLong(oop);
+		if (eetop == 0L) {
+			return null;
+		}
+		synchronized (threadLock) {
+			return javaThreads.get(Handle.threadLocal(eetop));
+		}
 	}
 
 	private static boolean dead(JavaThread th) {
@@ -29,4 +29,16 @@ public interface TimeManager {
 	 * @return the current time in nanoseconds.
 	 */
 	long nanoTime();
+
+	/**
+	 * Called when no Java thread can make progress
+	 * until {@link #nanoTime()} reaches the deadline.
+	 *
+	 * @param deadline Deadline, in nanoseconds.
+	 * @return {@code true} if the clock was advanced to the deadline,
+	 * {@code false} if the caller must wait for it.
+	 */
+	default boolean advanceTo(long deadline) {
+		return false;
+	}
 }
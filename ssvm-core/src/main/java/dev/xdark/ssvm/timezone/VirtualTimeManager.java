@@ -0,0 +1,75 @@
+package dev.xdark.ssvm.timezone;
+
+/**
+ * Time manager with a virtual clock.
+ * <p>
+ * The clock is fast-forwarded whenever all Java threads
+ * wait for a deadline, so that sleeping code finishes
+ * without waiting for the host clock.
+ * Fast-forwarding is done by the thread manager,
+ * see {@link dev.xdark.ssvm.thread.virtual.VirtualThreadManager}.
+ *
+ * @author xDark
+ */
+public class VirtualTimeManager extends SimpleTimeManager {
+	private final long epochMillis;
+	private final long originNanos;
+	private final boolean followHost;
+	private volatile long skipped;
+
+	/**
+	 * @param epochMillis Time in milliseconds the clock starts from.
+	 * @param followHost  Whether the clock should also advance
+	 *                    with the host clock. If not set, time only changes
+	 *                    when the clock is fast-forwarded, which makes
+	 *                    it fully deterministic, but guest code
+	 *                    that spins on the clock will never finish.
+	 */
+	public VirtualTimeManager(long epochMillis, boolean followHost) {
+		this.epochMillis = epochMillis;
+		this.followHost = followHost;
+		originNanos = System.nanoTime();
+	}
+
+	/**
+	 * Creates time manager that starts from the current time
+	 * and advances with the host clock.
+	 */
+	public VirtualTimeManager() {
+		this(System.currentTimeMillis(), true);
+	}
+
+	@Override
+	public long currentTimeMillis() {
+		return epochMillis + nanoTime() / 1_000_000L;
+	}
+
+	@Override
+	public long nanoTime() {
+		long nanos = skipped;
+		if (followHost) {
+			nanos += System.nanoTime() - originNanos;
+		}
+		return nanos;
+	}
+
+	@Override
+	public synchronized boolean advanceTo(long deadline) {
+		long delta = deadline - nanoTime();
+		if (delta > 0L) {
+			skipped += delta;
+		}
+		return true;
+	}
+
+	/**
+	 * Advances the clock.
+	 *
+	 * @param nanos Amount of nanoseconds to advance the clock by.
+	 */
+	public synchronized void advance(long nanos) {
+		if (nanos > 0L) {
+			skipped += nanos;
+		}
+	}
+}
@@ -4,6 +4,7 @@
 import lombok.experimental.UtilityClass;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 import sun.misc.Unsafe;
 
@@ -74,6 +75,44 @@ public boolean isValid(AbstractInsnNode insnNode) {
 		return getIndex(insnNode) != -1;
 	}
 
+	/**
+	 * Replaces an instruction with its rewritten form.
+	 * Replacement must be fully constructed before the call.
+	 * Rewrites of the same list are serialized, so that
+	 * threads racing to rewrite the same instruction
+	 * do not corrupt the list; the first one wins.
+	 *
+	 * @param list        Instruction list.
+	 * @param insn        Instruction to replace.
+	 * @param replacement Replacement instruction.
+	 * @return {@code true} if instruction was replaced,
+	 * {@code false} if another thread already did it.
+	 */
+	public boolean replace(InsnList list, AbstractInsnNode insn, AbstractInsnNode replacement) {
+		synchronized (list) {
+			if (!isValid(insn)) {
+				return false;
+			}
+			list.set(insn, replacement);
+			return true;
+		}
+	}
+
+	/**
+	 * Reads an instruction while no other
+	 * thread is rewriting the list.
+	 *
+	 * @param list  Instruction list.
+	 * @param index Instruction index.
+	 * @return Instruction at the index.
+	 * @see #replace(InsnList, AbstractInsnNode, AbstractInsnNode)
+	 */
+	public AbstractInsnNode getInstruction(InsnList list, int index) {
+		synchronized (list) {
+			return list.get(index);
+		}
+	}
+
 	/**
 	 * Returns opcode name.
 	 *
@@ -5,9 +5,11 @@
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 /**
  * Unsafe utilities.
@@ -22,6 +24,7 @@ public class UnsafeUtil {
 	private final long STRING_CHARS_OFFSET;
 	private final long STRING_BYTES_OFFSET;
 	private final MethodHandle NEW_STRING_FROM_CHARS;
+	private final MethodHandle UNMAP;
 
 	/**
 	 * @return unsafe instance.
@@ -71,6 +74,28 @@ public String newString(char[] chars) {
 		return new String(chars);
 	}
 
+	/**
+	 * Releases memory mapping of the buffer immediately,
+	 * instead of waiting for the GC.
+	 * Buffer must not be accessed afterwards.
+	 *
+	 * @param buffer Mapped buffer to release.
+	 * @return {@code true} if buffer was unmapped,
+	 * {@code false} if the host does not allow that.
+	 */
+	public boolean unmap(ByteBuffer buffer) {
+		MethodHandle unmap = UNMAP;
+		if (unmap == null || !buffer.isDirect()) {
+			return false;
+		}
+		try {
+			unmap.invokeExact(buffer);
+			return true;
+		} catch (Throwable ex) {
+			return false;
+		}
+	}
+
 	static {
 		try {
 			Unsafe unsafe = null;
@@ -110,9 +135,30 @@ public String newString(char[] chars) {
 				newString = null;
 			}
 			NEW_STRING_FROM_CHARS = newString;
+			UNMAP = unmapHandle(unsafe);
 			UNSAFE = unsafe;
 		} catch (IllegalAccessException ex) {
 			throw new ExceptionInInitializerError(ex);
 		}
 	}
+
+	private MethodHandle unmapHandle(Unsafe unsafe) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			// JDK 9+
+			Method m = Unsafe.class.getMethod("invokeCleaner", ByteBuffer.class);
+			return lookup.unreflect(m).bindTo(unsafe);
+		} catch (NoSuchMethodException | IllegalAccessException ignored) {
+		}
+		try {
+			// JDK 8
+			Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			MethodHandle getCleaner = lookup.unreflect(cleaner).asType(MethodType.methodType(Object.class, ByteBuffer.class));
+			MethodHandle doClean = lookup.unreflect(clean).asType(MethodType.methodType(void.class, Object.class));
+			return MethodHandles.filterReturnValue(getCleaner, doClean);
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ignored) {
+		}
+		return null;
+	}
 }
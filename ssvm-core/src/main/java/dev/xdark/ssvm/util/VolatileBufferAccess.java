@@ -52,6 +52,17 @@ public interface VolatileBufferAccess {
 	 */
 	void putByte(int offset, byte value);
 
+	/**
+	 * Atomically sets int at the specific offset
+	 * if the current value is equal to the expected value.
+	 *
+	 * @param offset   Data offset.
+	 * @param expected Expected value.
+	 * @param value    New value.
+	 * @return {@code true} if successful.
+	 */
+	boolean compareAndSwapInt(int offset, int expected, int value);
+
 	/**
 	 * Reads long at the specific offset.
 	 *
@@ -141,6 +152,11 @@ public void putByte(int offset, byte value) {
 			U.putByteVolatile(array, this.offset + offset, value);
 		}
 
+		@Override
+		public boolean compareAndSwapInt(int offset, int expected, int value) {
+			return U.compareAndSwapInt(array, this.offset + offset, expected, value);
+		}
+
 		@Override
 		public long getLong(int offset) {
 			return U.getLongVolatile(array, this.offset + offset);
@@ -201,6 +217,11 @@ public void putByte(int offset, byte value) {
 			U.putByteVolatile(null, address + offset, value);
 		}
 
+		@Override
+		public boolean compareAndSwapInt(int offset, int expected, int value) {
+			return U.compareAndSwapInt(null, address + offset, expected, value);
+		}
+
 		@Override
 		public long getLong(int offset) {
 			return U.getLongVolatile(null, address + offset);
@@ -0,0 +1,142 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.asm.Modifier;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.VMException;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.thread.ThreadStorage;
+import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.InstanceValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BacktraceTest {
+	private static final String[] FRAMES = {"inner", "outer", "create"};
+	private VirtualMachine vm;
+	private InstanceClass thrower;
+
+	@BeforeEach
+	public void setup() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		thrower = TestUtil.defineClass(vm, Thrower.class);
+		this.vm = vm;
+	}
+
+	@Test
+	public void testBacktrace() {
+		VMOperations ops = vm.getOperations();
+		InstanceValue exception = create();
+		ArrayValue backtrace = (ArrayValue) ops.getReference(exception, "backtrace", "Ljava/lang/Object;");
+		// Frames are stored from the top one, constructors of the exception are skipped
+		int depth = ops.getBacktraceDepth(backtrace);
+		assertEquals(FRAMES.length, depth);
+		for (int i = 0; i < FRAMES.length; i++) {
+			InstanceValue element = ops.newStackTraceElement(backtrace, i);
+			assertEquals(Thrower.class.getName(), ops.readUtf8(ops.getReference(element, "declaringClass", "Ljava/lang/String;")));
+			assertEquals(FRAMES[i], ops.readUtf8(ops.getReference(element, "methodName", "Ljava/lang/String;")));
+			assertTrue(ops.getInt(element, "lineNumber") > 0);
+		}
+		JavaMethod describe = thrower.getMethod("describe", "(Ljava/lang/Throwable;)Ljava/lang/String;");
+		Locals locals = vm.getThreadStorage().newLocals(describe);
+		locals.setReference(0, exception);
+		String[] trace = ops.readUtf8(ops.invokeReference(describe, locals)).split("\n");
+		assertEquals(depth, trace.length);
+		for (int i = 0; i < FRAMES.length; i++) {
+			assertEquals(Thrower.class.getName() + '.' + FRAMES[i], trace[i]);
+		}
+	}
+
+	@Test
+	public void testStackTraceElement() {
+		InstanceClass throwable = vm.getSymbols().java_lang_Throwable();
+		JavaMethod getStackTraceDepth = throwable.getMethod("getStackTraceDepth", "()I");
+		JavaMethod getStackTraceElement = throwable.getMethod("getStackTraceElement", "(I)Ljava/lang/StackTraceElement;");
+		assumeTrue(getStackTraceElement != null, "JDK 8 only");
+		VMOperations ops = vm.getOperations();
+		ThreadStorage ts = vm.getThreadStorage();
+		InstanceValue exception = create();
+		Locals locals = ts.newLocals(getStackTraceDepth);
+		locals.setReference(0, exception);
+		int depth = ops.invokeInt(getStackTraceDepth, locals);
+		assertEquals(ops.getBacktraceDepth((ArrayValue) ops.getReference(exception, "backtrace", "Ljava/lang/Object;")), depth);
+		for (int i = 0; i < FRAMES.length; i++) {
+			locals = ts.newLocals(getStackTraceElement);
+			locals.setReference(0, exception);
+			locals.setInt(1, i);
+			InstanceValue element = (InstanceValue) ops.invokeReference(getStackTraceElement, locals);
+			assertEquals(FRAMES[i], ops.readUtf8(ops.getReference(element, "methodName", "Ljava/lang/String;")));
+		}
+		Locals outOfBounds = ts.newLocals(getStackTraceElement);
+		outOfBounds.setReference(0, exception);
+		outOfBounds.setInt(1, depth);
+		VMException ex = assertThrows(VMException.class, () -> ops.invokeReference(getStackTraceElement, outOfBounds));
+		assertSame(vm.getSymbols().java_lang_ArrayIndexOutOfBoundsException(), ex.getOop().getJavaClass());
+	}
+
+	@Test
+	public void testInitStackTraceElements() {
+		InstanceClass stackTraceElement = vm.getSymbols().java_lang_StackTraceElement();
+		JavaMethod initStackTraceElements = stackTraceElement.getMethod("initStackTraceElements", "([Ljava/lang/StackTraceElement;Ljava/lang/Throwable;)V");
+		assumeTrue(initStackTraceElements != null, "JDK 9+ only");
+		VMOperations ops = vm.getOperations();
+		InstanceValue exception = create();
+		// Array shorter than the backtrace only receives the top frames
+		ArrayValue elements = ops.allocateArray(stackTraceElement, FRAMES.length - 1);
+		Locals locals = vm.getThreadStorage().newLocals(initStackTraceElements);
+		locals.setReference(0, elements);
+		locals.setReference(1, exception);
+		ops.invokeVoid(initStackTraceElements, locals);
+		for (int i = 0; i < FRAMES.length - 1; i++) {
+			InstanceValue element = (InstanceValue) elements.getReference(i);
+			assertEquals(FRAMES[i], ops.readUtf8(ops.getReference(element, "methodName", "Ljava/lang/String;")));
+		}
+	}
+
+	@Test
+	public void testHiddenFrames() {
+		JavaMethod outer = thrower.getMethod("outer", "()Ljava/lang/Throwable;");
+		outer.getNode().access |= Modifier.ACC_HIDDEN_FRAME;
+		VMOperations ops = vm.getOperations();
+		ArrayValue backtrace = (ArrayValue) ops.getReference(create(), "backtrace", "Ljava/lang/Object;");
+		String[] frames = {"inner", "create"};
+		assertEquals(frames.length, ops.getBacktraceDepth(backtrace));
+		for (int i = 0; i < frames.length; i++) {
+			InstanceValue element = ops.newStackTraceElement(backtrace, i);
+			assertEquals(frames[i], ops.readUtf8(ops.getReference(element, "methodName", "Ljava/lang/String;")));
+		}
+	}
+
+	private InstanceValue create() {
+		JavaMethod create = thrower.getMethod("create", "()Ljava/lang/Throwable;");
+		return (InstanceValue) vm.getOperations().invokeReference(create, vm.getThreadStorage().newLocals(create));
+	}
+
+	public static final class Thrower {
+
+		public static Throwable create() {
+			return outer();
+		}
+
+		public static Throwable outer() {
+			return inner();
+		}
+
+		public static Throwable inner() {
+			return new Throwable();
+		}
+
+		public static String describe(Throwable throwable) {
+			StringBuilder builder = new StringBuilder();
+			for (StackTraceElement element : throwable.getStackTrace()) {
+				builder.append(element.getClassName()).append('.').append(element.getMethodName()).append('\n');
+			}
+			return builder.toString();
+		}
+	}
+}
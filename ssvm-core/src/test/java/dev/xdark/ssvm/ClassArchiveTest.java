@@ -0,0 +1,72 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.classloading.ArchivedBootClassFinder;
+import dev.xdark.ssvm.classloading.BootClassFinder;
+import dev.xdark.ssvm.classloading.ClassArchive;
+import dev.xdark.ssvm.classloading.CompositeBootClassFinder;
+import dev.xdark.ssvm.classloading.ParsedClassData;
+import dev.xdark.ssvm.classloading.RuntimeBootClassFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassArchiveTest {
+
+	@Test
+	public void testDumpAndBoot(@TempDir Path dir) throws IOException {
+		VirtualMachine vm = new VirtualMachine();
+		vm.initialize();
+		Path archive = dir.resolve("classes.ssva");
+		List<String> skipped = ClassArchive.dump(vm, archive);
+		assertTrue(skipped.isEmpty(), skipped::toString);
+
+		ArchivedBootClassFinder finder = ClassArchive.open(archive);
+		assertEquals(System.getProperty("java.version"), finder.getJavaVersion());
+		assertTrue(finder.getClassNames().contains("java/lang/Object"));
+		ParsedClassData data = finder.findBootClass("java/lang/String");
+		assertNotNull(data);
+		assertEquals("java/lang/String", data.getNode().name);
+		assertNull(finder.findBootClass("dev/xdark/ssvm/ClassArchiveTest"));
+
+		Set<String> hits = ConcurrentHashMap.newKeySet();
+		Set<String> misses = ConcurrentHashMap.newKeySet();
+		BootClassFinder runtime = RuntimeBootClassFinder.create();
+		VirtualMachine archived = new VirtualMachine() {
+			@Override
+			protected BootClassFinder createBootClassFinder() {
+				return new CompositeBootClassFinder(Arrays.<BootClassFinder>asList(name -> {
+					ParsedClassData result = finder.findBootClass(name);
+					if (result != null) {
+						hits.add(name);
+					}
+					return result;
+				}, name -> {
+					ParsedClassData result = runtime.findBootClass(name);
+					if (result != null) {
+						misses.add(name);
+					}
+					return result;
+				}));
+			}
+		};
+		archived.initialize();
+		// Every class the archive has is served from it
+		assertTrue(hits.contains("java/lang/Object"));
+		assertTrue(hits.contains("java/lang/String"));
+		for (String name : misses) {
+			assertFalse(finder.getClassNames().contains(name), name);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.util.AsmUtil;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstructionRewriteTest {
+
+	private static final int INSTRUCTIONS = 512;
+	private static final int THREADS = 8;
+
+	@Test
+	public void testConcurrentRewrite() throws InterruptedException {
+		InsnList list = new InsnList();
+		for (int i = 0; i < INSTRUCTIONS; i++) {
+			list.add(new InsnNode(Opcodes.NOP));
+		}
+		AbstractInsnNode[] original = list.toArray();
+		list.get(0);
+		AtomicInteger replaced = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>(THREADS);
+		for (int i = 0; i < THREADS; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				for (AbstractInsnNode insn : original) {
+					if (AsmUtil.replace(list, insn, new InsnNode(Opcodes.ACONST_NULL))) {
+						replaced.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(INSTRUCTIONS, replaced.get());
+		assertEquals(INSTRUCTIONS, list.size());
+		AbstractInsnNode insn = list.getFirst();
+		for (int i = 0; i < INSTRUCTIONS; i++) {
+			assertNotNull(insn);
+			assertSame(insn, list.get(i));
+			assertSame(insn, AsmUtil.getInstruction(list, i));
+			assertEquals(Opcodes.ACONST_NULL, insn.getOpcode());
+			assertTrue(AsmUtil.isValid(insn));
+			assertFalse(AsmUtil.isValid(original[i]));
+			insn = insn.getNext();
+		}
+		assertNull(insn);
+	}
+
+	@Test
+	public void testStaleInstruction() {
+		InsnList list = new InsnList();
+		InsnNode insn = new InsnNode(Opcodes.NOP);
+		list.add(insn);
+		list.get(0);
+		InsnNode replacement = new InsnNode(Opcodes.ACONST_NULL);
+		assertTrue(AsmUtil.replace(list, insn, replacement));
+		// Losing thread must not touch the list
+		assertFalse(AsmUtil.replace(list, insn, new InsnNode(Opcodes.ICONST_0)));
+		assertSame(replacement, list.getFirst());
+		assertSame(replacement, list.getLast());
+		assertSame(replacement, AsmUtil.getInstruction(list, 0));
+	}
+}
@@ -0,0 +1,256 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.api.MethodInvoker;
+import dev.xdark.ssvm.api.VMInterface;
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same guest code with and without intrinsics,
+ * results must be the same.
+ */
+public class IntrinsicsTest {
+
+	private static final String[] INTRINSIFIED = {
+		"java/lang/StringLatin1",
+		"java/lang/StringUTF16",
+		"java/lang/String",
+		"java/util/Arrays",
+		"java/lang/Math",
+		"java/lang/Integer",
+		"java/lang/Long",
+		"java/util/HashMap",
+	};
+
+	@Test
+	public void testStrings() {
+		assertSameResults("strings");
+	}
+
+	@Test
+	public void testCompress() {
+		assertSameResults("compress");
+	}
+
+	@Test
+	public void testMismatch() {
+		assertSameResults("mismatch");
+	}
+
+	@Test
+	public void testMath() {
+		assertSameResults("math");
+	}
+
+	@Test
+	public void testParse() {
+		String result = assertSameResults("parse");
+		// Malformed input is handed back to the JDK code
+		assertTrue(result.contains("For input string: \"2147483648\""), result);
+		assertTrue(result.contains("\u0663=3"), result);
+	}
+
+	@Test
+	public void testHashMapHash() {
+		assertSameResults("hash");
+	}
+
+	private static String assertSameResults(String test) {
+		String intrinsified = run(test, true);
+		String interpreted = run(test, false);
+		assertEquals(interpreted, intrinsified);
+		return intrinsified;
+	}
+
+	private static String run(String test, boolean intrinsics) {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		if (!intrinsics) {
+			VMInterface vmi = vm.getInterface();
+			MethodInvoker interpreted = MethodInvoker.interpreted(ctx -> Result.CONTINUE);
+			for (String name : INTRINSIFIED) {
+				InstanceClass jc = (InstanceClass) vm.findBootstrapClass(name);
+				if (jc == null) {
+					continue;
+				}
+				for (JavaMethod method : jc.methodArea().list()) {
+					if ((method.getModifiers() & Opcodes.ACC_NATIVE) == 0 && vmi.getInvoker(method) != null) {
+						vmi.setInvoker(method, interpreted);
+					}
+				}
+			}
+		}
+		VMOperations ops = vm.getOperations();
+		InstanceClass driver = TestUtil.defineClass(vm, Driver.class);
+		JavaMethod method = driver.getMethod(test, "()Ljava/lang/String;");
+		return ops.readUtf8(ops.invokeReference(method, vm.getThreadStorage().newLocals(method)));
+	}
+
+	public static final class Driver {
+
+		public static String strings() {
+			StringBuilder out = new StringBuilder();
+			String[] values = {"", "hello world", "hello there", "caf\u00e9", "\u043f\u0440\u0438\u0432\u0435\u0442 \u043c\u0438\u0440", "\u043f\u0440\u0438", "mixed \u00e9 \u20ac"};
+			for (String a : values) {
+				out.append(a.hashCode()).append(',')
+					.append(a.indexOf('o')).append(',')
+					.append(a.indexOf('o', 5)).append(',')
+					.append(a.lastIndexOf('o')).append(',')
+					.append(a.indexOf('\u0438')).append(',')
+					.append(a.lastIndexOf('\u0438')).append(',')
+					.append(a.indexOf("wor")).append(',')
+					.append(a.indexOf("\u0440\u0438")).append(',')
+					.append(Arrays.toString(a.toCharArray())).append(',')
+					.append(new StringBuilder(a).reverse()).append(';');
+				for (String b : values) {
+					out.append(a.equals(b)).append(a.compareTo(b)).append(',');
+				}
+				char[] chars = new char[a.length() + 2];
+				a.getChars(0, a.length(), chars, 1);
+				out.append(Arrays.toString(chars)).append('\n');
+			}
+			return out.toString();
+		}
+
+		public static String compress() {
+			StringBuilder out = new StringBuilder();
+			for (int length = 0; length <= 17; length++) {
+				char[] chars = new char[length + 2];
+				for (int i = 0; i < chars.length; i++) {
+					chars[i] = (char) ('a' + i);
+				}
+				out.append(new String(chars, 1, length)).append(',');
+				for (int i = 0; i < length; i++) {
+					char[] copy = chars.clone();
+					copy[i + 1] = '\u0100';
+					String str = new String(copy, 1, length);
+					out.append(str.length()).append(str.hashCode()).append(',');
+				}
+				out.append('\n');
+			}
+			return out.toString();
+		}
+
+		public static String mismatch() throws Throwable {
+			// Arrays.mismatch is not available on JDK 8
+			MethodHandle[] mismatch = new MethodHandle[6];
+			Class<?>[] types = {long[].class, int[].class, char[].class, short[].class, byte[].class, boolean[].class};
+			try {
+				for (int i = 0; i < types.length; i++) {
+					mismatch[i] = MethodHandles.publicLookup().findStatic(Arrays.class, "mismatch", MethodType.methodType(int.class, types[i], types[i]));
+				}
+			} catch (NoSuchMethodException ignored) {
+				return "";
+			}
+			StringBuilder out = new StringBuilder();
+			for (int length = 0; length <= 17; length++) {
+				for (int diff = -1; diff < length; diff++) {
+					long[] j1 = new long[length], j2 = new long[length];
+					int[] i1 = new int[length], i2 = new int[length];
+					char[] c1 = new char[length], c2 = new char[length];
+					short[] s1 = new short[length], s2 = new short[length];
+					byte[] b1 = new byte[length], b2 = new byte[length];
+					boolean[] z1 = new boolean[length], z2 = new boolean[length];
+					if (diff >= 0) {
+						j2[diff] = 1L << 40;
+						i2[diff] = -1;
+						c2[diff] = '\uffff';
+						s2[diff] = 1;
+						b2[diff] = (byte) 0x80;
+						z2[diff] = true;
+					}
+					out.append((int) mismatch[0].invoke(j1, j2))
+						.append((int) mismatch[1].invoke(i1, i2))
+						.append((int) mismatch[2].invoke(c1, c2))
+						.append((int) mismatch[3].invoke(s1, s2))
+						.append((int) mismatch[4].invoke(b1, b2))
+						.append((int) mismatch[5].invoke(z1, z2))
+						.append((int) mismatch[4].invoke(b1, Arrays.copyOf(b1, length + 1)))
+						.append(',');
+				}
+				out.append('\n');
+			}
+			return out.toString();
+		}
+
+		public static String math() {
+			StringBuilder out = new StringBuilder();
+			double[] values = {0.0, -0.0, 0.5, 1.0, -1.0, 2.0, 10.0, Math.PI, 1e-300, 1e300, -123.456, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+			for (double a : values) {
+				double[] results = {
+					Math.sqrt(a), Math.cbrt(a), Math.exp(a), Math.log(a), Math.log10(a),
+					Math.sin(a), Math.cos(a), Math.tan(a), Math.asin(a), Math.acos(a), Math.atan(a),
+					Math.floor(a), Math.ceil(a), Math.pow(a, 2.5), Math.pow(2.0, a)
+				};
+				for (double result : results) {
+					out.append(Long.toHexString(Double.doubleToRawLongBits(result))).append(',');
+				}
+				out.append('\n');
+			}
+			return out.toString();
+		}
+
+		public static String parse() {
+			StringBuilder out = new StringBuilder();
+			String[] values = {"0", "123", "-2147483648", "2147483647", "+7", "2147483648", "-2147483649", "", "-", "+", "abc", "12a", " 1", "\u0663", "9223372036854775807", "9223372036854775808", null};
+			for (String value : values) {
+				out.append(value).append('=');
+				try {
+					out.append(Integer.parseInt(value));
+				} catch (NumberFormatException ex) {
+					out.append(ex.getMessage());
+				}
+				out.append(',');
+				try {
+					out.append(Long.parseLong(value));
+				} catch (NumberFormatException ex) {
+					out.append(ex.getMessage());
+				}
+				out.append('\n');
+			}
+			for (int radix : new int[]{1, 2, 16, 36, 37}) {
+				for (String value : new String[]{"ff", "-zz", "101", "\u0663"}) {
+					out.append(value).append('/').append(radix).append('=');
+					try {
+						out.append(Integer.parseInt(value, radix));
+					} catch (NumberFormatException ex) {
+						out.append(ex.getMessage());
+					}
+					out.append(',');
+					try {
+						out.append(Long.parseLong(value, radix));
+					} catch (NumberFormatException ex) {
+						out.append(ex.getMessage());
+					}
+					out.append('\n');
+				}
+			}
+			return out.toString();
+		}
+
+		public static String hash() {
+			// Iteration order depends on the spread hash
+			Map<Object, Integer> map = new HashMap<>();
+			for (int i = 0; i < 16; i++) {
+				map.put(i << 16, i);
+				map.put(i, i);
+			}
+			map.put("key", 1);
+			map.put(null, 0);
+			return map.toString();
+		}
+	}
+}
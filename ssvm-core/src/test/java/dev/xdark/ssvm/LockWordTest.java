@@ -0,0 +1,61 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.synchronizer.LockWord;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LockWordTest {
+
+	@Test
+	public void testThinWord() {
+		int owner = LockWord.currentOwner();
+		int word = LockWord.thin(owner, LockWord.MAX_RECURSIONS);
+		assertTrue(LockWord.isThin(word));
+		assertFalse(LockWord.isInflated(word));
+		assertEquals(owner, LockWord.owner(word));
+		assertEquals(LockWord.MAX_RECURSIONS, LockWord.recursions(word));
+		assertFalse(LockWord.isThin(LockWord.NEUTRAL));
+		assertFalse(LockWord.isInflated(LockWord.NEUTRAL));
+	}
+
+	@Test
+	public void testInflatedWord() {
+		int word = LockWord.inflated(12345);
+		assertTrue(LockWord.isInflated(word));
+		assertFalse(LockWord.isThin(word));
+		assertEquals(12345, LockWord.mutexId(word));
+	}
+
+	@Test
+	public void testOwnerReuse() throws InterruptedException {
+		AtomicInteger first = new AtomicInteger();
+		Thread thread = new Thread(() -> {
+			first.set(LockWord.currentOwner());
+			LockWord.releaseOwner();
+		});
+		thread.start();
+		thread.join();
+		AtomicInteger max = new AtomicInteger();
+		// Way more threads than there are free ids,
+		// each one must get a previously released id
+		for (int i = 0; i < 10000; i++) {
+			thread = new Thread(() -> {
+				int owner = LockWord.currentOwner();
+				if (owner == LockWord.currentOwner()) {
+					max.accumulateAndGet(owner, Math::max);
+				} else {
+					max.set(Integer.MAX_VALUE);
+				}
+				LockWord.releaseOwner();
+			});
+			thread.start();
+			thread.join();
+		}
+		// Some slack for unrelated threads
+		assertTrue(max.get() < first.get() + 100);
+		assertNotEquals(0, LockWord.currentOwner());
+	}
+}
@@ -13,6 +13,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Execution(ExecutionMode.SAME_THREAD)
@@ -60,6 +61,23 @@ public void testLocalsCopy() {
 		assertEquals(1, b.maxSlots());
 	}
 
+	@Test
+	public void testStorageGrowth() {
+		MemoryAllocator alloc = new NavigableMemoryAllocator();
+		ThreadStorage storage = new HeapThreadStorage(null, alloc, 32L, 128L, IllegalStateException::new);
+		Locals a = storage.newLocals(3);
+		Locals b = storage.newLocals(3);
+		a.setInt(2, 1000);
+		b.setInt(0, 2000);
+		assertEquals(1000, a.loadInt(2));
+		assertEquals(2000, b.loadInt(0));
+		Locals c = storage.newLocals(10);
+		assertThrows(IllegalStateException.class, () -> storage.newLocals(1));
+		c.setInt(9, 3000);
+		assertEquals(3000, c.loadInt(9));
+		storage.free();
+	}
+
 	/*
 	@Disabled
 	@Test
@@ -0,0 +1,145 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.execution.Result;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.Safepoint;
+import dev.xdark.ssvm.thread.ThreadManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SafepointTest {
+
+	@Test
+	public void testSafepointDuringClassInitialization() throws InterruptedException {
+		VirtualMachine vm = TestUtil.newVirtualMachine(TestUtil.HOST_THREADS);
+		vm.bootstrap();
+		// Class is initialized by the worker threads
+		InstanceClass klass = TestUtil.defineClass(vm, SlowInit.class, false);
+		CountDownLatch entered = new CountDownLatch(1);
+		AtomicBoolean released = new AtomicBoolean();
+		AtomicLong progress = new AtomicLong();
+		vm.getInterface().setInvoker(klass, "entered", "()V", ctx -> {
+			entered.countDown();
+			return Result.ABORT;
+		});
+		vm.getInterface().setInvoker(klass, "released", "()Z", ctx -> {
+			progress.incrementAndGet();
+			ctx.setResult(released.get() ? 1 : 0);
+			return Result.ABORT;
+		});
+		// Main thread does not run VM code from now on
+		Safepoint safepoint = vm.getSafepoint();
+		int holds = safepoint.enterSafeRegion();
+		try {
+			awaitSafepoint(vm, klass, entered, released, progress);
+		} finally {
+			// Do not hang if the operation got stuck
+			if (!safepoint.isPending()) {
+				safepoint.exitSafeRegion(holds);
+			}
+		}
+		assertEquals(InstanceClass.State.COMPLETE, klass.state().get());
+	}
+
+	private static void awaitSafepoint(VirtualMachine vm, InstanceClass klass, CountDownLatch entered, AtomicBoolean released, AtomicLong progress) throws InterruptedException {
+		// First thread runs <clinit> and polls the safepoint,
+		// second one waits for the initialization lock
+		Thread initializer = newThread(vm, klass, new CountDownLatch(0));
+		initializer.start();
+		assertTrue(entered.await(30L, TimeUnit.SECONDS));
+		assertTrue(awaitProgress(progress));
+		CountDownLatch waiting = new CountDownLatch(1);
+		Thread waiter = newThread(vm, klass, waiting);
+		waiter.start();
+		assertTrue(waiting.await(30L, TimeUnit.SECONDS));
+		assertTrue(awaitParked(waiter), "waiter did not block on the initialization lock");
+		CountDownLatch ran = new CountDownLatch(1);
+		AtomicBoolean parked = new AtomicBoolean();
+		AtomicBoolean stalled = new AtomicBoolean();
+		Thread operation = new Thread(() -> vm.runAtSafepoint(() -> {
+			long before = progress.get();
+			// Initializer parks at the poll, waiter stays parked in a safe region
+			parked.set(awaitParked(initializer) && awaitParked(waiter));
+			for (int i = 0; i < 1000; i++) {
+				Thread.yield();
+			}
+			stalled.set(progress.get() == before);
+			ran.countDown();
+		}));
+		operation.setDaemon(true);
+		operation.start();
+		assertTrue(ran.await(30L, TimeUnit.SECONDS), "safepoint operation did not run");
+		assertTrue(parked.get(), "workers were not parked during the operation");
+		assertTrue(stalled.get(), "initializer made progress during the operation");
+		operation.join(TimeUnit.SECONDS.toMillis(30L));
+		// Initializer resumes once the operation completes
+		assertTrue(awaitProgress(progress));
+		released.set(true);
+		initializer.join(TimeUnit.SECONDS.toMillis(30L));
+		waiter.join(TimeUnit.SECONDS.toMillis(30L));
+		assertFalse(initializer.isAlive());
+		assertFalse(waiter.isAlive());
+	}
+
+	private static boolean awaitProgress(AtomicLong progress) {
+		long start = progress.get();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+		while (progress.get() == start) {
+			if (System.nanoTime() - deadline >= 0L) {
+				return false;
+			}
+			Thread.yield();
+		}
+		return true;
+	}
+
+	private static boolean awaitParked(Thread thread) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+		while (true) {
+			Thread.State state = thread.getState();
+			if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING || state == Thread.State.BLOCKED) {
+				return true;
+			}
+			if (System.nanoTime() - deadline >= 0L) {
+				return false;
+			}
+			Thread.yield();
+		}
+	}
+
+	private static Thread newThread(VirtualMachine vm, InstanceClass klass, CountDownLatch started) {
+		Thread thread = new Thread(() -> {
+			ThreadManager threadManager = vm.getThreadManager();
+			threadManager.attachCurrentThread();
+			try {
+				started.countDown();
+				vm.getOperations().initialize(klass);
+			} finally {
+				threadManager.detachCurrentThread();
+			}
+		});
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private static final class SlowInit {
+
+		static {
+			entered();
+			// Backward branch polls the safepoint
+			while (!released()) {
+				Thread.yield();
+			}
+		}
+
+		private static native void entered();
+
+		private static native boolean released();
+	}
+}
@@ -79,4 +79,93 @@ private static void testOutOfBounds() {
 		} catch (ArrayIndexOutOfBoundsException ignored) {
 		}
 	}
+
+	@VMTest
+	private static void testOverlappingCopy() {
+		int[] ints = {0, 1, 2, 3, 4, 5, 6, 7};
+		System.arraycopy(ints, 0, ints, 2, 6);
+		if (!Arrays.equals(ints, new int[]{0, 1, 0, 1, 2, 3, 4, 5})) {
+			throw new IllegalStateException();
+		}
+		System.arraycopy(ints, 2, ints, 0, 6);
+		if (!Arrays.equals(ints, new int[]{0, 1, 2, 3, 4, 5, 4, 5})) {
+			throw new IllegalStateException();
+		}
+		Object[] objects = {"0", "1", "2", "3", "4"};
+		System.arraycopy(objects, 0, objects, 1, 4);
+		if (!Arrays.equals(objects, new Object[]{"0", "0", "1", "2", "3"})) {
+			throw new IllegalStateException();
+		}
+		System.arraycopy(objects, 1, objects, 0, 4);
+		if (!Arrays.equals(objects, new Object[]{"0", "1", "2", "3", "3"})) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testCopyStoreException() {
+		Object[] src = {"0", "1", 2, "3"};
+		String[] dst = new String[4];
+		try {
+			System.arraycopy(src, 0, dst, 0, 4);
+			throw new IllegalStateException();
+		} catch (ArrayStoreException ex) {
+			checkMessage(ex, "arraycopy: element type mismatch: can not cast one of the elements of java.lang.Object[] to the type of the destination array, java.lang.String");
+		}
+		// Elements before the failing one are copied
+		if (!Arrays.equals(dst, new String[]{"0", "1", null, null})) {
+			throw new IllegalStateException();
+		}
+		Object[] integers = new Integer[]{null, 1};
+		Object[] strings = new String[2];
+		try {
+			System.arraycopy(integers, 0, strings, 0, 2);
+			throw new IllegalStateException();
+		} catch (ArrayStoreException ex) {
+			checkMessage(ex, "arraycopy: type mismatch: can not copy java.lang.Integer[] into java.lang.String[]");
+		}
+		System.arraycopy(integers, 0, strings, 0, 1);
+	}
+
+	@VMTest
+	private static void testCopyErrors() {
+		int[] ints = new int[4];
+		Object[] objects = new Object[4];
+		expectCopyError(null, 0, ints, 0, 0, NullPointerException.class, null);
+		expectCopyError(ints, 0, null, 0, 0, NullPointerException.class, null);
+		expectCopyError("ints", 0, ints, 0, 0, ArrayStoreException.class, "arraycopy: source type java.lang.String is not an array");
+		expectCopyError(ints, 0, "ints", 0, 0, ArrayStoreException.class, "arraycopy: destination type java.lang.String is not an array");
+		expectCopyError(ints, 0, new long[4], 0, 0, ArrayStoreException.class, "arraycopy: type mismatch: can not copy int[] into long[]");
+		expectCopyError(ints, 0, objects, 0, 0, ArrayStoreException.class, "arraycopy: type mismatch: can not copy int[] into object array[]");
+		expectCopyError(objects, 0, ints, 0, 0, ArrayStoreException.class, "arraycopy: type mismatch: can not copy object array[] into int[]");
+		expectCopyError(ints, -1, ints, 0, 0, ArrayIndexOutOfBoundsException.class, "arraycopy: source index -1 out of bounds for int[4]");
+		expectCopyError(ints, 0, new int[2], -1, 0, ArrayIndexOutOfBoundsException.class, "arraycopy: destination index -1 out of bounds for int[2]");
+		expectCopyError(ints, 0, ints, 0, -1, ArrayIndexOutOfBoundsException.class, "arraycopy: length -1 is negative");
+		expectCopyError(ints, 2, ints, 0, 3, ArrayIndexOutOfBoundsException.class, "arraycopy: last source index 5 out of bounds for int[4]");
+		expectCopyError(ints, 0, new int[2], 1, 2, ArrayIndexOutOfBoundsException.class, "arraycopy: last destination index 3 out of bounds for int[2]");
+		expectCopyError(objects, -1, objects, 0, 0, ArrayIndexOutOfBoundsException.class, "arraycopy: source index -1 out of bounds for object array[4]");
+		expectCopyError(objects, 0, objects, 1, 4, ArrayIndexOutOfBoundsException.class, "arraycopy: last destination index 5 out of bounds for object array[4]");
+		expectCopyError(objects, 1, objects, 0, Integer.MAX_VALUE, ArrayIndexOutOfBoundsException.class, "arraycopy: last source index 2147483648 out of bounds for object array[4]");
+	}
+
+	private static void expectCopyError(Object src, int srcPos, Object dst, int dstPos, int length, Class<? extends Throwable> type, String message) {
+		try {
+			System.arraycopy(src, srcPos, dst, dstPos, length);
+		} catch (Throwable ex) {
+			if (ex.getClass() != type) {
+				throw new IllegalStateException(ex);
+			}
+			if (message != null) {
+				checkMessage(ex, message);
+			}
+			return;
+		}
+		throw new IllegalStateException();
+	}
+
+	private static void checkMessage(Throwable ex, String message) {
+		if (!message.equals(ex.getMessage())) {
+			throw new IllegalStateException(ex.getMessage());
+		}
+	}
 }
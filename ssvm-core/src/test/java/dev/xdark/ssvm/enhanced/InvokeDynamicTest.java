@@ -2,7 +2,21 @@
 
 import dev.xdark.ssvm.TestUtil;
 import dev.xdark.ssvm.VMTest;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.asm.Modifier;
+import dev.xdark.ssvm.classloading.ClassDefinitionOption;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.VMException;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.mirror.type.JavaClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.ObjectValue;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
 
 import java.io.Serializable;
 import java.time.chrono.ChronoLocalDate;
@@ -15,18 +29,69 @@
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.IntConsumer;
 import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
 public class InvokeDynamicTest {
 
+	// Guest runs <clinit> of this class, so no ASM here
+	private static final String GENERATED = "dev/xdark/ssvm/enhanced/InvokeDynamicTest$Generated";
+
 	@Test
 	public void doTest() {
 		TestUtil.test(InvokeDynamicTest.class, true);
 	}
 
+	@Test
+	public void testConcatOrder() {
+		VirtualMachine vm = newTargetMachine();
+		runDriver(vm, defineTarget(vm, "visible", false), "concatOrder");
+	}
+
+	@Test
+	public void testBoxingCapture() {
+		VirtualMachine vm = newTargetMachine();
+		InstanceClass target = defineTarget(vm, "visible", false);
+		runDriver(vm, target, "objectCapture");
+		runDriver(vm, target, "boxingCapture");
+	}
+
+	@Test
+	public void testHiddenCaller() {
+		VirtualMachine vm = newTargetMachine();
+		VMOperations ops = vm.getOperations();
+		defineTarget(vm, "visible", false);
+		InstanceClass hidden = defineTarget(vm, "hidden", true);
+		runDriver(vm, hidden, "concatOrder");
+		// Hidden caller cannot be referenced by name, lambda
+		// must not be linked against the visible class
+		ObjectValue result;
+		try {
+			result = runDriver(vm, hidden, "tag");
+		} catch (VMException ex) {
+			// Metafactory may reject it, same as HotSpot does
+			JavaClass linkageError = ops.findClass(vm.getMemoryManager().nullValue(), "java/lang/LinkageError", false);
+			assertTrue(linkageError.isAssignableFrom(ex.getOop().getJavaClass()));
+			return;
+		}
+		assertEquals("hidden", ops.readUtf8(result));
+	}
+
+	@VMTest
+	private static void testSamConversion() {
+		Function<Integer, Long> f = InvokeDynamicTest::widen;
+		if (f.apply(42) != 42L) {
+			throw new IllegalStateException();
+		}
+	}
+
 	@dev.xdark.ssvm.VMTest
 	private static void testVariableCapture() {
 		int[] box = {0};
@@ -205,4 +270,174 @@ private static void setResult(Long value) {
 	private static void setResult2(long value) {
 		result = value;
 	}
+
+	private static long widen(int value) {
+		return value;
+	}
+
+	private static VirtualMachine newTargetMachine() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		ObjectValue nullValue = vm.getMemoryManager().nullValue();
+		for (Class<?> klass : new Class<?>[]{Target.class, Recorder.class, Driver.class}) {
+			byte[] bytes = TestUtil.readClass(klass);
+			ops.defineClass(nullValue, null, bytes, 0, bytes.length, nullValue, "JVM_DefineClass");
+		}
+		return vm;
+	}
+
+	private static InstanceClass defineTarget(VirtualMachine vm, String tag, boolean hidden) {
+		VMOperations ops = vm.getOperations();
+		ObjectValue nullValue = vm.getMemoryManager().nullValue();
+		byte[] bytes = generateTarget(tag);
+		InstanceClass target;
+		if (hidden) {
+			target = ops.defineClass(nullValue, GENERATED, bytes, 0, bytes.length, nullValue, "JVM_DefineClass", ClassDefinitionOption.ANONYMOUS);
+			target.getNode().access |= Modifier.ACC_VM_HIDDEN;
+		} else {
+			target = ops.defineClass(nullValue, GENERATED, bytes, 0, bytes.length, nullValue, "JVM_DefineClass");
+		}
+		ops.initialize(target);
+		return target;
+	}
+
+	private static ObjectValue runDriver(VirtualMachine vm, InstanceClass target, String test) {
+		VMOperations ops = vm.getOperations();
+		InstanceClass driver = (InstanceClass) ops.findClass(vm.getMemoryManager().nullValue(), Type.getInternalName(Driver.class), true);
+		JavaMethod method = driver.getMethod(test, "(" + Type.getDescriptor(Target.class) + ")Ljava/lang/Object;");
+		Locals locals = vm.getThreadStorage().newLocals(method);
+		locals.setReference(0, ops.allocateInstance(target));
+		return ops.invokeReference(method, locals);
+	}
+
+	private static byte[] generateTarget(String tag) {
+		Handle concatFactory = new Handle(H_INVOKESTATIC, "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;", false);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, GENERATED, null, "java/lang/Object", new String[]{Type.getInternalName(Target.class)});
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// Arguments must be stringified left to right
+		mv = cw.visitMethod(ACC_PUBLIC, "concat", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/String;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitInvokeDynamicInsn("makeConcatWithConstants", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/String;", concatFactory, "\u0001-\u0001");
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// Exact capture, the only one metafactory allows
+		generateCapture(cw, "capture", "Ljava/lang/Object;", "lambda$capture$0", "(Ljava/lang/Object;)Ljava/lang/Object;");
+		// int captured into Object parameter
+		generateCapture(cw, "boxInt", "I", "lambda$capture$0", "(Ljava/lang/Object;)Ljava/lang/Object;");
+		mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, "lambda$capture$0", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// int captured into long parameter
+		generateCapture(cw, "widenInt", "I", "lambda$widenInt$1", "(J)Ljava/lang/Object;");
+		mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, "lambda$widenInt$1", "(J)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(LLOAD, 0);
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;", false);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// Non-capturing, tells which class the lambda was linked against
+		generateCapture(cw, "tag", "", "lambda$tag$2", "()Ljava/lang/Object;");
+		mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, "lambda$tag$2", "()Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(tag);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void generateCapture(ClassWriter cw, String name, String captured, String impl, String implDesc) {
+		String desc = "(" + captured + ")Ljava/util/function/Supplier;";
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, name, desc, null, null);
+		mv.visitCode();
+		if (!captured.isEmpty()) {
+			mv.visitVarInsn(Type.getType(captured).getOpcode(ILOAD), 1);
+		}
+		Handle metafactory = new Handle(H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "metafactory", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;", false);
+		Type sam = Type.getMethodType("()Ljava/lang/Object;");
+		mv.visitInvokeDynamicInsn("get", desc, metafactory, sam, new Handle(H_INVOKESTATIC, GENERATED, impl, implDesc, false), sam);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	public interface Target {
+
+		String concat(Object a, Object b);
+
+		Supplier<Object> capture(Object value);
+
+		Supplier<Object> boxInt(int value);
+
+		Supplier<Object> widenInt(int value);
+
+		Supplier<Object> tag();
+	}
+
+	public static final class Recorder {
+		private final StringBuilder log;
+		private final String name;
+
+		public Recorder(StringBuilder log, String name) {
+			this.log = log;
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			log.append(name);
+			return name;
+		}
+	}
+
+	public static final class Driver {
+
+		public static Object concatOrder(Target target) {
+			StringBuilder log = new StringBuilder();
+			String result = target.concat(new Recorder(log, "a"), new Recorder(log, "b"));
+			if (!"a-b".equals(result) || !"ab".equals(log.toString())) {
+				throw new IllegalStateException(result + ' ' + log);
+			}
+			return result;
+		}
+
+		public static Object objectCapture(Target target) {
+			Object value = new Object();
+			if (target.capture(value).get() != value) {
+				throw new IllegalStateException();
+			}
+			return value;
+		}
+
+		public static Object boxingCapture(Target target) {
+			Object boxed = target.boxInt(42).get();
+			if (!Integer.valueOf(42).equals(boxed)) {
+				throw new IllegalStateException("boxing");
+			}
+			if (!Long.valueOf(42L).equals(target.widenInt(42).get())) {
+				throw new IllegalStateException("widening");
+			}
+			return boxed;
+		}
+
+		public static Object tag(Target target) {
+			return target.tag().get();
+		}
+	}
 }
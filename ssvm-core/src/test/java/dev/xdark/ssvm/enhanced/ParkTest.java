@@ -0,0 +1,171 @@
+package dev.xdark.ssvm.enhanced;
+
+import dev.xdark.ssvm.TestUtil;
+import dev.xdark.ssvm.VMTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ParkTest {
+
+	@Test
+	public void testVirtualThreads() {
+		TestUtil.test(ParkTest.class, true);
+	}
+
+	@Test
+	public void testHostThreads() {
+		TestUtil.test(ParkTest.class, TestUtil.BOOTSTRAP | TestUtil.HOST_THREADS);
+	}
+
+	@VMTest
+	private static void testPermit() {
+		Thread self = Thread.currentThread();
+		LockSupport.unpark(self);
+		// Permit is consumed without blocking
+		LockSupport.park();
+		// Permits do not accumulate
+		LockSupport.unpark(self);
+		LockSupport.unpark(self);
+		LockSupport.park();
+		long start = System.nanoTime();
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+		if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(10L)) {
+			throw new IllegalStateException("permit was not consumed");
+		}
+		start = System.currentTimeMillis();
+		LockSupport.parkUntil(start + 10L);
+		if (System.currentTimeMillis() < start + 10L) {
+			throw new IllegalStateException("deadline not reached");
+		}
+	}
+
+	@VMTest
+	private static void testUnpark() throws InterruptedException {
+		AtomicBoolean released = new AtomicBoolean();
+		Thread thread = new Thread(() -> {
+			while (!released.get()) {
+				LockSupport.park();
+			}
+		});
+		thread.start();
+		Thread.sleep(20L);
+		released.set(true);
+		LockSupport.unpark(thread);
+		thread.join();
+	}
+
+	@VMTest
+	private static void testInterrupt() throws InterruptedException {
+		AtomicBoolean parked = new AtomicBoolean();
+		boolean[] interrupted = new boolean[1];
+		Thread thread = new Thread(() -> {
+			parked.set(true);
+			while (!Thread.currentThread().isInterrupted()) {
+				LockSupport.park();
+			}
+			// Interrupt status is kept
+			interrupted[0] = Thread.interrupted();
+		});
+		thread.start();
+		while (!parked.get()) {
+			Thread.yield();
+		}
+		thread.interrupt();
+		thread.join();
+		if (!interrupted[0]) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testLockContention() throws InterruptedException {
+		ReentrantLock lock = new ReentrantLock();
+		int[] counter = new int[1];
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 500; j++) {
+					lock.lock();
+					try {
+						counter[0]++;
+						Thread.yield();
+					} finally {
+						lock.unlock();
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (counter[0] != threads.length * 500) {
+			throw new IllegalStateException("lost update: " + counter[0]);
+		}
+	}
+
+	@VMTest
+	private static void testCondition() throws InterruptedException {
+		ReentrantLock lock = new ReentrantLock();
+		Condition condition = lock.newCondition();
+		boolean[] state = new boolean[1];
+		lock.lock();
+		try {
+			if (condition.await(10L, TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("not signalled");
+			}
+			Thread thread = new Thread(() -> {
+				lock.lock();
+				try {
+					state[0] = true;
+					condition.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			});
+			thread.start();
+			while (!state[0]) {
+				condition.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@VMTest
+	private static void testExecutorService() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				int value = i;
+				futures.add(executor.submit(() -> value * value));
+			}
+			int sum = 0;
+			for (Future<Integer> future : futures) {
+				sum += future.get();
+			}
+			if (sum != 10416) {
+				throw new IllegalStateException("sum: " + sum);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (!executor.awaitTermination(30L, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("executor did not terminate");
+		}
+	}
+}
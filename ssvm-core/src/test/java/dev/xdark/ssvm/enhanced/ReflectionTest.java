@@ -2,13 +2,26 @@
 
 import dev.xdark.ssvm.TestUtil;
 import dev.xdark.ssvm.VMTest;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.thread.ThreadStorage;
+import dev.xdark.ssvm.value.InstanceValue;
+import dev.xdark.ssvm.value.ObjectValue;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class ReflectionTest {
 
 	@Test
@@ -16,6 +29,59 @@ public void doTest() {
 		TestUtil.test(InnerReflectionTest.class, true);
 	}
 
+	@Test
+	public void testPlanCache() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		ThreadStorage ts = vm.getThreadStorage();
+		InstanceClass plans = TestUtil.defineClass(vm, Plans.class);
+		JavaMethod target = plans.getMethod("target", "()Ljava/lang/reflect/Method;");
+		JavaMethod args = plans.getMethod("args", "(IJ)[Ljava/lang/Object;");
+		JavaMethod add = plans.getMethod("add", "(IJ)J");
+		// Every lookup returns a copy of the root method
+		InstanceValue first = (InstanceValue) ops.invokeReference(target, ts.newLocals(target));
+		InstanceValue second = (InstanceValue) ops.invokeReference(target, ts.newLocals(target));
+		assertNotSame(first, second);
+		Locals locals = ts.newLocals(args);
+		locals.setInt(0, 2);
+		locals.setLong(1, 40L);
+		ObjectValue arguments = ops.invokeReference(args, locals);
+		assertEquals(42L, ops.unboxLong(invoke0(vm, first, arguments)));
+		// Copies resolve to the same method and share its plan
+		assertEquals(42L, ops.unboxLong(invoke0(vm, second, arguments)));
+		assertEquals(42L, ops.unboxLong(invoke0(vm, first, arguments)));
+		assertEquals(add.getSlot(), ops.getInt(second, "slot"));
+	}
+
+	private static ObjectValue invoke0(VirtualMachine vm, InstanceValue method, ObjectValue arguments) {
+		InstanceClass accessor = (InstanceClass) vm.findBootstrapClass("jdk/internal/reflect/NativeMethodAccessorImpl");
+		if (accessor == null) {
+			accessor = (InstanceClass) vm.findBootstrapClass("sun/reflect/NativeMethodAccessorImpl");
+		}
+		JavaMethod invoke0 = accessor.getMethod("invoke0", "(Ljava/lang/reflect/Method;Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;");
+		Locals locals = vm.getThreadStorage().newLocals(invoke0);
+		locals.setReference(0, method);
+		locals.setReference(1, vm.getMemoryManager().nullValue());
+		locals.setReference(2, arguments);
+		return vm.getOperations().invokeReference(invoke0, locals);
+	}
+
+	public static final class Plans {
+
+		public static Method target() throws NoSuchMethodException {
+			return Plans.class.getDeclaredMethod("add", int.class, long.class);
+		}
+
+		public static Object[] args(int a, long b) {
+			return new Object[]{a, b};
+		}
+
+		public static long add(int a, long b) {
+			return a + b;
+		}
+	}
+
 	private static final class InnerReflectionTest {
 
 		private static long value;
@@ -47,6 +113,59 @@ private static void testString() throws NoSuchFieldException, IllegalAccessExcep
 			}
 		}
 
+		@VMTest
+		private static void testVirtualDispatch() throws ReflectiveOperationException {
+			// Plan caches the last receiver class, it must be replaced on every change
+			Method toString = Object.class.getMethod("toString");
+			Object[] receivers = {1, "str", 2, new ArrayList<>(), 3L, "str"};
+			for (Object receiver : receivers) {
+				if (!receiver.toString().equals(toString.invoke(receiver))) {
+					throw new IllegalStateException();
+				}
+			}
+			Method length = CharSequence.class.getMethod("length");
+			CharSequence[] sequences = {"abc", new StringBuilder("ab"), "a", new StringBuilder()};
+			for (CharSequence sequence : sequences) {
+				if ((Integer) length.invoke(sequence) != sequence.length()) {
+					throw new IllegalStateException();
+				}
+			}
+		}
+
+		@VMTest
+		private static void testPrimitives() throws ReflectiveOperationException {
+			Method compare = Long.class.getMethod("compare", long.class, long.class);
+			if ((Integer) compare.invoke(null, 1L, 2L) != -1 || (Integer) compare.invoke(null, 2L, 2L) != 0) {
+				throw new IllegalStateException();
+			}
+			Method charAt = String.class.getMethod("charAt", int.class);
+			if ((Character) charAt.invoke("abc", 2) != 'c') {
+				throw new IllegalStateException();
+			}
+			Method max = Math.class.getMethod("max", double.class, double.class);
+			if ((Double) max.invoke(null, 1.5D, -2.0D) != 1.5D) {
+				throw new IllegalStateException();
+			}
+			try {
+				charAt.invoke(null, 0);
+				throw new IllegalStateException();
+			} catch (IllegalArgumentException | NullPointerException ignored) {
+			}
+		}
+
+		@VMTest
+		private static void testConstructor() throws ReflectiveOperationException {
+			Constructor<StringBuilder> constructor = StringBuilder.class.getConstructor(String.class);
+			for (int i = 0; i < 3; i++) {
+				if (!"abc".equals(constructor.newInstance("abc").toString())) {
+					throw new IllegalStateException();
+				}
+			}
+			if (StringBuilder.class.getConstructor(String.class).newInstance("x").length() != 1) {
+				throw new IllegalStateException();
+			}
+		}
+
 		static {
 			ThreadLocalRandom r = ThreadLocalRandom.current();
 			value = r.nextLong();
@@ -2,8 +2,18 @@
 
 import dev.xdark.ssvm.TestUtil;
 import dev.xdark.ssvm.VMTest;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.value.InstanceValue;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class StringTest {
 
 	@Test
@@ -11,6 +21,75 @@ public void doTest() {
 		TestUtil.test(StringTest.class, true);
 	}
 
+	@Test
+	public void testRoundTrip() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		String[] values = {"", "ascii", "caf\u00e9 \u00ff", "\u043f\u0440\u0438\u0432\u0435\u0442", "mixed \u00e9 \u20ac", "\ud83d\ude00"};
+		JavaMethod concat = vm.getSymbols().java_lang_String().getMethod("concat", "(Ljava/lang/String;)Ljava/lang/String;");
+		for (String value : values) {
+			assertEquals(value, ops.readUtf8(ops.newUtf8(value)));
+			for (String other : values) {
+				// Guest concatenation picks the coder on its own
+				Locals locals = vm.getThreadStorage().newLocals(concat);
+				locals.setReference(0, ops.newUtf8(value));
+				locals.setReference(1, ops.newUtf8(other));
+				assertEquals(value + other, ops.readUtf8(ops.invokeReference(concat, locals)));
+			}
+		}
+	}
+
+	@Test
+	public void testGuestString() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		String value = "\u043f\u0440\u0438\u0432\u0435\u0442";
+		InstanceValue str = ops.newUtf8(value);
+		JavaMethod length = vm.getSymbols().java_lang_String().getMethod("length", "()I");
+		Locals locals = vm.getThreadStorage().newLocals(length);
+		locals.setReference(0, str);
+		assertEquals(value.length(), ops.invokeInt(length, locals));
+		JavaMethod charAt = vm.getSymbols().java_lang_String().getMethod("charAt", "(I)C");
+		for (int i = 0; i < value.length(); i++) {
+			locals = vm.getThreadStorage().newLocals(charAt);
+			locals.setReference(0, str);
+			locals.setInt(1, i);
+			assertEquals(value.charAt(i), (char) ops.invokeInt(charAt, locals));
+		}
+	}
+
+	@VMTest
+	private static void testLatin1() {
+		String str = "caf\u00e9";
+		if (str.length() != 4 || str.charAt(3) != '\u00e9') {
+			throw new IllegalStateException();
+		}
+		if (!Arrays.equals(str.getBytes(StandardCharsets.ISO_8859_1), new byte[]{'c', 'a', 'f', (byte) 0xE9})) {
+			throw new IllegalStateException();
+		}
+		if (!str.equals(new String(str.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8))) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testUtf16() {
+		String str = "\u043f\u0440\u0438\u0432\u0435\u0442 \ud83d\ude00";
+		if (str.length() != 9 || str.charAt(0) != '\u043f' || str.codePointAt(7) != 0x1F600) {
+			throw new IllegalStateException();
+		}
+		if (!str.equals(new String(str.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8))) {
+			throw new IllegalStateException();
+		}
+		// Mixed coders
+		String mixed = "caf\u00e9".concat(str);
+		if (!mixed.endsWith(str) || mixed.indexOf('\u00e9') != 3) {
+			throw new IllegalStateException();
+		}
+	}
+
 	@dev.xdark.ssvm.VMTest
 	private static void testContains() {
 		if (!"Hello World".contains("World")) {
@@ -59,4 +138,15 @@ private static void testLength() {
 			throw new IllegalStateException();
 		}
 	}
+
+	@VMTest
+	private static void testIntern() {
+		String[] values = {"caf\u00e9", "\u043f\u0440\u0438\u0432\u0435\u0442"};
+		for (String value : values) {
+			String copy = new String(value.toCharArray());
+			if (copy == value || copy.intern() != value) {
+				throw new IllegalStateException(value);
+			}
+		}
+	}
 }
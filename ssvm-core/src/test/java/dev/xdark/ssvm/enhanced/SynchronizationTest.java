@@ -2,8 +2,16 @@
 
 import dev.xdark.ssvm.TestUtil;
 import dev.xdark.ssvm.VMTest;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.execution.VMException;
+import dev.xdark.ssvm.memory.management.MemoryManager;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.value.InstanceValue;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class SynchronizationTest {
 
 	@Test
@@ -11,6 +19,24 @@ public void doTest() {
 		TestUtil.test(SynchronizationTest.class, true);
 	}
 
+	@Test
+	public void testNoInflationWithoutOwner() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		MemoryManager memoryManager = vm.getMemoryManager();
+		InstanceValue lock = memoryManager.newInstance(vm.getSymbols().java_lang_Object());
+		assertFalse(memoryManager.holdsLock(lock));
+		JavaMethod notify = vm.getSymbols().java_lang_Object().getMethod("notify", "()V");
+		Locals locals = vm.getThreadStorage().newLocals(notify);
+		locals.setReference(0, lock);
+		VMException ex = assertThrows(VMException.class, () -> vm.getOperations().invokeVoid(notify, locals));
+		assertSame(vm.getSymbols().java_lang_IllegalMonitorStateException(), ex.getOop().getJavaClass());
+		// Lock word is still neutral, so thin lock can be taken
+		assertTrue(memoryManager.tryLightweightLock(lock));
+		assertTrue(memoryManager.holdsLock(lock));
+		assertTrue(memoryManager.tryLightweightUnlock(lock));
+	}
+
 	@dev.xdark.ssvm.VMTest
 	private static void testLock1() {
 		Object o = new Object();
@@ -58,6 +84,152 @@ private static void testLockStackUnwind() {
 		}
 	}
 
+	@VMTest
+	private static void testContendedLock() throws InterruptedException {
+		Object lock = new Object();
+		int[] counter = new int[1];
+		Runnable r = () -> {
+			for (int i = 0; i < 10000; i++) {
+				synchronized (lock) {
+					counter[0]++;
+				}
+			}
+		};
+		Thread t1 = new Thread(r);
+		Thread t2 = new Thread(r);
+		t1.start();
+		t2.start();
+		r.run();
+		t1.join();
+		t2.join();
+		if (counter[0] != 30000) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testNotOwner() throws InterruptedException {
+		Object lock = new Object();
+		if (Thread.holdsLock(lock)) {
+			throw new IllegalStateException();
+		}
+		try {
+			lock.notifyAll();
+			throw new IllegalStateException("notifyAll without lock");
+		} catch (IllegalMonitorStateException ignored) {
+		}
+		try {
+			lock.wait(1L);
+			throw new IllegalStateException("wait without lock");
+		} catch (IllegalMonitorStateException ignored) {
+		}
+		boolean[] held = {true};
+		synchronized (lock) {
+			// Thin lock of another thread is not inflated
+			Thread thread = new Thread(() -> held[0] = Thread.holdsLock(lock));
+			thread.start();
+			thread.join();
+		}
+		if (held[0]) {
+			throw new IllegalStateException("lock of another thread");
+		}
+	}
+
+	@VMTest
+	private static void testWaitNotify() throws InterruptedException {
+		Object lock = new Object();
+		boolean[] ready = new boolean[1];
+		Thread thread = new Thread(() -> {
+			synchronized (lock) {
+				ready[0] = true;
+				lock.notifyAll();
+			}
+		});
+		synchronized (lock) {
+			thread.start();
+			while (!ready[0]) {
+				lock.wait();
+			}
+		}
+		thread.join();
+	}
+
+	@VMTest
+	private static void testRecursionOverflow() {
+		Object lock = new Object();
+		// Exceeds recursion count of a thin lock
+		recursiveLock(lock, 1000);
+		if (Thread.holdsLock(lock)) {
+			throw new IllegalStateException();
+		}
+		synchronized (lock) {
+			if (!Thread.holdsLock(lock)) {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	@VMTest
+	private static void testInflateByWait() throws InterruptedException {
+		Object lock = new Object();
+		synchronized (lock) {
+			synchronized (lock) {
+				// Inflates thin lock held twice
+				lock.wait(1L);
+				if (!Thread.holdsLock(lock)) {
+					throw new IllegalStateException();
+				}
+			}
+			if (!Thread.holdsLock(lock)) {
+				throw new IllegalStateException();
+			}
+		}
+		if (Thread.holdsLock(lock)) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testInflateByContention() throws InterruptedException {
+		Object lock = new Object();
+		boolean[] acquired = new boolean[1];
+		Thread thread = new Thread(() -> {
+			synchronized (lock) {
+				acquired[0] = true;
+			}
+		});
+		synchronized (lock) {
+			thread.start();
+			// Let the thread contend on a thin lock
+			for (int i = 0; i < 10; i++) {
+				Thread.yield();
+			}
+			if (acquired[0]) {
+				throw new IllegalStateException();
+			}
+		}
+		thread.join();
+		if (!acquired[0] || Thread.holdsLock(lock)) {
+			throw new IllegalStateException();
+		}
+		synchronized (lock) {
+			if (!Thread.holdsLock(lock)) {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	private static void recursiveLock(Object lock, int depth) {
+		synchronized (lock) {
+			if (!Thread.holdsLock(lock)) {
+				throw new IllegalStateException();
+			}
+			if (depth != 0) {
+				recursiveLock(lock, depth - 1);
+			}
+		}
+	}
+
 	private static Object throwException(Object o) {
 		throw new IllegalStateException();
 	}
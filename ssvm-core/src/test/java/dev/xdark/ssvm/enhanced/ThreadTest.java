@@ -2,12 +2,10 @@
 
 import dev.xdark.ssvm.TestUtil;
 import dev.xdark.ssvm.VMTest;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 public class ThreadTest {
 
-	@Disabled
 	@Test
 	public void doTest() {
 		TestUtil.test(ThreadTest.class, true);
@@ -27,4 +25,240 @@ private static void testThreadStart() throws InterruptedException {
 		thread.join();
 		System.out.println("thread finished");
 	}
+
+	@VMTest
+	private static void testStackSize() throws InterruptedException {
+		long[] sizes = {1L, 1000L, 64L * 1024L * 1024L, Long.MAX_VALUE};
+		for (long size : sizes) {
+			int[] depth = new int[1];
+			Thread thread = new Thread(null, () -> depth[0] = recurse(32), "stack-" + size, size);
+			thread.start();
+			thread.join();
+			// Tiny stacks are rounded up, huge ones are clamped
+			if (depth[0] != 32) {
+				throw new IllegalStateException("stack size " + size);
+			}
+		}
+	}
+
+	private static int recurse(int depth) {
+		return depth == 0 ? 0 : recurse(depth - 1) + 1;
+	}
+
+	@VMTest
+	private static void testStackOverflow() throws InterruptedException {
+		if (overflowDepth() <= 0) {
+			throw new IllegalStateException("main thread");
+		}
+		long[] sizes = {64L * 1024L, 512L * 1024L};
+		int[] depths = new int[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			int index = i;
+			Thread thread = new Thread(null, () -> depths[index] = overflowDepth(), "overflow-" + sizes[i], sizes[i]);
+			thread.start();
+			thread.join();
+		}
+		// Frame limit follows the stack size
+		if (depths[0] <= 0 || depths[1] <= depths[0]) {
+			throw new IllegalStateException(depths[0] + " " + depths[1]);
+		}
+	}
+
+	private static int overflowDepth() {
+		int[] depth = new int[1];
+		try {
+			recurseForever(depth);
+		} catch (StackOverflowError ex) {
+			return depth[0];
+		}
+		throw new IllegalStateException();
+	}
+
+	private static void recurseForever(int[] depth) {
+		depth[0]++;
+		recurseForever(depth);
+	}
+
+	@VMTest
+	private static void testManyThreads() throws InterruptedException {
+		int[] counter = new int[1];
+		for (int i = 0; i < 64; i++) {
+			Thread thread = new Thread(() -> {
+				synchronized (counter) {
+					counter[0]++;
+				}
+			});
+			thread.start();
+			thread.join();
+		}
+		if (counter[0] != 64) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testPriorityContention() throws InterruptedException {
+		Object lock = new Object();
+		boolean[] acquired = new boolean[1];
+		Thread owner = new Thread(() -> {
+			synchronized (lock) {
+				acquired[0] = true;
+				// Keep the monitor for a while
+				long sum = 0L;
+				for (int i = 0; i < 100000; i++) {
+					sum += i;
+				}
+				if (sum == 0L) {
+					throw new IllegalStateException();
+				}
+			}
+		});
+		owner.setPriority(Thread.MIN_PRIORITY);
+		Thread self = Thread.currentThread();
+		int priority = self.getPriority();
+		self.setPriority(Thread.MAX_PRIORITY);
+		try {
+			owner.start();
+			while (!acquired[0]) {
+				Thread.yield();
+			}
+			// Lower priority owner must be able to release the monitor
+			synchronized (lock) {
+				if (!acquired[0]) {
+					throw new IllegalStateException();
+				}
+			}
+		} finally {
+			self.setPriority(priority);
+		}
+		owner.join();
+	}
+
+	@VMTest
+	private static void testInterruptBeforeWait() throws InterruptedException {
+		Object lock = new Object();
+		Thread.currentThread().interrupt();
+		synchronized (lock) {
+			try {
+				lock.wait(10L);
+				throw new IllegalStateException("not interrupted");
+			} catch (InterruptedException ignored) {
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				throw new IllegalStateException("status not cleared");
+			}
+			// Must not throw again
+			lock.wait(10L);
+		}
+	}
+
+	@VMTest
+	private static void testInterruptWhileWaiting() throws InterruptedException {
+		Object lock = new Object();
+		boolean[] state = new boolean[2];
+		Thread thread = new Thread(() -> {
+			synchronized (lock) {
+				state[0] = true;
+				try {
+					lock.wait();
+				} catch (InterruptedException ex) {
+					state[1] = !Thread.currentThread().isInterrupted();
+				}
+				try {
+					// No spurious interruption after the first one
+					lock.wait(10L);
+				} catch (InterruptedException ex) {
+					state[1] = false;
+				}
+			}
+		});
+		thread.start();
+		while (true) {
+			synchronized (lock) {
+				if (state[0]) {
+					break;
+				}
+			}
+			Thread.yield();
+		}
+		thread.interrupt();
+		thread.join();
+		if (!state[1]) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	private static void testInterruptSleep() throws InterruptedException {
+		boolean[] state = new boolean[2];
+		Thread sleeper = new Thread(() -> {
+			try {
+				Thread.sleep(100L);
+			} catch (InterruptedException ex) {
+				state[0] = true;
+			}
+		});
+		Thread interrupted = new Thread(() -> {
+			try {
+				Thread.sleep(60000L);
+			} catch (InterruptedException ex) {
+				state[1] = !Thread.currentThread().isInterrupted();
+			}
+		});
+		sleeper.start();
+		interrupted.start();
+		Thread.sleep(20L);
+		// Interrupted thread leaves the sleep queue, the other one keeps sleeping
+		interrupted.interrupt();
+		interrupted.join();
+		sleeper.join();
+		if (state[0] || !state[1]) {
+			throw new IllegalStateException();
+		}
+	}
+
+	@VMTest
+	@SuppressWarnings("deprecation")
+	private static void testStop() throws InterruptedException {
+		boolean[] state = new boolean[2];
+		Thread thread = new Thread(() -> {
+			try {
+				synchronized (state) {
+					state[0] = true;
+				}
+				// Backward branch delivers the exception
+				while (!Thread.currentThread().isInterrupted()) {
+					Thread.yield();
+				}
+			} catch (ThreadDeath ex) {
+				state[1] = true;
+			}
+		});
+		thread.start();
+		while (true) {
+			synchronized (state) {
+				if (state[0]) {
+					break;
+				}
+			}
+			Thread.yield();
+		}
+		try {
+			thread.stop();
+		} catch (UnsupportedOperationException ex) {
+			// Thread#stop is degraded since JDK 20
+			thread.interrupt();
+			thread.join();
+			return;
+		}
+		thread.join();
+		if (!state[1]) {
+			throw new IllegalStateException("not stopped");
+		}
+		try {
+			Thread.currentThread().stop();
+			throw new IllegalStateException("current thread not stopped");
+		} catch (ThreadDeath ignored) {
+		}
+	}
 }
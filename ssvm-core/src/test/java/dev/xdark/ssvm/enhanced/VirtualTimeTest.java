@@ -0,0 +1,86 @@
+package dev.xdark.ssvm.enhanced;
+
+import dev.xdark.ssvm.TestUtil;
+import dev.xdark.ssvm.VMTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualTimeTest {
+
+	@Test
+	public void doTest() {
+		TestUtil.test(VirtualTimeTest.class, TestUtil.BOOTSTRAP | TestUtil.VIRTUAL_TIME);
+	}
+
+	@VMTest
+	private static void testFastForward() throws InterruptedException {
+		long start = System.nanoTime();
+		long startMillis = System.currentTimeMillis();
+		// Would never finish if the clock was not fast-forwarded
+		Thread.sleep(TimeUnit.HOURS.toMillis(1L));
+		if (System.nanoTime() - start < TimeUnit.HOURS.toNanos(1L)) {
+			throw new IllegalStateException("woke up early");
+		}
+		if (System.currentTimeMillis() - startMillis < TimeUnit.HOURS.toMillis(1L)) {
+			throw new IllegalStateException("wall clock did not move");
+		}
+	}
+
+	@VMTest
+	private static void testSleepOrder() throws InterruptedException {
+		List<Long> order = new ArrayList<>();
+		Thread[] threads = new Thread[3];
+		long[] hours = {3L, 1L, 2L};
+		for (int i = 0; i < threads.length; i++) {
+			long duration = hours[i];
+			threads[i] = new Thread(() -> {
+				try {
+					Thread.sleep(TimeUnit.HOURS.toMillis(duration));
+				} catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				synchronized (order) {
+					order.add(duration);
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (!order.equals(Arrays.asList(1L, 2L, 3L))) {
+			throw new IllegalStateException(order.toString());
+		}
+	}
+
+	@VMTest
+	private static void testTimedWait() throws InterruptedException {
+		Object lock = new Object();
+		long[] waited = {-1L};
+		Thread waiter = new Thread(() -> {
+			synchronized (lock) {
+				long start = System.nanoTime();
+				try {
+					lock.wait(50L);
+				} catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				waited[0] = System.nanoTime() - start;
+			}
+		});
+		waiter.start();
+		// Clock must not be fast-forwarded to our deadline
+		// while the waiter is blocked in the host code
+		Thread.sleep(TimeUnit.HOURS.toMillis(1L));
+		waiter.join();
+		if (waited[0] < 0L || waited[0] >= TimeUnit.HOURS.toNanos(1L)) {
+			throw new IllegalStateException("waited for " + waited[0]);
+		}
+	}
+}
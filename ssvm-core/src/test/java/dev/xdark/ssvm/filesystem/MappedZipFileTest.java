@@ -0,0 +1,222 @@
+package dev.xdark.ssvm.filesystem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.xdark.ssvm.memory.allocation.MemoryData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedZipFileTest {
+
+	@Test
+	public void testStoredAndDeflated(@TempDir Path dir) throws IOException {
+		byte[] stored = "stored entry".getBytes(StandardCharsets.UTF_8);
+		byte[] deflated = new byte[4096];
+		for (int i = 0; i < deflated.length; i++) {
+			deflated[i] = (byte) (i % 7);
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			putStored(zos, "a.txt", stored);
+			zos.putNextEntry(new ZipEntry("b.bin"));
+			zos.write(deflated);
+			zos.closeEntry();
+		}
+		Path path = write(dir, baos.toByteArray());
+		try (MappedZipFile zf = MappedZipFile.open(1, path)) {
+			assertTrue(zf.startsWithLOC());
+			assertEquals(2, zf.getTotal());
+			ZipEntry a = zf.getEntry("a.txt");
+			assertNotNull(a);
+			assertEquals(ZipEntry.STORED, a.getMethod());
+			assertArrayEquals(stored, zf.readEntry(a));
+			ZipEntry b = zf.getEntry("b.bin");
+			assertNotNull(b);
+			assertEquals(ZipEntry.DEFLATED, b.getMethod());
+			assertEquals(deflated.length, b.getSize());
+			assertArrayEquals(deflated, zf.readEntry(b));
+			assertNull(zf.getEntry("c.txt"));
+		}
+	}
+
+	@Test
+	public void testPrependedData(@TempDir Path dir) throws IOException {
+		byte[] content = "payload".getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		baos.write("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes(StandardCharsets.UTF_8));
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			zos.putNextEntry(new ZipEntry("entry"));
+			zos.write(content);
+			zos.closeEntry();
+		}
+		Path path = write(dir, baos.toByteArray());
+		try (MappedZipFile zf = MappedZipFile.open(1, path)) {
+			assertFalse(zf.startsWithLOC());
+			assertArrayEquals(content, zf.readEntry(zf.getEntry("entry")));
+		}
+	}
+
+	@Test
+	public void testDuplicateEntries(@TempDir Path dir) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			putStored(zos, "dup1", new byte[]{1});
+			putStored(zos, "dup2", new byte[]{2});
+		}
+		// ZipOutputStream refuses duplicate names,
+		// rename the second entry in place
+		byte[] bytes = baos.toByteArray();
+		byte[] from = "dup2".getBytes(StandardCharsets.UTF_8);
+		byte[] to = "dup1".getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i <= bytes.length - from.length; i++) {
+			boolean match = true;
+			for (int j = 0; j < from.length && match; j++) {
+				match = bytes[i + j] == from[j];
+			}
+			if (match) {
+				System.arraycopy(to, 0, bytes, i, to.length);
+			}
+		}
+		Path path = write(dir, bytes);
+		try (MappedZipFile zf = MappedZipFile.open(1, path)) {
+			assertEquals(2, zf.getTotal());
+			assertArrayEquals(new byte[]{1}, zf.readEntry(zf.getEntry("dup1")));
+			assertNull(zf.getEntry("dup2"));
+		}
+	}
+
+	@Test
+	public void testZip64(@TempDir Path dir) throws IOException {
+		// More than 0xFFFF entries forces ZIP64 end records
+		int count = 0x10000 + 16;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			for (int i = 0; i < count; i++) {
+				putStored(zos, Integer.toString(i), new byte[]{(byte) i});
+			}
+		}
+		Path path = write(dir, baos.toByteArray());
+		try (MappedZipFile zf = MappedZipFile.open(1, path)) {
+			assertEquals(count, zf.getTotal());
+			assertArrayEquals(new byte[]{(byte) (count - 1)}, zf.readEntry(zf.getEntry(Integer.toString(count - 1))));
+			assertArrayEquals(new byte[]{0}, zf.readEntry(zf.getEntry("0")));
+		}
+	}
+
+	@Test
+	public void testClose(@TempDir Path dir) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			putStored(zos, "entry", new byte[]{1, 2, 3});
+		}
+		Path path = write(dir, baos.toByteArray());
+		MappedZipFile zf = MappedZipFile.open(1, path);
+		ZipEntry entry = zf.getEntry("entry");
+		zf.close();
+		assertThrows(ZipException.class, () -> zf.readEntry(entry));
+		assertNull(zf.getEntry("entry"));
+		// Mapping is released, file must not be locked
+		Files.delete(path);
+	}
+
+	@Test
+	public void testConcurrentClose(@TempDir Path dir) throws Exception {
+		byte[] content = new byte[8192];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i % 13);
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			putStored(zos, "stored", content);
+			zos.putNextEntry(new ZipEntry("deflated"));
+			zos.write(content);
+			zos.closeEntry();
+		}
+		Path path = write(dir, baos.toByteArray());
+		MappedZipFile zf = MappedZipFile.open(1, path);
+		ZipEntry stored = zf.getEntry("stored");
+		ZipEntry deflated = zf.getEntry("deflated");
+		int threads = 4;
+		CountDownLatch reading = new CountDownLatch(threads);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] readers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			Thread reader = new Thread(() -> {
+				MemoryData dst = MemoryData.buffer(ByteBuffer.allocate(content.length));
+				try {
+					while (true) {
+						// Every read either completes or sees the file closed
+						ZipEntry entry = zf.getEntry("stored");
+						byte[] a = zf.readEntry(stored);
+						byte[] b = zf.readEntry(deflated);
+						int read = zf.read(stored, 0L, dst, 0L, content.length);
+						reading.countDown();
+						if (entry == null) {
+							return;
+						}
+						assertArrayEquals(content, a);
+						assertArrayEquals(content, b);
+						assertEquals(content.length, read);
+					}
+				} catch (ZipException ignored) {
+					reading.countDown();
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+					reading.countDown();
+				}
+			});
+			reader.start();
+			readers[i] = reader;
+		}
+		reading.await();
+		zf.close();
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		assertFalse(zf.startsWithLOC());
+		assertEquals(0L, zf.makeHandle(stored));
+		// Mapping is released once the readers left
+		Files.delete(path);
+	}
+
+	private static void putStored(ZipOutputStream zos, String name, byte[] content) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(content.length);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		entry.setCrc(crc.getValue());
+		zos.putNextEntry(entry);
+		zos.write(content);
+		zos.closeEntry();
+	}
+
+	private static Path write(Path dir, byte[] bytes) throws IOException {
+		Path path = Files.createTempFile(dir, "archive", ".zip");
+		Files.write(path, bytes);
+		return path;
+	}
+}
@@ -0,0 +1,161 @@
+package dev.xdark.ssvm.operation;
+
+import dev.xdark.ssvm.TestUtil;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.symbol.Symbols;
+import dev.xdark.ssvm.value.ArrayValue;
+import dev.xdark.ssvm.value.InstanceValue;
+import dev.xdark.ssvm.value.ObjectValue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExceptionOperationsTest {
+	private static final String COPY_MESSAGE = "arraycopy: last source index 5 out of bounds for int[2]";
+
+	@Test
+	public void testImplicitExceptionCopy() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		Symbols symbols = vm.getSymbols();
+		InstanceClass thrower = TestUtil.defineClass(vm, Thrower.class);
+		InstanceValue first = invoke(vm, thrower, "copy");
+		InstanceValue second = invoke(vm, thrower, "copy");
+		assertNotSame(first, second);
+		for (InstanceValue ex : new InstanceValue[]{first, second}) {
+			assertSame(symbols.java_lang_ArrayIndexOutOfBoundsException(), ex.getJavaClass());
+			assertCopied(vm, ex, COPY_MESSAGE, "arraycopy", "copy");
+			assertEquals("java.lang.ArrayIndexOutOfBoundsException|" + COPY_MESSAGE + "|true|arraycopy,copy,", describe(vm, thrower, ex));
+		}
+		assertNotSame(ops.getReference(first, "backtrace", "Ljava/lang/Object;"), ops.getReference(second, "backtrace", "Ljava/lang/Object;"));
+		InstanceValue npe = invoke(vm, thrower, "npe");
+		assertSame(symbols.java_lang_NullPointerException(), npe.getJavaClass());
+		assertCopied(vm, npe, null, "npe");
+		// Message is not shared through the template
+		InstanceValue withMessage = ops.newException(symbols.java_lang_NullPointerException(), "message", null);
+		assertCopied(vm, withMessage, "message");
+		assertCopied(vm, ops.newException(symbols.java_lang_NullPointerException(), null, null), null);
+	}
+
+	@Test
+	public void testFastThrowDisabled() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		InstanceClass thrower = TestUtil.defineClass(vm, Thrower.class);
+		InstanceValue previous = null;
+		for (int i = 0; i < 32; i++) {
+			InstanceValue ex = invoke(vm, thrower, "copy");
+			assertNotSame(previous, ex);
+			assertCopied(vm, ex, COPY_MESSAGE, "arraycopy", "copy");
+			previous = ex;
+		}
+	}
+
+	@Test
+	public void testFastThrow() {
+		VirtualMachine vm = TestUtil.newVirtualMachine(TestUtil.OMIT_STACK_TRACE_IN_FAST_THROW);
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		InstanceClass thrower = TestUtil.defineClass(vm, Thrower.class);
+		int full = 0;
+		InstanceValue preallocated = null;
+		for (int i = 0; i < 32; i++) {
+			InstanceValue ex = invoke(vm, thrower, "copy");
+			if (preallocated == null && ops.getReference(ex, "detailMessage", "Ljava/lang/String;").isNull()) {
+				preallocated = ex;
+			}
+			if (preallocated == null) {
+				assertCopied(vm, ex, COPY_MESSAGE, "arraycopy", "copy");
+				full++;
+			} else {
+				// Once the site is hot, the same instance without stack trace is thrown
+				assertSame(preallocated, ex);
+			}
+		}
+		assertNotNull(preallocated);
+		assertTrue(full > 0);
+		assertEquals("java.lang.ArrayIndexOutOfBoundsException|null|true|", describe(vm, thrower, preallocated));
+		// System.arraycopy is called from another site, so it still gets a full exception
+		assertCopied(vm, invoke(vm, thrower, "copyAgain"), COPY_MESSAGE, "arraycopy", "copyAgain");
+	}
+
+	private static void assertCopied(VirtualMachine vm, InstanceValue ex, String message, String... frames) {
+		VMOperations ops = vm.getOperations();
+		// Same as Throwable constructor, cause points to the exception itself
+		assertSame(ex, ops.getReference(ex, "cause", "Ljava/lang/Throwable;"));
+		ObjectValue detailMessage = ops.getReference(ex, "detailMessage", "Ljava/lang/String;");
+		if (message == null) {
+			assertTrue(detailMessage.isNull());
+		} else {
+			assertEquals(message, ops.readUtf8(detailMessage));
+		}
+		ArrayValue backtrace = (ArrayValue) ops.getReference(ex, "backtrace", "Ljava/lang/Object;");
+		int depth = ops.getBacktraceDepth(backtrace);
+		assertEquals(frames.length, depth);
+		if (vm.getSymbols().java_lang_Throwable().getField("depth", "I") != null) {
+			assertEquals(depth, ops.getInt(ex, "depth"));
+		}
+		for (int i = 0; i < frames.length; i++) {
+			InstanceValue element = ops.newStackTraceElement(backtrace, i);
+			assertEquals(frames[i], ops.readUtf8(ops.getReference(element, "methodName", "Ljava/lang/String;")));
+		}
+	}
+
+	private static InstanceValue invoke(VirtualMachine vm, InstanceClass thrower, String name) {
+		JavaMethod method = thrower.getMethod(name, "()Ljava/lang/Throwable;");
+		return (InstanceValue) vm.getOperations().invokeReference(method, vm.getThreadStorage().newLocals(method));
+	}
+
+	private static String describe(VirtualMachine vm, InstanceClass thrower, InstanceValue ex) {
+		JavaMethod describe = thrower.getMethod("describe", "(Ljava/lang/Throwable;)Ljava/lang/String;");
+		Locals locals = vm.getThreadStorage().newLocals(describe);
+		locals.setReference(0, ex);
+		return vm.getOperations().readUtf8(vm.getOperations().invokeReference(describe, locals));
+	}
+
+	public static final class Thrower {
+
+		public static Throwable copy() {
+			try {
+				System.arraycopy(new int[2], 0, new int[8], 0, 5);
+			} catch (ArrayIndexOutOfBoundsException ex) {
+				return ex;
+			}
+			throw new IllegalStateException();
+		}
+
+		public static Throwable copyAgain() {
+			try {
+				System.arraycopy(new int[2], 0, new int[8], 0, 5);
+			} catch (ArrayIndexOutOfBoundsException ex) {
+				return ex;
+			}
+			throw new IllegalStateException();
+		}
+
+		public static Throwable npe() {
+			Object value = null;
+			try {
+				value.hashCode();
+			} catch (NullPointerException ex) {
+				return ex;
+			}
+			throw new IllegalStateException();
+		}
+
+		public static String describe(Throwable ex) {
+			StringBuilder builder = new StringBuilder()
+				.append(ex.getClass().getName()).append('|')
+				.append(ex.getMessage()).append('|')
+				.append(ex.getCause() == null).append('|');
+			for (StackTraceElement element : ex.getStackTrace()) {
+				builder.append(element.getMethodName()).append(',');
+			}
+			return builder.toString();
+		}
+	}
+}
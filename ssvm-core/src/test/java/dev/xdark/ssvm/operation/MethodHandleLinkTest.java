@@ -0,0 +1,82 @@
+package dev.xdark.ssvm.operation;
+
+import dev.xdark.ssvm.TestUtil;
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.execution.Locals;
+import dev.xdark.ssvm.mirror.member.JavaMethod;
+import dev.xdark.ssvm.mirror.member.LinkageKey;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.thread.ThreadStorage;
+import dev.xdark.ssvm.value.InstanceValue;
+import dev.xdark.ssvm.value.ObjectValue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MethodHandleLinkTest {
+
+	@Test
+	public void testLinkage() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		JavaMethod method = vm.getSymbols().java_lang_Object().getMethod("toString", "()Ljava/lang/String;");
+		AtomicInteger created = new AtomicInteger();
+		LinkageKey<Object> first = new LinkageKey<>(m -> {
+			created.incrementAndGet();
+			return new Object();
+		});
+		LinkageKey<Object> second = new LinkageKey<>(m -> new Object());
+		Object value = method.getLinkage(first);
+		assertSame(value, method.getLinkage(first));
+		assertNotSame(value, method.getLinkage(second));
+		assertSame(value, method.getLinkage(first));
+		assertEquals(1, created.get());
+	}
+
+	@Test
+	public void testLinkedMemberNameReusesLink() {
+		VirtualMachine vm = TestUtil.newVirtualMachine();
+		vm.bootstrap();
+		VMOperations ops = vm.getOperations();
+		ThreadStorage ts = vm.getThreadStorage();
+		InstanceClass handles = TestUtil.defineClass(vm, Handles.class);
+		JavaMethod factory = handles.getMethod("toStringHandle", "()Ljava/lang/invoke/MethodHandle;");
+		InstanceValue firstHandle = (InstanceValue) ops.invokeReference(factory, ts.newLocals(factory));
+		InstanceValue secondHandle = (InstanceValue) ops.invokeReference(factory, ts.newLocals(factory));
+		InstanceValue firstMember = (InstanceValue) ops.getReference(firstHandle, "member", "Ljava/lang/invoke/MemberName;");
+		InstanceValue secondMember = (InstanceValue) ops.getReference(secondHandle, "member", "Ljava/lang/invoke/MemberName;");
+		assertNotSame(firstMember, secondMember);
+		JavaMethod target = ops.readVMTargetFromMemberName(firstMember);
+		assertSame(target, ops.readVMTargetFromMemberName(secondMember));
+		MethodHandleLink link = target.getLinkage(DefaultInvokeDynamicOperations.LINK);
+		assertSame(target, link.getTarget());
+		// Dispatch through one member name must be visible through the other
+		JavaMethod invoke = handles.getMethod("invoke", "(Ljava/lang/invoke/MethodHandle;Ljava/lang/Object;)Ljava/lang/String;");
+		Locals locals = ts.newLocals(invoke);
+		locals.setReference(0, firstHandle);
+		locals.setReference(1, vm.getStringPool().intern("value"));
+		ObjectValue result = ops.invokeReference(invoke, locals);
+		assertEquals("value", ops.readUtf8(result));
+		InstanceClass string = vm.getSymbols().java_lang_String();
+		JavaMethod stringToString = string.getMethod("toString", "()Ljava/lang/String;");
+		assertSame(stringToString, link.dispatch(string));
+		assertSame(link, target.getLinkage(DefaultInvokeDynamicOperations.LINK));
+		assertSame(stringToString, ops.resolveVMTargetFromMemberName(secondMember, result));
+	}
+
+	public static final class Handles {
+
+		public static MethodHandle toStringHandle() throws ReflectiveOperationException {
+			return MethodHandles.publicLookup().findVirtual(Object.class, "toString", MethodType.methodType(String.class));
+		}
+
+		public static String invoke(MethodHandle handle, Object receiver) throws Throwable {
+			return (String) handle.invoke(receiver);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package dev.xdark.ssvm.thread.virtual;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SleepQueueTest {
+
+	@Test
+	public void testOrdering() {
+		SleepQueue queue = new SleepQueue();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.peek());
+		assertNull(queue.poll());
+		long[] deadlines = {50L, 10L, 40L, 30L, 20L, 60L, 5L};
+		for (long deadline : deadlines) {
+			queue.add(thread(deadline));
+		}
+		assertEquals(5L, queue.peek().timeout);
+		long previous = Long.MIN_VALUE;
+		for (int i = 0; i < deadlines.length; i++) {
+			VirtualJavaThread th = queue.poll();
+			assertTrue(th.timeout > previous);
+			assertEquals(-1, th.sleepIndex);
+			previous = th.timeout;
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testEqualDeadlines() {
+		SleepQueue queue = new SleepQueue();
+		List<VirtualJavaThread> threads = new ArrayList<>();
+		// More threads than the initial capacity
+		for (int i = 0; i < 40; i++) {
+			VirtualJavaThread th = thread(i % 2 == 0 ? 100L : 200L);
+			threads.add(th);
+			queue.add(th);
+		}
+		// Same deadline wakes up in the order threads fell asleep
+		for (long deadline : new long[]{100L, 200L}) {
+			for (VirtualJavaThread th : threads) {
+				if (th.timeout == deadline) {
+					assertSame(th, queue.poll());
+				}
+			}
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testDeadlineOverflow() {
+		SleepQueue queue = new SleepQueue();
+		// nanoTime may wrap around, deadlines are compared by difference
+		VirtualJavaThread late = thread(Long.MIN_VALUE + 10L);
+		VirtualJavaThread early = thread(Long.MAX_VALUE - 10L);
+		queue.add(late);
+		queue.add(early);
+		assertSame(early, queue.poll());
+		assertSame(late, queue.poll());
+	}
+
+	@Test
+	public void testRemoveWokenEarly() {
+		SleepQueue queue = new SleepQueue();
+		VirtualJavaThread first = thread(10L);
+		VirtualJavaThread second = thread(20L);
+		VirtualJavaThread third = thread(30L);
+		VirtualJavaThread fourth = thread(40L);
+		queue.add(fourth);
+		queue.add(second);
+		queue.add(first);
+		queue.add(third);
+		// Thread was unparked before its deadline
+		assertTrue(queue.remove(second));
+		assertEquals(-1, second.sleepIndex);
+		assertFalse(queue.remove(second));
+		assertSame(first, queue.poll());
+		// Polled thread is no longer in the queue
+		assertFalse(queue.remove(first));
+		assertSame(third, queue.poll());
+		assertSame(fourth, queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testRemoveStaleIndex() {
+		SleepQueue queue = new SleepQueue();
+		VirtualJavaThread queued = thread(10L);
+		queue.add(queued);
+		VirtualJavaThread other = thread(10L);
+		// Index points to a slot that belongs to another thread
+		other.sleepIndex = queued.sleepIndex;
+		assertFalse(queue.remove(other));
+		assertSame(queued, queue.peek());
+		other.sleepIndex = 5;
+		assertFalse(queue.remove(other));
+	}
+
+	@Test
+	public void testInterrupt() {
+		SleepQueue queue = new SleepQueue();
+		Random random = new Random(42L);
+		List<VirtualJavaThread> expected = new ArrayList<>();
+		for (int i = 0; i < 256; i++) {
+			VirtualJavaThread th = thread(random.nextInt(64));
+			expected.add(th);
+			queue.add(th);
+		}
+		// Interrupted threads leave the queue from arbitrary positions,
+		// then fall asleep again
+		for (int i = 0; i < 1000; i++) {
+			VirtualJavaThread th = expected.get(random.nextInt(expected.size()));
+			assertTrue(queue.remove(th));
+			th.timeout = random.nextInt(64);
+			queue.add(th);
+		}
+		expected.sort(Comparator.<VirtualJavaThread>comparingLong(th -> th.timeout).thenComparingLong(th -> th.sleepSequence));
+		for (VirtualJavaThread th : expected) {
+			assertSame(th, queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	private static VirtualJavaThread thread(long timeout) {
+		VirtualJavaThread th = new VirtualJavaThread(null, null);
+		th.timeout = timeout;
+		return th;
+	}
+}
@@ -0,0 +1,57 @@
+package dev.xdark.ssvm.timezone;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualTimeManagerTest {
+
+	@Test
+	public void testFrozenClock() throws InterruptedException {
+		VirtualTimeManager timeManager = new VirtualTimeManager(1000L, false);
+		assertEquals(0L, timeManager.nanoTime());
+		assertEquals(1000L, timeManager.currentTimeMillis());
+		Thread.sleep(5L);
+		// Host time does not move the clock
+		assertEquals(0L, timeManager.nanoTime());
+		timeManager.advance(TimeUnit.MILLISECONDS.toNanos(250L));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250L), timeManager.nanoTime());
+		assertEquals(1250L, timeManager.currentTimeMillis());
+		timeManager.advance(-1L);
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250L), timeManager.nanoTime());
+	}
+
+	@Test
+	public void testAdvanceTo() {
+		VirtualTimeManager timeManager = new VirtualTimeManager(0L, false);
+		assertTrue(timeManager.advanceTo(500L));
+		assertEquals(500L, timeManager.nanoTime());
+		// Clock never goes backwards
+		assertTrue(timeManager.advanceTo(100L));
+		assertEquals(500L, timeManager.nanoTime());
+		assertTrue(timeManager.advanceTo(500L));
+		assertEquals(500L, timeManager.nanoTime());
+	}
+
+	@Test
+	public void testFollowHost() throws InterruptedException {
+		VirtualTimeManager timeManager = new VirtualTimeManager(0L, true);
+		long start = timeManager.nanoTime();
+		Thread.sleep(5L);
+		long now = timeManager.nanoTime();
+		assertTrue(now - start >= TimeUnit.MILLISECONDS.toNanos(5L));
+		long deadline = now + TimeUnit.HOURS.toNanos(1L);
+		assertTrue(timeManager.advanceTo(deadline));
+		// Skipped time adds up with the host time
+		assertTrue(timeManager.nanoTime() - deadline >= 0L);
+		assertTrue(timeManager.currentTimeMillis() >= TimeUnit.HOURS.toMillis(1L));
+	}
+
+	@Test
+	public void testSimpleTimeManager() {
+		// Host clock can not be fast-forwarded
+		assertFalse(new SimpleTimeManager().advanceTo(Long.MAX_VALUE));
+	}
+}
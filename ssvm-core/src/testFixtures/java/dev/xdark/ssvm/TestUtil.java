@@ -11,7 +11,11 @@
 import dev.xdark.ssvm.mirror.member.JavaMethod;
 import dev.xdark.ssvm.mirror.type.InstanceClass;
 import dev.xdark.ssvm.operation.VMOperations;
+import dev.xdark.ssvm.thread.ThreadManager;
 import dev.xdark.ssvm.thread.ThreadStorage;
+import dev.xdark.ssvm.thread.host.HostThreadManager;
+import dev.xdark.ssvm.timezone.TimeManager;
+import dev.xdark.ssvm.timezone.VirtualTimeManager;
 import dev.xdark.ssvm.value.InstanceValue;
 import dev.xdark.ssvm.value.ObjectValue;
 import lombok.experimental.UtilityClass;
@@ -32,27 +36,19 @@ public class TestUtil {
 
 	public final int BOOTSTRAP = 1;
 	public final int SYSTEM = 2;
+	public final int HOST_THREADS = 4;
+	public final int VIRTUAL_TIME = 8;
+	public final int OMIT_STACK_TRACE_IN_FAST_THROW = 16;
 
 	public void test(Class<?> klass, int flag, Consumer<InstanceClass> init) {
-		VirtualMachine vm = newVirtualMachine();
+		VirtualMachine vm = newVirtualMachine(flag);
 		if ((flag & BOOTSTRAP) != 0) {
 			vm.bootstrap();
 		} else {
 			vm.initialize();
 			vm.getThreadManager().attachCurrentThread();
 		}
-		byte[] result;
-		try (InputStream in = TestUtil.class.getClassLoader().getResourceAsStream(klass.getName().replace('.', '/') + ".class")) {
-			byte[] bytes = new byte[1024];
-			ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
-			int r;
-			while ((r = in.read(bytes)) != -1) {
-				out.write(bytes, 0, r);
-			}
-			result = out.toByteArray();
-		} catch (IOException ex) {
-			throw new RuntimeException(ex);
-		}
+		byte[] result = readClass(klass);
 		VMOperations ops = vm.getOperations();
 		ObjectValue classLoader;
 		if ((flag & SYSTEM) != 0) {
@@ -88,6 +84,35 @@ public void test(Class<?> klass, int flag, Consumer<InstanceClass> init) {
 		}
 	}
 
+	public InstanceClass defineClass(VirtualMachine vm, Class<?> klass, boolean initialize) {
+		VMOperations ops = vm.getOperations();
+		byte[] bytes = readClass(klass);
+		ObjectValue nullValue = vm.getMemoryManager().nullValue();
+		InstanceClass result = ops.defineClass(nullValue, null, bytes, 0, bytes.length, nullValue, "JVM_DefineClass");
+		if (initialize) {
+			ops.initialize(result);
+		}
+		return result;
+	}
+
+	public InstanceClass defineClass(VirtualMachine vm, Class<?> klass) {
+		return defineClass(vm, klass, true);
+	}
+
+	public byte[] readClass(Class<?> klass) {
+		try (InputStream in = TestUtil.class.getClassLoader().getResourceAsStream(klass.getName().replace('.', '/') + ".class")) {
+			byte[] bytes = new byte[1024];
+			ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+			int r;
+			while ((r = in.read(bytes)) != -1) {
+				out.write(bytes, 0, r);
+			}
+			return out.toByteArray();
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
 	private static void handleException(VirtualMachine vm, VMException ex) {
 		InstanceValue oop = ex.getOop();
 		if (oop.getJavaClass() == vm.getSymbols().java_lang_ExceptionInInitializerError()) {
@@ -118,12 +143,38 @@ public void test(Class<?> klass) {
 	}
 
 	public VirtualMachine newVirtualMachine() {
+		return newVirtualMachine(0);
+	}
+
+	public VirtualMachine newVirtualMachine(int flag) {
 		return new VirtualMachine() {
+			@Override
+			protected ThreadManager createThreadManager() {
+				if ((flag & HOST_THREADS) != 0) {
+					return new HostThreadManager(this);
+				}
+				return super.createThreadManager();
+			}
+
+			@Override
+			protected TimeManager createTimeManager() {
+				if ((flag & VIRTUAL_TIME) != 0) {
+					// Clock only moves when it is fast-forwarded
+					return new VirtualTimeManager(System.currentTimeMillis(), false);
+				}
+				return super.createTimeManager();
+			}
+
 			@Override
 			protected FileManager createFileManager() {
 				return new HostFileManager();
 			}
 
+			@Override
+			public boolean isOmitStackTraceInFastThrow() {
+				return (flag & OMIT_STACK_TRACE_IN_FAST_THROW) != 0;
+			}
+
 			@Override
 			protected MemoryAllocator createMemoryAllocator() {
 				return new SynchronizedMemoryAllocator(super.createMemoryAllocator());
@@ -0,0 +1,130 @@
+package dev.xdark.ssvm.classloading;
+
+import dev.xdark.ssvm.VirtualMachine;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.util.IOUtil;
+import dev.xdark.ssvm.value.ObjectValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Defines whole jars or directories of classes into a class loader in one batch,
+ * bypassing {@code ClassLoader.defineClass} calls in the VM.
+ * <p>
+ * Classes are parsed in parallel and then defined with
+ * {@link dev.xdark.ssvm.operation.ClassOperations#defineClasses}, which takes the loader lock
+ * once and defines super types before their subtypes.
+ * The {@link ClassDefiner} of the VM must be thread-safe.
+ *
+ * @author xDark
+ */
+public class BatchClassDefiner {
+	private static final String CLASS_SUFFIX = ".class";
+
+	/**
+	 * @param vm
+	 * 		Virtual machine to define classes in.
+	 * @param classLoader
+	 * 		Class loader to define classes in, may be the null value for the boot loader.
+	 * @param path
+	 * 		Path to ZIP/JAR file.
+	 *
+	 * @return Defined classes.
+	 *
+	 * @throws IOException
+	 * 		When the ZIP file could not be read.
+	 */
+	public static List<InstanceClass> defineFromZip(VirtualMachine vm, ObjectValue classLoader, Path path) throws IOException {
+		Map<String, byte[]> classes = new LinkedHashMap<>();
+		try (ZipFile zipFile = new ZipFile(path.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (isClassFile(name)) {
+					InputStream stream = zipFile.getInputStream(entry);
+					classes.put(name, IOUtil.readAll(stream));
+				}
+			}
+		}
+		return defineFromMap(vm, classLoader, classes, path.toString());
+	}
+
+	/**
+	 * @param vm
+	 * 		Virtual machine to define classes in.
+	 * @param classLoader
+	 * 		Class loader to define classes in, may be the null value for the boot loader.
+	 * @param path
+	 * 		Root directory to pull classes from.
+	 *
+	 * @return Defined classes.
+	 *
+	 * @throws IOException
+	 * 		When the path was not a directory, or a file could not be read.
+	 */
+	public static List<InstanceClass> defineFromDirectory(VirtualMachine vm, ObjectValue classLoader, Path path) throws IOException {
+		if (!Files.isDirectory(path))
+			throw new IOException("Path was not a directory: " + path);
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(path)) {
+			files = stream.filter(Files::isRegularFile)
+					.filter(p -> isClassFile(path.relativize(p).toString().replace('\\', '/')))
+					.collect(Collectors.toList());
+		}
+		Map<String, byte[]> classes = new LinkedHashMap<>(files.size());
+		for (Path file : files)
+			classes.put(path.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+		return defineFromMap(vm, classLoader, classes, path.toString());
+	}
+
+	/**
+	 * @param vm
+	 * 		Virtual machine to define classes in.
+	 * @param classLoader
+	 * 		Class loader to define classes in, may be the null value for the boot loader.
+	 * @param classes
+	 * 		Map of file names, used for error reporting only, to class bytecode.
+	 * @param source
+	 * 		Source of the classes.
+	 *
+	 * @return Defined classes.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		When one of the classes could not be parsed.
+	 */
+	public static List<InstanceClass> defineFromMap(VirtualMachine vm, ObjectValue classLoader, Map<String, byte[]> classes, String source) {
+		ClassDefiner definer = vm.getClassDefiner();
+		List<ParsedClassData> parsed = new ArrayList<>(classes.entrySet()).parallelStream()
+				.map(entry -> {
+					byte[] bytes = entry.getValue();
+					ParsedClassData data = definer.parseClass(null, bytes, 0, bytes.length, source);
+					if (data == null)
+						throw new IllegalArgumentException("Could not parse class: " + entry.getKey());
+					return data;
+				})
+				.collect(Collectors.toList());
+		ObjectValue nullValue = vm.getMemoryManager().nullValue();
+		return vm.getOperations().defineClasses(classLoader, parsed, nullValue, source);
+	}
+
+	private static boolean isClassFile(String name) {
+		// Skip module descriptors and multi-release overrides,
+		// those cannot be defined as regular classes.
+		return name.endsWith(CLASS_SUFFIX)
+				&& !name.endsWith("module-info.class")
+				&& !name.startsWith("META-INF/");
+	}
+}
@@ -0,0 +1,57 @@
+package dev.xdark.ssvm;
+
+import dev.xdark.ssvm.classloading.BatchClassDefiner;
+import dev.xdark.ssvm.dummy.FileStream;
+import dev.xdark.ssvm.dummy.RandomProvider;
+import dev.xdark.ssvm.filesystem.FileManager;
+import dev.xdark.ssvm.filesystem.HostFileManager;
+import dev.xdark.ssvm.mirror.type.InstanceClass;
+import dev.xdark.ssvm.util.IOUtil;
+import dev.xdark.ssvm.value.InstanceValue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static dev.xdark.ssvm.classloading.SupplyingClassLoaderInstaller.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BatchClassDefiner}
+ */
+public class BatchClassDefinerTest {
+	private static VirtualMachine vm;
+
+	@BeforeAll
+	public static void setup() {
+		vm = new VirtualMachine() {
+			@Override
+			protected FileManager createFileManager() {
+				return new HostFileManager();
+			}
+		};
+		vm.getProperties().put("java.class.path", "");
+		vm.bootstrap();
+	}
+
+	@Test
+	public void testDefineFromMap() throws IOException {
+		Helper helper = install(vm, supplyNothing());
+		InstanceValue loader = helper.getClassLoaderInstance();
+
+		Map<String, byte[]> classes = new LinkedHashMap<>();
+		for (Class<?> c : new Class[]{RandomProvider.class, FileStream.class}) {
+			String name = c.getName().replace('.', '/') + ".class";
+			classes.put(name, IOUtil.readAll(ClassLoader.getSystemResourceAsStream(name)));
+		}
+		List<InstanceClass> defined = BatchClassDefiner.defineFromMap(vm, loader, classes, "test");
+		assertEquals(2, defined.size());
+
+		// Classes must be visible through the loader without asking the supplier
+		InstanceClass random = assertDoesNotThrow(() -> helper.loadClass(RandomProvider.class.getName()));
+		assertSame(defined.get(0), random);
+	}
+}